@@ -0,0 +1,29 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+
+import java.time.Duration;
+
+/**
+ * Builds the Apache HttpClient based transport, applying all the transport settings.
+ * <p>
+ * Only compiled with {@code -PhttpClients=apache}.
+ * </p>
+ */
+@RegisterForReflection
+public class ApacheHttpClientFactory implements HttpClientFactory {
+
+    @Override
+    public SdkHttpClient build(ConfigService configService) {
+        return ApacheHttpClient.builder()
+                .maxConnections(configService.getHttpMaxConnections())
+                .connectionTimeToLive(Duration.ofMillis(configService.getHttpConnectionTtlMillis()))
+                .tcpKeepAlive(configService.isHttpTcpKeepAlive())
+                .connectionTimeout(Duration.ofMillis(configService.getHttpConnectTimeoutMillis()))
+                .socketTimeout(Duration.ofMillis(configService.getHttpReadTimeoutMillis()))
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+
+import java.time.Duration;
+
+/**
+ * Builds the AWS Common Runtime based transport, applying all the transport settings but the read timeout.
+ * The connection TTL is applied as the maximum idle time of a connection.
+ * <p>
+ * Only compiled with {@code -PhttpClients=crt}.
+ * </p>
+ */
+@RegisterForReflection
+public class CrtHttpClientFactory implements HttpClientFactory {
+
+    @Override
+    public SdkHttpClient build(ConfigService configService) {
+        AwsCrtHttpClient.Builder builder = AwsCrtHttpClient.builder()
+                .maxConcurrency(configService.getHttpMaxConnections())
+                .connectionMaxIdleTime(Duration.ofMillis(configService.getHttpConnectionTtlMillis()))
+                .connectionTimeout(Duration.ofMillis(configService.getHttpConnectTimeoutMillis()));
+        if (configService.isHttpTcpKeepAlive()) {
+            builder.tcpKeepAliveConfiguration(keepAlive -> keepAlive
+                    .keepAliveInterval(Duration.ofSeconds(30))
+                    .keepAliveTimeout(Duration.ofSeconds(5)));
+        }
+        return builder.build();
+    }
+}
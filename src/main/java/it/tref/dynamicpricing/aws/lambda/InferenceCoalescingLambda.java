@@ -0,0 +1,54 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import it.tref.dynamicpricing.aws.lambda.service.InferenceCoalescingService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point of the Lambda consuming the inference coalescing queue, which forwards to the prediction queue the
+ * inference messages still matching the revision of their listing.
+ * <p>
+ * The event source mapping should enable {@code ReportBatchItemFailures}, so that only the failed messages are
+ * redelivered. Selected with {@code LAMBDA_HANDLER=inference-coalescing}.
+ * </p>
+ */
+@Named("inference-coalescing")
+public class InferenceCoalescingLambda implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(InferenceCoalescingLambda.class);
+
+    private final InferenceCoalescingService inferenceCoalescingService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new InferenceCoalescingLambda.
+     *
+     * @param inferenceCoalescingService the service forwarding the current messages.
+     * @param invocationDeadline the deadline of the current invocation, started from the Lambda context.
+     */
+    public InferenceCoalescingLambda(InferenceCoalescingService inferenceCoalescingService,
+                                     InvocationDeadline invocationDeadline) {
+        this.inferenceCoalescingService = inferenceCoalescingService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Handles a batch of delayed inference messages.
+     *
+     * @param event   the SQS event.
+     * @param context the Lambda execution context.
+     * @return the messages that could not be processed.
+     */
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        invocationDeadline.start(context);
+        logger.info("Received {} inference messages to coalesce", event.getRecords().size());
+        return inferenceCoalescingService.forward(event);
+    }
+}
@@ -6,6 +6,8 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
 import it.tref.dynamicpricing.aws.lambda.handler.*;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.http.HttpStatusCode;
@@ -17,43 +19,63 @@ import java.util.Map;
  * Entry point for the Listing Management Lambda.
  * <p>
  * This class implements the AWS Lambda RequestHandler interface and routes incoming
- * API Gateway events to the appropriate handler (create, update, delete, retrieve and list listing).
+ * API Gateway events to the appropriate handler (create, batch create, update, patch, delete, retrieve and list listing).
+ * POST requests whose path ends with {@value #BATCH_PATH_SUFFIX} are routed to the batch create handler.
  * The API Gateway is configured with a Cognito authorizer so that only authenticated
  * requests reach this entrypoint.
  * </p>
  */
+@Named("listings")
 public class ListingManagementLambda implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private static final Logger logger = LoggerFactory.getLogger(ListingManagementLambda.class);
 
+    /**
+     * Path suffix of the batch create route ({@code POST /listings:batch}).
+     */
+    static final String BATCH_PATH_SUFFIX = ":batch";
+
     private final CreateListingHandler createListingHandler;
+    private final BatchCreateListingHandler batchCreateListingHandler;
     private final UpdateListingHandler updateListingHandler;
+    private final PatchListingHandler patchListingHandler;
     private final RetrieveListingHandler retrieveListingHandler;
     private final ListListingHandler listListingHandler;
     private final DeleteListingHandler deleteListingHandler;
     private final ConfigService configService;
+    private final InvocationDeadline invocationDeadline;
 
     /**
      * Constructs a new ListingManagementLambda with the given handlers.
      *
      * @param createListingHandler  the handler for creating listings.
+     * @param batchCreateListingHandler the handler for creating several listings at once.
      * @param updateListingHandler  the handler for updating listings.
+     * @param patchListingHandler   the handler for partially updating listings.
      * @param retrieveListingHandler the handler for retrieving listings.
      * @param deleteListingHandler  the handler for deleting listings.
      * @param listListingHandler    the handler for listing all listings.
+     * @param configService         the configuration service that provides the allowed origin.
+     * @param invocationDeadline    the deadline of the current invocation, started from the Lambda context.
      */
     public ListingManagementLambda(CreateListingHandler createListingHandler,
+                                   BatchCreateListingHandler batchCreateListingHandler,
                                    UpdateListingHandler updateListingHandler,
+                                   PatchListingHandler patchListingHandler,
                                    RetrieveListingHandler retrieveListingHandler,
                                    DeleteListingHandler deleteListingHandler,
                                    ListListingHandler listListingHandler,
-                                   ConfigService configService) {
+                                   ConfigService configService,
+                                   InvocationDeadline invocationDeadline) {
         this.createListingHandler = createListingHandler;
+        this.batchCreateListingHandler = batchCreateListingHandler;
         this.updateListingHandler = updateListingHandler;
+        this.patchListingHandler = patchListingHandler;
         this.retrieveListingHandler = retrieveListingHandler;
         this.deleteListingHandler = deleteListingHandler;
         this.listListingHandler = listListingHandler;
         this.configService = configService;
+        this.invocationDeadline = invocationDeadline;
     }
 
     /**
@@ -65,6 +87,7 @@ public class ListingManagementLambda implements RequestHandler<APIGatewayProxyRe
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        invocationDeadline.start(context);
         logger.info("Received request: {}", input);
         String method = input.getHttpMethod();
         logger.info("HTTP Method: {}", method);
@@ -72,11 +95,19 @@ public class ListingManagementLambda implements RequestHandler<APIGatewayProxyRe
         APIGatewayProxyResponseEvent response;
         switch (method) {
             case "POST":
-                response = createListingHandler.handleEvent(input);
+                String path = input.getPath();
+                if (path != null && path.endsWith(BATCH_PATH_SUFFIX)) {
+                    response = batchCreateListingHandler.handleEvent(input);
+                } else {
+                    response = createListingHandler.handleEvent(input);
+                }
                 break;
             case "PUT":
                 response = updateListingHandler.handleEvent(input);
                 break;
+            case "PATCH":
+                response = patchListingHandler.handleEvent(input);
+                break;
             case "DELETE":
                 response = deleteListingHandler.handleEvent(input);
                 break;
@@ -101,8 +132,9 @@ public class ListingManagementLambda implements RequestHandler<APIGatewayProxyRe
             headers.putAll(response.getHeaders());
         }
         headers.put("Access-Control-Allow-Origin", configService.getDomainUrl());
-        headers.put("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        headers.put("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        headers.put("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
+        headers.put("Access-Control-Allow-Headers", "Content-Type, Authorization, Idempotency-Key");
+        headers.put("Access-Control-Expose-Headers", "Location, X-Next-Cursor, Retry-After");
         response.setHeaders(headers);
 
         return response;
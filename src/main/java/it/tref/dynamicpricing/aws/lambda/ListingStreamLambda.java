@@ -0,0 +1,53 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import it.tref.dynamicpricing.aws.lambda.service.ListingStreamService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point of the Lambda consuming the DynamoDB Stream of the listing table, which sends the inference
+ * messages when {@code INFERENCE_DISPATCH_MODE=stream}.
+ * <p>
+ * The event source mapping should enable {@code ReportBatchItemFailures}, so that only the records from the
+ * first failed one are retried. Selected with {@code LAMBDA_HANDLER=listing-stream}.
+ * </p>
+ */
+@Named("listing-stream")
+public class ListingStreamLambda implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingStreamLambda.class);
+
+    private final ListingStreamService listingStreamService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new ListingStreamLambda.
+     *
+     * @param listingStreamService the service sending the inference messages of the stream records.
+     * @param invocationDeadline the deadline of the current invocation, started from the Lambda context.
+     */
+    public ListingStreamLambda(ListingStreamService listingStreamService, InvocationDeadline invocationDeadline) {
+        this.listingStreamService = listingStreamService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Handles a batch of stream records.
+     *
+     * @param event   the stream event.
+     * @param context the Lambda execution context.
+     * @return the records whose message could not be sent.
+     */
+    @Override
+    public StreamsEventResponse handleRequest(DynamodbEvent event, Context context) {
+        invocationDeadline.start(context);
+        logger.info("Received {} stream records", event.getRecords().size());
+        return listingStreamService.dispatch(event);
+    }
+}
@@ -0,0 +1,82 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingTableBackfillResponse;
+import it.tref.dynamicpricing.aws.lambda.service.ListingTableBackfillService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entry point of the one-off Lambda that copies the legacy listing table to the user-partitioned one.
+ * <p>
+ * The event may carry the {@code totalSegments} and {@code segments} returned by the previous invocation to resume
+ * the copy; the copy is complete once an invocation reports it. Selected with
+ * {@code LAMBDA_HANDLER=listing-table-backfill}.
+ * </p>
+ */
+@Named("listing-table-backfill")
+public class ListingTableBackfillLambda implements RequestHandler<Map<String, Object>, ListingTableBackfillResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingTableBackfillLambda.class);
+
+    private final ListingTableBackfillService listingTableBackfillService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new ListingTableBackfillLambda.
+     *
+     * @param listingTableBackfillService the service copying the listing table.
+     * @param invocationDeadline          the deadline of the current invocation, started from the Lambda context.
+     */
+    public ListingTableBackfillLambda(ListingTableBackfillService listingTableBackfillService,
+                                      InvocationDeadline invocationDeadline) {
+        this.listingTableBackfillService = listingTableBackfillService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Runs the copy, from the segment keys of the event if any.
+     *
+     * @param input   the event, optionally carrying the {@code totalSegments} and {@code segments} to resume from.
+     * @param context the Lambda execution context.
+     * @return the outcome of the run.
+     */
+    @Override
+    public ListingTableBackfillResponse handleRequest(Map<String, Object> input, Context context) {
+        invocationDeadline.start(context);
+        Integer totalSegments = input != null && input.get("totalSegments") instanceof Number
+                ? ((Number) input.get("totalSegments")).intValue()
+                : null;
+        ListingTableBackfillResponse response = listingTableBackfillService.backfill(totalSegments, segments(input));
+        logger.info("Listing table backfill run completed: {}", response);
+        return response;
+    }
+
+    /**
+     * Reads the segment keys of the event, each made of string attributes; a segment without a key starts from
+     * its beginning.
+     */
+    private static Map<Integer, Map<String, String>> segments(Map<String, Object> input) {
+        if (input == null || !(input.get("segments") instanceof Map)) {
+            return null;
+        }
+        Map<Integer, Map<String, String>> segments = new HashMap<>();
+        ((Map<?, ?>) input.get("segments")).forEach((segment, key) -> {
+            Map<String, String> startKey = null;
+            if (key instanceof Map) {
+                startKey = new HashMap<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) key).entrySet()) {
+                    startKey.put(entry.getKey().toString(), entry.getValue().toString());
+                }
+            }
+            segments.put(Integer.parseInt(segment.toString()), startKey);
+        });
+        return segments;
+    }
+}
@@ -0,0 +1,54 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import it.tref.dynamicpricing.aws.lambda.dto.OutboxRelayResponse;
+import it.tref.dynamicpricing.aws.lambda.service.OutboxRelayService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Entry point of the Lambda that relays the inference messages stored in the outbox to the SQS queue.
+ * <p>
+ * Meant to be invoked on a schedule (e.g. an EventBridge rule); the content of the event is ignored.
+ * Selected with {@code LAMBDA_HANDLER=outbox-relay}.
+ * </p>
+ */
+@Named("outbox-relay")
+public class OutboxRelayLambda implements RequestHandler<Map<String, Object>, OutboxRelayResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelayLambda.class);
+
+    private final OutboxRelayService outboxRelayService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new OutboxRelayLambda.
+     *
+     * @param outboxRelayService the service draining the outbox.
+     * @param invocationDeadline the deadline of the current invocation, started from the Lambda context.
+     */
+    public OutboxRelayLambda(OutboxRelayService outboxRelayService, InvocationDeadline invocationDeadline) {
+        this.outboxRelayService = outboxRelayService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Relays the outbox records to the queue.
+     *
+     * @param input   the scheduled event, ignored.
+     * @param context the Lambda execution context.
+     * @return the outcome of the relay.
+     */
+    @Override
+    public OutboxRelayResponse handleRequest(Map<String, Object> input, Context context) {
+        invocationDeadline.start(context);
+        OutboxRelayResponse response = outboxRelayService.relay();
+        logger.info("Outbox relay completed: {}", response);
+        return response;
+    }
+}
@@ -0,0 +1,58 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import it.tref.dynamicpricing.aws.lambda.dto.PendingSweepResponse;
+import it.tref.dynamicpricing.aws.lambda.service.PendingListingSweepService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Entry point of the maintenance Lambda that sends the listings stuck waiting for their prediction
+ * to the inference queue again.
+ * <p>
+ * Meant to be invoked on a schedule (e.g. an EventBridge rule); the content of the event is ignored.
+ * The same image serves every entry point, selected with the {@code LAMBDA_HANDLER} environment variable
+ * ({@code listings}, {@code listing-stream}, {@code prediction-result}, {@code pending-sweep}, {@code outbox-relay},
+ * {@code user-shard-backfill} or {@code listing-table-backfill}).
+ * </p>
+ */
+@Named("pending-sweep")
+public class PendingListingSweepLambda implements RequestHandler<Map<String, Object>, PendingSweepResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingListingSweepLambda.class);
+
+    private final PendingListingSweepService pendingListingSweepService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new PendingListingSweepLambda.
+     *
+     * @param pendingListingSweepService the service sweeping the pending listings.
+     * @param invocationDeadline the deadline of the current invocation, started from the Lambda context.
+     */
+    public PendingListingSweepLambda(PendingListingSweepService pendingListingSweepService, InvocationDeadline invocationDeadline) {
+        this.pendingListingSweepService = pendingListingSweepService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Runs a sweep of the pending listings.
+     *
+     * @param input   the scheduled event, ignored.
+     * @param context the Lambda execution context.
+     * @return the outcome of the sweep.
+     */
+    @Override
+    public PendingSweepResponse handleRequest(Map<String, Object> input, Context context) {
+        invocationDeadline.start(context);
+        PendingSweepResponse response = pendingListingSweepService.requeueStuckListings(Instant.now());
+        logger.info("Pending sweep completed: {}", response);
+        return response;
+    }
+}
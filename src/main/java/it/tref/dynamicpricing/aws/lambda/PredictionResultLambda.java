@@ -0,0 +1,53 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import it.tref.dynamicpricing.aws.lambda.service.PredictionResultService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point of the Lambda consuming the prediction results queue, which writes the predictions sent back by the
+ * inference side to the listings.
+ * <p>
+ * The event source mapping should enable {@code ReportBatchItemFailures}, so that only the failed messages are
+ * redelivered. Selected with {@code LAMBDA_HANDLER=prediction-result}.
+ * </p>
+ */
+@Named("prediction-result")
+public class PredictionResultLambda implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PredictionResultLambda.class);
+
+    private final PredictionResultService predictionResultService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new PredictionResultLambda.
+     *
+     * @param predictionResultService the service writing the predictions of the messages.
+     * @param invocationDeadline the deadline of the current invocation, started from the Lambda context.
+     */
+    public PredictionResultLambda(PredictionResultService predictionResultService, InvocationDeadline invocationDeadline) {
+        this.predictionResultService = predictionResultService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Handles a batch of prediction result messages.
+     *
+     * @param event   the SQS event.
+     * @param context the Lambda execution context.
+     * @return the messages that could not be processed.
+     */
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        invocationDeadline.start(context);
+        logger.info("Received {} prediction results", event.getRecords().size());
+        return predictionResultService.apply(event);
+    }
+}
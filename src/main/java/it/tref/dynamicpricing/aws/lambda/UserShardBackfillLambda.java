@@ -0,0 +1,68 @@
+package it.tref.dynamicpricing.aws.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import it.tref.dynamicpricing.aws.lambda.dto.UserShardBackfillResponse;
+import it.tref.dynamicpricing.aws.lambda.service.UserShardBackfillService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entry point of the one-off Lambda that writes the sharded user index key of the existing listings.
+ * <p>
+ * The event may carry the {@code startKey} returned by the previous invocation to resume the backfill;
+ * the backfill is complete once an invocation reports it. Selected with {@code LAMBDA_HANDLER=user-shard-backfill}.
+ * </p>
+ */
+@Named("user-shard-backfill")
+public class UserShardBackfillLambda implements RequestHandler<Map<String, Object>, UserShardBackfillResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserShardBackfillLambda.class);
+
+    private final UserShardBackfillService userShardBackfillService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new UserShardBackfillLambda.
+     *
+     * @param userShardBackfillService the service writing the sharded user index keys.
+     * @param invocationDeadline       the deadline of the current invocation, started from the Lambda context.
+     */
+    public UserShardBackfillLambda(UserShardBackfillService userShardBackfillService,
+                                   InvocationDeadline invocationDeadline) {
+        this.userShardBackfillService = userShardBackfillService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Runs the backfill, from the start key of the event if any.
+     *
+     * @param input   the event, optionally carrying the {@code startKey} to resume from.
+     * @param context the Lambda execution context.
+     * @return the outcome of the run.
+     */
+    @Override
+    public UserShardBackfillResponse handleRequest(Map<String, Object> input, Context context) {
+        invocationDeadline.start(context);
+        UserShardBackfillResponse response = userShardBackfillService.backfill(startKey(input));
+        logger.info("User shard backfill run completed: {}", response);
+        return response;
+    }
+
+    /**
+     * Reads the start key of the event, made of string attributes.
+     */
+    private static Map<String, String> startKey(Map<String, Object> input) {
+        if (input == null || !(input.get("startKey") instanceof Map)) {
+            return null;
+        }
+        Map<String, String> startKey = new HashMap<>();
+        ((Map<?, ?>) input.get("startKey")).forEach((name, value) -> startKey.put(name.toString(), value.toString()));
+        return startKey;
+    }
+}
@@ -1,5 +1,11 @@
 package it.tref.dynamicpricing.aws.lambda.aop;
 
+import it.tref.dynamicpricing.aws.lambda.client.AdaptiveRateLimiter;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
+import it.tref.dynamicpricing.aws.lambda.util.FutureUtil;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.inject.Inject;
 import jakarta.interceptor.AroundInvoke;
 import jakarta.interceptor.Interceptor;
 import jakarta.interceptor.InvocationContext;
@@ -10,6 +16,10 @@ import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExcee
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 /**
  * Interceptor that handles errors arising from DynamoDB operations.
  * <p>
@@ -17,6 +27,16 @@ import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
  * {@code @DynamoDBErrorHandled}. It intercepts method invocations and logs
  * DynamoDB-related exceptions.
  * </p>
+ * <p>
+ * Operations throttled by DynamoDB are retried with full-jitter exponential backoff, up to the configured number
+ * of attempts and only while the backoff fits in the remaining time of the invocation, keeping
+ * {@value #RESPONSE_RESERVE_MILLIS} ms to answer. Only the outermost intercepted operation is retried, so nested
+ * operations do not multiply the attempts. The calls themselves are slowed down by the {@link AdaptiveRateLimiter}.
+ * </p>
+ * <p>
+ * Operations returning a {@link CompletableFuture}, such as those of the asynchronous repository, are retried the
+ * same way when their future fails because of throttling, after a non-blocking delay instead of a sleep.
+ * </p>
  */
 @Interceptor
 @DynamoDBErrorHandled
@@ -24,8 +44,128 @@ public class DynamoDBErrorHandlingInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBErrorHandlingInterceptor.class);
 
+    /**
+     * Time kept to build and return the response once the retries are given up, in milliseconds.
+     */
+    static final long RESPONSE_RESERVE_MILLIS = 500;
+
+    private static final ThreadLocal<Boolean> RETRYING = ThreadLocal.withInitial(() -> false);
+
+    private final AdaptiveRateLimiter adaptiveRateLimiter;
+    private final InvocationDeadline invocationDeadline;
+    private final int maxAttempts;
+
+    /**
+     * Constructs a new DynamoDBErrorHandlingInterceptor.
+     *
+     * @param adaptiveRateLimiter the limiter recording the throttling and the retries.
+     * @param invocationDeadline  the deadline of the current invocation, bounding the retries.
+     * @param configService       the configuration service that provides the maximum number of attempts.
+     */
+    @Inject
+    public DynamoDBErrorHandlingInterceptor(AdaptiveRateLimiter adaptiveRateLimiter,
+                                            InvocationDeadline invocationDeadline,
+                                            ConfigService configService) {
+        this.adaptiveRateLimiter = adaptiveRateLimiter;
+        this.invocationDeadline = invocationDeadline;
+        this.maxAttempts = Math.max(1, configService.getDynamoDbThrottleMaxAttempts());
+    }
+
     @AroundInvoke
     public Object handleDynamoDBErrors(InvocationContext ctx) throws Exception {
+        if (RETRYING.get()) {
+            return proceed(ctx);
+        }
+        RETRYING.set(true);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    Object result = proceed(ctx);
+                    return result instanceof CompletableFuture<?> future ? retryingAsync(ctx, future, attempt) : result;
+                } catch (DynamoDbException e) {
+                    if (!AdaptiveRateLimiter.isThrottling(e) || !backOff(ctx, attempt)) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            RETRYING.remove();
+        }
+    }
+
+    /**
+     * Waits before retrying a throttled operation, if another attempt is allowed and fits in the invocation.
+     *
+     * @return true if the operation must be retried, false to give up.
+     */
+    private boolean backOff(InvocationContext ctx, int attempt) {
+        long delay = retryDelayMillis(ctx, attempt);
+        if (delay < 0) {
+            return false;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a future completing like the given one, whose throttling failures are retried by invoking the operation
+     * again after a non-blocking delay.
+     *
+     * @param ctx     the invocation of the operation.
+     * @param future  the future returned by the given attempt of the operation.
+     * @param attempt the zero-based attempt.
+     * @return the future of the last attempt.
+     */
+    private CompletableFuture<Object> retryingAsync(InvocationContext ctx, CompletableFuture<?> future, int attempt) {
+        return future.<CompletableFuture<Object>>handle((value, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture((Object) value);
+            }
+            long delay = AdaptiveRateLimiter.isThrottling(FutureUtil.unwrap(error)) ? retryDelayMillis(ctx, attempt) : -1;
+            if (delay < 0) {
+                return CompletableFuture.failedFuture(error);
+            }
+            return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> {
+                        try {
+                            return retryingAsync(ctx, (CompletableFuture<?>) proceed(ctx), attempt + 1);
+                        } catch (Exception e) {
+                            return CompletableFuture.failedFuture(e);
+                        }
+                    });
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Computes the delay before retrying a throttled operation, if another attempt is allowed and fits in the
+     * invocation, and records the retry.
+     *
+     * @return the delay in milliseconds, or -1 to give up.
+     */
+    private long retryDelayMillis(InvocationContext ctx, int attempt) {
+        if (attempt + 1 >= maxAttempts) {
+            logger.error("Throttled in method {} after {} attempts, giving up. {}",
+                    ctx.getMethod().getName(), attempt + 1, adaptiveRateLimiter);
+            return -1;
+        }
+        long delay = BackoffUtil.delayMillis(attempt);
+        if (delay + RESPONSE_RESERVE_MILLIS > invocationDeadline.remainingMillis()) {
+            logger.error("Throttled in method {}, no time left to retry after {} attempts. {}",
+                    ctx.getMethod().getName(), attempt + 1, adaptiveRateLimiter);
+            return -1;
+        }
+        adaptiveRateLimiter.onRetry();
+        logger.warn("Throttled in method {}, retrying in {} ms (attempt {} of {})",
+                ctx.getMethod().getName(), delay, attempt + 2, maxAttempts);
+        return delay;
+    }
+
+    private Object proceed(InvocationContext ctx) throws Exception {
         try {
             return ctx.proceed();
         } catch (ResourceNotFoundException rnfe) {
@@ -37,8 +177,8 @@ public class DynamoDBErrorHandlingInterceptor {
                     ctx.getMethod().getName(), ccfe.getMessage(), ccfe);
             throw ccfe;
         } catch (ProvisionedThroughputExceededException ptee) {
-            logger.error("Throughput exceeded in method {}. Error: {}. Review provisioned limits.",
-                    ctx.getMethod().getName(), ptee.getMessage(), ptee);
+            logger.warn("Throughput exceeded in method {}. Error: {}. Review provisioned limits.",
+                    ctx.getMethod().getName(), ptee.getMessage());
             throw ptee;
         } catch (DynamoDbException dde) {
             logger.error("DynamoDB exception in method {}. Error: {}.",
@@ -1,6 +1,8 @@
 package it.tref.dynamicpricing.aws.lambda.aop;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import it.tref.dynamicpricing.aws.lambda.client.AdaptiveRateLimiter;
+import it.tref.dynamicpricing.aws.lambda.exception.ConflictException;
 import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
 import jakarta.interceptor.AroundInvoke;
 import jakarta.interceptor.Interceptor;
@@ -9,11 +11,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.http.HttpStatusCode;
 
+import java.util.Map;
+
 /**
  * Interceptor that handles errors thrown by Lambda handler methods.
  * <p>
  * It intercepts method invocations and converts exceptions such as JSON processing errors,
  * validation errors, or other exceptions into an appropriate APIGatewayProxyResponseEvent.
+ * DynamoDB throttling that outlasted the retries is answered with {@code 503 Service Unavailable} and a
+ * {@code Retry-After} header, so that clients back off instead of treating it as a server failure, and a request
+ * conflicting with another one still running is answered with {@code 409 Conflict} and the same header.
  * Exceptions are also logged.
  * </p>
  */
@@ -23,6 +30,16 @@ public class ErrorHandlingInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(ErrorHandlingInterceptor.class);
 
+    /**
+     * Seconds the clients are asked to wait before retrying a throttled request.
+     */
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * Status code of a request conflicting with another one still running.
+     */
+    static final int CONFLICT = 409;
+
     @AroundInvoke
     public Object handleErrors(InvocationContext context) throws Exception {
         try {
@@ -32,12 +49,25 @@ public class ErrorHandlingInterceptor {
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(HttpStatusCode.BAD_REQUEST)
                     .withBody("Invalid request payload");
+        } catch (ConflictException e) {
+            logger.warn("Conflicting request: {}", e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(CONFLICT)
+                    .withHeaders(Map.of("Retry-After", RETRY_AFTER_SECONDS))
+                    .withBody(e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("Validation error: {}", e.getMessage(), e);
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(HttpStatusCode.BAD_REQUEST)
                     .withBody(e.getMessage());
         } catch (Exception e) {
+            if (AdaptiveRateLimiter.isThrottling(e)) {
+                logger.warn("Request throttled: {}", e.getMessage());
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(HttpStatusCode.SERVICE_UNAVAILABLE)
+                        .withHeaders(Map.of("Retry-After", RETRY_AFTER_SECONDS))
+                        .withBody("Service busy, retry later");
+            }
             logger.error("Internal error: {}", e.getMessage(), e);
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR)
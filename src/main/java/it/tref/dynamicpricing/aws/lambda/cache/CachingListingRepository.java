@@ -0,0 +1,220 @@
+package it.tref.dynamicpricing.aws.lambda.cache;
+
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import jakarta.annotation.Priority;
+import jakarta.decorator.Decorator;
+import jakarta.decorator.Delegate;
+import jakarta.inject.Inject;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Decorator adding a read-through {@link ListingCache} in front of {@link ListingRepository#findById}.
+ * <p>
+ * Eventually consistent lookups are served from the cache when possible, and cached on a miss.
+ * Strongly consistent lookups always reach the datastore and refresh the cache, or leave a tombstone when the
+ * listing no longer exists.
+ * Every write made through the repository, once it completes or fails, replaces the cached entry of the written
+ * listing with a marker, so that the next lookup reads it consistently instead of caching the item as an
+ * eventually consistent read may still return it; a delete leaves a tombstone instead.
+ * </p>
+ */
+@Decorator
+@Priority(10)
+public class CachingListingRepository implements ListingRepository {
+
+    private final ListingRepository delegate;
+    private final ListingCache listingCache;
+
+    /**
+     * Constructs a new CachingListingRepository.
+     *
+     * @param delegate     the decorated repository.
+     * @param listingCache the per-container listing cache.
+     */
+    @Inject
+    public CachingListingRepository(@Delegate ListingRepository delegate, ListingCache listingCache) {
+        this.delegate = delegate;
+        this.listingCache = listingCache;
+    }
+
+    @Override
+    public void save(Listing listing) {
+        try {
+            delegate.save(listing);
+        } finally {
+            listingCache.invalidate(listing.getListingId(), listing.getUserId());
+        }
+    }
+
+    @Override
+    public void saveWithOutbox(Listing listing, ListingSqsMessage message) {
+        try {
+            delegate.saveWithOutbox(listing, message);
+        } finally {
+            listingCache.invalidate(listing.getListingId(), listing.getUserId());
+        }
+    }
+
+    @Override
+    public List<Listing> saveAll(List<Listing> listings) {
+        try {
+            return delegate.saveAll(listings);
+        } finally {
+            listings.forEach(listing -> listingCache.invalidate(listing.getListingId(), listing.getUserId()));
+        }
+    }
+
+    @Override
+    public Listing update(Listing listing) {
+        try {
+            return delegate.update(listing);
+        } finally {
+            listingCache.invalidate(listing.getListingId(), listing.getUserId());
+        }
+    }
+
+    @Override
+    public ContentUpdate updateContent(Listing listing) {
+        try {
+            return delegate.updateContent(listing);
+        } finally {
+            listingCache.invalidate(listing.getListingId(), listing.getUserId());
+        }
+    }
+
+    @Override
+    public List<Listing> saveAllWithOutbox(List<Listing> listings, List<ListingSqsMessage> messages) {
+        try {
+            return delegate.saveAllWithOutbox(listings, messages);
+        } finally {
+            listings.forEach(listing -> listingCache.invalidate(listing.getListingId(), listing.getUserId()));
+        }
+    }
+
+    @Override
+    public ContentUpdate updateContentWithOutbox(Listing listing, ListingSqsMessage message) {
+        try {
+            return delegate.updateContentWithOutbox(listing, message);
+        } finally {
+            listingCache.invalidate(listing.getListingId(), listing.getUserId());
+        }
+    }
+
+    @Override
+    public ContentUpdate patchWithOutbox(ListingPatch patch, Function<Listing, ListingSqsMessage> toMessage) {
+        try {
+            return delegate.patchWithOutbox(patch, toMessage);
+        } finally {
+            listingCache.invalidate(patch.getListingId(), patch.getUserId());
+        }
+    }
+
+    @Override
+    public ContentUpdate patch(ListingPatch patch) {
+        try {
+            return delegate.patch(patch);
+        } finally {
+            listingCache.invalidate(patch.getListingId(), patch.getUserId());
+        }
+    }
+
+    @Override
+    public Listing findById(String listingId, String userId) {
+        return findById(listingId, userId, false);
+    }
+
+    @Override
+    public Listing findById(String listingId, String userId, boolean consistentRead) {
+        boolean consistent = consistentRead;
+        if (!consistentRead) {
+            ListingCache.Lookup cached = listingCache.get(listingId, userId);
+            if (cached.isDeleted()) {
+                return null;
+            }
+            if (cached.getListing() != null) {
+                return cached.getListing();
+            }
+            // A listing written in this container may not be visible yet to an eventually consistent read
+            consistent = cached.isConsistentReadRequired();
+        }
+        Listing listing = delegate.findById(listingId, userId, consistent);
+        if (listing != null) {
+            listingCache.put(listing);
+        } else if (consistent) {
+            // The listing is gone: a stale entry must not keep serving it to eventually consistent lookups
+            listingCache.markDeleted(listingId, userId);
+        }
+        return listing;
+    }
+
+    @Override
+    public List<Listing> findByIds(List<String> listingIds, String userId, ListingView view) {
+        return delegate.findByIds(listingIds, userId, view);
+    }
+
+    @Override
+    public List<Listing> findByUserId(String userId, ListingView view) {
+        return delegate.findByUserId(userId, view);
+    }
+
+    @Override
+    public ListingPage findByUserId(String userId, int limit, Map<String, String> exclusiveStartKey, ListingView view) {
+        return delegate.findByUserId(userId, limit, exclusiveStartKey, view);
+    }
+
+    @Override
+    public ListingPage findByUserIdOrderedByCreation(String userId, CreationTimeQuery query, int limit,
+                                                     Map<String, String> exclusiveStartKey, ListingView view) {
+        return delegate.findByUserIdOrderedByCreation(userId, query, limit, exclusiveStartKey, view);
+    }
+
+    @Override
+    public ListingPage findPending(int shard, Instant pendingBefore, int limit, Map<String, String> exclusiveStartKey) {
+        return delegate.findPending(shard, pendingBefore, limit, exclusiveStartKey);
+    }
+
+    @Override
+    public boolean requeuePending(String listingId, String userId, Instant now, int maxAttempts) {
+        return delegate.requeuePending(listingId, userId, now, maxAttempts);
+    }
+
+    @Override
+    public BackfillPage backfillUserShards(int limit, Map<String, String> exclusiveStartKey) {
+        return delegate.backfillUserShards(limit, exclusiveStartKey);
+    }
+
+    @Override
+    public List<PredictionResultMessage> applyPredictions(List<PredictionResultMessage> results) {
+        try {
+            return delegate.applyPredictions(results);
+        } finally {
+            results.forEach(result -> listingCache.invalidate(result.getListingId(), result.getUserId()));
+        }
+    }
+
+    @Override
+    public Listing delete(String listingId, String userId) {
+        Listing deleted;
+        try {
+            deleted = delegate.delete(listingId, userId);
+        } catch (RuntimeException e) {
+            listingCache.invalidate(listingId, userId);
+            throw e;
+        }
+        listingCache.markDeleted(listingId, userId);
+        return deleted;
+    }
+}
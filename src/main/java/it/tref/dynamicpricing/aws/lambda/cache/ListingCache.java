@@ -0,0 +1,155 @@
+package it.tref.dynamicpricing.aws.lambda.cache;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.util.LruTtlCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-container cache of listings, keyed by their composite key (listingId and userId).
+ * <p>
+ * The cache lives as long as the warm Lambda container; its size and TTL are set with
+ * {@code LISTING_CACHE_MAX_SIZE} and {@code LISTING_CACHE_TTL_MILLIS}. Writes made by other containers
+ * (or by the inference pipeline) are not seen until the entry expires, so the TTL bounds the staleness.
+ * </p>
+ * <p>
+ * Listings are mutable, so the cache stores a copy of every listing put and returns a copy on every hit: callers
+ * never share an instance with the cache, or with each other.
+ * </p>
+ * <p>
+ * Writes made in this container leave a marker instead of the listing: the next lookup of a written listing reads
+ * it with a strongly consistent read, so an eventually consistent read cannot cache the item as it was before the
+ * write. Deletes leave a tombstone, so the deleted listing is not served again until the entry expires.
+ * </p>
+ */
+@ApplicationScoped
+public class ListingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingCache.class);
+
+    private final LruTtlCache<String, Lookup> cache;
+
+    /**
+     * Constructs a new ListingCache.
+     *
+     * @param configService the configuration service that provides the cache size and TTL.
+     */
+    public ListingCache(ConfigService configService) {
+        this.cache = new LruTtlCache<>(configService.getListingCacheMaxSize(), configService.getListingCacheTtlMillis());
+    }
+
+    /**
+     * Looks up the given key.
+     *
+     * @param listingId the identifier of the listing.
+     * @param userId    the identifier of the user.
+     * @return the lookup, holding a copy of the listing on a hit.
+     */
+    public Lookup get(String listingId, String userId) {
+        Lookup lookup = cache.get(key(listingId, userId));
+        logger.debug("Listing cache {} for listing {} (hits {}, misses {})",
+                lookup != null ? "hit" : "miss", listingId, cache.getHits(), cache.getMisses());
+        if (lookup == null) {
+            return Lookup.MISS;
+        }
+        return lookup.listing != null ? new Lookup(lookup.listing.copy(), false, false) : lookup;
+    }
+
+    /**
+     * Caches a copy of the given listing.
+     *
+     * @param listing the listing to cache; null is ignored.
+     */
+    public void put(Listing listing) {
+        if (listing != null) {
+            cache.put(key(listing.getListingId(), listing.getUserId()), new Lookup(listing.copy(), false, false));
+        }
+    }
+
+    /**
+     * Replaces the cached listing for the given key with the marker of a write: the next lookup reads the listing
+     * consistently.
+     *
+     * @param listingId the identifier of the listing.
+     * @param userId    the identifier of the user.
+     */
+    public void invalidate(String listingId, String userId) {
+        cache.put(key(listingId, userId), Lookup.WRITTEN);
+    }
+
+    /**
+     * Replaces the cached listing for the given key with the tombstone of a deleted listing.
+     *
+     * @param listingId the identifier of the listing.
+     * @param userId    the identifier of the user.
+     */
+    public void markDeleted(String listingId, String userId) {
+        cache.put(key(listingId, userId), Lookup.DELETED);
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    private static String key(String listingId, String userId) {
+        return listingId + '\n' + userId;
+    }
+
+    /**
+     * The outcome of a cache lookup: a cached listing, the tombstone of a deleted listing, the marker of a write
+     * that requires a consistent read, or a miss.
+     */
+    public static final class Lookup {
+
+        static final Lookup MISS = new Lookup(null, false, false);
+        static final Lookup WRITTEN = new Lookup(null, false, true);
+        static final Lookup DELETED = new Lookup(null, true, false);
+
+        private final Listing listing;
+        private final boolean deleted;
+        private final boolean consistentReadRequired;
+
+        private Lookup(Listing listing, boolean deleted, boolean consistentReadRequired) {
+            this.listing = listing;
+            this.deleted = deleted;
+            this.consistentReadRequired = consistentReadRequired;
+        }
+
+        /**
+         * Returns the cached listing.
+         *
+         * @return a copy of the cached listing, or null if no listing is cached.
+         */
+        public Listing getListing() {
+            return listing;
+        }
+
+        /**
+         * Indicates whether the listing was deleted in this container.
+         *
+         * @return true for the tombstone of a deleted listing.
+         */
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        /**
+         * Indicates whether the listing was written in this container, so that it must be read consistently.
+         *
+         * @return true for the marker of a write.
+         */
+        public boolean isConsistentReadRequired() {
+            return consistentReadRequired;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side token bucket that slows the DynamoDB calls of the container down once DynamoDB starts throttling them.
+ * <p>
+ * The bucket stays inactive until a call is throttled. It then only lets calls through at a fraction of the rate
+ * measured when the throttling happened, and raises that rate again linearly while the calls succeed; once the rate
+ * is back to where the throttling happened, the bucket turns inactive again. Calls wait for a token at most until
+ * the deadline of the invocation.
+ * </p>
+ * <p>
+ * The limiter is attached to the synchronous DynamoDB client through {@link #executionInterceptor()}, which waits
+ * for the token on the calling thread. The asynchronous client only records its throttling through
+ * {@link #throttleInterceptor()}, and its calls wait for their token with {@link #acquireAsync()}, which never
+ * blocks the event loop. Throttle, retry and delay counters are kept for metrics.
+ * </p>
+ */
+@ApplicationScoped
+public class AdaptiveRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveRateLimiter.class);
+
+    /**
+     * Fraction of the measured rate the calls are slowed down to when they are throttled.
+     */
+    static final double THROTTLE_FACTOR = 0.7;
+
+    /**
+     * Fraction of the throttled rate regained each second while the calls succeed.
+     */
+    static final double RECOVERY_PER_SECOND = 0.1;
+
+    /**
+     * Seconds of calls the bucket can hold, bounding the bursts it lets through.
+     */
+    static final double BURST_SECONDS = 0.5;
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Set<String> THROTTLING_ERROR_CODES =
+            Set.of("ThrottlingException", "ProvisionedThroughputExceededException", "RequestLimitExceeded",
+                    "ThrottlingError", "ProvisionedThroughputExceeded");
+
+    private final boolean enabled;
+    private final double minRate;
+    private final InvocationDeadline invocationDeadline;
+    private final LongSupplier nanoClock;
+
+    private boolean active;
+    private double throttledRate;
+    private double rate;
+    private long throttledAtNanos;
+    private double tokens;
+    private long refilledAtNanos;
+    private long windowStartNanos;
+    private long windowCalls;
+    private double measuredRate;
+
+    private final AtomicLong throttles = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong delayedCalls = new AtomicLong();
+    private final AtomicLong delayMillis = new AtomicLong();
+
+    /**
+     * Constructs a new AdaptiveRateLimiter using the system clock.
+     *
+     * @param configService      the configuration service that provides the limiter settings.
+     * @param invocationDeadline the deadline of the current invocation, bounding the waits.
+     */
+    @Inject
+    public AdaptiveRateLimiter(ConfigService configService, InvocationDeadline invocationDeadline) {
+        this(configService.isDynamoDbRateLimiterEnabled(), configService.getDynamoDbRateLimiterMinRate(),
+                invocationDeadline, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new AdaptiveRateLimiter using the given clock.
+     *
+     * @param enabled            false to never slow the calls down, only counting throttles and retries.
+     * @param minRate            the lowest rate, in calls per second, the calls can be slowed down to.
+     * @param invocationDeadline the deadline of the current invocation, bounding the waits.
+     * @param nanoClock          the source of the current time, in nanoseconds.
+     */
+    AdaptiveRateLimiter(boolean enabled, double minRate, InvocationDeadline invocationDeadline, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.minRate = Math.max(minRate, 0.1);
+        this.invocationDeadline = invocationDeadline;
+        this.nanoClock = nanoClock;
+        this.windowStartNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Indicates whether the given error, or one of its causes, is DynamoDB throttling the call.
+     *
+     * @param error the error to inspect.
+     * @return true if the call was throttled, false otherwise.
+     */
+    public static boolean isThrottling(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProvisionedThroughputExceededException
+                    || cause instanceof RequestLimitExceededException) {
+                return true;
+            }
+            if (cause instanceof TransactionCanceledException) {
+                TransactionCanceledException canceled = (TransactionCanceledException) cause;
+                if (canceled.hasCancellationReasons() && canceled.cancellationReasons().stream()
+                        .map(CancellationReason::code)
+                        .anyMatch(THROTTLING_ERROR_CODES::contains)) {
+                    return true;
+                }
+            } else if (cause instanceof DynamoDbException) {
+                DynamoDbException exception = (DynamoDbException) cause;
+                if (exception.awsErrorDetails() != null
+                        && THROTTLING_ERROR_CODES.contains(exception.awsErrorDetails().errorCode())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes a token for an outbound call, waiting for it if the calls are being slowed down.
+     * The wait never goes past the deadline of the invocation: the call is then let through anyway,
+     * and left to fail or to be throttled.
+     */
+    public void acquire() {
+        long waitMillis = Math.min(reserve(), invocationDeadline.remainingMillis());
+        if (waitMillis <= 0) {
+            return;
+        }
+        delayedCalls.incrementAndGet();
+        delayMillis.addAndGet(waitMillis);
+        try {
+            Thread.sleep(waitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a DynamoDB call token", e);
+        }
+    }
+
+    /**
+     * Takes a token for an outbound asynchronous call, without blocking the calling thread.
+     * The wait never goes past the deadline of the invocation, as with {@link #acquire()}.
+     *
+     * @return a future completing once the call can be sent.
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        long waitMillis = Math.min(reserve(), invocationDeadline.remainingMillis());
+        if (waitMillis <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        delayedCalls.incrementAndGet();
+        delayMillis.addAndGet(waitMillis);
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Takes a token for an outbound call, possibly ahead of time.
+     *
+     * @return how long the call must wait for its token, in milliseconds.
+     */
+    synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        measure(now);
+        if (!active) {
+            return 0;
+        }
+        double currentRate = currentRate(now);
+        if (currentRate >= throttledRate) {
+            active = false;
+            logger.info("DynamoDB calls no longer slowed down, back to {} calls per second", format(currentRate));
+            return 0;
+        }
+        double capacity = Math.max(1, currentRate * BURST_SECONDS);
+        tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * currentRate / NANOS_PER_SECOND);
+        refilledAtNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1000 / currentRate);
+    }
+
+    /**
+     * Records a call throttled by DynamoDB, slowing the following calls down.
+     */
+    public synchronized void onThrottle() {
+        throttles.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        double sendingRate = active ? currentRate(now) : Math.max(measuredRate, currentWindowRate(now));
+        throttledRate = Math.max(minRate, sendingRate);
+        rate = Math.max(minRate, throttledRate * THROTTLE_FACTOR);
+        throttledAtNanos = now;
+        if (!active) {
+            tokens = 0;
+            refilledAtNanos = now;
+            active = true;
+        }
+        logger.warn("DynamoDB throttling detected, slowing calls down to {} calls per second", format(rate));
+    }
+
+    /**
+     * Records a retry of a throttled operation.
+     */
+    public void onRetry() {
+        retries.incrementAndGet();
+    }
+
+    /**
+     * Returns the rate the calls are currently let through at.
+     *
+     * @return the rate in calls per second, or {@link Double#POSITIVE_INFINITY} if the calls are not slowed down.
+     */
+    public synchronized double getCurrentRate() {
+        return active ? currentRate(nanoClock.getAsLong()) : Double.POSITIVE_INFINITY;
+    }
+
+    public long getThrottleCount() {
+        return throttles.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getDelayedCallCount() {
+        return delayedCalls.get();
+    }
+
+    public long getDelayMillis() {
+        return delayMillis.get();
+    }
+
+    /**
+     * Returns the SDK interceptor taking a token before every call of a synchronous client and recording its
+     * throttling.
+     *
+     * @return the execution interceptor to register on the synchronous DynamoDB client.
+     */
+    public ExecutionInterceptor executionInterceptor() {
+        return new ExecutionInterceptor() {
+            @Override
+            public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+                acquire();
+            }
+
+            @Override
+            public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+                if (isThrottling(context.exception())) {
+                    onThrottle();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the SDK interceptor recording the throttling of the calls of an asynchronous client. It never waits:
+     * the calls take their token beforehand with {@link #acquireAsync()}.
+     *
+     * @return the execution interceptor to register on the asynchronous DynamoDB client.
+     */
+    public ExecutionInterceptor throttleInterceptor() {
+        return new ExecutionInterceptor() {
+            @Override
+            public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+                if (isThrottling(context.exception())) {
+                    onThrottle();
+                }
+            }
+        };
+    }
+
+    /**
+     * The rate regained linearly since the last throttling.
+     */
+    private double currentRate(long now) {
+        double elapsedSeconds = (double) (now - throttledAtNanos) / NANOS_PER_SECOND;
+        return rate + throttledRate * RECOVERY_PER_SECOND * elapsedSeconds;
+    }
+
+    /**
+     * Counts the calls over one-second windows, to know the rate the calls were sent at when throttled.
+     */
+    private void measure(long now) {
+        if (now - windowStartNanos >= NANOS_PER_SECOND) {
+            measuredRate = currentWindowRate(now);
+            windowStartNanos = now;
+            windowCalls = 0;
+        }
+        windowCalls++;
+    }
+
+    private double currentWindowRate(long now) {
+        long elapsed = Math.max(now - windowStartNanos, NANOS_PER_SECOND);
+        return (double) windowCalls * NANOS_PER_SECOND / elapsed;
+    }
+
+    private static String format(double rate) {
+        return String.format("%.1f", rate);
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveRateLimiter{" +
+                "throttles=" + throttles +
+                ", retries=" + retries +
+                ", delayedCalls=" + delayedCalls +
+                ", delayMillis=" + delayMillis +
+                '}';
+    }
+}
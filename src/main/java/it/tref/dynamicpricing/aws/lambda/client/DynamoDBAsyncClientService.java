@@ -0,0 +1,78 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Service for creating and providing an asynchronous DynamoDB client.
+ * <p>
+ * This class builds a {@link DynamoDbAsyncClient}, backed by the shared non-blocking HTTP transport
+ * of the {@link HttpClientService}, using configuration from the {@link ConfigService}, such as the AWS region.
+ * The client is only built when the bean is first used, so it costs nothing when asynchronous I/O is disabled.
+ * Every call made through {@link #execute(Function)} waits for a token of the {@link AdaptiveRateLimiter} without
+ * blocking the event loop, and its throttling is recorded by the limiter; throttled calls are retried by the SDK.
+ * </p>
+ */
+@ApplicationScoped
+public class DynamoDBAsyncClientService {
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final AdaptiveRateLimiter adaptiveRateLimiter;
+
+    /**
+     * Constructs a new DynamoDBAsyncClientService.
+     *
+     * @param configService     the configuration service that provides DynamoDB settings.
+     * @param httpClientService the service providing the shared HTTP transport.
+     * @param adaptiveRateLimiter the limiter slowing the calls down when DynamoDB throttles them.
+     */
+    public DynamoDBAsyncClientService(ConfigService configService, HttpClientService httpClientService,
+                                      AdaptiveRateLimiter adaptiveRateLimiter) {
+        this.adaptiveRateLimiter = adaptiveRateLimiter;
+        DynamoDbAsyncClientBuilder builder = DynamoDbAsyncClient.builder()
+                .region(Region.of(configService.getDynamoDbRegion()))
+                .httpClient(httpClientService.getAsyncHttpClient())
+                .overrideConfiguration(override -> override
+                        .addExecutionInterceptor(adaptiveRateLimiter.throttleInterceptor()));
+        configService.getDynamoDbEndpointOverride().ifPresent(endpoint -> builder.endpointOverride(URI.create(endpoint)));
+        this.dynamoDbAsyncClient = builder.build();
+    }
+
+    /**
+     * Returns the {@link DynamoDbAsyncClient} instance.
+     *
+     * @return the DynamoDbAsyncClient instance.
+     */
+    public DynamoDbAsyncClient getDynamoDbAsyncClient() {
+        return dynamoDbAsyncClient;
+    }
+
+    /**
+     * Sends a call with the {@link DynamoDbAsyncClient} once the {@link AdaptiveRateLimiter} lets it through.
+     *
+     * @param operation the call to send.
+     * @param <T>       the type of the response.
+     * @return a future completing with the response of the call.
+     */
+    public <T> CompletableFuture<T> execute(Function<DynamoDbAsyncClient, CompletableFuture<T>> operation) {
+        return adaptiveRateLimiter.acquireAsync().thenCompose(ignored -> operation.apply(dynamoDbAsyncClient));
+    }
+
+    /**
+     * Closes the DynamoDbAsyncClient when the bean is destroyed.
+     */
+    @PreDestroy
+    public void close() {
+        if (dynamoDbAsyncClient != null) {
+            dynamoDbAsyncClient.close();
+        }
+    }
+}
@@ -2,15 +2,27 @@ package it.tref.dynamicpricing.aws.lambda.client;
 
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.conditions.AndRetryCondition;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
 
+import java.net.URI;
+
 /**
  * Service for creating and providing a DynamoDB client.
  * <p>
  * This class builds a {@link DynamoDbClient} using configuration from the {@link ConfigService},
- * such as the AWS region.
+ * such as the AWS region and the optional endpoint override, on top of the HTTP transport shared
+ * through the {@link HttpClientService}.
+ * </p>
+ * <p>
+ * Every call goes through the {@link AdaptiveRateLimiter}. Throttled calls are not retried by the SDK: the
+ * repository operations are retried as a whole within the remaining time of the invocation, so the retries of the
+ * two layers do not multiply.
  * </p>
  */
 @ApplicationScoped
@@ -24,12 +36,24 @@ public class DynamoDBClientService {
      * The client is built using the AWS region provided by the {@link ConfigService}.
      * </p>
      *
-     * @param configService the configuration service that provides DynamoDB settings.
+     * @param configService     the configuration service that provides DynamoDB settings.
+     * @param httpClientService the service providing the shared HTTP transport.
+     * @param adaptiveRateLimiter the limiter slowing the calls down when DynamoDB throttles them.
      */
-    public DynamoDBClientService(ConfigService configService) {
-        this.dynamoDbClient = DynamoDbClient.builder()
-                .region(Region.of(configService.getDynamoDbRegion()))
+    public DynamoDBClientService(ConfigService configService, HttpClientService httpClientService,
+                                 AdaptiveRateLimiter adaptiveRateLimiter) {
+        RetryPolicy retryPolicy = RetryPolicy.builder()
+                .retryCondition(AndRetryCondition.create(RetryCondition.defaultRetryCondition(),
+                        context -> !AdaptiveRateLimiter.isThrottling(context.exception())))
                 .build();
+        DynamoDbClientBuilder builder = DynamoDbClient.builder()
+                .region(Region.of(configService.getDynamoDbRegion()))
+                .httpClient(httpClientService.getHttpClient())
+                .overrideConfiguration(override -> override
+                        .retryPolicy(retryPolicy)
+                        .addExecutionInterceptor(adaptiveRateLimiter.executionInterceptor()));
+        configService.getDynamoDbEndpointOverride().ifPresent(endpoint -> builder.endpointOverride(URI.create(endpoint)));
+        this.dynamoDbClient = builder.build();
     }
 
     /**
@@ -0,0 +1,24 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import software.amazon.awssdk.http.SdkHttpClient;
+
+/**
+ * Builds an optional synchronous HTTP transport.
+ * <p>
+ * The {@code apache} and {@code crt} transports are only compiled into the application when selected at build time
+ * (e.g. {@code ./gradlew build -PhttpClients=apache,crt}), together with their SDK module, so that the native image
+ * only contains the transports that can be configured. Their factories are loaded by name by the
+ * {@link HttpClientService}, and need a public no-argument constructor.
+ * </p>
+ */
+public interface HttpClientFactory {
+
+    /**
+     * Builds the transport with the settings of the given configuration.
+     *
+     * @param configService the configuration service that provides the transport settings.
+     * @return the HTTP client.
+     */
+    SdkHttpClient build(ConfigService configService);
+}
@@ -0,0 +1,188 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for creating and providing the HTTP transport shared by the AWS SDK clients.
+ * <p>
+ * The synchronous transport is selected with {@code HTTP_CLIENT_TYPE} and tuned with the pool size,
+ * connection TTL, TCP keep-alive and connect/read timeouts of the {@link ConfigService}.
+ * A single instance is shared by the DynamoDB and SQS clients, so that they reuse the same connection pool.
+ * The asynchronous (Netty) transport uses the same settings and is only built when first requested.
+ * </p>
+ * <p>
+ * The settings each transport applies:
+ * <ul>
+ *   <li>{@code url-connection}: connect and read timeouts only; there is no connection pool to tune.</li>
+ *   <li>{@code apache}: all the settings.</li>
+ *   <li>{@code crt}: all the settings but the read timeout; the connection TTL is applied as the maximum idle
+ *   time of a connection.</li>
+ *   <li>Netty (asynchronous): all the settings.</li>
+ * </ul>
+ * A setting changed from its default that the selected transport ignores is reported with a warning at startup.
+ * </p>
+ * <p>
+ * Only {@code url-connection} and Netty are always part of the application. The {@code apache} and {@code crt}
+ * transports are opt-in at build time (see {@link HttpClientFactory}); selecting one that is not in the build fails.
+ * </p>
+ */
+@ApplicationScoped
+public class HttpClientService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientService.class);
+
+    /**
+     * The class names of the factories of the optional transports, by type.
+     */
+    private static final Map<HttpClientType, String> OPTIONAL_FACTORIES = Map.of(
+            HttpClientType.APACHE, "it.tref.dynamicpricing.aws.lambda.client.ApacheHttpClientFactory",
+            HttpClientType.CRT, "it.tref.dynamicpricing.aws.lambda.client.CrtHttpClientFactory");
+
+    private final ConfigService configService;
+    private final SdkHttpClient httpClient;
+    private SdkAsyncHttpClient asyncHttpClient;
+
+    /**
+     * Constructs a new HttpClientService.
+     *
+     * @param configService the configuration service that provides the transport settings.
+     */
+    public HttpClientService(ConfigService configService) {
+        this.configService = configService;
+        HttpClientType type = HttpClientType.fromConfig(configService.getHttpClientType());
+        this.httpClient = buildHttpClient(type, configService);
+        logger.info("Using {} HTTP transport for AWS SDK clients", type);
+        List<String> ignored = ignoredSettings(type, configService);
+        if (!ignored.isEmpty()) {
+            logger.warn("The {} HTTP transport does not support {}, these settings are ignored", type, ignored);
+        }
+    }
+
+    /**
+     * Lists the transport settings changed from their default that the given transport does not support.
+     *
+     * @param type          the selected transport.
+     * @param configService the configuration service that provides the transport settings.
+     * @return the names of the ignored settings, empty if every changed setting is applied.
+     */
+    static List<String> ignoredSettings(HttpClientType type, ConfigService configService) {
+        List<String> ignored = new ArrayList<>();
+        if (type == HttpClientType.URL_CONNECTION) {
+            if (!ConfigService.DEFAULT_HTTP_MAX_CONNECTIONS.equals(String.valueOf(configService.getHttpMaxConnections()))) {
+                ignored.add("HTTP_MAX_CONNECTIONS");
+            }
+            if (!ConfigService.DEFAULT_HTTP_CONNECTION_TTL_MILLIS.equals(
+                    String.valueOf(configService.getHttpConnectionTtlMillis()))) {
+                ignored.add("HTTP_CONNECTION_TTL_MILLIS");
+            }
+            if (!ConfigService.DEFAULT_HTTP_TCP_KEEP_ALIVE.equals(String.valueOf(configService.isHttpTcpKeepAlive()))) {
+                ignored.add("HTTP_TCP_KEEP_ALIVE");
+            }
+        } else if (type == HttpClientType.CRT) {
+            if (!ConfigService.DEFAULT_HTTP_READ_TIMEOUT_MILLIS.equals(
+                    String.valueOf(configService.getHttpReadTimeoutMillis()))) {
+                ignored.add("HTTP_READ_TIMEOUT_MILLIS");
+            }
+        }
+        return ignored;
+    }
+
+    /**
+     * Builds the synchronous transport of the given type.
+     *
+     * @param type          the transport to build.
+     * @param configService the configuration service that provides the transport settings.
+     * @return the HTTP client.
+     * @throws IllegalStateException if the transport is not included in the build.
+     */
+    static SdkHttpClient buildHttpClient(HttpClientType type, ConfigService configService) {
+        if (type == HttpClientType.URL_CONNECTION) {
+            return UrlConnectionHttpClient.builder()
+                    .connectionTimeout(Duration.ofMillis(configService.getHttpConnectTimeoutMillis()))
+                    .socketTimeout(Duration.ofMillis(configService.getHttpReadTimeoutMillis()))
+                    .build();
+        }
+        if (!isAvailable(type)) {
+            throw new IllegalStateException("The " + type + " HTTP transport is not included in this build, build with -PhttpClients="
+                    + type.name().toLowerCase());
+        }
+        try {
+            return ((HttpClientFactory) Class.forName(OPTIONAL_FACTORIES.get(type))
+                    .getDeclaredConstructor().newInstance()).build(configService);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create the " + type + " HTTP transport", e);
+        }
+    }
+
+    /**
+     * Checks whether the given transport is included in the build.
+     *
+     * @param type the transport.
+     * @return true if the transport can be built.
+     */
+    static boolean isAvailable(HttpClientType type) {
+        if (type == HttpClientType.URL_CONNECTION) {
+            return true;
+        }
+        try {
+            Class.forName(OPTIONAL_FACTORIES.get(type), false, HttpClientService.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the shared synchronous {@link SdkHttpClient} instance.
+     *
+     * @return the SdkHttpClient instance.
+     */
+    public SdkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Returns the shared asynchronous {@link SdkAsyncHttpClient} instance, building it on first use.
+     *
+     * @return the SdkAsyncHttpClient instance.
+     */
+    public synchronized SdkAsyncHttpClient getAsyncHttpClient() {
+        if (asyncHttpClient == null) {
+            asyncHttpClient = NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(configService.getHttpMaxConnections())
+                    .connectionTimeToLive(Duration.ofMillis(configService.getHttpConnectionTtlMillis()))
+                    .tcpKeepAlive(configService.isHttpTcpKeepAlive())
+                    .connectionTimeout(Duration.ofMillis(configService.getHttpConnectTimeoutMillis()))
+                    .readTimeout(Duration.ofMillis(configService.getHttpReadTimeoutMillis()))
+                    .build();
+        }
+        return asyncHttpClient;
+    }
+
+    /**
+     * Closes the HTTP clients when the bean is destroyed.
+     * The SDK clients built on top of them do not close externally provided transports.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        if (asyncHttpClient != null) {
+            asyncHttpClient.close();
+        }
+    }
+}
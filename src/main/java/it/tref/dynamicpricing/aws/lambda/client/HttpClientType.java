@@ -0,0 +1,39 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+/**
+ * The HTTP transports available to the synchronous AWS SDK clients.
+ */
+public enum HttpClientType {
+    /**
+     * JDK {@code HttpURLConnection} based transport: smallest footprint, no connection pool settings.
+     */
+    URL_CONNECTION,
+    /**
+     * Apache HttpClient based transport, with a tunable connection pool.
+     */
+    APACHE,
+    /**
+     * AWS Common Runtime based transport, with a tunable connection pool and fast startup.
+     */
+    CRT;
+
+    /**
+     * Resolves the transport from its configuration value (e.g. {@code url-connection}, {@code apache}, {@code crt}).
+     *
+     * @param value the configuration value; null selects {@link #URL_CONNECTION}.
+     * @return the matching transport.
+     * @throws IllegalArgumentException if the value does not match any transport.
+     */
+    public static HttpClientType fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return URL_CONNECTION;
+        }
+        String normalized = value.trim().replace('-', '_').toUpperCase();
+        for (HttpClientType type : values()) {
+            if (type.name().equals(normalized)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported HTTP client type: " + value);
+    }
+}
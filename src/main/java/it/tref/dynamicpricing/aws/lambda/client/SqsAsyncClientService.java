@@ -0,0 +1,57 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClientBuilder;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+
+import java.net.URI;
+
+/**
+ * Service for creating and providing an asynchronous SQS client.
+ * <p>
+ * This class builds an instance of {@link SqsAsyncClient}, backed by the shared non-blocking HTTP transport
+ * of the {@link HttpClientService},
+ * using configuration from the {@link ConfigService}.
+ * </p>
+ */
+@ApplicationScoped
+public class SqsAsyncClientService {
+
+    private final SqsAsyncClient sqsAsyncClient;
+
+    /**
+     * Constructs a new SqsAsyncClientService.
+     *
+     * @param configService     the configuration service that provides SQS settings.
+     * @param httpClientService the service providing the shared HTTP transport.
+     */
+    public SqsAsyncClientService(ConfigService configService, HttpClientService httpClientService) {
+        SqsAsyncClientBuilder builder = SqsAsyncClient.builder()
+                .region(Region.of(configService.getSqsQueueRegion()))
+                .httpClient(httpClientService.getAsyncHttpClient());
+        configService.getSqsEndpointOverride().ifPresent(endpoint -> builder.endpointOverride(URI.create(endpoint)));
+        this.sqsAsyncClient = builder.build();
+    }
+
+    /**
+     * Returns the {@link SqsAsyncClient} instance.
+     *
+     * @return the SqsAsyncClient instance.
+     */
+    public SqsAsyncClient getSqsAsyncClient() {
+        return sqsAsyncClient;
+    }
+
+    /**
+     * Closes the SqsAsyncClient when the bean is destroyed.
+     */
+    @PreDestroy
+    public void close() {
+        if (sqsAsyncClient != null) {
+            sqsAsyncClient.close();
+        }
+    }
+}
@@ -4,12 +4,17 @@ import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsClientBuilder;
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
 
+import java.net.URI;
+
 /**
  * Service for creating and providing an SQS client.
  * <p>
- * This class builds an instance of {@link SqsClient} using configuration from the {@link ConfigService}.
+ * This class builds an instance of {@link SqsClient} using configuration from the {@link ConfigService},
+ * such as the AWS region and the optional endpoint override,
+ * on top of the HTTP transport shared through the {@link HttpClientService}.
  * </p>
  */
 @ApplicationScoped
@@ -23,12 +28,15 @@ public class SqsClientService {
      * The client is built using the AWS region provided by the {@link ConfigService}.
      * </p>
      *
-     * @param configService the configuration service that provides SQS settings.
+     * @param configService     the configuration service that provides SQS settings.
+     * @param httpClientService the service providing the shared HTTP transport.
      */
-    public SqsClientService(ConfigService configService) {
-        this.sqsClient = SqsClient.builder()
+    public SqsClientService(ConfigService configService, HttpClientService httpClientService) {
+        SqsClientBuilder builder = SqsClient.builder()
                 .region(Region.of(configService.getSqsQueueRegion()))
-                .build();
+                .httpClient(httpClientService.getHttpClient());
+        configService.getSqsEndpointOverride().ifPresent(endpoint -> builder.endpointOverride(URI.create(endpoint)));
+        this.sqsClient = builder.build();
     }
 
     /**
@@ -1,14 +1,41 @@
 package it.tref.dynamicpricing.aws.lambda.config;
 
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.Optional;
+
 /**
  * Provides configuration properties for the application.
+ * <p>
+ * The bean is created at startup, so that invalid values are reported when the function starts rather than on the
+ * first request that uses them.
+ * </p>
  */
 @ApplicationScoped
+@Startup
 public class ConfigService {
 
+    /**
+     * The longest delay SQS accepts on a message, in seconds.
+     */
+    static final int MAX_SQS_DELAY_SECONDS = 900;
+
+    /**
+     * The entry point serving the API, the only one that issues and reads pagination cursors.
+     */
+    static final String API_HANDLER = "listings";
+
+    /**
+     * Defaults of the HTTP transport settings that not every transport supports (see {@link #httpClientType}).
+     */
+    public static final String DEFAULT_HTTP_MAX_CONNECTIONS = "50";
+    public static final String DEFAULT_HTTP_CONNECTION_TTL_MILLIS = "60000";
+    public static final String DEFAULT_HTTP_TCP_KEEP_ALIVE = "true";
+    public static final String DEFAULT_HTTP_READ_TIMEOUT_MILLIS = "5000";
+
     /**
      * The AWS region for DynamoDB.
      * <p>
@@ -45,12 +72,400 @@ public class ConfigService {
     @ConfigProperty(name = "LISTING_TABLE_NAME")
     String dynamoDbListingTableName;
 
+    /**
+     * Optional listing table partitioned by userId ({@code userId} HASH, {@code listingId} RANGE), read with strongly
+     * consistent queries instead of the user's listings index. It must define the same optional indexes (pending,
+     * sharded user, ...) as the listing table, with the same names.
+     */
+    @ConfigProperty(name = "LISTING_USER_TABLE_NAME")
+    Optional<String> listingUserTableName;
+
+    /**
+     * Which listing tables are read and written: {@code legacy} (default), {@code dual-write}, {@code dual-read}
+     * or {@code user-table}. The modes writing both tables do not use the asynchronous write path, and the listing
+     * stream consumer must only be attached to the stream of one of the tables.
+     */
+    @ConfigProperty(name = "LISTING_TABLE_MODE", defaultValue = "legacy")
+    String listingTableMode;
+
+    /**
+     * The number of segments the listing table backfill scans in parallel.
+     */
+    @ConfigProperty(name = "LISTING_TABLE_BACKFILL_SEGMENTS", defaultValue = "4")
+    int listingTableBackfillSegments;
+
     /**
      * The DynamoDB Global Secondary Index name for User's Listings.
      */
     @ConfigProperty(name = "LISTING_INDEX_TABLE_NAME")
     String dynamoDbUserListingsIndexName;
 
+    /**
+     * Optional Global Secondary Index on userId projecting only the summary attributes of a listing.
+     * <p>
+     * When set, summary list queries read this index instead of the full user's listings index.
+     * </p>
+     */
+    @ConfigProperty(name = "LISTING_SUMMARY_INDEX_TABLE_NAME")
+    Optional<String> dynamoDbUserListingsSummaryIndexName;
+
+    /**
+     * Optional index of the listings of each user by creation time
+     * (partition key {@code userId}; sort key {@code createdAt}; all attributes projected).
+     * <p>
+     * On the legacy listing table it is a Global Secondary Index; on the user-partitioned table it is a Local
+     * Secondary Index with the same name, read with strongly consistent reads. When set, listings can be listed
+     * newest first and filtered by creation time.
+     * </p>
+     */
+    @ConfigProperty(name = "LISTING_CREATED_INDEX_NAME")
+    Optional<String> listingCreatedIndexName;
+
+    /**
+     * Optional Global Secondary Index spreading the listings of each user over several partitions
+     * (partition key {@code userShard}, {@code userId#shard}; sort key {@code listingId}; all attributes projected).
+     * <p>
+     * When set, writes maintain the sharded key of every listing. Existing listings get it from the
+     * {@code user-shard-backfill} entry point; the user's listings are only read from this index once
+     * {@code LISTING_USER_SHARD_READS_ENABLED} is set, after the backfill.
+     * </p>
+     */
+    @ConfigProperty(name = "LISTING_USER_SHARD_INDEX_NAME")
+    Optional<String> listingUserShardIndexName;
+
+    /**
+     * The number of partitions the listings of each user are spread over in the sharded user index.
+     * Changing it requires running the backfill again before reading the index.
+     */
+    @ConfigProperty(name = "LISTING_USER_SHARDS", defaultValue = "8")
+    int listingUserShards;
+
+    /**
+     * Whether the user's listings are read from the sharded user index, querying every shard in parallel,
+     * instead of the user's listings index.
+     */
+    @ConfigProperty(name = "LISTING_USER_SHARD_READS_ENABLED", defaultValue = "false")
+    boolean listingUserShardReadsEnabled;
+
+    /**
+     * The maximum number of items scanned by a single page of the sharded user index backfill.
+     */
+    @ConfigProperty(name = "USER_SHARD_BACKFILL_PAGE_SIZE", defaultValue = "200")
+    int userShardBackfillPageSize;
+
+    /**
+     * The entry point of the image (see {@code quarkus.lambda.handler}).
+     */
+    @ConfigProperty(name = "quarkus.lambda.handler", defaultValue = API_HANDLER)
+    String lambdaHandler;
+
+    /**
+     * Secret used to sign the pagination cursors returned to the clients.
+     * <p>
+     * Required by the API entry point: every container must share it, so that a cursor issued by one is accepted
+     * by the others and after a cold start.
+     * </p>
+     */
+    @ConfigProperty(name = "CURSOR_SIGNING_KEY")
+    Optional<String> cursorSigningKey;
+
+    /**
+     * The number of listings returned per page when the client does not specify a limit.
+     */
+    @ConfigProperty(name = "LISTING_PAGE_DEFAULT_LIMIT", defaultValue = "50")
+    int listingPageDefaultLimit;
+
+    /**
+     * The maximum number of listings a client can request per page.
+     */
+    @ConfigProperty(name = "LISTING_PAGE_MAX_LIMIT", defaultValue = "100")
+    int listingPageMaxLimit;
+
+    /**
+     * The maximum number of listings accepted by a single batch create request.
+     */
+    @ConfigProperty(name = "LISTING_BATCH_MAX_SIZE", defaultValue = "500")
+    int listingBatchMaxSize;
+
+    /**
+     * The maximum number of listing ids accepted by a single multi-get request.
+     */
+    @ConfigProperty(name = "LISTING_MULTI_GET_MAX_IDS", defaultValue = "100")
+    int listingMultiGetMaxIds;
+
+    /**
+     * The maximum number of attempts for a batch call whose items are only partially processed
+     * (DynamoDB unprocessed items or keys, failed SQS batch entries).
+     */
+    @ConfigProperty(name = "BATCH_MAX_ATTEMPTS", defaultValue = "5")
+    int batchMaxAttempts;
+
+    /**
+     * Whether batch creates go through the asynchronous (non-blocking) DynamoDB and SQS clients.
+     * <p>
+     * When enabled, the chunks of a batch are written and queued concurrently instead of back to back; the SQS send
+     * of a chunk still waits for its DynamoDB write. Single creates and updates always take the synchronous path:
+     * their write and send are sequential, so the asynchronous clients would add thread hops without any overlap.
+     * </p>
+     */
+    @ConfigProperty(name = "ASYNC_IO_ENABLED", defaultValue = "false")
+    boolean asyncIoEnabled;
+
+    /**
+     * Optional endpoint override for DynamoDB (e.g. a local DynamoDB stand-in).
+     * <p>
+     * Shares the key of the Quarkus DynamoDB extension, so the test resources configure both the same way.
+     * </p>
+     */
+    @ConfigProperty(name = "quarkus.dynamodb.endpoint-override")
+    Optional<String> dynamoDbEndpointOverride;
+
+    /**
+     * Optional endpoint override for SQS (e.g. a local SQS stand-in).
+     * <p>
+     * Shares the key of the Quarkus SQS extension, like the DynamoDB endpoint override.
+     * </p>
+     */
+    @ConfigProperty(name = "quarkus.sqs.endpoint-override")
+    Optional<String> sqsEndpointOverride;
+
+    /**
+     * The HTTP transport shared by the synchronous AWS SDK clients: {@code url-connection}, {@code apache} or {@code crt}.
+     * <p>
+     * Not every transport supports every setting below: {@code url-connection} only applies the connect and read
+     * timeouts, {@code crt} applies all of them but the read timeout, {@code apache} and the asynchronous (Netty)
+     * transport apply all of them. A setting changed from its default but ignored by the selected transport is
+     * reported with a warning at startup.
+     * </p>
+     * <p>
+     * Only {@code url-connection} is always available: {@code apache} and {@code crt} must be included at build time
+     * with {@code -PhttpClients=apache,crt}, and selecting a transport that is not in the build fails at startup.
+     * </p>
+     */
+    @ConfigProperty(name = "HTTP_CLIENT_TYPE", defaultValue = "url-connection")
+    String httpClientType;
+
+    /**
+     * The maximum number of pooled connections (max concurrency for the CRT and Netty transports).
+     * Not supported by the url-connection transport.
+     */
+    @ConfigProperty(name = "HTTP_MAX_CONNECTIONS", defaultValue = DEFAULT_HTTP_MAX_CONNECTIONS)
+    int httpMaxConnections;
+
+    /**
+     * The maximum time a pooled connection is reused before being closed, in milliseconds.
+     * Bounds how long a connection can stick to a single service host. Used as the maximum idle time by the CRT transport.
+     * Not supported by the url-connection transport.
+     */
+    @ConfigProperty(name = "HTTP_CONNECTION_TTL_MILLIS", defaultValue = DEFAULT_HTTP_CONNECTION_TTL_MILLIS)
+    long httpConnectionTtlMillis;
+
+    /**
+     * Whether TCP keep-alive probes are enabled on pooled connections.
+     * Not supported by the url-connection transport.
+     */
+    @ConfigProperty(name = "HTTP_TCP_KEEP_ALIVE", defaultValue = DEFAULT_HTTP_TCP_KEEP_ALIVE)
+    boolean httpTcpKeepAlive;
+
+    /**
+     * The timeout for establishing a connection, in milliseconds. Supported by every transport.
+     */
+    @ConfigProperty(name = "HTTP_CONNECT_TIMEOUT_MILLIS", defaultValue = "2000")
+    long httpConnectTimeoutMillis;
+
+    /**
+     * The timeout for reading data from an established connection, in milliseconds.
+     * Not supported by the CRT transport.
+     */
+    @ConfigProperty(name = "HTTP_READ_TIMEOUT_MILLIS", defaultValue = DEFAULT_HTTP_READ_TIMEOUT_MILLIS)
+    long httpReadTimeoutMillis;
+
+    /**
+     * The maximum number of listings kept by the per-container read-through cache; zero disables the cache.
+     */
+    @ConfigProperty(name = "LISTING_CACHE_MAX_SIZE", defaultValue = "1000")
+    int listingCacheMaxSize;
+
+    /**
+     * The time to live of a cached listing, in milliseconds. Bounds how stale a cached read can be.
+     */
+    @ConfigProperty(name = "LISTING_CACHE_TTL_MILLIS", defaultValue = "5000")
+    long listingCacheTtlMillis;
+
+    /**
+     * The encoded size, in bytes, from which the attributes of a listing are stored as a single compressed binary
+     * value instead of a map, and its packed prediction is gzipped; zero disables compression. All layouts are
+     * always read.
+     */
+    @ConfigProperty(name = "ITEM_COMPRESSION_THRESHOLD_BYTES", defaultValue = "0")
+    int itemCompressionThresholdBytes;
+
+    /**
+     * Whether predictions are written as packed binary values instead of maps of number lists. Both layouts are
+     * read, but versions older than the packed layout only read maps: enable it once rolling back to one of them
+     * is ruled out.
+     */
+    @ConfigProperty(name = "PREDICTION_PACKED_WRITES_ENABLED", defaultValue = "false")
+    boolean predictionPackedWritesEnabled;
+
+    /**
+     * Optional sparse Global Secondary Index of the listings waiting for their prediction
+     * (partition key {@code pendingShard}, sort key {@code pendingSince}).
+     * <p>
+     * When set, writes maintain the index keys while a listing is pending and remove them once it is completed.
+     * </p>
+     */
+    @ConfigProperty(name = "LISTING_PENDING_INDEX_NAME")
+    Optional<String> listingPendingIndexName;
+
+    /**
+     * The number of partitions the pending index is spread over, so that its writes do not hit a single partition.
+     */
+    @ConfigProperty(name = "LISTING_PENDING_INDEX_SHARDS", defaultValue = "4")
+    int listingPendingIndexShards;
+
+    /**
+     * How long a listing can wait for its prediction before the pending sweep sends it to the queue again, in milliseconds.
+     */
+    @ConfigProperty(name = "PENDING_SWEEP_MIN_AGE_MILLIS", defaultValue = "900000")
+    long pendingSweepMinAgeMillis;
+
+    /**
+     * The maximum number of listings sent to the queue again by a single pending sweep.
+     */
+    @ConfigProperty(name = "PENDING_SWEEP_MAX_LISTINGS", defaultValue = "500")
+    int pendingSweepMaxListings;
+
+    /**
+     * How many times the pending sweep sends a listing to the queue again before leaving it out of the pending index,
+     * so that a listing whose inference keeps failing is not sent forever.
+     */
+    @ConfigProperty(name = "PENDING_SWEEP_MAX_ATTEMPTS", defaultValue = "5")
+    int pendingSweepMaxAttempts;
+
+    /**
+     * How the inference messages are sent: {@code direct} (within the request), {@code outbox} (written with
+     * the created or updated listing in a single transaction, then sent by the outbox relay) or {@code stream}
+     * (by the consumer of the listing table stream, never within the request).
+     */
+    @ConfigProperty(name = "INFERENCE_DISPATCH_MODE", defaultValue = "direct")
+    String inferenceDispatchMode;
+
+    /**
+     * The DynamoDB table holding the inference messages not sent yet (partition key {@code outboxId}).
+     * Required by the outbox dispatch mode.
+     */
+    @ConfigProperty(name = "OUTBOX_TABLE_NAME")
+    Optional<String> outboxTableName;
+
+    /**
+     * The maximum number of outbox records sent by a single relay invocation.
+     */
+    @ConfigProperty(name = "OUTBOX_RELAY_MAX_RECORDS", defaultValue = "1000")
+    int outboxRelayMaxRecords;
+
+    /**
+     * The DynamoDB table holding the idempotency records of the create requests (partition key
+     * {@code idempotencyKey}, TTL attribute {@code expiresAt}). When not set, the {@code Idempotency-Key}
+     * header is ignored.
+     */
+    @ConfigProperty(name = "IDEMPOTENCY_TABLE_NAME")
+    Optional<String> idempotencyTableName;
+
+    /**
+     * How long an idempotency key is remembered, in seconds. Retries sent after that create a new listing.
+     */
+    @ConfigProperty(name = "IDEMPOTENCY_TTL_SECONDS", defaultValue = "86400")
+    long idempotencyTtlSeconds;
+
+    /**
+     * How long a create request holds its idempotency key before completing, in seconds. Retries sent meanwhile are
+     * answered with {@code 409 Conflict}; once the lease ends without the listing being created, the key can be
+     * claimed again, for the same listingId. It should exceed the function timeout.
+     */
+    @ConfigProperty(name = "IDEMPOTENCY_LEASE_SECONDS", defaultValue = "60")
+    long idempotencyLeaseSeconds;
+
+    /**
+     * The maximum number of idempotency records kept by the per-container cache; zero disables the cache.
+     */
+    @ConfigProperty(name = "IDEMPOTENCY_CACHE_MAX_SIZE", defaultValue = "1000")
+    int idempotencyCacheMaxSize;
+
+    /**
+     * The DynamoDB table caching the predictions by attributes fingerprint and model version (partition key
+     * {@code cacheKey}, TTL attribute {@code expiresAt}). Listings whose attributes were already inferred by the same
+     * model get their prediction without a new inference. When not set, or without {@code MODEL_VERSION}, every
+     * listing is inferred.
+     */
+    @ConfigProperty(name = "PREDICTION_CACHE_TABLE_NAME")
+    Optional<String> predictionCacheTableName;
+
+    /**
+     * The version of the model serving the inference requests. Cached predictions of other versions are not used;
+     * it must change whenever the model does.
+     */
+    @ConfigProperty(name = "MODEL_VERSION")
+    Optional<String> modelVersion;
+
+    /**
+     * How long a prediction stays cached, in seconds.
+     */
+    @ConfigProperty(name = "PREDICTION_CACHE_TTL_SECONDS", defaultValue = "604800")
+    long predictionCacheTtlSeconds;
+
+    /**
+     * The SQS queue coalescing the inference triggers. When set, inference messages are sent to this queue with a
+     * delivery delay, and forwarded to the prediction queue by the {@code inference-coalescing} Lambda only if the
+     * listing is still at their revision, so that only the last of several rapid changes is inferred.
+     */
+    @ConfigProperty(name = "INFERENCE_COALESCING_QUEUE_URL")
+    Optional<String> inferenceCoalescingQueueUrl;
+
+    /**
+     * The coalescing window: how long inference messages are delayed in the coalescing queue, in seconds
+     * (from 0 to 900, checked at startup).
+     */
+    @ConfigProperty(name = "INFERENCE_COALESCING_DELAY_SECONDS", defaultValue = "10")
+    int inferenceCoalescingDelaySeconds;
+
+    /**
+     * The maximum number of attempts of a repository operation throttled by DynamoDB, retried with full-jitter
+     * exponential backoff as long as the remaining time of the invocation allows it; one disables the retries.
+     */
+    @ConfigProperty(name = "DYNAMODB_THROTTLE_MAX_ATTEMPTS", defaultValue = "5")
+    int dynamoDbThrottleMaxAttempts;
+
+    /**
+     * Whether the DynamoDB calls of the container are slowed down by a client-side token bucket once DynamoDB
+     * starts throttling, instead of being sent at the rate that caused the throttling.
+     */
+    @ConfigProperty(name = "DYNAMODB_RATE_LIMITER_ENABLED", defaultValue = "true")
+    boolean dynamoDbRateLimiterEnabled;
+
+    /**
+     * The lowest rate, in calls per second, the client-side token bucket can slow the DynamoDB calls down to.
+     */
+    @ConfigProperty(name = "DYNAMODB_RATE_LIMITER_MIN_RATE", defaultValue = "5")
+    double dynamoDbRateLimiterMinRate;
+
+    /**
+     * Checks the values that are only valid within a range.
+     *
+     * @throws IllegalStateException if a value is out of its range.
+     */
+    @PostConstruct
+    void validate() {
+        if (inferenceCoalescingDelaySeconds < 0 || inferenceCoalescingDelaySeconds > MAX_SQS_DELAY_SECONDS) {
+            throw new IllegalStateException(String.format(
+                    "INFERENCE_COALESCING_DELAY_SECONDS must be between 0 and %d, got %d",
+                    MAX_SQS_DELAY_SECONDS, inferenceCoalescingDelaySeconds));
+        }
+        if (API_HANDLER.equals(lambdaHandler) && cursorSigningKey.filter(key -> !key.isBlank()).isEmpty()) {
+            throw new IllegalStateException("CURSOR_SIGNING_KEY must be set to serve paginated listing requests");
+        }
+    }
+
     public String getDynamoDbRegion() {
         return dynamoDbRegion;
     }
@@ -68,8 +483,200 @@ public class ConfigService {
     }
     public String getDomainUrl() { return domainUrl; }
 
+    public Optional<String> getListingUserTableName() {
+        return listingUserTableName;
+    }
+
+    public String getListingTableMode() {
+        return listingTableMode;
+    }
+
+    public int getListingTableBackfillSegments() {
+        return listingTableBackfillSegments;
+    }
+
     public String getDynamoDbUserListingsIndexName() {
         return dynamoDbUserListingsIndexName;
     }
 
+    public Optional<String> getDynamoDbUserListingsSummaryIndexName() {
+        return dynamoDbUserListingsSummaryIndexName;
+    }
+
+    public Optional<String> getListingCreatedIndexName() {
+        return listingCreatedIndexName;
+    }
+
+    public Optional<String> getListingUserShardIndexName() {
+        return listingUserShardIndexName;
+    }
+
+    public int getListingUserShards() {
+        return listingUserShards;
+    }
+
+    public boolean isListingUserShardReadsEnabled() {
+        return listingUserShardReadsEnabled;
+    }
+
+    public int getUserShardBackfillPageSize() {
+        return userShardBackfillPageSize;
+    }
+
+    public Optional<String> getCursorSigningKey() {
+        return cursorSigningKey;
+    }
+
+    public int getListingPageDefaultLimit() {
+        return listingPageDefaultLimit;
+    }
+
+    public int getListingPageMaxLimit() {
+        return listingPageMaxLimit;
+    }
+
+    public int getListingBatchMaxSize() {
+        return listingBatchMaxSize;
+    }
+
+    public int getListingMultiGetMaxIds() {
+        return listingMultiGetMaxIds;
+    }
+
+    public int getBatchMaxAttempts() {
+        return batchMaxAttempts;
+    }
+
+    public boolean isAsyncIoEnabled() {
+        return asyncIoEnabled;
+    }
+
+    public int getListingCacheMaxSize() {
+        return listingCacheMaxSize;
+    }
+
+    public long getListingCacheTtlMillis() {
+        return listingCacheTtlMillis;
+    }
+
+    public int getItemCompressionThresholdBytes() {
+        return itemCompressionThresholdBytes;
+    }
+
+    public boolean isPredictionPackedWritesEnabled() {
+        return predictionPackedWritesEnabled;
+    }
+
+    public Optional<String> getListingPendingIndexName() {
+        return listingPendingIndexName;
+    }
+
+    public int getListingPendingIndexShards() {
+        return listingPendingIndexShards;
+    }
+
+    public long getPendingSweepMinAgeMillis() {
+        return pendingSweepMinAgeMillis;
+    }
+
+    public int getPendingSweepMaxListings() {
+        return pendingSweepMaxListings;
+    }
+
+    public int getPendingSweepMaxAttempts() {
+        return pendingSweepMaxAttempts;
+    }
+
+    public String getInferenceDispatchMode() {
+        return inferenceDispatchMode;
+    }
+
+    public Optional<String> getOutboxTableName() {
+        return outboxTableName;
+    }
+
+    public int getOutboxRelayMaxRecords() {
+        return outboxRelayMaxRecords;
+    }
+
+    public Optional<String> getIdempotencyTableName() {
+        return idempotencyTableName;
+    }
+
+    public long getIdempotencyTtlSeconds() {
+        return idempotencyTtlSeconds;
+    }
+
+    public long getIdempotencyLeaseSeconds() {
+        return idempotencyLeaseSeconds;
+    }
+
+    public int getIdempotencyCacheMaxSize() {
+        return idempotencyCacheMaxSize;
+    }
+
+    public Optional<String> getPredictionCacheTableName() {
+        return predictionCacheTableName;
+    }
+
+    public Optional<String> getModelVersion() {
+        return modelVersion;
+    }
+
+    public long getPredictionCacheTtlSeconds() {
+        return predictionCacheTtlSeconds;
+    }
+
+    public Optional<String> getInferenceCoalescingQueueUrl() {
+        return inferenceCoalescingQueueUrl;
+    }
+
+    public int getInferenceCoalescingDelaySeconds() {
+        return inferenceCoalescingDelaySeconds;
+    }
+
+    public int getDynamoDbThrottleMaxAttempts() {
+        return dynamoDbThrottleMaxAttempts;
+    }
+
+    public boolean isDynamoDbRateLimiterEnabled() {
+        return dynamoDbRateLimiterEnabled;
+    }
+
+    public double getDynamoDbRateLimiterMinRate() {
+        return dynamoDbRateLimiterMinRate;
+    }
+
+    public Optional<String> getDynamoDbEndpointOverride() {
+        return dynamoDbEndpointOverride;
+    }
+
+    public Optional<String> getSqsEndpointOverride() {
+        return sqsEndpointOverride;
+    }
+
+    public String getHttpClientType() {
+        return httpClientType;
+    }
+
+    public int getHttpMaxConnections() {
+        return httpMaxConnections;
+    }
+
+    public long getHttpConnectionTtlMillis() {
+        return httpConnectionTtlMillis;
+    }
+
+    public boolean isHttpTcpKeepAlive() {
+        return httpTcpKeepAlive;
+    }
+
+    public long getHttpConnectTimeoutMillis() {
+        return httpConnectTimeoutMillis;
+    }
+
+    public long getHttpReadTimeoutMillis() {
+        return httpReadTimeoutMillis;
+    }
+
 }
@@ -0,0 +1,47 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Represents the request payload for creating several listings at once (POST /listings:batch).
+ * <p>
+ * Each element carries the same fields as a single {@link CreateListingRequest}.
+ * </p>
+ */
+@RegisterForReflection
+public class BatchCreateListingRequest {
+
+    @NotEmpty(message = "At least one listing is required")
+    @Valid
+    @JsonProperty(value = "listings", required = true)
+    private List<CreateListingRequest> listings;
+
+    public BatchCreateListingRequest() {
+    }
+
+    @JsonCreator
+    public BatchCreateListingRequest(@JsonProperty(value = "listings", required = true) List<CreateListingRequest> listings) {
+        this.listings = listings;
+    }
+
+    public List<CreateListingRequest> getListings() {
+        return listings;
+    }
+
+    public void setListings(List<CreateListingRequest> listings) {
+        this.listings = listings;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCreateListingRequest{" +
+                "listings=" + listings +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+/**
+ * Represents the response payload of a batch create request.
+ * <p>
+ * The payload contains one result per requested listing, in request order.
+ * </p>
+ */
+@RegisterForReflection
+public class BatchCreateListingResponse {
+
+    @JsonProperty("results")
+    private List<BatchItemResult> results;
+
+    public BatchCreateListingResponse() {
+    }
+
+    @JsonCreator
+    public BatchCreateListingResponse(@JsonProperty("results") List<BatchItemResult> results) {
+        this.results = results;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCreateListingResponse{" +
+                "results=" + results +
+                '}';
+    }
+}
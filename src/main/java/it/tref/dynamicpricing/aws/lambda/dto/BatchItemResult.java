@@ -0,0 +1,103 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Represents the outcome of a single item of a batch operation.
+ * <p>
+ * The {@code index} refers to the position of the item in the request payload.
+ * </p>
+ */
+@RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    /**
+     * Possible outcomes of a batch item.
+     */
+    public enum Status {
+        /**
+         * The listing was persisted and its inference request was queued.
+         */
+        CREATED,
+        /**
+         * The listing was persisted, but its inference request could not be queued.
+         */
+        QUEUE_FAILED,
+        /**
+         * The listing could not be persisted.
+         */
+        FAILED
+    }
+
+    @JsonProperty("index")
+    private int index;
+
+    @JsonProperty("listingId")
+    private String listingId;
+
+    @JsonProperty("status")
+    private Status status;
+
+    @JsonProperty("error")
+    private String error;
+
+    public BatchItemResult() {
+    }
+
+    @JsonCreator
+    public BatchItemResult(@JsonProperty("index") int index,
+                           @JsonProperty("listingId") String listingId,
+                           @JsonProperty("status") Status status,
+                           @JsonProperty("error") String error) {
+        this.index = index;
+        this.listingId = listingId;
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "index=" + index +
+                ", listingId='" + listingId + '\'' +
+                ", status=" + status +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
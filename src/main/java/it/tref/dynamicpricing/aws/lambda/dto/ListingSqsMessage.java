@@ -1,16 +1,18 @@
 package it.tref.dynamicpricing.aws.lambda.dto;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Represents the message payload for the SQS queue.
  * <p>
  * This payload includes the composite key of the listing (listingId and userId)
- * along with the listing details (attributes) required for processing.
+ * along with the listing details (attributes) required for processing, and the revision of the request and the
+ * fingerprint of its attributes, which the prediction result must carry back (see {@link PredictionResultMessage}).
  * </p>
  */
 @RegisterForReflection
@@ -23,42 +25,92 @@ public class ListingSqsMessage {
     private String userId;
 
     /**
-     * Represents the listing details (attributes) for the SQS message.
+     * Represents the listing details (attributes) for the SQS message, each with its JSON type: strings, numbers,
+     * booleans, objects and arrays.
      */
     @JsonProperty("listing_details")
-    private Map<String, String> listingDetails;
+    private Map<String, Object> listingDetails;
+
+    /**
+     * Revision of the inference request; omitted for listings written before revisions.
+     */
+    @JsonProperty("revision")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long revision;
+
+    /**
+     * Fingerprint of the listing details, under which the prediction is cached; omitted when not computed.
+     */
+    @JsonProperty("fingerprint")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String fingerprint;
 
     public ListingSqsMessage() {
     }
 
     /**
-     * Constructs a new ListingSqsMessage with the specified composite key and listing details.
+     * Constructs a new ListingSqsMessage with the specified composite key and listing details, without a revision.
+     *
+     * @param listingId      the unique identifier of the listing.
+     * @param userId         the unique identifier of the user.
+     * @param listingDetails the attributes of the listing.
+     */
+    public ListingSqsMessage(String listingId, String userId, Map<String, Object> listingDetails) {
+        this(listingId, userId, listingDetails, null);
+    }
+
+    /**
+     * Constructs a new ListingSqsMessage with the specified composite key, listing details and revision.
+     *
+     * @param listingId      the unique identifier of the listing.
+     * @param userId         the unique identifier of the user.
+     * @param listingDetails the attributes of the listing.
+     * @param revision       the revision of the inference request, or null if the listing has none.
+     */
+    public ListingSqsMessage(String listingId, String userId, Map<String, Object> listingDetails, Long revision) {
+        this(listingId, userId, listingDetails, revision, null);
+    }
+
+    /**
+     * Constructs a new ListingSqsMessage with the specified composite key, listing details, revision and fingerprint.
      *
      * @param listingId      the unique identifier of the listing.
      * @param userId         the unique identifier of the user.
      * @param listingDetails the attributes of the listing.
+     * @param revision       the revision of the inference request, or null if the listing has none.
+     * @param fingerprint    the fingerprint of the attributes, or null if not computed.
      */
     @JsonCreator
     public ListingSqsMessage(@JsonProperty("listingId") String listingId,
                              @JsonProperty("userId") String userId,
-                             @JsonProperty("listing_details") Map<String, String> listingDetails) {
+                             @JsonProperty("listing_details") Map<String, Object> listingDetails,
+                             @JsonProperty("revision") Long revision,
+                             @JsonProperty("fingerprint") String fingerprint) {
         this.listingId = listingId;
         this.userId = userId;
         this.listingDetails = listingDetails;
+        this.revision = revision;
+        this.fingerprint = fingerprint;
     }
 
     /**
-     * Converts a map of attributes from {@code Map<String, Object>} to {@code Map<String, String>}.
+     * Copies the attributes of a listing into the listing details of a message.
      * <p>
-     * This method iterates over the provided attributes map and converts each value to its string representation.
+     * Every value keeps its type, so that numbers and booleans reach the inference consumer as JSON numbers and
+     * booleans instead of strings to parse. Null values are skipped.
      * </p>
      *
-     * @param attributes the original attributes map with Object values.
-     * @return a new map where each value is converted to a String.
+     * @param attributes the attributes of the listing.
+     * @return a new map holding the non-null attributes.
      */
-    public static Map<String, String> convertAttributes(Map<String, Object> attributes) {
-        return attributes.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> String.valueOf(e.getValue())));
+    public static Map<String, Object> convertAttributes(Map<String, Object> attributes) {
+        Map<String, Object> details = new HashMap<>();
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            if (entry.getValue() != null) {
+                details.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return details;
     }
 
     public String getListingId() {
@@ -77,20 +129,38 @@ public class ListingSqsMessage {
         this.userId = userId;
     }
 
-    public Map<String, String> getListingDetails() {
+    public Map<String, Object> getListingDetails() {
         return listingDetails;
     }
 
-    public void setListingDetails(Map<String, String> listingDetails) {
+    public void setListingDetails(Map<String, Object> listingDetails) {
         this.listingDetails = listingDetails;
     }
 
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
     @Override
     public String toString() {
         return "ListingSqsMessage{" +
                 "listingId='" + listingId + '\'' +
                 ", userId='" + userId + '\'' +
                 ", listingDetails=" + listingDetails +
+                ", revision=" + revision +
+                ", fingerprint='" + fingerprint + '\'' +
                 '}';
     }
 }
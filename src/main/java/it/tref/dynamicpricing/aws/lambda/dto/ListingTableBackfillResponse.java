@@ -0,0 +1,100 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.Map;
+
+/**
+ * Represents the outcome of a run of the listing table backfill.
+ * <p>
+ * When the run stops before every segment is copied, {@code totalSegments} and {@code segments} (the key to resume
+ * each unfinished segment from) must be sent back in the event of the next invocation.
+ * </p>
+ */
+@RegisterForReflection
+public class ListingTableBackfillResponse {
+
+    @JsonProperty("scanned")
+    private int scanned;
+
+    @JsonProperty("copied")
+    private int copied;
+
+    @JsonProperty("totalSegments")
+    private int totalSegments;
+
+    @JsonProperty("segments")
+    private Map<String, Map<String, String>> segments;
+
+    @JsonProperty("complete")
+    private boolean complete;
+
+    public ListingTableBackfillResponse() {
+    }
+
+    @JsonCreator
+    public ListingTableBackfillResponse(@JsonProperty("scanned") int scanned,
+                                        @JsonProperty("copied") int copied,
+                                        @JsonProperty("totalSegments") int totalSegments,
+                                        @JsonProperty("segments") Map<String, Map<String, String>> segments,
+                                        @JsonProperty("complete") boolean complete) {
+        this.scanned = scanned;
+        this.copied = copied;
+        this.totalSegments = totalSegments;
+        this.segments = segments;
+        this.complete = complete;
+    }
+
+    public int getScanned() {
+        return scanned;
+    }
+
+    public void setScanned(int scanned) {
+        this.scanned = scanned;
+    }
+
+    public int getCopied() {
+        return copied;
+    }
+
+    public void setCopied(int copied) {
+        this.copied = copied;
+    }
+
+    public int getTotalSegments() {
+        return totalSegments;
+    }
+
+    public void setTotalSegments(int totalSegments) {
+        this.totalSegments = totalSegments;
+    }
+
+    public Map<String, Map<String, String>> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(Map<String, Map<String, String>> segments) {
+        this.segments = segments;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    @Override
+    public String toString() {
+        return "ListingTableBackfillResponse{" +
+                "scanned=" + scanned +
+                ", copied=" + copied +
+                ", totalSegments=" + totalSegments +
+                ", segments=" + segments +
+                ", complete=" + complete +
+                '}';
+    }
+}
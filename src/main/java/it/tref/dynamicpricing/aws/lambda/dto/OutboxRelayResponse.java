@@ -0,0 +1,66 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Represents the outcome of a relay of the outbox records to the SQS queue.
+ */
+@RegisterForReflection
+public class OutboxRelayResponse {
+
+    @JsonProperty("read")
+    private int read;
+
+    @JsonProperty("sent")
+    private int sent;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    public OutboxRelayResponse() {
+    }
+
+    @JsonCreator
+    public OutboxRelayResponse(@JsonProperty("read") int read,
+                               @JsonProperty("sent") int sent,
+                               @JsonProperty("failed") int failed) {
+        this.read = read;
+        this.sent = sent;
+        this.failed = failed;
+    }
+
+    public int getRead() {
+        return read;
+    }
+
+    public void setRead(int read) {
+        this.read = read;
+    }
+
+    public int getSent() {
+        return sent;
+    }
+
+    public void setSent(int sent) {
+        this.sent = sent;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxRelayResponse{" +
+                "read=" + read +
+                ", sent=" + sent +
+                ", failed=" + failed +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.validation.constraints.Size;
+
+import java.util.Map;
+
+/**
+ * Represents the request payload for partially updating an existing listing (PATCH /listings/{listingId}).
+ * <p>
+ * The payload follows JSON merge-patch semantics: absent fields are left unchanged, and within
+ * {@code attributes} a key mapped to a value is set while a key mapped to {@code null} is removed.
+ * </p>
+ */
+@RegisterForReflection
+public class PatchListingRequest {
+
+    @Size(min = 1, message = "Listing name cannot be empty")
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("attributes")
+    private Map<String, Object> attributes;
+
+    public PatchListingRequest() {
+    }
+
+    @JsonCreator
+    public PatchListingRequest(@JsonProperty("name") String name,
+                               @JsonProperty("attributes") Map<String, Object> attributes) {
+        this.name = name;
+        this.attributes = attributes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, Object> attributes) {
+        this.attributes = attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "PatchListingRequest{" +
+                "name='" + name + '\'' +
+                ", attributes=" + attributes +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Represents the outcome of a sweep of the listings stuck waiting for their prediction.
+ */
+@RegisterForReflection
+public class PendingSweepResponse {
+
+    @JsonProperty("found")
+    private int found;
+
+    @JsonProperty("requeued")
+    private int requeued;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    public PendingSweepResponse() {
+    }
+
+    @JsonCreator
+    public PendingSweepResponse(@JsonProperty("found") int found,
+                                @JsonProperty("requeued") int requeued,
+                                @JsonProperty("failed") int failed) {
+        this.found = found;
+        this.requeued = requeued;
+        this.failed = failed;
+    }
+
+    public int getFound() {
+        return found;
+    }
+
+    public void setFound(int found) {
+        this.found = found;
+    }
+
+    public int getRequeued() {
+        return requeued;
+    }
+
+    public void setRequeued(int requeued) {
+        this.requeued = requeued;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingSweepResponse{" +
+                "found=" + found +
+                ", requeued=" + requeued +
+                ", failed=" + failed +
+                '}';
+    }
+}
@@ -0,0 +1,167 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.Map;
+
+/**
+ * Represents the message payload of the prediction results queue.
+ * <p>
+ * The inference side sends back the composite key of the listing, the revision and fingerprint carried by the
+ * inference request (see {@link ListingSqsMessage}), the version of its model and the predicted series. Results
+ * whose revision is no longer the one of the listing are stale and dropped; results carrying a fingerprint are
+ * cached for the listings with the same attributes.
+ * </p>
+ */
+@RegisterForReflection
+public class PredictionResultMessage {
+
+    @JsonProperty("listingId")
+    private String listingId;
+
+    @JsonProperty("userId")
+    private String userId;
+
+    /**
+     * Revision of the inference request the prediction was computed for; null for requests sent without one.
+     */
+    @JsonProperty("revision")
+    private Long revision;
+
+    /**
+     * Fingerprint of the attributes the prediction was computed for; null if the request carried none.
+     */
+    @JsonProperty("fingerprint")
+    private String fingerprint;
+
+    /**
+     * Version of the model that computed the prediction; null if the inference side does not report it, in which
+     * case the prediction is not cached.
+     */
+    @JsonProperty("modelVersion")
+    private String modelVersion;
+
+    /**
+     * The points of each predicted series.
+     */
+    @JsonProperty("prediction")
+    private Map<String, double[]> prediction;
+
+    public PredictionResultMessage() {
+    }
+
+    /**
+     * Constructs a new PredictionResultMessage.
+     *
+     * @param listingId  the unique identifier of the listing.
+     * @param userId     the unique identifier of the user.
+     * @param revision   the revision of the inference request, or null if the request had none.
+     * @param prediction the points of each predicted series.
+     */
+    public PredictionResultMessage(String listingId, String userId, Long revision, Map<String, double[]> prediction) {
+        this(listingId, userId, revision, null, null, prediction);
+    }
+
+    /**
+     * Constructs a new PredictionResultMessage carrying the fingerprint and model version of the prediction.
+     *
+     * @param listingId    the unique identifier of the listing.
+     * @param userId       the unique identifier of the user.
+     * @param revision     the revision of the inference request, or null if the request had none.
+     * @param fingerprint  the fingerprint of the inferred attributes, or null if the request had none.
+     * @param modelVersion the version of the model, or null if not reported.
+     * @param prediction   the points of each predicted series.
+     */
+    @JsonCreator
+    public PredictionResultMessage(@JsonProperty("listingId") String listingId,
+                                   @JsonProperty("userId") String userId,
+                                   @JsonProperty("revision") Long revision,
+                                   @JsonProperty("fingerprint") String fingerprint,
+                                   @JsonProperty("modelVersion") String modelVersion,
+                                   @JsonProperty("prediction") Map<String, double[]> prediction) {
+        this.listingId = listingId;
+        this.userId = userId;
+        this.revision = revision;
+        this.fingerprint = fingerprint;
+        this.modelVersion = modelVersion;
+        this.prediction = prediction;
+    }
+
+    /**
+     * Indicates whether the message carries everything needed to write the prediction.
+     *
+     * @return true if the key and every predicted series are present, false otherwise.
+     */
+    public boolean isComplete() {
+        if (listingId == null || listingId.isEmpty() || userId == null || userId.isEmpty() || prediction == null) {
+            return false;
+        }
+        for (double[] points : prediction.values()) {
+            if (points == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public void setModelVersion(String modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+
+    public Map<String, double[]> getPrediction() {
+        return prediction;
+    }
+
+    public void setPrediction(Map<String, double[]> prediction) {
+        this.prediction = prediction;
+    }
+
+    @Override
+    public String toString() {
+        return "PredictionResultMessage{" +
+                "listingId='" + listingId + '\'' +
+                ", userId='" + userId + '\'' +
+                ", revision=" + revision +
+                ", modelVersion='" + modelVersion + '\'' +
+                ", series=" + (prediction != null ? prediction.keySet() : null) +
+                '}';
+    }
+}
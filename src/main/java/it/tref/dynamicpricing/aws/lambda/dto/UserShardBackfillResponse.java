@@ -0,0 +1,86 @@
+package it.tref.dynamicpricing.aws.lambda.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.Map;
+
+/**
+ * Represents the outcome of a run of the sharded user index backfill.
+ * <p>
+ * When the run stops before the end of the table, {@code startKey} must be sent back as the {@code startKey}
+ * of the next invocation to resume the backfill.
+ * </p>
+ */
+@RegisterForReflection
+public class UserShardBackfillResponse {
+
+    @JsonProperty("scanned")
+    private int scanned;
+
+    @JsonProperty("updated")
+    private int updated;
+
+    @JsonProperty("startKey")
+    private Map<String, String> startKey;
+
+    @JsonProperty("complete")
+    private boolean complete;
+
+    public UserShardBackfillResponse() {
+    }
+
+    @JsonCreator
+    public UserShardBackfillResponse(@JsonProperty("scanned") int scanned,
+                                     @JsonProperty("updated") int updated,
+                                     @JsonProperty("startKey") Map<String, String> startKey,
+                                     @JsonProperty("complete") boolean complete) {
+        this.scanned = scanned;
+        this.updated = updated;
+        this.startKey = startKey;
+        this.complete = complete;
+    }
+
+    public int getScanned() {
+        return scanned;
+    }
+
+    public void setScanned(int scanned) {
+        this.scanned = scanned;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public Map<String, String> getStartKey() {
+        return startKey;
+    }
+
+    public void setStartKey(Map<String, String> startKey) {
+        this.startKey = startKey;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    @Override
+    public String toString() {
+        return "UserShardBackfillResponse{" +
+                "scanned=" + scanned +
+                ", updated=" + updated +
+                ", startKey=" + startKey +
+                ", complete=" + complete +
+                '}';
+    }
+}
@@ -0,0 +1,10 @@
+package it.tref.dynamicpricing.aws.lambda.exception;
+
+/**
+ * Thrown when a request conflicts with another one still running, and can be retried later.
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
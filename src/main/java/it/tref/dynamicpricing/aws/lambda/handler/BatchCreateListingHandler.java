@@ -0,0 +1,69 @@
+package it.tref.dynamicpricing.aws.lambda.handler;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import it.tref.dynamicpricing.aws.lambda.aop.HandleErrors;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchCreateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchCreateListingResponse;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchItemResult;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.service.ListingService;
+import it.tref.dynamicpricing.aws.lambda.util.TokenUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.http.HttpStatusCode;
+
+import java.util.List;
+
+/**
+ * AWS Lambda handler for creating several Listings in a single request.
+ * <p>
+ * This handler deserializes the API Gateway event payload into a {@code BatchCreateListingRequest} DTO,
+ * extracts the user ID from token claims, and delegates the creation logic to the {@code ListingService}.
+ * It returns a 200 OK response whose body reports the outcome of every requested listing, in request order.
+ * </p>
+ */
+@ApplicationScoped
+public class BatchCreateListingHandler extends AbstractHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCreateListingHandler.class);
+
+    private final MapperService mapperService;
+    private final ListingService listingService;
+
+    /**
+     * Constructs a new BatchCreateListingHandler.
+     *
+     * @param mapperService  the service to map JSON to/from objects.
+     * @param listingService the service to handle business logic for listings.
+     */
+    public BatchCreateListingHandler(MapperService mapperService, ListingService listingService) {
+        this.mapperService = mapperService;
+        this.listingService = listingService;
+    }
+
+    /**
+     * Processes the API Gateway request event and returns a response event.
+     *
+     * @param event the API Gateway request event.
+     * @return the API Gateway response event.
+     */
+    @Override
+    @HandleErrors
+    public APIGatewayProxyResponseEvent handleEvent(APIGatewayProxyRequestEvent event) {
+        String body = event.getBody();
+        logger.info("BATCH CREATE request body is {}", body);
+
+        BatchCreateListingRequest batchRequest = mapperService.readValue(body, BatchCreateListingRequest.class);
+
+        // Extract userId from token claims
+        String userId = TokenUtil.extractUserIdFromEvent(event);
+
+        List<BatchItemResult> results = listingService.createListings(batchRequest, userId);
+
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(HttpStatusCode.OK)
+                .withBody(mapperService.writeValueAsString(new BatchCreateListingResponse(results)));
+    }
+}
@@ -5,6 +5,7 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import it.tref.dynamicpricing.aws.lambda.aop.HandleErrors;
 import it.tref.dynamicpricing.aws.lambda.dto.CreateListingRequest;
 import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.service.IdempotencyService;
 import it.tref.dynamicpricing.aws.lambda.service.ListingService;
 import it.tref.dynamicpricing.aws.lambda.util.TokenUtil;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -13,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.http.HttpStatusCode;
 
 import java.util.Collections;
+import java.util.Map;
 
 /**
  * AWS Lambda handler for creating a new Listing.
@@ -22,6 +24,11 @@ import java.util.Collections;
  * On successful creation, it returns a 201 Created response with a {@code Location} header that points to the URI
  * of the newly created listing.
  * </p>
+ * <p>
+ * A request carrying an {@code Idempotency-Key} header is run at most once per key, see {@link IdempotencyService}:
+ * a retry gets the {@code Location} of the listing created by the first request, or {@code 409 Conflict} while that
+ * request is still running.
+ * </p>
  */
 @ApplicationScoped
 public class CreateListingHandler extends AbstractHandler {
@@ -30,16 +37,20 @@ public class CreateListingHandler extends AbstractHandler {
 
     private final MapperService mapperService;
     private final ListingService listingService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Constructs a new CreateListingHandler.
      *
-     * @param mapperService  the service to map JSON to/from objects.
-     * @param listingService the service to handle business logic for listings.
+     * @param mapperService      the service to map JSON to/from objects.
+     * @param listingService     the service to handle business logic for listings.
+     * @param idempotencyService the service running the requests carrying an idempotency key at most once.
      */
-    public CreateListingHandler(MapperService mapperService, ListingService listingService) {
+    public CreateListingHandler(MapperService mapperService, ListingService listingService,
+                                IdempotencyService idempotencyService) {
         this.mapperService = mapperService;
         this.listingService = listingService;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
@@ -59,7 +70,14 @@ public class CreateListingHandler extends AbstractHandler {
         // Extract userId from token claims
         String userId = TokenUtil.extractUserIdFromEvent(event);
 
-        String newListingId = listingService.createListing(createListingRequest, userId);
+        String idempotencyKey = idempotencyKey(event);
+        String newListingId;
+        if (idempotencyKey != null && idempotencyService.isEnabled()) {
+            newListingId = idempotencyService.createOnce(userId, idempotencyKey, body,
+                    listingId -> listingService.createListing(createListingRequest, userId, listingId));
+        } else {
+            newListingId = listingService.createListing(createListingRequest, userId);
+        }
 
         // Location URI of the resource
         String locationUri = "/listings/" + newListingId;
@@ -68,4 +86,22 @@ public class CreateListingHandler extends AbstractHandler {
                 .withStatusCode(HttpStatusCode.CREATED)
                 .withHeaders(Collections.singletonMap("Location", locationUri));
     }
+
+    /**
+     * Returns the {@code Idempotency-Key} header of the request, whose name is case-insensitive.
+     *
+     * @param event the API Gateway request event.
+     * @return the idempotency key, or null if the request has none.
+     */
+    private static String idempotencyKey(APIGatewayProxyRequestEvent event) {
+        if (event.getHeaders() == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : event.getHeaders().entrySet()) {
+            if ("Idempotency-Key".equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
 }
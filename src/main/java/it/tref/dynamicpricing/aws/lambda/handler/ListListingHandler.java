@@ -5,15 +5,24 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import it.tref.dynamicpricing.aws.lambda.aop.HandleErrors;
 import it.tref.dynamicpricing.aws.lambda.dto.ListListingsResponse;
 import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
 import it.tref.dynamicpricing.aws.lambda.service.ListingService;
+import it.tref.dynamicpricing.aws.lambda.util.CursorCodec;
 import it.tref.dynamicpricing.aws.lambda.util.TokenUtil;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.http.HttpStatusCode;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * AWS Lambda handler for listing all listings associated with the authenticated user.
@@ -21,24 +30,44 @@ import java.util.List;
  * This handler processes GET requests to retrieve all listings for a user.
  * The response payload contains a list of Listing domain objects.
  * </p>
+ * <p>
+ * When the {@code limit} or {@code cursor} query parameters are present, a single page is returned and,
+ * if more listings are available, the opaque cursor for the next page is set in the {@code X-Next-Cursor} header.
+ * The {@code view=summary} query parameter restricts each listing to its listingId, name, createdAt and completed fields,
+ * including when the listings are requested by id.
+ * </p>
+ * <p>
+ * When the {@code ids} query parameter is present (e.g. {@code ids=a,b,c}), only the listings with the given
+ * identifiers are returned, in the requested order; identifiers without a listing are omitted.
+ * </p>
+ * <p>
+ * When the {@code order} ({@code newest} or {@code oldest}), {@code createdAfter} or {@code createdBefore}
+ * (ISO-8601 instants, inclusive) query parameters are present, a single page of the listings ordered by creation
+ * time is returned, newest first by default. The cursor of such a page only resumes the same query.
+ * </p>
  */
 @ApplicationScoped
 public class ListListingHandler extends AbstractHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(ListListingHandler.class);
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final MapperService mapperService;
     private final ListingService listingService;
+    private final CursorCodec cursorCodec;
 
     /**
      * Constructs a new ListListingHandler.
      *
      * @param mapperService  the service to map JSON to/from objects.
      * @param listingService the service to handle business logic for listings.
+     * @param cursorCodec    the codec for the pagination cursors.
      */
-    public ListListingHandler(MapperService mapperService, ListingService listingService) {
+    public ListListingHandler(MapperService mapperService, ListingService listingService, CursorCodec cursorCodec) {
         this.mapperService = mapperService;
         this.listingService = listingService;
+        this.cursorCodec = cursorCodec;
     }
 
     /**
@@ -51,16 +80,132 @@ public class ListListingHandler extends AbstractHandler {
     @HandleErrors
     public APIGatewayProxyResponseEvent handleEvent(APIGatewayProxyRequestEvent event) {
         String userId = TokenUtil.extractUserIdFromEvent(event);
-        logger.info("Listing all listings for user {}", userId);
 
-        List<Listing> listings = listingService.listListings(userId);
+        Map<String, String> queryParams = event.getQueryStringParameters() != null
+                ? event.getQueryStringParameters()
+                : Collections.emptyMap();
+        String limitParam = queryParams.get("limit");
+        String cursor = queryParams.get("cursor");
+        ListingView view = ListingView.fromParameter(queryParams.get("view"));
+
+        String idsParam = queryParams.get("ids");
+        if (idsParam != null) {
+            List<String> listingIds = parseIds(idsParam);
+            logger.info("Retrieving {} listings by id for user {} ({} view)", listingIds.size(), userId, view);
+            return buildResponse(listingService.getListings(listingIds, userId, view), null);
+        }
+
+        String orderParam = queryParams.get("order");
+        String createdAfterParam = queryParams.get("createdAfter");
+        String createdBeforeParam = queryParams.get("createdBefore");
+        if (orderParam != null || createdAfterParam != null || createdBeforeParam != null) {
+            CreationTimeQuery query = new CreationTimeQuery(parseInstant("createdAfter", createdAfterParam),
+                    parseInstant("createdBefore", createdBeforeParam), parseNewestFirst(orderParam));
+            logger.info("Listing a page of listings for user {} by creation time ({}, limit {}, {} view)",
+                    userId, query, limitParam, view);
+            Map<String, String> exclusiveStartKey = cursor != null ? cursorCodec.decode(cursor, userId) : null;
+            ListingPage page = listingService.listListings(userId, query, parseLimit(limitParam), exclusiveStartKey,
+                    view);
+            String nextCursor = page.hasMore() ? cursorCodec.encode(page.getLastEvaluatedKey(), userId) : null;
+            return buildResponse(page.getListings(), nextCursor);
+        }
 
+        if (limitParam == null && cursor == null) {
+            logger.info("Listing all listings for user {} ({} view)", userId, view);
+            List<Listing> listings = listingService.listListings(userId, view);
+            return buildResponse(listings, null);
+        }
+
+        logger.info("Listing a page of listings for user {} (limit {}, {} view)", userId, limitParam, view);
+        Integer limit = parseLimit(limitParam);
+        Map<String, String> exclusiveStartKey = cursor != null ? cursorCodec.decode(cursor, userId) : null;
+
+        ListingPage page = listingService.listListings(userId, limit, exclusiveStartKey, view);
+        String nextCursor = page.hasMore() ? cursorCodec.encode(page.getLastEvaluatedKey(), userId) : null;
+        return buildResponse(page.getListings(), nextCursor);
+    }
+
+    /**
+     * Serializes the listings and builds the response, exposing the next page cursor if any.
+     */
+    private APIGatewayProxyResponseEvent buildResponse(List<Listing> listings, String nextCursor) {
         ListListingsResponse responseDto = new ListListingsResponse();
         responseDto.setListings(listings);
 
         String responseBody = mapperService.writeValueAsString(responseDto);
-        return new APIGatewayProxyResponseEvent()
+        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent()
                 .withStatusCode(HttpStatusCode.OK)
                 .withBody(responseBody);
+        if (nextCursor != null) {
+            response.setHeaders(Collections.singletonMap(NEXT_CURSOR_HEADER, nextCursor));
+        }
+        return response;
+    }
+
+    /**
+     * Parses the comma-separated {@code ids} query parameter, ignoring blank entries.
+     */
+    private static List<String> parseIds(String idsParam) {
+        List<String> listingIds = new ArrayList<>();
+        for (String listingId : idsParam.split(",")) {
+            if (!listingId.isBlank()) {
+                listingIds.add(listingId.trim());
+            }
+        }
+        return listingIds;
+    }
+
+    /**
+     * Parses a creation time query parameter.
+     *
+     * @param name  the name of the parameter.
+     * @param value the raw parameter, may be null.
+     * @return the parsed instant, or null if not provided.
+     * @throws IllegalArgumentException if the parameter is not an ISO-8601 instant.
+     */
+    private static Instant parseInstant(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO-8601 instant");
+        }
+    }
+
+    /**
+     * Parses the {@code order} query parameter.
+     *
+     * @param orderParam the raw parameter, case-insensitive; null means newest first.
+     * @return true for newest first, false for oldest first.
+     * @throws IllegalArgumentException if the parameter is neither {@code newest} nor {@code oldest}.
+     */
+    private static boolean parseNewestFirst(String orderParam) {
+        if (orderParam == null || "newest".equalsIgnoreCase(orderParam)) {
+            return true;
+        }
+        if ("oldest".equalsIgnoreCase(orderParam)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unsupported order: " + orderParam);
+    }
+
+    /**
+     * Parses the {@code limit} query parameter.
+     *
+     * @param limitParam the raw parameter, may be null.
+     * @return the parsed limit, or null if not provided.
+     * @throws IllegalArgumentException if the parameter is not a number.
+     */
+    private static Integer parseLimit(String limitParam) {
+        if (limitParam == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(limitParam);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Limit must be a number");
+        }
     }
 }
@@ -18,6 +18,8 @@ import software.amazon.awssdk.http.HttpStatusCode;
  * <p>
  * This handler processes GET requests to fetch a single listing using the listingId from path parameters.
  * The userId is extracted from the token claims.
+ * Reads may be served from the per-container cache; the {@code consistent=true} query parameter forces
+ * a strongly consistent read of the latest acknowledged write.
  * </p>
  */
 @ApplicationScoped
@@ -52,9 +54,11 @@ public class RetrieveListingHandler extends AbstractHandler {
     public APIGatewayProxyResponseEvent handleEvent(APIGatewayProxyRequestEvent event) {
         String listingId = event.getPathParameters().get("listingId");
         String userId = TokenUtil.extractUserIdFromEvent(event);
-        logger.info("Fetching listing with ID {} for user {}", listingId, userId);
+        boolean consistentRead = event.getQueryStringParameters() != null
+                && Boolean.parseBoolean(event.getQueryStringParameters().get("consistent"));
+        logger.info("Fetching listing with ID {} for user {} (consistent read: {})", listingId, userId, consistentRead);
 
-        Listing listing = listingService.getListing(listingId, userId);
+        Listing listing = listingService.getListing(listingId, userId, consistentRead);
 
         GetListingResponse responseDto = new GetListingResponse();
         responseDto.setListing(listing);
@@ -0,0 +1,115 @@
+package it.tref.dynamicpricing.aws.lambda.mapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical fingerprint of the attributes of a listing, stored on the item to tell whether an update changes them.
+ * <p>
+ * The attributes are written in a canonical form, with map keys sorted and every value tagged with its kind as
+ * resolved by {@link TypedAttributeCodec}, and hashed with SHA-256. Two attribute maps holding the same values have
+ * the same fingerprint whatever their map implementation and key order; numbers are compared by value, so that
+ * {@code 1} and {@code 1.0} have the same fingerprint, like they have the same stored {@code N} value. Top-level
+ * null values are skipped, like they are not stored, so {@code {"a":1,"b":null}} and {@code {"a":1}} have the same
+ * fingerprint.
+ * </p>
+ */
+public final class AttributesFingerprint {
+
+    private AttributesFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of the given attributes.
+     *
+     * @param attributes the attributes; null is the same as no attributes.
+     * @return the URL-safe Base64 encoded SHA-256 hash of the canonical form of the attributes.
+     */
+    public static String of(Map<String, Object> attributes) {
+        Map<String, Object> stored = new HashMap<>();
+        if (attributes != null) {
+            attributes.forEach((key, value) -> {
+                if (value != null) {
+                    stored.put(key, value);
+                }
+            });
+        }
+        StringBuilder canonical = new StringBuilder();
+        append(stored, canonical);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Appends the canonical form of a value. Strings are length-prefixed, so that no two values share a form.
+     */
+    private static void append(Object value, StringBuilder canonical) {
+        if (value == null) {
+            canonical.append('z');
+            return;
+        }
+        switch (TypedAttributeCodec.kindOf(value)) {
+            case STRING:
+            case OTHER:
+                // Values of other kinds are stored as their string representation
+                String string = value.toString();
+                canonical.append('s').append(string.length()).append(':').append(string);
+                break;
+            case INTEGRAL:
+            case FLOATING_POINT:
+                canonical.append('n').append(toBigDecimal((Number) value).stripTrailingZeros().toPlainString()).append(';');
+                break;
+            case BOOLEAN:
+                canonical.append((Boolean) value ? 't' : 'f');
+                break;
+            case MAP:
+                Map<?, ?> map = (Map<?, ?>) value;
+                List<String> keys = new ArrayList<>(map.size());
+                map.keySet().forEach(key -> keys.add(String.valueOf(key)));
+                keys.sort(null);
+                canonical.append('m').append(keys.size()).append('{');
+                for (String key : keys) {
+                    append(key, canonical);
+                    append(map.get(key), canonical);
+                }
+                canonical.append('}');
+                break;
+            case LIST:
+                Collection<?> collection = (Collection<?>) value;
+                canonical.append('l').append(collection.size()).append('[');
+                for (Object element : collection) {
+                    append(element, canonical);
+                }
+                canonical.append(']');
+                break;
+            default:
+                throw new IllegalStateException("Unexpected value kind: " + TypedAttributeCodec.kindOf(value));
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+}
@@ -0,0 +1,371 @@
+package it.tref.dynamicpricing.aws.lambda.mapper;
+
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary encoding of the attributes and prediction of a listing, stored as a single DynamoDB {@code B} value.
+ * <p>
+ * A payload starts with a format marker byte. Attribute payloads, and the prediction payloads written before the
+ * packed layout, are {@value #GZIP_FORMAT} followed by the gzip-compressed content:
+ * <ul>
+ *   <li>attributes: the number of entries, then for each entry the key, a type tag and the value. The tags are
+ *   {@code 0} string, {@code 1} list of strings, {@code 2} number (as its decimal string), {@code 3} boolean,
+ *   {@code 4} null, {@code 5} list of typed values and {@code 6} map of typed values, the last two holding
+ *   their size followed by their elements, map entries prefixed with their key. Lists made only of strings keep
+ *   the {@code 1} tag, so that payloads without typed values are written as before;</li>
+ *   <li>prediction: the number of series, then for each series the key, the number of points and the points
+ *   as IEEE 754 doubles.</li>
+ * </ul>
+ * Predictions are now written packed: {@value #PACKED_FORMAT} followed by the number of series, then for each
+ * series the length of its UTF-8 key, the key, the number of points and the points, all little-endian, so that
+ * the points are read into a {@code double[]} in a single bulk copy. When the packed content reaches the
+ * compression threshold and gzip actually saves space, it is written gzipped behind {@value #GZIP_PACKED_FORMAT}.
+ * Strings are written as a length-prefixed UTF-8 byte sequence, so values are not bound to the 64 KB limit of
+ * {@link DataOutputStream#writeUTF(String)}.
+ * </p>
+ */
+public final class CompressedPayloadCodec {
+
+    /**
+     * Format marker of a gzip-compressed payload.
+     */
+    public static final byte GZIP_FORMAT = 0x01;
+
+    /**
+     * Format marker of a packed prediction.
+     */
+    public static final byte PACKED_FORMAT = 0x02;
+
+    /**
+     * Format marker of a gzip-compressed packed prediction.
+     */
+    public static final byte GZIP_PACKED_FORMAT = 0x03;
+
+    private static final byte STRING_VALUE = 0;
+    private static final byte LIST_VALUE = 1;
+    private static final byte NUMBER_VALUE = 2;
+    private static final byte BOOLEAN_VALUE = 3;
+    private static final byte NULL_VALUE = 4;
+    private static final byte TYPED_LIST_VALUE = 5;
+    private static final byte MAP_VALUE = 6;
+
+    private CompressedPayloadCodec() {
+    }
+
+    /**
+     * Compresses the given attributes if their encoded size reaches the threshold and compression actually saves space.
+     * Null values are skipped, as in the map layout.
+     *
+     * @param attributes     the attributes to compress.
+     * @param thresholdBytes the minimum encoded size to compress; zero or less disables compression.
+     * @return the compressed payload, or null if the attributes should be stored as a map.
+     */
+    public static SdkBytes compressAttributes(Map<String, Object> attributes, int thresholdBytes) {
+        if (thresholdBytes <= 0 || attributes.isEmpty()) {
+            return null;
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            int count = 0;
+            for (Object value : attributes.values()) {
+                if (value != null) {
+                    count++;
+                }
+            }
+            out.writeInt(count);
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                writeString(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compress(raw.toByteArray(), thresholdBytes);
+    }
+
+    /**
+     * Packs the given prediction, gzipping it if its packed size reaches the threshold and compression actually
+     * saves space.
+     *
+     * @param prediction     the prediction series to pack.
+     * @param thresholdBytes the minimum packed size to compress; zero or less disables compression.
+     * @return the packed payload.
+     */
+    public static SdkBytes packPrediction(Map<String, double[]> prediction, int thresholdBytes) {
+        int size = 1 + Integer.BYTES;
+        byte[][] keys = new byte[prediction.size()][];
+        int index = 0;
+        for (Map.Entry<String, double[]> series : prediction.entrySet()) {
+            keys[index] = series.getKey().getBytes(StandardCharsets.UTF_8);
+            size += 2 * Integer.BYTES + keys[index].length + Double.BYTES * series.getValue().length;
+            index++;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(PACKED_FORMAT);
+        buffer.putInt(prediction.size());
+        index = 0;
+        for (double[] points : prediction.values()) {
+            buffer.putInt(keys[index].length);
+            buffer.put(keys[index]);
+            buffer.putInt(points.length);
+            buffer.asDoubleBuffer().put(points);
+            buffer.position(buffer.position() + Double.BYTES * points.length);
+            index++;
+        }
+        byte[] packed = buffer.array();
+        if (thresholdBytes > 0 && packed.length >= thresholdBytes) {
+            byte[] compressed = gzip(GZIP_PACKED_FORMAT, packed, 1, packed.length - 1);
+            if (compressed.length < packed.length) {
+                return SdkBytes.fromByteArrayUnsafe(compressed);
+            }
+        }
+        return SdkBytes.fromByteArrayUnsafe(packed);
+    }
+
+    /**
+     * Decompresses attributes written by {@link #compressAttributes(Map, int)}.
+     *
+     * @param payload the stored payload.
+     * @return the attributes, with the type they were written with.
+     * @throws IllegalStateException if the payload has an unknown format or is corrupted.
+     */
+    public static Map<String, Object> decompressAttributes(SdkBytes payload) {
+        try (DataInputStream in = decompress(payload)) {
+            int count = in.readInt();
+            Map<String, Object> attributes = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                attributes.put(key, readValue(in));
+            }
+            return attributes;
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted compressed attributes", e);
+        }
+    }
+
+    /**
+     * Reads a prediction written by {@link #packPrediction(Map, int)}, or gzip-compressed before the packed layout.
+     *
+     * @param payload the stored payload.
+     * @return the prediction series.
+     * @throws IllegalStateException if the payload has an unknown format or is corrupted.
+     */
+    public static Map<String, double[]> unpackPrediction(SdkBytes payload) {
+        byte[] bytes = payload.asByteArrayUnsafe();
+        if (bytes.length > 0 && bytes[0] == PACKED_FORMAT) {
+            return unpack(ByteBuffer.wrap(bytes, 1, bytes.length - 1));
+        }
+        if (bytes.length > 0 && bytes[0] == GZIP_PACKED_FORMAT) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+                return unpack(ByteBuffer.wrap(in.readAllBytes()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Corrupted compressed prediction", e);
+            }
+        }
+        try (DataInputStream in = decompress(payload)) {
+            int count = in.readInt();
+            Map<String, double[]> prediction = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                double[] points = new double[in.readInt()];
+                for (int j = 0; j < points.length; j++) {
+                    points[j] = in.readDouble();
+                }
+                prediction.put(key, points);
+            }
+            return prediction;
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted compressed prediction", e);
+        }
+    }
+
+    /**
+     * Reads the packed prediction series following the format marker.
+     */
+    private static Map<String, double[]> unpack(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            int count = buffer.getInt();
+            Map<String, double[]> prediction = ListingItemCodec.newMap(count);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                double[] points = new double[buffer.getInt()];
+                buffer.asDoubleBuffer().get(points);
+                buffer.position(buffer.position() + Double.BYTES * points.length);
+                prediction.put(new String(key, StandardCharsets.UTF_8), points);
+            }
+            return prediction;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IllegalStateException("Corrupted packed prediction", e);
+        }
+    }
+
+    /**
+     * Gzips the raw payload behind the format marker, unless it is below the threshold or does not shrink.
+     */
+    private static SdkBytes compress(byte[] raw, int thresholdBytes) {
+        if (raw.length < thresholdBytes) {
+            return null;
+        }
+        byte[] compressed = gzip(GZIP_FORMAT, raw, 0, raw.length);
+        return compressed.length < raw.length ? SdkBytes.fromByteArrayUnsafe(compressed) : null;
+    }
+
+    /**
+     * Gzips a range of the raw payload behind the given format marker.
+     */
+    private static byte[] gzip(byte format, byte[] raw, int offset, int length) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 16);
+        compressed.write(format);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(raw, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Checks the format marker and opens a stream on the decompressed content.
+     */
+    private static DataInputStream decompress(SdkBytes payload) throws IOException {
+        byte[] bytes = payload.asByteArrayUnsafe();
+        if (bytes.length == 0 || bytes[0] != GZIP_FORMAT) {
+            throw new IllegalStateException("Unsupported compressed payload format");
+        }
+        return new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1)));
+    }
+
+    /**
+     * Writes a typed attribute value, behind its type tag.
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+            return;
+        }
+        switch (TypedAttributeCodec.kindOf(value)) {
+            case INTEGRAL:
+                out.writeByte(NUMBER_VALUE);
+                writeString(out, value.toString());
+                break;
+            case FLOATING_POINT:
+                out.writeByte(NUMBER_VALUE);
+                writeString(out, Double.toString(((Number) value).doubleValue()));
+                break;
+            case BOOLEAN:
+                out.writeByte(BOOLEAN_VALUE);
+                out.writeBoolean((Boolean) value);
+                break;
+            case MAP:
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP_VALUE);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(out, String.valueOf(entry.getKey()));
+                    writeValue(out, entry.getValue());
+                }
+                break;
+            case LIST:
+                Collection<?> list = (Collection<?>) value;
+                boolean strings = true;
+                for (Object element : list) {
+                    if (element == null || TypedAttributeCodec.kindOf(element) != TypedAttributeCodec.ValueKind.STRING) {
+                        strings = false;
+                        break;
+                    }
+                }
+                out.writeByte(strings ? LIST_VALUE : TYPED_LIST_VALUE);
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    if (strings) {
+                        writeString(out, element.toString());
+                    } else {
+                        writeValue(out, element);
+                    }
+                }
+                break;
+            default:
+                out.writeByte(STRING_VALUE);
+                writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Reads a typed attribute value written by {@link #writeValue(DataOutputStream, Object)}.
+     */
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case STRING_VALUE:
+                return readString(in);
+            case LIST_VALUE: {
+                int size = in.readInt();
+                List<String> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readString(in));
+                }
+                return list;
+            }
+            case NUMBER_VALUE:
+                return TypedAttributeCodec.decodeNumber(readString(in));
+            case BOOLEAN_VALUE:
+                return in.readBoolean();
+            case NULL_VALUE:
+                return null;
+            case TYPED_LIST_VALUE: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case MAP_VALUE: {
+                int size = in.readInt();
+                Map<String, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in));
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Unknown attribute type tag: " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,15 +1,16 @@
 package it.tref.dynamicpricing.aws.lambda.mapper;
 
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Mapper class for converting between {@link Listing} objects and DynamoDB item maps.
@@ -18,10 +19,231 @@ import java.util.stream.Collectors;
  * and vice versa. Fixed properties such as {@code listingId}, {@code userId}, {@code createdAt}, and {@code completed}
  * are mapped to the root level, while dynamic attributes are nested under the "attributes" key.
  * </p>
+ * <p>
+ * When a compression threshold is configured, attributes whose encoded size reaches it are stored as a single
+ * compressed {@code B} value (see {@link CompressedPayloadCodec}) instead of a map. Both layouts are read.
+ * When packed prediction writes are enabled, the prediction is stored as a packed {@code B} value of little-endian
+ * doubles, gzipped when it reaches the threshold; otherwise it is stored as a map of number lists, the layout that
+ * versions older than the packed one read. Both layouts are read.
+ * </p>
+ * <p>
+ * When the pending index is enabled, listings whose prediction is not completed also carry the
+ * {@value #PENDING_SHARD} and {@value #PENDING_SINCE} keys of the sparse pending index.
+ * </p>
+ * <p>
+ * When the sharded user index is enabled, every listing also carries the {@value #USER_SHARD} key, spreading the
+ * listings of a user over several index partitions.
+ * </p>
+ * <p>
+ * The values themselves are converted by {@link ListingItemCodec}, which the update requests of the repository
+ * share.
+ * </p>
  */
 @ApplicationScoped
 public class DynamoDBListingMapper {
 
+    private static final DateTimeFormatter SORTABLE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    /**
+     * The item attributes read by the summary view.
+     */
+    public static final List<String> SUMMARY_ATTRIBUTES = List.of("listingId", "userId", "name", "createdAt", "completed");
+
+    /**
+     * Partition key of the sparse pending index, only present while the prediction of a listing is pending.
+     */
+    public static final String PENDING_SHARD = "pendingShard";
+
+    /**
+     * Sort key of the sparse pending index: when the listing started waiting for its prediction, or was last sent
+     * again by the pending sweep (see {@link #sortableTimestamp(Instant)}).
+     */
+    public static final String PENDING_SINCE = "pendingSince";
+
+    /**
+     * How many times the pending sweep has sent the listing to the queue again since it started waiting.
+     */
+    public static final String PENDING_ATTEMPTS = "pendingAttempts";
+
+    /**
+     * Partition key of the sharded user index: the userId and the shard of the listing ({@code userId#shard}).
+     */
+    public static final String USER_SHARD = "userShard";
+
+    /**
+     * Revision of the inference request of the listing; the prediction results of other revisions are dropped.
+     */
+    public static final String REVISION = "revision";
+
+    /**
+     * Fingerprint of the attributes of the listing (see {@link AttributesFingerprint}); updates that leave it
+     * unchanged do not reset the prediction.
+     */
+    public static final String FINGERPRINT = "fingerprint";
+
+    /**
+     * The largest number of attributes of an item: the fixed properties, the attributes, their fingerprint, the
+     * prediction, the revision and the keys of the pending and sharded user indexes.
+     */
+    private static final int ITEM_ATTRIBUTES = 12;
+
+    private final int compressionThresholdBytes;
+    private final int pendingIndexShards;
+    private final int userIndexShards;
+    private final boolean packedPredictions;
+
+    /**
+     * Constructs a new DynamoDBListingMapper with the configured compression threshold, pending index,
+     * sharded user index and prediction layout.
+     *
+     * @param configService the configuration service.
+     */
+    @Inject
+    public DynamoDBListingMapper(ConfigService configService) {
+        this(configService.getItemCompressionThresholdBytes(),
+                configService.getListingPendingIndexName().isPresent() ? configService.getListingPendingIndexShards() : 0,
+                configService.getListingUserShardIndexName().isPresent() ? configService.getListingUserShards() : 0,
+                configService.isPredictionPackedWritesEnabled());
+    }
+
+    /**
+     * Constructs a new DynamoDBListingMapper that does not write the pending index attributes.
+     *
+     * @param compressionThresholdBytes the minimum encoded size of the attributes or prediction to store them
+     *                                  compressed; zero or less always stores maps.
+     */
+    public DynamoDBListingMapper(int compressionThresholdBytes) {
+        this(compressionThresholdBytes, 0);
+    }
+
+    /**
+     * Constructs a new DynamoDBListingMapper.
+     *
+     * @param compressionThresholdBytes the minimum encoded size of the attributes or prediction to store them
+     *                                  compressed; zero or less always stores maps.
+     * @param pendingIndexShards        the number of partitions of the sparse pending index; zero or less does not
+     *                                  write the pending index attributes.
+     */
+    public DynamoDBListingMapper(int compressionThresholdBytes, int pendingIndexShards) {
+        this(compressionThresholdBytes, pendingIndexShards, 0);
+    }
+
+    /**
+     * Constructs a new DynamoDBListingMapper that writes predictions as maps of number lists, like the default
+     * configuration.
+     *
+     * @param compressionThresholdBytes the minimum encoded size of the attributes or prediction to store them
+     *                                  compressed; zero or less always stores maps.
+     * @param pendingIndexShards        the number of partitions of the sparse pending index; zero or less does not
+     *                                  write the pending index attributes.
+     * @param userIndexShards           the number of partitions of each user in the sharded user index; zero or
+     *                                  less does not write the sharded user index key.
+     */
+    public DynamoDBListingMapper(int compressionThresholdBytes, int pendingIndexShards, int userIndexShards) {
+        this(compressionThresholdBytes, pendingIndexShards, userIndexShards, false);
+    }
+
+    /**
+     * Constructs a new DynamoDBListingMapper.
+     *
+     * @param compressionThresholdBytes the minimum encoded size of the attributes or prediction to store them
+     *                                  compressed; zero or less always stores maps.
+     * @param pendingIndexShards        the number of partitions of the sparse pending index; zero or less does not
+     *                                  write the pending index attributes.
+     * @param userIndexShards           the number of partitions of each user in the sharded user index; zero or
+     *                                  less does not write the sharded user index key.
+     * @param packedPredictions         whether the prediction is written packed rather than as a map of number
+     *                                  lists.
+     */
+    public DynamoDBListingMapper(int compressionThresholdBytes, int pendingIndexShards, int userIndexShards,
+                                 boolean packedPredictions) {
+        this.compressionThresholdBytes = compressionThresholdBytes;
+        this.pendingIndexShards = pendingIndexShards;
+        this.userIndexShards = userIndexShards;
+        this.packedPredictions = packedPredictions;
+    }
+
+    /**
+     * Returns the number of partitions of the sparse pending index.
+     *
+     * @return the number of shards, or zero if the pending index attributes are not written.
+     */
+    public int getPendingIndexShards() {
+        return pendingIndexShards;
+    }
+
+    /**
+     * Returns whether the prediction is written packed rather than as a map of number lists.
+     *
+     * @return true if packed prediction writes are enabled.
+     */
+    public boolean isPackedPredictions() {
+        return packedPredictions;
+    }
+
+    /**
+     * Returns the number of partitions of each user in the sharded user index.
+     *
+     * @return the number of shards, or zero if the sharded user index key is not written.
+     */
+    public int getUserIndexShards() {
+        return userIndexShards;
+    }
+
+    /**
+     * Computes the sharded user index partition of a listing.
+     * <p>
+     * The shard only depends on the listingId, so it never changes for a given listing, but changing the number of
+     * shards requires writing the key of every listing again.
+     * </p>
+     *
+     * @param userId    the identifier of the user.
+     * @param listingId the identifier of the listing.
+     * @param shards    the number of partitions of each user, greater than zero.
+     * @return the partition key value, {@code userId#shard}.
+     */
+    public static String userShard(String userId, String listingId, int shards) {
+        return userShard(userId, Math.floorMod(listingId.hashCode(), shards));
+    }
+
+    /**
+     * Builds the sharded user index partition key of the given shard of a user.
+     *
+     * @param userId the identifier of the user.
+     * @param shard  the shard, from zero to the number of shards minus one.
+     * @return the partition key value, {@code userId#shard}.
+     */
+    public static String userShard(String userId, int shard) {
+        return userId + "#" + shard;
+    }
+
+    /**
+     * Computes the pending index partition of a listing.
+     *
+     * @param listingId the identifier of the listing.
+     * @param shards    the number of partitions of the pending index, greater than zero.
+     * @return the partition key value, from {@code "0"} to {@code shards - 1}.
+     */
+    public static String pendingShard(String listingId, int shards) {
+        return Integer.toString(Math.floorMod(listingId.hashCode(), shards));
+    }
+
+    /**
+     * Formats an instant as a fixed-width ISO-8601 UTC timestamp with nanosecond precision.
+     * <p>
+     * {@link Instant#toString()} omits the fraction digits that are zero, so its values do not sort as strings
+     * ({@code ...:00Z} sorts after {@code ...:00.5Z}). Timestamps used as sort keys or compared in key conditions are
+     * written with this format instead.
+     * </p>
+     *
+     * @param instant the instant to format.
+     * @return the timestamp, such as {@code 2024-01-01T00:00:00.000000000Z}.
+     */
+    public static String sortableTimestamp(Instant instant) {
+        return SORTABLE_TIMESTAMP.format(instant);
+    }
+
     /**
      * Converts a {@link Listing} object to a DynamoDB item map.
      * <p>
@@ -29,61 +251,54 @@ public class DynamoDBListingMapper {
      * <ul>
      *   <li>{@code listingId} (String)</li>
      *   <li>{@code userId} (String)</li>
-     *   <li>{@code createdAt} (String in ISO-8601 format)</li>
+     *   <li>{@code createdAt} (String in fixed-width ISO-8601 format, see {@link #sortableTimestamp(Instant)})</li>
      *   <li>{@code completed} (Boolean)</li>
-     *   <li>{@code prediction} (Object)</li>
+     *   <li>{@code prediction} (packed binary when packed prediction writes are enabled, otherwise a map of
+     *   number lists)</li>
+     *   <li>{@code revision} (Number, when set)</li>
+     *   <li>{@code fingerprint} (String, the fingerprint of the attributes)</li>
      * </ul>
      * <p>
-     * Any dynamic attributes present in the Listing are nested under the key "attributes" as a map of strings.
+     * Any dynamic attributes present in the Listing are nested under the key "attributes" as a map of typed values
+     * (see {@link TypedAttributeCodec}).
      * </p>
      *
      * @param listing the {@link Listing} object to convert.
      * @return a {@code Map<String, AttributeValue>} representing the DynamoDB item.
      */
     public Map<String, AttributeValue> toDynamoDbItem(Listing listing) {
-        Map<String, AttributeValue> item = new HashMap<>();
-        item.put("listingId", AttributeValue.builder().s(listing.getListingId()).build());
-        item.put("userId", AttributeValue.builder().s(listing.getUserId()).build());
-        item.put("createdAt", AttributeValue.builder().s(listing.getCreatedAt().toString()).build());
-        item.put("completed", AttributeValue.builder().bool(listing.isCompleted()).build());
-        item.put("name", AttributeValue.builder().s(listing.getName()).build());
-
-        // Nest dynamic attributes into the key "attributes" as strings
+        Map<String, AttributeValue> item = ListingItemCodec.newMap(ITEM_ATTRIBUTES);
+        item.put("listingId", ListingItemCodec.string(listing.getListingId()));
+        item.put("userId", ListingItemCodec.string(listing.getUserId()));
+        item.put("createdAt", ListingItemCodec.string(sortableTimestamp(listing.getCreatedAt())));
+        item.put("completed", ListingItemCodec.bool(listing.isCompleted()));
+        item.put("name", ListingItemCodec.string(listing.getName()));
+
+        // Nest dynamic attributes into the key "attributes" with their types
         if (!listing.getAttributes().isEmpty()) {
-            Map<String, AttributeValue> attributesMap = new HashMap<>();
-            listing.getAttributes().forEach((k, v) -> {
-                if (v != null) {
-                    if (v instanceof List) {
-                        @SuppressWarnings("unchecked")
-                        List<Object> list = (List<Object>) v;
-                        // Convert each item to an AttributeValue (as a string)
-                        attributesMap.put(k, AttributeValue.builder()
-                                .l(list.stream()
-                                        .map(item_ -> AttributeValue.builder().s(item_.toString()).build())
-                                        .collect(java.util.stream.Collectors.toList()))
-                                .build());
-                    } else {
-                        attributesMap.put(k, AttributeValue.builder().s(v.toString()).build());
-                    }
-                }
-            });
-            item.put("attributes", AttributeValue.builder().m(attributesMap).build());
+            item.put("attributes", ListingItemCodec.toAttributesValue(listing.getAttributes(), compressionThresholdBytes));
         }
+        item.put(FINGERPRINT, ListingItemCodec.string(AttributesFingerprint.of(listing.getAttributes())));
 
         if (listing.getPrediction() != null) {
-            @SuppressWarnings("unchecked")
-            Map<String, List<Double>> predictionObj = (Map<String, List<Double>>) listing.getPrediction();
-            Map<String, AttributeValue> predictionMap = new HashMap<>();
-            predictionObj.forEach((key, list) -> {
-                // Convert each Double in the list to an AttributeValue number (as string)
-                List<AttributeValue> attrList = list.stream()
-                        .map(num -> AttributeValue.builder().n(Double.toString(num)).build())
-                        .collect(Collectors.toList());
-                predictionMap.put(key, AttributeValue.builder().l(attrList).build());
-            });
-            item.put("prediction", AttributeValue.builder().m(predictionMap).build());
+            item.put("prediction", ListingItemCodec.toPredictionValue(listing.getPrediction(), compressionThresholdBytes,
+                    packedPredictions));
         }
 
+        if (listing.getRevision() != null) {
+            item.put(REVISION, AttributeValue.builder().n(listing.getRevision().toString()).build());
+        }
+
+        // Sparse pending index: only listings still waiting for their prediction carry its keys
+        if (pendingIndexShards > 0 && !listing.isCompleted()) {
+            item.put(PENDING_SHARD, ListingItemCodec.string(pendingShard(listing.getListingId(), pendingIndexShards)));
+            item.put(PENDING_SINCE, ListingItemCodec.string(sortableTimestamp(listing.getCreatedAt())));
+        }
+
+        if (userIndexShards > 0) {
+            item.put(USER_SHARD, ListingItemCodec.string(
+                    userShard(listing.getUserId(), listing.getListingId(), userIndexShards)));
+        }
 
         return item;
     }
@@ -97,10 +312,12 @@ public class DynamoDBListingMapper {
      *   <li>{@code userId} (String)</li>
      *   <li>{@code createdAt} (String in ISO-8601 format, converted to {@link Instant})</li>
      *   <li>{@code completed} (Boolean)</li>
-     *   <li>{@code prediction} (Object)</li>
+     *   <li>{@code prediction} (packed binary, or the legacy map of number lists)</li>
+     *   <li>{@code revision} (Number, if present)</li>
      * </ul>
      * <p>
-     * If present, dynamic attributes are retrieved from the nested "attributes" map and added to the Listing's attributes.
+     * If present, dynamic attributes are retrieved from the nested "attributes" map, or its compressed form,
+     * and added to the Listing's attributes.
      * </p>
      *
      * @param item the DynamoDB item map to convert.
@@ -118,38 +335,40 @@ public class DynamoDBListingMapper {
         listing.setName(item.get("name").s());
         listing.setCompleted(item.get("completed").bool());
 
-        if (item.containsKey("attributes") && item.get("attributes").m() != null) {
-            Map<String, AttributeValue> attributesMap = item.get("attributes").m();
-            attributesMap.forEach((k, v) -> {
-                if (v.l() != null && !v.l().isEmpty()) {
-                    // Convert list of AttributeValues to a List of strings
-                    listing.getAttributes().put(k, v.l().stream()
-                            .map(AttributeValue::s)
-                            .filter(Objects::nonNull)
-                            .collect(java.util.stream.Collectors.toList()));
-                } else if (v.s() != null) {
-                    listing.getAttributes().put(k, v.s());
-                }
-            });
+        if (item.containsKey("attributes")) {
+            listing.getAttributes().putAll(ListingItemCodec.fromAttributesValue(item.get("attributes")));
+        }
+
+        if (item.containsKey("prediction")) {
+            listing.setPrediction(ListingItemCodec.fromPredictionValue(item.get("prediction")));
         }
 
-        if (item.containsKey("prediction") && item.get("prediction").m() != null) {
-            Map<String, AttributeValue> predictionAttrMap = item.get("prediction").m();
-            Map<String, List<Double>> prediction = new HashMap<>();
-            predictionAttrMap.forEach((key, attrVal) -> {
-                // Expect attrVal to be a list of numbers stored as strings
-                if (attrVal.l() != null && !attrVal.l().isEmpty()) {
-                    List<Double> values = attrVal.l().stream()
-                            .map(av -> Double.valueOf(av.n()))
-                            .collect(Collectors.toList());
-                    prediction.put(key, values);
-                }
-            });
-            listing.setPrediction(prediction);
+        if (item.containsKey(REVISION)) {
+            listing.setRevision(Long.valueOf(item.get(REVISION).n()));
         }
 
         return listing;
     }
 
-}
+    /**
+     * Converts a DynamoDB item read with the summary projection into a {@link Listing} object.
+     * <p>
+     * Only the attributes listed in {@link #SUMMARY_ATTRIBUTES} are mapped; the dynamic attributes and the
+     * prediction are left null so that they are omitted from the serialized listing.
+     * </p>
+     *
+     * @param item the projected DynamoDB item map to convert.
+     * @return the corresponding summary {@link Listing} object.
+     */
+    public Listing fromSummaryItem(Map<String, AttributeValue> item) {
+        Listing listing = new Listing();
+        listing.setListingId(item.get("listingId").s());
+        listing.setUserId(item.get("userId").s());
+        listing.setCreatedAt(Instant.parse(item.get("createdAt").s()));
+        listing.setName(item.get("name").s());
+        listing.setCompleted(item.get("completed").bool());
+        listing.setAttributes(null);
+        return listing;
+    }
 
+}
@@ -0,0 +1,189 @@
+package it.tref.dynamicpricing.aws.lambda.mapper;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion of the values of a listing to and from DynamoDB attribute values, shared by the item mapper and the
+ * update requests of the repository.
+ * <p>
+ * Every collection is built with its final size and filled by plain loops, without streams, collectors or
+ * per-element lambdas. Constant values, such as the {@code completed} flags, are shared instances:
+ * {@link AttributeValue} is immutable.
+ * </p>
+ */
+public final class ListingItemCodec {
+
+    /**
+     * The {@code true} boolean value.
+     */
+    public static final AttributeValue TRUE = AttributeValue.builder().bool(true).build();
+
+    /**
+     * The {@code false} boolean value.
+     */
+    public static final AttributeValue FALSE = AttributeValue.builder().bool(false).build();
+
+    /**
+     * The empty map value, written as the prediction of a listing waiting for a new one.
+     */
+    public static final AttributeValue EMPTY_MAP = AttributeValue.builder().m(Map.of()).build();
+
+    private ListingItemCodec() {
+    }
+
+    /**
+     * Returns the boolean value of the given flag.
+     *
+     * @param value the flag.
+     * @return the shared {@link #TRUE} or {@link #FALSE} value.
+     */
+    public static AttributeValue bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Builds a string value.
+     *
+     * @param value the string, not null.
+     * @return the {@code S} value.
+     */
+    public static AttributeValue string(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    /**
+     * Creates a map presized to hold the given number of entries without resizing.
+     *
+     * @param expectedSize the number of entries the map will hold.
+     * @param <K>          the type of the keys.
+     * @param <V>          the type of the values.
+     * @return an empty map.
+     */
+    public static <K, V> Map<K, V> newMap(int expectedSize) {
+        return new HashMap<>((int) Math.ceil(expectedSize / 0.75));
+    }
+
+    /**
+     * Converts a dynamic attribute value to its typed DynamoDB representation (see {@link TypedAttributeCodec}).
+     *
+     * @param value the attribute value, not null.
+     * @return the corresponding {@link AttributeValue}.
+     */
+    public static AttributeValue toAttributeValue(Object value) {
+        return TypedAttributeCodec.encode(value);
+    }
+
+    /**
+     * Converts the dynamic attributes to their stored value: a compressed {@code B} value when their encoded size
+     * reaches the threshold, a map of typed values otherwise. Null values are skipped.
+     *
+     * @param attributes                the dynamic attributes.
+     * @param compressionThresholdBytes the compression threshold; zero or less disables compression.
+     * @return the {@link AttributeValue} to store under "attributes".
+     */
+    public static AttributeValue toAttributesValue(Map<String, Object> attributes, int compressionThresholdBytes) {
+        SdkBytes compressed = CompressedPayloadCodec.compressAttributes(attributes, compressionThresholdBytes);
+        if (compressed != null) {
+            return AttributeValue.builder().b(compressed).build();
+        }
+        Map<String, AttributeValue> values = newMap(attributes.size());
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            if (entry.getValue() != null) {
+                values.put(entry.getKey(), toAttributeValue(entry.getValue()));
+            }
+        }
+        return AttributeValue.builder().m(values).build();
+    }
+
+    /**
+     * Converts the prediction to its stored value: a packed {@code B} value of little-endian doubles, gzipped when
+     * its size reaches the threshold, or the legacy map of number lists when packed writes are disabled. An empty
+     * prediction, the one of a listing waiting for a new one, is stored as the {@link #EMPTY_MAP}.
+     *
+     * @param prediction                the prediction series.
+     * @param compressionThresholdBytes the compression threshold of the packed layout; zero or less disables
+     *                                  compression.
+     * @param packed                    whether to write the packed layout, which versions older than it cannot read.
+     * @return the {@link AttributeValue} to store under "prediction".
+     */
+    public static AttributeValue toPredictionValue(Map<String, double[]> prediction, int compressionThresholdBytes,
+                                                   boolean packed) {
+        if (prediction.isEmpty()) {
+            return EMPTY_MAP;
+        }
+        if (packed) {
+            return AttributeValue.builder()
+                    .b(CompressedPayloadCodec.packPrediction(prediction, compressionThresholdBytes))
+                    .build();
+        }
+        Map<String, AttributeValue> series = newMap(prediction.size());
+        for (Map.Entry<String, double[]> entry : prediction.entrySet()) {
+            double[] points = entry.getValue();
+            List<AttributeValue> values = new ArrayList<>(points.length);
+            for (double point : points) {
+                values.add(AttributeValue.builder().n(Double.toString(point)).build());
+            }
+            series.put(entry.getKey(), AttributeValue.builder().l(values).build());
+        }
+        return AttributeValue.builder().m(series).build();
+    }
+
+    /**
+     * Reads the dynamic attributes from their stored value, in either the compressed or the map layout.
+     *
+     * @param value the value stored under "attributes".
+     * @return the attributes, with the type they were stored with.
+     */
+    public static Map<String, Object> fromAttributesValue(AttributeValue value) {
+        if (value.b() != null) {
+            return CompressedPayloadCodec.decompressAttributes(value.b());
+        }
+        if (!value.hasM()) {
+            return new HashMap<>();
+        }
+        Map<String, AttributeValue> stored = value.m();
+        Map<String, Object> attributes = newMap(stored.size());
+        for (Map.Entry<String, AttributeValue> entry : stored.entrySet()) {
+            Object attribute = TypedAttributeCodec.decode(entry.getValue());
+            if (attribute != null) {
+                attributes.put(entry.getKey(), attribute);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Reads the prediction from its stored value, in either the binary layouts or the legacy map of number lists.
+     *
+     * @param value the value stored under "prediction".
+     * @return the prediction series.
+     */
+    public static Map<String, double[]> fromPredictionValue(AttributeValue value) {
+        if (value.b() != null) {
+            return CompressedPayloadCodec.unpackPrediction(value.b());
+        }
+        if (!value.hasM()) {
+            return new HashMap<>();
+        }
+        Map<String, AttributeValue> stored = value.m();
+        Map<String, double[]> prediction = newMap(stored.size());
+        for (Map.Entry<String, AttributeValue> entry : stored.entrySet()) {
+            AttributeValue series = entry.getValue();
+            if (series.hasL() && !series.l().isEmpty()) {
+                List<AttributeValue> elements = series.l();
+                double[] points = new double[elements.size()];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = Double.parseDouble(elements.get(i).n());
+                }
+                prediction.put(entry.getKey(), points);
+            }
+        }
+        return prediction;
+    }
+}
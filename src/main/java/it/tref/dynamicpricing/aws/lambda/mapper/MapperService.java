@@ -1,6 +1,7 @@
 package it.tref.dynamicpricing.aws.lambda.mapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
@@ -54,6 +55,23 @@ public class MapperService {
         }
     }
 
+    /**
+     * Deserializes the provided JSON string into an object of the specified generic type.
+     *
+     * @param <T>       the type of the object to deserialize into.
+     * @param value     the JSON string to be deserialized.
+     * @param valueType the {@link TypeReference} describing type T.
+     * @return an instance of type T populated with data from the JSON string.
+     * @throws RuntimeException if there is an error during deserialization.
+     */
+    public <T> T readValue(String value, TypeReference<T> valueType) {
+        try {
+            return mapper.readValue(value, valueType);
+        } catch (JsonProcessingException e) {
+            throw new JsonProcessingRuntimeException("Error deserializing JSON", e);
+        }
+    }
+
     /**
      * Serializes the provided object into a JSON string.
      *
@@ -0,0 +1,81 @@
+package it.tref.dynamicpricing.aws.lambda.mapper;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Converts the item images of DynamoDB Stream records, delivered with the Lambda event model,
+ * into SDK items that the {@link DynamoDBListingMapper} can read.
+ */
+public final class StreamImageConverter {
+
+    private StreamImageConverter() {
+    }
+
+    /**
+     * Converts a stream image into an SDK item.
+     *
+     * @param image the stream image, may be null.
+     * @return the SDK item, or null if no image was given.
+     */
+    public static Map<String, AttributeValue> toItem(
+            Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> image) {
+        if (image == null) {
+            return null;
+        }
+        Map<String, AttributeValue> item = ListingItemCodec.newMap(image.size());
+        for (Map.Entry<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> entry
+                : image.entrySet()) {
+            item.put(entry.getKey(), toAttributeValue(entry.getValue()));
+        }
+        return item;
+    }
+
+    /**
+     * Converts a single stream attribute value into an SDK attribute value.
+     *
+     * @param value the stream attribute value.
+     * @return the SDK attribute value.
+     */
+    static AttributeValue toAttributeValue(com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue value) {
+        if (value.getS() != null) {
+            return AttributeValue.builder().s(value.getS()).build();
+        }
+        if (value.getN() != null) {
+            return AttributeValue.builder().n(value.getN()).build();
+        }
+        if (value.getBOOL() != null) {
+            return ListingItemCodec.bool(value.getBOOL());
+        }
+        if (value.getB() != null) {
+            return AttributeValue.builder().b(SdkBytes.fromByteBuffer(value.getB().duplicate())).build();
+        }
+        if (value.getM() != null) {
+            return AttributeValue.builder().m(toItem(value.getM())).build();
+        }
+        if (value.getL() != null) {
+            List<AttributeValue> list = new ArrayList<>(value.getL().size());
+            for (com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue element : value.getL()) {
+                list.add(toAttributeValue(element));
+            }
+            return AttributeValue.builder().l(list).build();
+        }
+        if (value.getSS() != null) {
+            return AttributeValue.builder().ss(value.getSS()).build();
+        }
+        if (value.getNS() != null) {
+            return AttributeValue.builder().ns(value.getNS()).build();
+        }
+        if (value.getBS() != null) {
+            return AttributeValue.builder().bs(value.getBS().stream()
+                    .map(buffer -> SdkBytes.fromByteBuffer(buffer.duplicate()))
+                    .collect(Collectors.toList())).build();
+        }
+        return AttributeValue.builder().nul(true).build();
+    }
+}
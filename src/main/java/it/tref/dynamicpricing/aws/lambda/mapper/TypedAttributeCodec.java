@@ -0,0 +1,220 @@
+package it.tref.dynamicpricing.aws.lambda.mapper;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-preserving conversion of the dynamic attribute values of a listing to and from DynamoDB attribute values.
+ * <p>
+ * Strings are stored as {@code S}, numbers as {@code N}, booleans as {@code BOOL}, maps as {@code M} and lists as
+ * {@code L}, element by element; nulls nested in maps and lists are stored as {@code NULL}. Any other value, and
+ * the numbers DynamoDB cannot hold in an {@code N} value (non-finite, with a magnitude above 9.99E+125 or below
+ * 1E-130, or with more than 38 significant digits), are stored as their string representation.
+ * </p>
+ * <p>
+ * The kind of each value class is resolved once, on the first value of that class, and cached in a
+ * {@link ClassValue}; converting a value then takes a single switch. Numbers are read back as {@link Long} when
+ * integral and within its range, {@link BigDecimal} when integral beyond it, and {@link Double} otherwise. Values
+ * stored before the typed layout are strings and lists of strings, and are read as such.
+ * </p>
+ */
+public final class TypedAttributeCodec {
+
+    /**
+     * The kinds of attribute values, each with its own stored type.
+     */
+    enum ValueKind {
+        STRING, INTEGRAL, FLOATING_POINT, BOOLEAN, MAP, LIST, OTHER
+    }
+
+    private static final ClassValue<ValueKind> KINDS = new ClassValue<>() {
+        @Override
+        protected ValueKind computeValue(Class<?> type) {
+            if (CharSequence.class.isAssignableFrom(type)) {
+                return ValueKind.STRING;
+            }
+            if (type == Boolean.class) {
+                return ValueKind.BOOLEAN;
+            }
+            if (type == Double.class || type == Float.class) {
+                return ValueKind.FLOATING_POINT;
+            }
+            if (Number.class.isAssignableFrom(type)) {
+                return ValueKind.INTEGRAL;
+            }
+            if (Map.class.isAssignableFrom(type)) {
+                return ValueKind.MAP;
+            }
+            if (Collection.class.isAssignableFrom(type)) {
+                return ValueKind.LIST;
+            }
+            return ValueKind.OTHER;
+        }
+    };
+
+    private static final AttributeValue NULL = AttributeValue.builder().nul(true).build();
+
+    /**
+     * The limits of a DynamoDB {@code N} value: its significant digits and the range of its adjusted exponent.
+     */
+    private static final int MAX_NUMBER_PRECISION = 38;
+    private static final int MAX_NUMBER_EXPONENT = 125;
+    private static final int MIN_NUMBER_EXPONENT = -130;
+    private static final double MAX_NUMBER_MAGNITUDE = 1E126;
+    private static final double MIN_NUMBER_MAGNITUDE = 1E-130;
+
+    private TypedAttributeCodec() {
+    }
+
+    /**
+     * Returns the kind of the given value.
+     *
+     * @param value the value, not null.
+     * @return the kind resolved for the class of the value.
+     */
+    static ValueKind kindOf(Object value) {
+        ValueKind kind = KINDS.get(value.getClass());
+        if (kind == ValueKind.FLOATING_POINT && !fitsNumber(((Number) value).doubleValue())) {
+            return ValueKind.OTHER;
+        }
+        if (kind == ValueKind.INTEGRAL && !fitsNumber((Number) value)) {
+            return ValueKind.OTHER;
+        }
+        return kind;
+    }
+
+    /**
+     * Tells whether a floating point number can be stored in an {@code N} value; its string form never exceeds
+     * the precision limit.
+     */
+    private static boolean fitsNumber(double value) {
+        double magnitude = Math.abs(value);
+        return magnitude == 0 || (magnitude >= MIN_NUMBER_MAGNITUDE && magnitude < MAX_NUMBER_MAGNITUDE);
+    }
+
+    /**
+     * Tells whether a number that is not floating point can be stored in an {@code N} value. Integers up to
+     * {@link Long} always fit; arbitrary precision numbers are checked against the precision and exponent limits.
+     */
+    private static boolean fitsNumber(Number value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return true;
+        }
+        BigDecimal decimal;
+        try {
+            decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (decimal.signum() == 0) {
+            return true;
+        }
+        BigDecimal stripped = decimal.stripTrailingZeros();
+        int exponent = stripped.precision() - stripped.scale() - 1;
+        return stripped.precision() <= MAX_NUMBER_PRECISION
+                && exponent >= MIN_NUMBER_EXPONENT && exponent <= MAX_NUMBER_EXPONENT;
+    }
+
+    /**
+     * Converts an attribute value to its typed DynamoDB representation.
+     *
+     * @param value the value, may be null.
+     * @return the corresponding {@link AttributeValue}.
+     */
+    public static AttributeValue encode(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        switch (kindOf(value)) {
+            case STRING:
+            case OTHER:
+                return ListingItemCodec.string(value.toString());
+            case INTEGRAL:
+                return AttributeValue.builder().n(value.toString()).build();
+            case FLOATING_POINT:
+                return AttributeValue.builder().n(Double.toString(((Number) value).doubleValue())).build();
+            case BOOLEAN:
+                return ListingItemCodec.bool((Boolean) value);
+            case MAP:
+                Map<?, ?> map = (Map<?, ?>) value;
+                Map<String, AttributeValue> values = ListingItemCodec.newMap(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    values.put(String.valueOf(entry.getKey()), encode(entry.getValue()));
+                }
+                return AttributeValue.builder().m(values).build();
+            case LIST:
+                Collection<?> collection = (Collection<?>) value;
+                List<AttributeValue> elements = new ArrayList<>(collection.size());
+                for (Object element : collection) {
+                    elements.add(encode(element));
+                }
+                return AttributeValue.builder().l(elements).build();
+            default:
+                throw new IllegalStateException("Unexpected value kind: " + kindOf(value));
+        }
+    }
+
+    /**
+     * Reads an attribute value from its DynamoDB representation, typed or not.
+     *
+     * @param value the stored value.
+     * @return the string, number, boolean, map or list read, or null for a {@code NULL} value.
+     */
+    public static Object decode(AttributeValue value) {
+        switch (value.type()) {
+            case S:
+                return value.s();
+            case N:
+                return decodeNumber(value.n());
+            case BOOL:
+                return value.bool();
+            case M:
+                Map<String, AttributeValue> stored = value.m();
+                Map<String, Object> map = ListingItemCodec.newMap(stored.size());
+                for (Map.Entry<String, AttributeValue> entry : stored.entrySet()) {
+                    map.put(entry.getKey(), decode(entry.getValue()));
+                }
+                return map;
+            case L:
+                List<AttributeValue> elements = value.l();
+                List<Object> list = new ArrayList<>(elements.size());
+                for (AttributeValue element : elements) {
+                    list.add(decode(element));
+                }
+                return list;
+            case SS:
+                return new ArrayList<>(value.ss());
+            case NS:
+                List<Object> numbers = new ArrayList<>(value.ns().size());
+                for (String number : value.ns()) {
+                    numbers.add(decodeNumber(number));
+                }
+                return numbers;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads a number stored in an {@code N} value.
+     *
+     * @param number the decimal representation of the number.
+     * @return a {@link Long} when integral and within its range, a {@link BigDecimal} when integral beyond it,
+     * a {@link Double} otherwise.
+     */
+    static Number decodeNumber(String number) {
+        if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+            try {
+                return Long.parseLong(number);
+            } catch (NumberFormatException e) {
+                return new BigDecimal(number);
+            }
+        }
+        return Double.parseDouble(number);
+    }
+}
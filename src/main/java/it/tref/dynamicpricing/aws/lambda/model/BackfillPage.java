@@ -0,0 +1,75 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import java.util.Map;
+
+/**
+ * Represents the outcome of a single page of a backfill over the listing table.
+ * <p>
+ * The {@code lastEvaluatedKey} must be passed back as the exclusive start key to process the next page.
+ * It is {@code null} when the whole table has been processed.
+ * </p>
+ */
+public class BackfillPage {
+
+    private final int scanned;
+    private final int updated;
+    private final Map<String, String> lastEvaluatedKey;
+
+    /**
+     * Constructs a new BackfillPage.
+     *
+     * @param scanned          the number of listings read by the page.
+     * @param updated          the number of listings written by the page.
+     * @param lastEvaluatedKey the key of the last evaluated listing, or null if this is the last page.
+     */
+    public BackfillPage(int scanned, int updated, Map<String, String> lastEvaluatedKey) {
+        this.scanned = scanned;
+        this.updated = updated;
+        this.lastEvaluatedKey = lastEvaluatedKey;
+    }
+
+    /**
+     * Returns the number of listings read by the page.
+     *
+     * @return the number of scanned listings.
+     */
+    public int getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Returns the number of listings written by the page.
+     *
+     * @return the number of updated listings.
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Returns the key of the last evaluated listing.
+     *
+     * @return the last evaluated key, or null if there are no more listings.
+     */
+    public Map<String, String> getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    /**
+     * Indicates whether more listings remain after this page.
+     *
+     * @return true if another page can be processed, false otherwise.
+     */
+    public boolean hasMore() {
+        return lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BackfillPage{" +
+                "scanned=" + scanned +
+                ", updated=" + updated +
+                ", lastEvaluatedKey=" + lastEvaluatedKey +
+                '}';
+    }
+}
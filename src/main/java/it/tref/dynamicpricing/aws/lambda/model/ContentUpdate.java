@@ -0,0 +1,88 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+/**
+ * Represents the outcome of replacing the name and attributes of a listing.
+ * <p>
+ * Only a change of the attributes resets the prediction and requires a new inference; a change of the name alone
+ * is written without touching the prediction, and an update changing neither writes nothing.
+ * </p>
+ */
+public class ContentUpdate {
+
+    /**
+     * What an update changed in the stored listing.
+     */
+    public enum Change {
+        /**
+         * Nothing: the listing was not written.
+         */
+        NONE,
+        /**
+         * The name only: the prediction was kept.
+         */
+        NAME,
+        /**
+         * The attributes, and possibly the name: the prediction was reset.
+         */
+        ATTRIBUTES
+    }
+
+    private final Listing listing;
+    private final Change change;
+
+    /**
+     * Constructs a new ContentUpdate.
+     *
+     * @param listing the listing as stored after the update.
+     * @param change  what the update changed.
+     */
+    public ContentUpdate(Listing listing, Change change) {
+        this.listing = listing;
+        this.change = change;
+    }
+
+    /**
+     * Returns the listing as stored after the update.
+     *
+     * @return the listing.
+     */
+    public Listing getListing() {
+        return listing;
+    }
+
+    /**
+     * Returns what the update changed.
+     *
+     * @return the change.
+     */
+    public Change getChange() {
+        return change;
+    }
+
+    /**
+     * Indicates whether the update reset the prediction, so that a new inference is needed.
+     *
+     * @return true if the attributes changed, false otherwise.
+     */
+    public boolean isPredictionReset() {
+        return change == Change.ATTRIBUTES;
+    }
+
+    /**
+     * Indicates whether the update requires a new inference, that is whether it changed the attributes without
+     * writing a prediction for them, such as a cached one.
+     *
+     * @return true if the attributes changed and the listing is not completed, false otherwise.
+     */
+    public boolean isInferenceNeeded() {
+        return isPredictionReset() && listing != null && !listing.isCompleted();
+    }
+
+    @Override
+    public String toString() {
+        return "ContentUpdate{" +
+                "listingId='" + (listing != null ? listing.getListingId() : null) + '\'' +
+                ", change=" + change +
+                '}';
+    }
+}
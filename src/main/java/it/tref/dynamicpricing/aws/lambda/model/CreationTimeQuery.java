@@ -0,0 +1,69 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import java.time.Instant;
+
+/**
+ * Represents the criteria of a list of listings ordered by creation time.
+ * <p>
+ * Both bounds are inclusive and optional; the listings are returned newest first unless stated otherwise.
+ * </p>
+ */
+public class CreationTimeQuery {
+
+    private final Instant createdAfter;
+    private final Instant createdBefore;
+    private final boolean newestFirst;
+
+    /**
+     * Constructs a new CreationTimeQuery.
+     *
+     * @param createdAfter  the earliest creation time of the listings, or null for no lower bound.
+     * @param createdBefore the latest creation time of the listings, or null for no upper bound.
+     * @param newestFirst   true to return the most recent listings first, false for the oldest first.
+     * @throws IllegalArgumentException if the lower bound is later than the upper bound.
+     */
+    public CreationTimeQuery(Instant createdAfter, Instant createdBefore, boolean newestFirst) {
+        if (createdAfter != null && createdBefore != null && createdAfter.isAfter(createdBefore)) {
+            throw new IllegalArgumentException("createdAfter must not be later than createdBefore");
+        }
+        this.createdAfter = createdAfter;
+        this.createdBefore = createdBefore;
+        this.newestFirst = newestFirst;
+    }
+
+    /**
+     * Returns the earliest creation time of the listings.
+     *
+     * @return the inclusive lower bound, or null if there is none.
+     */
+    public Instant getCreatedAfter() {
+        return createdAfter;
+    }
+
+    /**
+     * Returns the latest creation time of the listings.
+     *
+     * @return the inclusive upper bound, or null if there is none.
+     */
+    public Instant getCreatedBefore() {
+        return createdBefore;
+    }
+
+    /**
+     * Indicates whether the most recent listings come first.
+     *
+     * @return true for newest first, false for oldest first.
+     */
+    public boolean isNewestFirst() {
+        return newestFirst;
+    }
+
+    @Override
+    public String toString() {
+        return "CreationTimeQuery{" +
+                "createdAfter=" + createdAfter +
+                ", createdBefore=" + createdBefore +
+                ", newestFirst=" + newestFirst +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import java.time.Instant;
+
+/**
+ * Represents the outcome remembered for an idempotency key of a create request.
+ * <p>
+ * A key is first claimed {@link Status#IN_PROGRESS} for a short lease, then marked {@link Status#COMPLETED} once
+ * its listing is written, or {@link Status#FAILED} if the create failed. A failed claim, or one whose request never
+ * completed and whose lease ended, can be claimed again, keeping its listingId.
+ * </p>
+ */
+public class IdempotencyRecord {
+
+    /**
+     * The state of the request of an idempotency key.
+     */
+    public enum Status {
+        /**
+         * The listing of the key is being created.
+         */
+        IN_PROGRESS,
+        /**
+         * The listing of the key was created.
+         */
+        COMPLETED,
+        /**
+         * The create of the key failed, possibly after its listing was written.
+         */
+        FAILED
+    }
+
+    private final String idempotencyKey;
+    private final String listingId;
+    private final String requestHash;
+    private final Instant expiresAt;
+    private final Status status;
+
+    /**
+     * Constructs a new IdempotencyRecord.
+     *
+     * @param idempotencyKey the idempotency key, scoped to the user who sent it.
+     * @param listingId      the identifier of the listing created for the key.
+     * @param requestHash    the hash of the request body sent with the key.
+     * @param expiresAt      when the key is forgotten, or when the lease of an in-progress claim ends.
+     * @param status         the state of the request of the key.
+     */
+    public IdempotencyRecord(String idempotencyKey, String listingId, String requestHash, Instant expiresAt,
+                             Status status) {
+        this.idempotencyKey = idempotencyKey;
+        this.listingId = listingId;
+        this.requestHash = requestHash;
+        this.expiresAt = expiresAt;
+        this.status = status;
+    }
+
+    /**
+     * Returns the idempotency key, scoped to the user who sent it.
+     *
+     * @return the idempotency key.
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Returns the identifier of the listing created for the key.
+     *
+     * @return the listing id.
+     */
+    public String getListingId() {
+        return listingId;
+    }
+
+    /**
+     * Returns the hash of the request body sent with the key.
+     *
+     * @return the request hash.
+     */
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    /**
+     * Returns when the key is forgotten, or when the lease of an in-progress claim ends.
+     *
+     * @return the expiration time.
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Returns the state of the request of the key.
+     *
+     * @return the status.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Indicates whether the listing of the key was created.
+     *
+     * @return true if the record is completed, false if it is in progress or failed.
+     */
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "idempotencyKey='" + idempotencyKey + '\'' +
+                ", listingId='" + listingId + '\'' +
+                ", expiresAt=" + expiresAt +
+                ", status=" + status +
+                '}';
+    }
+}
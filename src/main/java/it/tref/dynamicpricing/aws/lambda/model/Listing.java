@@ -2,14 +2,19 @@ package it.tref.dynamicpricing.aws.lambda.model;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import jakarta.validation.constraints.NotEmpty;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a listing entity with fixed properties (listingId, userId, createdAt, completed)
@@ -60,15 +65,28 @@ public class Listing {
 
     /**
      * Holds additional dynamic attributes that are not explicitly defined as fields.
+     * <p>
+     * It is null (and omitted from JSON) only for listings read with the summary view.
+     * </p>
      */
     @JsonProperty("attributes")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Map<String, Object> attributes = new HashMap<>();
 
     /**
-     * Model's prediction over the listing.
+     * Model's prediction over the listing: the points of each series, held as primitive arrays and serialized
+     * to JSON straight from them.
      */
     @JsonProperty("prediction")
-    private Map<String, List<Double>> prediction;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, double[]> prediction;
+
+    /**
+     * Revision of the inference request the listing waits for, or got its prediction from
+     * (see {@link it.tref.dynamicpricing.aws.lambda.util.RevisionUtil}); null for listings written before revisions.
+     */
+    @JsonIgnore
+    private Long revision;
 
     /**
      * Default constructor that sets the creation timestamp.
@@ -204,21 +222,95 @@ public class Listing {
     }
 
     /**
-     * Sets the prediction of the model to the listing.
+     * Returns the prediction of the model over the listing.
+     *
+     * @return the points of each prediction series, or null if the prediction was not read.
      */
-    public Object getPrediction() {
+    public Map<String, double[]> getPrediction() {
         return prediction;
     }
 
     /**
-     * Returns a string representation of the Listing.
+     * Sets the prediction of the model to the listing.
      *
-     * @param prediction the prediction value.
+     * @param prediction the points of each prediction series.
      */
-    public void setPrediction(Map<String, List<Double>> prediction) {
+    public void setPrediction(Map<String, double[]> prediction) {
         this.prediction = prediction;
     }
 
+    /**
+     * Returns the revision of the inference request of the listing.
+     *
+     * @return the revision, or null if the listing has none.
+     */
+    public Long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Sets the revision of the inference request of the listing.
+     *
+     * @param revision the revision.
+     */
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Returns a deep copy of the listing: the attributes (including nested maps, lists and sets) and the prediction
+     * series are copied, so that changes to the copy never reach this listing and vice versa.
+     *
+     * @return the copy of the listing.
+     */
+    public Listing copy() {
+        Listing copy = new Listing();
+        copy.listingId = listingId;
+        copy.userId = userId;
+        copy.name = name;
+        copy.createdAt = createdAt;
+        copy.completed = completed;
+        copy.revision = revision;
+        copy.attributes = attributes != null ? copyMap(attributes) : null;
+        if (prediction != null) {
+            copy.prediction = new HashMap<>(prediction.size());
+            prediction.forEach((series, points) -> copy.prediction.put(series, points != null ? points.clone() : null));
+        }
+        return copy;
+    }
+
+    /**
+     * Copies a map of attribute values, copying the nested containers.
+     */
+    private static Map<String, Object> copyMap(Map<?, ?> map) {
+        Map<String, Object> copy = new HashMap<>(map.size());
+        map.forEach((key, value) -> copy.put(String.valueOf(key), copyValue(value)));
+        return copy;
+    }
+
+    /**
+     * Copies an attribute value; strings, numbers and booleans are immutable and shared.
+     */
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            ((List<?>) value).forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        if (value instanceof Set) {
+            Set<Object> copy = new LinkedHashSet<>();
+            ((Set<?>) value).forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
     /**
      * Returns a string representation of the Listing.
      *
@@ -232,6 +324,7 @@ public class Listing {
                 ", name='" + name + '\'' +
                 ", createdAt=" + createdAt +
                 ", completed=" + completed +
+                ", revision=" + revision +
                 ", attributes=" + attributes +
                 '}';
     }
@@ -0,0 +1,64 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a single page of listings returned by a paginated query.
+ * <p>
+ * The {@code lastEvaluatedKey} holds the key attributes of the last item read by the query,
+ * and must be passed back as the exclusive start key to fetch the next page.
+ * It is {@code null} when there are no more results to fetch.
+ * </p>
+ */
+public class ListingPage {
+
+    private final List<Listing> listings;
+    private final Map<String, String> lastEvaluatedKey;
+
+    /**
+     * Constructs a new ListingPage.
+     *
+     * @param listings         the listings contained in this page.
+     * @param lastEvaluatedKey the key of the last evaluated item, or null if this is the last page.
+     */
+    public ListingPage(List<Listing> listings, Map<String, String> lastEvaluatedKey) {
+        this.listings = listings;
+        this.lastEvaluatedKey = lastEvaluatedKey;
+    }
+
+    /**
+     * Returns the listings contained in this page.
+     *
+     * @return the listings of the page.
+     */
+    public List<Listing> getListings() {
+        return listings;
+    }
+
+    /**
+     * Returns the key of the last evaluated item.
+     *
+     * @return the last evaluated key, or null if there are no more results.
+     */
+    public Map<String, String> getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    /**
+     * Indicates whether more results are available after this page.
+     *
+     * @return true if another page can be fetched, false otherwise.
+     */
+    public boolean hasMore() {
+        return lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ListingPage{" +
+                "listings=" + listings +
+                ", lastEvaluatedKey=" + lastEvaluatedKey +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Represents a partial update of a listing.
+ * <p>
+ * Only the given fields are written: a null {@code name} is left unchanged, and in {@code attributeChanges}
+ * a key mapped to a value is set while a key mapped to {@code null} is removed. When {@code resetPrediction}
+ * is set, the prediction is cleared and the listing is marked as not completed.
+ * </p>
+ */
+public class ListingPatch {
+
+    private final String listingId;
+    private final String userId;
+    private final String name;
+    private final Map<String, Object> attributeChanges;
+    private final boolean resetPrediction;
+
+    /**
+     * Constructs a new ListingPatch.
+     *
+     * @param listingId        the identifier of the listing.
+     * @param userId           the identifier of the user.
+     * @param name             the new name, or null to leave it unchanged.
+     * @param attributeChanges the attributes to set (non-null values) or remove (null values); may be null.
+     * @param resetPrediction  whether the prediction must be cleared.
+     */
+    public ListingPatch(String listingId, String userId, String name,
+                        Map<String, Object> attributeChanges, boolean resetPrediction) {
+        this.listingId = listingId;
+        this.userId = userId;
+        this.name = name;
+        this.attributeChanges = attributeChanges != null ? attributeChanges : Collections.emptyMap();
+        this.resetPrediction = resetPrediction;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> getAttributeChanges() {
+        return attributeChanges;
+    }
+
+    public boolean isResetPrediction() {
+        return resetPrediction;
+    }
+
+    @Override
+    public String toString() {
+        return "ListingPatch{" +
+                "listingId='" + listingId + '\'' +
+                ", userId='" + userId + '\'' +
+                ", name='" + name + '\'' +
+                ", attributeChanges=" + attributeChanges +
+                ", resetPrediction=" + resetPrediction +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+/**
+ * Defines how much of a listing is read and returned by list operations.
+ */
+public enum ListingView {
+
+    /**
+     * The complete listing, including dynamic attributes and prediction.
+     */
+    FULL,
+
+    /**
+     * Only the fixed properties shown in list views: listingId, userId, name, createdAt and completed.
+     */
+    SUMMARY;
+
+    /**
+     * Resolves the view from the value of the {@code view} query parameter.
+     *
+     * @param value the parameter value, case-insensitive; null means {@link #FULL}.
+     * @return the matching view.
+     * @throws IllegalArgumentException if the value does not match any view.
+     */
+    public static ListingView fromParameter(String value) {
+        if (value == null) {
+            return FULL;
+        }
+        for (ListingView view : values()) {
+            if (view.name().equalsIgnoreCase(value)) {
+                return view;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported view: " + value);
+    }
+}
@@ -0,0 +1,63 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a single page of outbox records returned by a paginated read.
+ * <p>
+ * The {@code lastEvaluatedKey} must be passed back as the exclusive start key to fetch the next page.
+ * It is {@code null} when there are no more records to read.
+ * </p>
+ */
+public class OutboxPage {
+
+    private final List<OutboxRecord> records;
+    private final Map<String, String> lastEvaluatedKey;
+
+    /**
+     * Constructs a new OutboxPage.
+     *
+     * @param records          the records contained in this page.
+     * @param lastEvaluatedKey the key of the last evaluated record, or null if this is the last page.
+     */
+    public OutboxPage(List<OutboxRecord> records, Map<String, String> lastEvaluatedKey) {
+        this.records = records;
+        this.lastEvaluatedKey = lastEvaluatedKey;
+    }
+
+    /**
+     * Returns the records contained in this page.
+     *
+     * @return the records of the page.
+     */
+    public List<OutboxRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the key of the last evaluated record.
+     *
+     * @return the last evaluated key, or null if there are no more records.
+     */
+    public Map<String, String> getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    /**
+     * Indicates whether more records are available after this page.
+     *
+     * @return true if another page can be fetched, false otherwise.
+     */
+    public boolean hasMore() {
+        return lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxPage{" +
+                "records=" + records +
+                ", lastEvaluatedKey=" + lastEvaluatedKey +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package it.tref.dynamicpricing.aws.lambda.model;
+
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+
+/**
+ * Represents an inference message waiting in the outbox to be sent to the SQS queue.
+ */
+public class OutboxRecord {
+
+    private final String outboxId;
+    private final ListingSqsMessage message;
+
+    /**
+     * Constructs a new OutboxRecord.
+     *
+     * @param outboxId the unique identifier of the record.
+     * @param message  the inference message to send.
+     */
+    public OutboxRecord(String outboxId, ListingSqsMessage message) {
+        this.outboxId = outboxId;
+        this.message = message;
+    }
+
+    /**
+     * Returns the unique identifier of the record.
+     *
+     * @return the outbox id.
+     */
+    public String getOutboxId() {
+        return outboxId;
+    }
+
+    /**
+     * Returns the inference message to send.
+     *
+     * @return the message.
+     */
+    public ListingSqsMessage getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxRecord{" +
+                "outboxId='" + outboxId + '\'' +
+                ", listingId='" + message.getListingId() + '\'' +
+                '}';
+    }
+}
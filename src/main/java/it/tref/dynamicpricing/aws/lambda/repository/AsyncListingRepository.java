@@ -0,0 +1,23 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link ListingRepository} for the batch writes.
+ * <p>
+ * Every method returns immediately; the returned future completes when the datastore has answered.
+ * </p>
+ */
+public interface AsyncListingRepository {
+    /**
+     * Persists several listings in the datastore, writing independent chunks concurrently
+     * and retrying the items the datastore could not process.
+     *
+     * @param listings the listings to persist.
+     * @return a future completing with the listings that could not be persisted after all attempts.
+     */
+    CompletableFuture<List<Listing>> saveAll(List<Listing> listings);
+}
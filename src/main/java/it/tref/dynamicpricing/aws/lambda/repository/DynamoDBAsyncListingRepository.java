@@ -0,0 +1,124 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
+import it.tref.dynamicpricing.aws.lambda.cache.ListingCache;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBAsyncClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
+import it.tref.dynamicpricing.aws.lambda.util.FutureUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implementation of AsyncListingRepository using the AWS DynamoDB asynchronous client.
+ * <p>
+ * Requests are built exactly as in {@link DynamoDBListingRepository}, so both implementations
+ * read and write the same item layout, on the primary table of the listing table mode. Completed writes invalidate
+ * the {@link ListingCache}, as the synchronous writes do through the caching decorator. Throttled operations are
+ * retried like those of the synchronous repository, with non-blocking delays.
+ * </p>
+ */
+@DynamoDBErrorHandled
+@ApplicationScoped
+public class DynamoDBAsyncListingRepository implements AsyncListingRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBAsyncListingRepository.class);
+
+    private final DynamoDBAsyncClientService dynamoDBAsyncClientService;
+    private final ConfigService configService;
+    private final DynamoDBListingMapper dynamoDBListingMapper;
+    private final ListingCache listingCache;
+
+    /**
+     * Constructs a new DynamoDBAsyncListingRepository.
+     *
+     * @param dynamoDBAsyncClientService the service providing the asynchronous DynamoDB client.
+     * @param configService              the configuration service that provides the table name.
+     * @param dynamoDBListingMapper      the mapper between listings and DynamoDB items.
+     * @param listingCache               the per-container listing cache to invalidate on writes.
+     */
+    public DynamoDBAsyncListingRepository(DynamoDBAsyncClientService dynamoDBAsyncClientService,
+                                          ConfigService configService,
+                                          DynamoDBListingMapper dynamoDBListingMapper,
+                                          ListingCache listingCache) {
+        this.dynamoDBAsyncClientService = dynamoDBAsyncClientService;
+        this.configService = configService;
+        this.dynamoDBListingMapper = dynamoDBListingMapper;
+        this.listingCache = listingCache;
+    }
+
+    /**
+     * Persists several listings with BatchWriteItem, sending all the chunks of
+     * {@value DynamoDBListingRepository#BATCH_WRITE_MAX_ITEMS} items concurrently.
+     *
+     * @param listings the listings to persist.
+     * @return a future completing with the listings that could not be persisted.
+     */
+    @Override
+    public CompletableFuture<List<Listing>> saveAll(List<Listing> listings) {
+        String tableName = MigratingListingRepository.primaryTableName(configService);
+        Map<String, Listing> byId = new HashMap<>();
+        List<CompletableFuture<List<WriteRequest>>> chunks = new ArrayList<>();
+
+        for (int from = 0; from < listings.size(); from += DynamoDBListingRepository.BATCH_WRITE_MAX_ITEMS) {
+            List<Listing> chunk = listings.subList(from,
+                    Math.min(from + DynamoDBListingRepository.BATCH_WRITE_MAX_ITEMS, listings.size()));
+            List<WriteRequest> writeRequests = new ArrayList<>(chunk.size());
+            for (Listing listing : chunk) {
+                byId.put(listing.getListingId(), listing);
+                writeRequests.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(dynamoDBListingMapper.toDynamoDbItem(listing)).build())
+                        .build());
+            }
+            chunks.add(writeChunk(tableName, writeRequests, 0));
+        }
+
+        return FutureUtil.allOf(chunks)
+                .whenComplete((unprocessedChunks, error) -> listings.forEach(
+                        listing -> listingCache.invalidate(listing.getListingId(), listing.getUserId())))
+                .thenApply(unprocessedChunks -> {
+                    List<Listing> failed = new ArrayList<>();
+                    unprocessedChunks.forEach(unprocessed -> unprocessed.forEach(writeRequest ->
+                            failed.add(byId.get(writeRequest.putRequest().item().get("listingId").s()))));
+                    logger.info("Batch persisted {} of {} listings", listings.size() - failed.size(), listings.size());
+                    return failed;
+                });
+    }
+
+    /**
+     * Writes a chunk of requests with BatchWriteItem, rescheduling the unprocessed items after a non-blocking backoff.
+     *
+     * @param tableName     the table to write to.
+     * @param writeRequests the write requests.
+     * @param attempt       the zero-based attempt.
+     * @return a future completing with the write requests still unprocessed after the last attempt.
+     */
+    private CompletableFuture<List<WriteRequest>> writeChunk(String tableName, List<WriteRequest> writeRequests, int attempt) {
+        BatchWriteItemRequest request = BatchWriteItemRequest.builder()
+                .requestItems(Map.of(tableName, writeRequests))
+                .build();
+        return dynamoDBAsyncClientService.execute(client -> client.batchWriteItem(request))
+                .thenCompose(response -> {
+                    List<WriteRequest> unprocessed = response.hasUnprocessedItems()
+                            ? response.unprocessedItems().getOrDefault(tableName, List.of())
+                            : List.of();
+                    int maxAttempts = configService.getBatchMaxAttempts();
+                    if (unprocessed.isEmpty() || attempt + 1 >= maxAttempts) {
+                        return CompletableFuture.completedFuture(unprocessed);
+                    }
+                    logger.warn("Retrying {} unprocessed items (attempt {} of {})", unprocessed.size(), attempt + 2, maxAttempts);
+                    return CompletableFuture.supplyAsync(() -> null, BackoffUtil.delayedExecutor(attempt + 1))
+                            .thenCompose(ignored -> writeChunk(tableName, unprocessed, attempt + 1));
+                });
+    }
+}
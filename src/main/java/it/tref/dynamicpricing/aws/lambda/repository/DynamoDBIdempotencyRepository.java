@@ -0,0 +1,230 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.model.IdempotencyRecord;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementation of IdempotencyRepository on a dedicated DynamoDB table keyed by {@code idempotencyKey}.
+ * <p>
+ * Records carry their expiration time in {@code expiresAt}, in epoch seconds, which should be the TTL attribute of
+ * the table, and their state in {@code status}. Since TTL deletion lags behind, expired completed or failed records
+ * still present are overwritten by a new claim. In-progress claims whose lease ended, and failed claims, are taken
+ * over with a put conditioned on the stored record being unchanged, keeping their listingId. The writes completing or
+ * failing a claim are conditioned on its listingId, so that they never touch a claim of another listing.
+ * </p>
+ */
+@DynamoDBErrorHandled
+@ApplicationScoped
+public class DynamoDBIdempotencyRepository implements IdempotencyRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBIdempotencyRepository.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new DynamoDBIdempotencyRepository on the client of the {@link DynamoDBClientService}.
+     *
+     * @param dynamoDBClientService the service providing the DynamoDB client.
+     * @param configService         the configuration service that provides the idempotency table.
+     */
+    @Inject
+    public DynamoDBIdempotencyRepository(DynamoDBClientService dynamoDBClientService, ConfigService configService) {
+        this(dynamoDBClientService.getDynamoDbClient(), configService);
+    }
+
+    /**
+     * Constructs a new DynamoDBIdempotencyRepository.
+     *
+     * @param dynamoDbClient the DynamoDB client.
+     * @param configService  the configuration service that provides the idempotency table.
+     */
+    public DynamoDBIdempotencyRepository(DynamoDbClient dynamoDbClient, ConfigService configService) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.configService = configService;
+    }
+
+    /**
+     * Converts an idempotency record into an item.
+     *
+     * @param record the idempotency record.
+     * @return the DynamoDB item.
+     */
+    static Map<String, AttributeValue> toIdempotencyItem(IdempotencyRecord record) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("idempotencyKey", AttributeValue.builder().s(record.getIdempotencyKey()).build());
+        item.put("listingId", AttributeValue.builder().s(record.getListingId()).build());
+        item.put("requestHash", AttributeValue.builder().s(record.getRequestHash()).build());
+        item.put("expiresAt", AttributeValue.builder().n(Long.toString(record.getExpiresAt().getEpochSecond())).build());
+        item.put("status", AttributeValue.builder().s(record.getStatus().name()).build());
+        return item;
+    }
+
+    /**
+     * Converts an item back into an idempotency record. Items written before the records had a state are completed.
+     *
+     * @param item the DynamoDB item.
+     * @return the idempotency record.
+     */
+    static IdempotencyRecord fromIdempotencyItem(Map<String, AttributeValue> item) {
+        AttributeValue status = item.get("status");
+        return new IdempotencyRecord(item.get("idempotencyKey").s(), item.get("listingId").s(),
+                item.get("requestHash").s(), Instant.ofEpochSecond(Long.parseLong(item.get("expiresAt").n())),
+                status != null ? IdempotencyRecord.Status.valueOf(status.s()) : IdempotencyRecord.Status.COMPLETED);
+    }
+
+    /**
+     * Returns the configured idempotency table.
+     *
+     * @param configService the configuration service.
+     * @return the idempotency table name.
+     * @throws IllegalStateException if no idempotency table is configured.
+     */
+    static String idempotencyTableName(ConfigService configService) {
+        return configService.getIdempotencyTableName()
+                .orElseThrow(() -> new IllegalStateException("IDEMPOTENCY_TABLE_NAME is not set"));
+    }
+
+    /**
+     * Writes the record with a PutItem conditioned on the key having no record, or an expired one that is not in
+     * progress. When the condition fails, the stored record is read back with a strongly consistent GetItem.
+     *
+     * @param record the record to write.
+     * @param now    the current time.
+     * @return null if the key was claimed, otherwise the stored record.
+     * @throws IllegalStateException if the stored record was deleted between the two calls.
+     */
+    @Override
+    public IdempotencyRecord claim(IdempotencyRecord record, Instant now) {
+        String tableName = idempotencyTableName(configService);
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(toIdempotencyItem(record))
+                    .conditionExpression("attribute_not_exists(#idempotencyKey) OR "
+                            + "(#expiresAt < :now AND (attribute_not_exists(#status) OR #status <> :inProgress))")
+                    .expressionAttributeNames(Map.of("#idempotencyKey", "idempotencyKey", "#expiresAt", "expiresAt",
+                            "#status", "status"))
+                    .expressionAttributeValues(Map.of(
+                            ":now", AttributeValue.builder().n(Long.toString(now.getEpochSecond())).build(),
+                            ":inProgress", AttributeValue.builder().s(IdempotencyRecord.Status.IN_PROGRESS.name()).build()))
+                    .build());
+            logger.info("Claimed idempotency key for listing {} until {}", record.getListingId(), record.getExpiresAt());
+            return null;
+        } catch (ConditionalCheckFailedException e) {
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(key(record.getIdempotencyKey()))
+                    .consistentRead(true)
+                    .build());
+            if (!response.hasItem() || response.item().isEmpty()) {
+                throw new IllegalStateException("Idempotency record changed while being claimed");
+            }
+            IdempotencyRecord existing = fromIdempotencyItem(response.item());
+            logger.info("Idempotency key already used for listing {}", existing.getListingId());
+            return existing;
+        }
+    }
+
+    /**
+     * Writes the record with a PutItem conditioned on the stored record still holding the listingId, state and
+     * expiration of the previous claim.
+     *
+     * @param previous the record returned by the claim.
+     * @param record   the in-progress record to write.
+     * @return true if the key was claimed, false if the previous claim changed.
+     */
+    @Override
+    public boolean takeOver(IdempotencyRecord previous, IdempotencyRecord record) {
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(idempotencyTableName(configService))
+                    .item(toIdempotencyItem(record))
+                    .conditionExpression("#listingId = :listingId AND #status = :status AND #expiresAt = :expiresAt")
+                    .expressionAttributeNames(Map.of("#listingId", "listingId", "#status", "status",
+                            "#expiresAt", "expiresAt"))
+                    .expressionAttributeValues(Map.of(
+                            ":listingId", AttributeValue.builder().s(previous.getListingId()).build(),
+                            ":status", AttributeValue.builder().s(previous.getStatus().name()).build(),
+                            ":expiresAt", AttributeValue.builder().n(Long.toString(previous.getExpiresAt().getEpochSecond())).build()))
+                    .build());
+            logger.info("Took over {} idempotency key of listing {} until {}", previous.getStatus(),
+                    record.getListingId(), record.getExpiresAt());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Idempotency key of listing {} was claimed again meanwhile", previous.getListingId());
+            return false;
+        }
+    }
+
+    /**
+     * Marks the claim completed with an UpdateItem conditioned on the claim still holding the listingId.
+     *
+     * @param record the completed record.
+     * @return true if the claim was completed, false if it was taken over by another request.
+     */
+    @Override
+    public boolean complete(IdempotencyRecord record) {
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(idempotencyTableName(configService))
+                    .key(key(record.getIdempotencyKey()))
+                    .updateExpression("SET #status = :status, #expiresAt = :expiresAt")
+                    .conditionExpression("#listingId = :listingId")
+                    .expressionAttributeNames(Map.of("#status", "status", "#expiresAt", "expiresAt",
+                            "#listingId", "listingId"))
+                    .expressionAttributeValues(Map.of(
+                            ":status", AttributeValue.builder().s(record.getStatus().name()).build(),
+                            ":expiresAt", AttributeValue.builder().n(Long.toString(record.getExpiresAt().getEpochSecond())).build(),
+                            ":listingId", AttributeValue.builder().s(record.getListingId()).build()))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("Idempotency key of listing {} was claimed again before completing", record.getListingId());
+            return false;
+        }
+    }
+
+    /**
+     * Marks the claim failed with an UpdateItem conditioned on the claim still holding the listingId and being in
+     * progress.
+     *
+     * @param record the failed record.
+     */
+    @Override
+    public void fail(IdempotencyRecord record) {
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(idempotencyTableName(configService))
+                    .key(key(record.getIdempotencyKey()))
+                    .updateExpression("SET #status = :status, #expiresAt = :expiresAt")
+                    .conditionExpression("#listingId = :listingId AND #status = :inProgress")
+                    .expressionAttributeNames(Map.of("#status", "status", "#expiresAt", "expiresAt",
+                            "#listingId", "listingId"))
+                    .expressionAttributeValues(Map.of(
+                            ":status", AttributeValue.builder().s(record.getStatus().name()).build(),
+                            ":expiresAt", AttributeValue.builder().n(Long.toString(record.getExpiresAt().getEpochSecond())).build(),
+                            ":listingId", AttributeValue.builder().s(record.getListingId()).build(),
+                            ":inProgress", AttributeValue.builder().s(IdempotencyRecord.Status.IN_PROGRESS.name()).build()))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Idempotency key of listing {} is no longer in progress", record.getListingId());
+        }
+    }
+
+    private static Map<String, AttributeValue> key(String idempotencyKey) {
+        return Map.of("idempotencyKey", AttributeValue.builder().s(idempotencyKey).build());
+    }
+}
@@ -1,35 +1,97 @@
 package it.tref.dynamicpricing.aws.lambda.repository;
 
-import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.AttributesFingerprint;
 import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.mapper.ListingItemCodec;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
-import jakarta.enterprise.context.ApplicationScoped;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
+import it.tref.dynamicpricing.aws.lambda.util.FutureUtil;
+import it.tref.dynamicpricing.aws.lambda.util.RevisionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Implementation of ListingRepository using AWS DynamoDB configured client.
+ * Implementation of ListingRepository using AWS DynamoDB configured client, on a single listing table.
+ * <p>
+ * Two table layouts are supported: the legacy one ({@code listingId} HASH, {@code userId} RANGE), where the user's
+ * listings are read from the user's listings index, and the user-partitioned one ({@code userId} HASH,
+ * {@code listingId} RANGE), where they are read from the table itself with strongly consistent queries.
+ * Item keys are the same map in both layouts, so every other operation is shared.
+ * The repository bean routing between the tables is {@link MigratingListingRepository}.
+ * </p>
  */
-@DynamoDBErrorHandled
-@ApplicationScoped
 public class DynamoDBListingRepository implements ListingRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBListingRepository.class);
 
+    /**
+     * Maximum number of put requests accepted by a single BatchWriteItem call.
+     */
+    static final int BATCH_WRITE_MAX_ITEMS = 25;
+
+    /**
+     * Maximum number of listings written by a single TransactWriteItems call together with their outbox records,
+     * keeping the transaction well within its item count and size limits.
+     */
+    static final int OUTBOX_TRANSACTION_MAX_LISTINGS = 12;
+
+    /**
+     * Maximum number of keys accepted by a single BatchGetItem call.
+     */
+    static final int BATCH_GET_MAX_KEYS = 100;
+
+    /**
+     * Maximum number of UpdateItem calls made by a patch: the document path update, the whole-value fallback
+     * for items without an attributes map or with compressed attributes, and a last attempt if the stored
+     * attributes changed concurrently.
+     */
+    static final int PATCH_MAX_ATTEMPTS = 3;
+
+    /**
+     * Key of the pagination keys returned by the sharded user index: the listingId the next page starts after.
+     */
+    static final String AFTER_LISTING_ID = "afterListingId";
+
+    /**
+     * Maximum number of prediction writes made in parallel.
+     */
+    static final int PREDICTION_WRITE_CONCURRENCY = 16;
+
     private final DynamoDbClient dynamoDbClient;
     private final ConfigService configService;
     private final DynamoDBListingMapper dynamoDBListingMapper;
+    private final String tableName;
+    private final boolean userPartitioned;
+    private ExecutorService parallelCallExecutor;
 
     /**
-     * Constructs a new DynamoDBListingRepository.
+     * Constructs a new DynamoDBListingRepository on the configured listing table, with the legacy layout.
      *
      * @param dynamoDbClient        the DynamoDB client.
      * @param configService         the configuration service.
@@ -38,9 +100,36 @@ public class DynamoDBListingRepository implements ListingRepository {
     public DynamoDBListingRepository(DynamoDbClient dynamoDbClient,
                                      ConfigService configService,
                                      DynamoDBListingMapper dynamoDBListingMapper) {
+        this(dynamoDbClient, configService, dynamoDBListingMapper, null, false);
+    }
+
+    /**
+     * Constructs a new DynamoDBListingRepository on the given table.
+     *
+     * @param dynamoDbClient        the DynamoDB client.
+     * @param configService         the configuration service.
+     * @param dynamoDBListingMapper the mapper to convert Listing objects to DynamoDB items.
+     * @param tableName             the listing table, or null for the configured listing table.
+     * @param userPartitioned       true if the table is partitioned by userId ({@code userId} HASH,
+     *                              {@code listingId} RANGE), false for the legacy layout.
+     */
+    public DynamoDBListingRepository(DynamoDbClient dynamoDbClient,
+                                     ConfigService configService,
+                                     DynamoDBListingMapper dynamoDBListingMapper,
+                                     String tableName,
+                                     boolean userPartitioned) {
         this.dynamoDbClient = dynamoDbClient;
         this.configService = configService;
         this.dynamoDBListingMapper = dynamoDBListingMapper;
+        this.tableName = tableName;
+        this.userPartitioned = userPartitioned;
+    }
+
+    /**
+     * Returns the listing table of this repository.
+     */
+    private String tableName() {
+        return tableName != null ? tableName : configService.getDynamoDbListingTableName();
     }
 
     /**
@@ -50,7 +139,7 @@ public class DynamoDBListingRepository implements ListingRepository {
      * @param userId    the unique identifier for the user.
      * @return a map representing the composite key with "listingId" and "userId" as keys.
      */
-    private Map<String, AttributeValue> buildCompositeKey(String listingId, String userId) {
+    static Map<String, AttributeValue> buildCompositeKey(String listingId, String userId) {
         Map<String, AttributeValue> key = new HashMap<>();
         key.put("listingId", AttributeValue.builder().s(listingId).build());
         key.put("userId", AttributeValue.builder().s(userId).build());
@@ -66,10 +155,24 @@ public class DynamoDBListingRepository implements ListingRepository {
      */
     @Override
     public Listing findById(String listingId, String userId) {
+        return findById(listingId, userId, false);
+    }
+
+    /**
+     * Retrieves a Listing from DynamoDB using its composite primary key, with a strongly consistent read if requested.
+     *
+     * @param listingId      the unique identifier for the listing.
+     * @param userId         the unique identifier for the user.
+     * @param consistentRead true for a strongly consistent GetItem.
+     * @return the Listing if found, or null if not found.
+     */
+    @Override
+    public Listing findById(String listingId, String userId, boolean consistentRead) {
         Map<String, AttributeValue> key = buildCompositeKey(listingId, userId);
         GetItemRequest request = GetItemRequest.builder()
-                .tableName(configService.getDynamoDbListingTableName())
+                .tableName(tableName())
                 .key(key)
+                .consistentRead(consistentRead)
                 .build();
 
         GetItemResponse response = dynamoDbClient.getItem(request);
@@ -79,6 +182,528 @@ public class DynamoDBListingRepository implements ListingRepository {
         return null;
     }
 
+    /**
+     * Applies a partial update with a conditional UpdateItem call writing only the changed attribute keys.
+     * <p>
+     * Attribute keys are addressed with document paths ({@code SET attributes.#k = :v}, {@code REMOVE attributes.#k}),
+     * so the size of the request does not depend on the size of the attribute map. The write is conditioned on at
+     * least one key actually changing, so that a patch repeating the stored values does not reset the prediction:
+     * when the condition fails, the stored item returned with it tells whether the listing exists and whether its name
+     * changed, and only the name is then written. Document paths are rejected when the item has no attributes map
+     * (listings created with no attributes) or stores it compressed; in that case the stored attributes are read, the
+     * changes applied, and the whole value written back if it changed, conditioned on the stored value being
+     * unchanged.
+     * </p>
+     * <p>
+     * The patch removes the fingerprint of the replaced attributes; the fingerprint of the patched attributes, read
+     * from the updated item, is written right after, conditioned on the revision set by the patch.
+     * </p>
+     *
+     * @param patch the partial update.
+     * @return the outcome of the patch, or null if no listing exists for the key.
+     * @throws IllegalArgumentException if the patch does not change anything.
+     */
+    @Override
+    public ContentUpdate patch(ListingPatch patch) {
+        String tableName = tableName();
+        if (patch.getAttributeChanges().isEmpty()) {
+            if (patch.getName() == null) {
+                throw new IllegalArgumentException("Patch does not change the listing");
+            }
+            return rename(tableName, patch);
+        }
+
+        UpdateItemRequest request = buildPatchRequest(tableName, patch, dynamoDBListingMapper.getPendingIndexShards());
+        for (int attempt = 0; attempt < PATCH_MAX_ATTEMPTS; attempt++) {
+            // Whole-value writes carry the attributes value, document path updates only the changed keys
+            boolean pathUpdate = !request.expressionAttributeValues().containsKey(":attributes");
+            try {
+                UpdateItemResponse response = dynamoDbClient.updateItem(request);
+                logger.info("Patched listing with ID: {} for user: {}", patch.getListingId(), patch.getUserId());
+                Listing patched = dynamoDBListingMapper.fromDynamoDbItem(response.attributes());
+                if (patch.isResetPrediction()) {
+                    writeFingerprint(tableName, patched);
+                }
+                return new ContentUpdate(patched, ContentUpdate.Change.ATTRIBUTES);
+            } catch (ConditionalCheckFailedException e) {
+                if (pathUpdate) {
+                    if (!e.hasItem() || e.item().isEmpty()) {
+                        logger.info("Listing with ID: {} for user: {} not found, nothing to patch",
+                                patch.getListingId(), patch.getUserId());
+                        return null;
+                    }
+                    AttributeValue storedAttributes = e.item().get("attributes");
+                    if (storedAttributes == null || storedAttributes.b() == null) {
+                        // Every key already holds its value, or is already absent
+                        return renameIfNeeded(tableName, patch, dynamoDBListingMapper.fromDynamoDbItem(e.item()));
+                    }
+                    // Keys of compressed attributes cannot be compared by document path
+                }
+                // Otherwise the attributes were changed meanwhile: read them again
+            } catch (DynamoDbException e) {
+                if (!pathUpdate || !isInvalidDocumentPath(e)) {
+                    throw e;
+                }
+            }
+
+            Map<String, AttributeValue> item = readItem(tableName, patch.getListingId(), patch.getUserId());
+            if (item == null) {
+                logger.info("Listing with ID: {} for user: {} not found, nothing to patch",
+                        patch.getListingId(), patch.getUserId());
+                return null;
+            }
+            AttributeValue stored = item.get("attributes");
+            if (stored != null && stored.b() == null) {
+                // The attributes map was created meanwhile: document paths apply again
+                request = buildPatchRequest(tableName, patch, dynamoDBListingMapper.getPendingIndexShards());
+                continue;
+            }
+            Map<String, Object> attributes = stored == null
+                    ? new HashMap<>()
+                    : ListingItemCodec.fromAttributesValue(stored);
+            String storedFingerprint = AttributesFingerprint.of(attributes);
+            patch.getAttributeChanges().forEach((k, v) -> {
+                if (v == null) {
+                    attributes.remove(k);
+                } else {
+                    attributes.put(k, v);
+                }
+            });
+            if (AttributesFingerprint.of(attributes).equals(storedFingerprint)) {
+                return renameIfNeeded(tableName, patch, dynamoDBListingMapper.fromDynamoDbItem(item));
+            }
+            request = buildPatchRequest(tableName, patch,
+                    ListingItemCodec.toAttributesValue(attributes, configService.getItemCompressionThresholdBytes()),
+                    stored, dynamoDBListingMapper.getPendingIndexShards());
+        }
+        throw new IllegalStateException("Unable to patch listing with ID: " + patch.getListingId());
+    }
+
+    /**
+     * Applies a partial update like {@link #patch}, writing the outbox record of the inference message of the
+     * patched listing in the same transaction as the attributes.
+     * <p>
+     * The message carries the whole patched attributes, so they are computed before the write: the stored item is
+     * read with a strongly consistent GetItem, the changes applied, and the whole attributes value written back by a
+     * TransactWriteItems call holding the update, conditioned on the stored value being unchanged, and the put of
+     * the outbox record. A patch repeating the stored values writes the name alone, if it changed, and no record.
+     * </p>
+     *
+     * @param patch     the partial update.
+     * @param toMessage builds the inference message of the listing as patched.
+     * @return the outcome of the patch, or null if no listing exists for the key.
+     * @throws IllegalArgumentException if the patch does not change anything.
+     * @throws IllegalStateException    if no outbox table is configured.
+     */
+    @Override
+    public ContentUpdate patchWithOutbox(ListingPatch patch, Function<Listing, ListingSqsMessage> toMessage) {
+        if (patch.getAttributeChanges().isEmpty()) {
+            return patch(patch);
+        }
+        String tableName = tableName();
+        for (int attempt = 0; attempt < PATCH_MAX_ATTEMPTS; attempt++) {
+            Map<String, AttributeValue> item = readItem(tableName, patch.getListingId(), patch.getUserId());
+            if (item == null) {
+                logger.info("Listing with ID: {} for user: {} not found, nothing to patch",
+                        patch.getListingId(), patch.getUserId());
+                return null;
+            }
+            Listing patched = dynamoDBListingMapper.fromDynamoDbItem(item);
+            AttributeValue stored = item.get("attributes");
+            Map<String, Object> attributes = stored == null
+                    ? new HashMap<>()
+                    : ListingItemCodec.fromAttributesValue(stored);
+            String storedFingerprint = AttributesFingerprint.of(attributes);
+            patch.getAttributeChanges().forEach((k, v) -> {
+                if (v == null) {
+                    attributes.remove(k);
+                } else {
+                    attributes.put(k, v);
+                }
+            });
+            if (AttributesFingerprint.of(attributes).equals(storedFingerprint)) {
+                return renameIfNeeded(tableName, patch, patched);
+            }
+
+            UpdateItemRequest request = buildPatchRequest(tableName, patch,
+                    ListingItemCodec.toAttributesValue(attributes, configService.getItemCompressionThresholdBytes()),
+                    stored, dynamoDBListingMapper.getPendingIndexShards());
+            if (patch.getName() != null) {
+                patched.setName(patch.getName());
+            }
+            patched.setAttributes(attributes);
+            if (patch.isResetPrediction()) {
+                patched.setCompleted(false);
+                patched.setPrediction(new HashMap<>());
+                // The message carries the revision set by the update, so that the results of older ones are dropped
+                patched.setRevision(Long.valueOf(request.expressionAttributeValues().get(":revision").n()));
+            }
+            try {
+                transactWrite(List.of(toTransactItem(request), outboxPut(toMessage.apply(patched))));
+            } catch (TransactionCanceledException e) {
+                if (conditionFailedItem(e) == null) {
+                    throw e;
+                }
+                // The listing was deleted or its attributes changed meanwhile: read it again
+                continue;
+            }
+            logger.info("Patched listing with ID: {} for user: {} with an outbox record",
+                    patch.getListingId(), patch.getUserId());
+            if (patch.isResetPrediction()) {
+                writeFingerprint(tableName, patched);
+            }
+            return new ContentUpdate(patched, ContentUpdate.Change.ATTRIBUTES);
+        }
+        throw new IllegalStateException("Unable to patch listing with ID: " + patch.getListingId());
+    }
+
+    /**
+     * Reads a listing item with a strongly consistent GetItem.
+     *
+     * @return the stored item, or null if the listing does not exist.
+     */
+    private Map<String, AttributeValue> readItem(String tableName, String listingId, String userId) {
+        GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(buildCompositeKey(listingId, userId))
+                .consistentRead(true)
+                .build());
+        return response.hasItem() && !response.item().isEmpty() ? response.item() : null;
+    }
+
+    /**
+     * Completes a patch whose attributes are all unchanged: writes the name if it differs from the stored one,
+     * otherwise writes nothing.
+     *
+     * @param stored the listing as stored.
+     * @return the outcome of the patch, or null if the listing was deleted meanwhile.
+     */
+    private ContentUpdate renameIfNeeded(String tableName, ListingPatch patch, Listing stored) {
+        if (patch.getName() == null || patch.getName().equals(stored.getName())) {
+            logger.info("Listing with ID: {} for user: {} unchanged, nothing to patch",
+                    patch.getListingId(), patch.getUserId());
+            return new ContentUpdate(stored, ContentUpdate.Change.NONE);
+        }
+        return rename(tableName, patch);
+    }
+
+    /**
+     * Writes the name of a patch alone, conditioned on it differing from the stored one.
+     *
+     * @return the outcome of the patch, or null if no listing exists for the key.
+     */
+    private ContentUpdate rename(String tableName, ListingPatch patch) {
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(
+                    buildRenameRequest(tableName, patch.getListingId(), patch.getUserId(), patch.getName()));
+            logger.info("Renamed listing with ID: {} for user: {}", patch.getListingId(), patch.getUserId());
+            return new ContentUpdate(dynamoDBListingMapper.fromDynamoDbItem(response.attributes()), ContentUpdate.Change.NAME);
+        } catch (ConditionalCheckFailedException e) {
+            if (!e.hasItem() || e.item().isEmpty()) {
+                logger.info("Listing with ID: {} for user: {} not found, nothing to patch",
+                        patch.getListingId(), patch.getUserId());
+                return null;
+            }
+            logger.info("Listing with ID: {} for user: {} unchanged, nothing to patch",
+                    patch.getListingId(), patch.getUserId());
+            return new ContentUpdate(dynamoDBListingMapper.fromDynamoDbItem(e.item()), ContentUpdate.Change.NONE);
+        }
+    }
+
+    /**
+     * Writes the fingerprint of the attributes of a patched listing. A failure is logged: the listing is then left
+     * without a fingerprint, and its next update resets the prediction once, even if it does not change the
+     * attributes.
+     */
+    private void writeFingerprint(String tableName, Listing patched) {
+        if (patched.getRevision() == null) {
+            return;
+        }
+        try {
+            dynamoDbClient.updateItem(buildFingerprintRequest(tableName, patched));
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Listing with ID: {} for user: {} changed again, fingerprint left to the newer write",
+                    patched.getListingId(), patched.getUserId());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write the fingerprint of listing with ID: {} for user: {}",
+                    patched.getListingId(), patched.getUserId(), e);
+        }
+    }
+
+    /**
+     * Builds the UpdateItem request writing the fingerprint of the attributes of a patched listing, conditioned on
+     * the listing still having the revision set by the patch, so that it never overwrites the fingerprint of a newer
+     * write.
+     *
+     * @param tableName the listing table.
+     * @param patched   the listing as stored after the patch, with its revision.
+     * @return the UpdateItem request.
+     */
+    static UpdateItemRequest buildFingerprintRequest(String tableName, Listing patched) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(buildCompositeKey(patched.getListingId(), patched.getUserId()))
+                .updateExpression("SET #fingerprint = :fingerprint")
+                .conditionExpression("#revision = :revision")
+                .expressionAttributeNames(Map.of("#fingerprint", DynamoDBListingMapper.FINGERPRINT,
+                        "#revision", DynamoDBListingMapper.REVISION))
+                .expressionAttributeValues(Map.of(
+                        ":fingerprint", ListingItemCodec.string(AttributesFingerprint.of(patched.getAttributes())),
+                        ":revision", AttributeValue.builder().n(patched.getRevision().toString()).build()))
+                .build();
+    }
+
+    /**
+     * Builds the conditional UpdateItem request used to patch a listing, addressing the changed attribute keys
+     * with document paths.
+     *
+     * @param tableName          the listing table.
+     * @param patch              the partial update.
+     * @param pendingIndexShards the number of partitions of the pending index, or zero if it is disabled.
+     * @return the UpdateItem request.
+     * @throws IllegalArgumentException if the patch does not change anything.
+     */
+    static UpdateItemRequest buildPatchRequest(String tableName, ListingPatch patch, int pendingIndexShards) {
+        return buildPatchRequest(tableName, patch, null, null, pendingIndexShards);
+    }
+
+    /**
+     * Builds the conditional UpdateItem request used to patch a listing.
+     *
+     * @param tableName          the listing table.
+     * @param patch              the partial update.
+     * @param attributes         the whole attributes value to write, with the changes already applied,
+     *                           or null to address the changed keys with document paths.
+     * @param expectedAttributes the attributes value the whole write is conditioned on, or null to condition it
+     *                           on the item having no attributes.
+     * @param pendingIndexShards the number of partitions of the pending index, or zero if it is disabled.
+     * @return the UpdateItem request.
+     * @throws IllegalArgumentException if the patch does not change anything.
+     */
+    static UpdateItemRequest buildPatchRequest(String tableName, ListingPatch patch, AttributeValue attributes,
+                                               AttributeValue expectedAttributes, int pendingIndexShards) {
+        List<String> setClauses = new ArrayList<>();
+        List<String> removeClauses = new ArrayList<>();
+        Map<String, String> exprAttrNames = new HashMap<>();
+        Map<String, AttributeValue> exprAttrValues = new HashMap<>();
+        exprAttrNames.put("#listingId", "listingId");
+        String condition = "attribute_exists(#listingId)";
+
+        if (patch.getName() != null) {
+            setClauses.add("#name = :name");
+            exprAttrNames.put("#name", "name");
+            exprAttrValues.put(":name", AttributeValue.builder().s(patch.getName()).build());
+        }
+
+        if (!patch.getAttributeChanges().isEmpty()) {
+            exprAttrNames.put("#attributes", "attributes");
+            if (attributes != null) {
+                setClauses.add("#attributes = :attributes");
+                exprAttrValues.put(":attributes", attributes);
+                if (expectedAttributes == null) {
+                    condition += " AND attribute_not_exists(#attributes)";
+                } else {
+                    condition += " AND #attributes = :expectedAttributes";
+                    exprAttrValues.put(":expectedAttributes", expectedAttributes);
+                }
+            } else {
+                List<String> differs = new ArrayList<>();
+                int index = 0;
+                for (Map.Entry<String, Object> change : patch.getAttributeChanges().entrySet()) {
+                    String keyName = "#a" + index;
+                    String path = "#attributes." + keyName;
+                    exprAttrNames.put(keyName, change.getKey());
+                    if (change.getValue() == null) {
+                        removeClauses.add(path);
+                        differs.add("attribute_exists(" + path + ")");
+                    } else {
+                        String value = ":a" + index;
+                        setClauses.add(path + " = " + value);
+                        exprAttrValues.put(value, ListingItemCodec.toAttributeValue(change.getValue()));
+                        differs.add("attribute_not_exists(" + path + ") OR " + path + " <> " + value);
+                    }
+                    index++;
+                }
+                // Only written if at least one key changes, the stored item being returned otherwise
+                condition += " AND (" + String.join(" OR ", differs) + ")";
+            }
+            // The fingerprint of the replaced attributes no longer applies; the patched one is written afterwards
+            removeClauses.add("#fingerprint");
+            exprAttrNames.put("#fingerprint", DynamoDBListingMapper.FINGERPRINT);
+        }
+        if (patch.isResetPrediction()) {
+            setClauses.add("completed = :completed");
+            setClauses.add("#prediction = :prediction");
+            exprAttrNames.put("#prediction", "prediction");
+            exprAttrValues.put(":completed", ListingItemCodec.bool(false));
+            exprAttrValues.put(":prediction", ListingItemCodec.EMPTY_MAP);
+            setRevision(RevisionUtil.next(), setClauses, exprAttrNames, exprAttrValues);
+            if (pendingIndexShards > 0) {
+                setPendingIndexKeys(patch.getListingId(), pendingIndexShards, setClauses, exprAttrNames, exprAttrValues);
+            }
+        }
+
+        if (setClauses.isEmpty() && removeClauses.isEmpty()) {
+            throw new IllegalArgumentException("Patch does not change the listing");
+        }
+        StringBuilder updateExpression = new StringBuilder();
+        if (!setClauses.isEmpty()) {
+            updateExpression.append("SET ").append(String.join(", ", setClauses));
+        }
+        if (!removeClauses.isEmpty()) {
+            updateExpression.append(updateExpression.length() > 0 ? " " : "")
+                    .append("REMOVE ").append(String.join(", ", removeClauses));
+        }
+
+        UpdateItemRequest.Builder builder = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(buildCompositeKey(patch.getListingId(), patch.getUserId()))
+                .updateExpression(updateExpression.toString())
+                .conditionExpression(condition)
+                .expressionAttributeNames(exprAttrNames)
+                .returnValues(ReturnValue.ALL_NEW);
+        if (attributes == null && !patch.getAttributeChanges().isEmpty()) {
+            builder.returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD);
+        }
+        if (!exprAttrValues.isEmpty()) {
+            builder.expressionAttributeValues(exprAttrValues);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds the clause setting the revision of the inference request a listing starts waiting for.
+     */
+    private static void setRevision(long revision, List<String> setClauses, Map<String, String> exprAttrNames,
+                                    Map<String, AttributeValue> exprAttrValues) {
+        setClauses.add("#revision = :revision");
+        exprAttrNames.put("#revision", DynamoDBListingMapper.REVISION);
+        exprAttrValues.put(":revision", AttributeValue.builder().n(Long.toString(revision)).build());
+    }
+
+    /**
+     * Adds the clauses setting the sparse pending index keys of a listing that starts waiting for its prediction.
+     */
+    private static void setPendingIndexKeys(String listingId, int pendingIndexShards, List<String> setClauses,
+                                            Map<String, String> exprAttrNames, Map<String, AttributeValue> exprAttrValues) {
+        setClauses.add("#pendingShard = :pendingShard");
+        setClauses.add("#pendingSince = :pendingSince");
+        setClauses.add("#pendingAttempts = :pendingAttempts");
+        exprAttrNames.put("#pendingShard", DynamoDBListingMapper.PENDING_SHARD);
+        exprAttrNames.put("#pendingSince", DynamoDBListingMapper.PENDING_SINCE);
+        exprAttrNames.put("#pendingAttempts", DynamoDBListingMapper.PENDING_ATTEMPTS);
+        exprAttrValues.put(":pendingShard",
+                AttributeValue.builder().s(DynamoDBListingMapper.pendingShard(listingId, pendingIndexShards)).build());
+        exprAttrValues.put(":pendingSince",
+                AttributeValue.builder().s(DynamoDBListingMapper.sortableTimestamp(Instant.now())).build());
+        exprAttrValues.put(":pendingAttempts", AttributeValue.builder().n("0").build());
+    }
+
+    /**
+     * Adds the clauses removing the sparse pending index keys of a listing whose prediction is completed.
+     */
+    private static void removePendingIndexKeys(List<String> removeClauses, Map<String, String> exprAttrNames) {
+        removeClauses.add("#pendingShard");
+        removeClauses.add("#pendingSince");
+        removeClauses.add("#pendingAttempts");
+        exprAttrNames.put("#pendingShard", DynamoDBListingMapper.PENDING_SHARD);
+        exprAttrNames.put("#pendingSince", DynamoDBListingMapper.PENDING_SINCE);
+        exprAttrNames.put("#pendingAttempts", DynamoDBListingMapper.PENDING_ATTEMPTS);
+    }
+
+    /**
+     * Tells whether DynamoDB rejected an update expression because a document path points into a missing map
+     * or into a value that is not a map.
+     */
+    private static boolean isInvalidDocumentPath(DynamoDbException e) {
+        return e.awsErrorDetails() != null
+                && "ValidationException".equals(e.awsErrorDetails().errorCode())
+                && e.getMessage() != null
+                && e.getMessage().contains("document path");
+    }
+
+    /**
+     * Finds several listings of the same user with BatchGetItem.
+     * <p>
+     * Keys are read in chunks of {@value #BATCH_GET_MAX_KEYS}; unprocessed keys are retried with exponential backoff,
+     * up to the configured number of attempts. BatchGetItem returns items in no particular order, so the result is
+     * rebuilt following the order of the requested ids. For the summary view, only the summary attributes are
+     * projected.
+     * </p>
+     *
+     * @param listingIds the identifiers of the listings.
+     * @param userId     the unique identifier for the user.
+     * @param view       the portion of each listing to read.
+     * @return the listings found, in the order of the requested ids.
+     * @throws IllegalStateException if some keys are still unprocessed after the last attempt.
+     */
+    @Override
+    public List<Listing> findByIds(List<String> listingIds, String userId, ListingView view) {
+        String tableName = tableName();
+        List<String> distinctIds = listingIds.stream().distinct().collect(Collectors.toList());
+        Map<String, Listing> found = new HashMap<>();
+
+        for (int from = 0; from < distinctIds.size(); from += BATCH_GET_MAX_KEYS) {
+            List<Map<String, AttributeValue>> keys = new ArrayList<>();
+            for (String listingId : distinctIds.subList(from, Math.min(from + BATCH_GET_MAX_KEYS, distinctIds.size()))) {
+                keys.add(buildCompositeKey(listingId, userId));
+            }
+            for (Map<String, AttributeValue> item : readChunk(tableName, keys, view)) {
+                Listing listing = mapItem(item, view);
+                found.put(listing.getListingId(), listing);
+            }
+        }
+
+        List<Listing> listings = new ArrayList<>(found.size());
+        for (String listingId : distinctIds) {
+            Listing listing = found.get(listingId);
+            if (listing != null) {
+                listings.add(listing);
+            }
+        }
+        logger.info("Found {} of {} requested listings for user {}", listings.size(), distinctIds.size(), userId);
+        return listings;
+    }
+
+    /**
+     * Reads a chunk of keys with BatchGetItem, retrying the unprocessed keys.
+     *
+     * @param tableName the table to read from.
+     * @param keys      the composite keys to read, at most {@value #BATCH_GET_MAX_KEYS}.
+     * @param view      the portion of each listing to read.
+     * @return the items found.
+     */
+    private List<Map<String, AttributeValue>> readChunk(String tableName, List<Map<String, AttributeValue>> keys,
+                                                        ListingView view) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        KeysAndAttributes.Builder keysAndAttributes = KeysAndAttributes.builder().keys(keys);
+        if (view == ListingView.SUMMARY) {
+            Map<String, String> exprAttrNames = new HashMap<>();
+            keysAndAttributes.projectionExpression(summaryProjection(exprAttrNames))
+                    .expressionAttributeNames(exprAttrNames);
+        }
+        KeysAndAttributes pending = keysAndAttributes.build();
+        int maxAttempts = configService.getBatchMaxAttempts();
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (attempt > 0) {
+                logger.warn("Retrying {} unprocessed keys (attempt {} of {})", pending.keys().size(), attempt + 1, maxAttempts);
+                BackoffUtil.pause(attempt);
+            }
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(Map.of(tableName, pending))
+                    .build());
+            if (response.hasResponses()) {
+                items.addAll(response.responses().getOrDefault(tableName, List.of()));
+            }
+            pending = response.hasUnprocessedKeys() ? response.unprocessedKeys().get(tableName) : null;
+            if (pending == null || !pending.hasKeys() || pending.keys().isEmpty()) {
+                return items;
+            }
+        }
+        throw new IllegalStateException(String.format(
+                "Unable to read %d listings after %d attempts", pending.keys().size(), maxAttempts));
+    }
+
     /**
      * Persists the given Listing in DynamoDB.
      *
@@ -88,7 +713,7 @@ public class DynamoDBListingRepository implements ListingRepository {
     public void save(Listing listing) {
         Map<String, AttributeValue> item = dynamoDBListingMapper.toDynamoDbItem(listing);
         PutItemRequest putItemRequest = PutItemRequest.builder()
-                .tableName(configService.getDynamoDbListingTableName())
+                .tableName(tableName())
                 .item(item)
                 .build();
         dynamoDbClient.putItem(putItemRequest);
@@ -96,98 +721,1223 @@ public class DynamoDBListingRepository implements ListingRepository {
     }
 
     /**
-     * Updates an existing listing in DynamoDB using the UpdateItem API.
+     * Persists the given Listing and the outbox record of its inference message with a single TransactWriteItems call.
      *
-     * @param listing the Listing object containing updated data. The listing must have a valid listingId and userId.
-     * @throws RuntimeException if the update operation fails.
+     * @param listing the listing to persist.
+     * @param message the inference message to store in the outbox table.
+     * @throws IllegalStateException if no outbox table is configured.
      */
     @Override
-    public void update(Listing listing) {
+    public void saveWithOutbox(Listing listing, ListingSqsMessage message) {
+        TransactWriteItem outboxPut = outboxPut(message);
+        transactWrite(List.of(
+                TransactWriteItem.builder()
+                        .put(Put.builder()
+                                .tableName(tableName())
+                                .item(dynamoDBListingMapper.toDynamoDbItem(listing))
+                                .build())
+                        .build(),
+                outboxPut));
+        logger.info("Successfully persisted listing with ID: {} and outbox record {}",
+                listing.getListingId(), outboxPut.put().item().get("outboxId").s());
+    }
+
+    /**
+     * Persists the given listings and the outbox records of their inference messages with TransactWriteItems calls
+     * of up to {@value #OUTBOX_TRANSACTION_MAX_LISTINGS} listings, each written atomically with its outbox record.
+     * <p>
+     * A transaction cancelled by a conflict or by throttling is retried with the same client request token, up to
+     * the configured number of attempts; the listings of a transaction that still fails are reported, none of them
+     * being written.
+     * </p>
+     *
+     * @param listings the listings to persist.
+     * @param messages the inference messages to store in the outbox table, of the listings that need one.
+     * @return the listings that could not be persisted.
+     * @throws IllegalStateException if no outbox table is configured.
+     */
+    @Override
+    public List<Listing> saveAllWithOutbox(List<Listing> listings, List<ListingSqsMessage> messages) {
+        String tableName = tableName();
+        Map<String, ListingSqsMessage> messagesById = new HashMap<>();
+        messages.forEach(message -> messagesById.put(message.getListingId(), message));
+        List<Listing> failed = new ArrayList<>();
+
+        for (int from = 0; from < listings.size(); from += OUTBOX_TRANSACTION_MAX_LISTINGS) {
+            List<Listing> chunk = listings.subList(from, Math.min(from + OUTBOX_TRANSACTION_MAX_LISTINGS, listings.size()));
+            List<TransactWriteItem> items = new ArrayList<>(2 * chunk.size());
+            for (Listing listing : chunk) {
+                items.add(TransactWriteItem.builder()
+                        .put(Put.builder()
+                                .tableName(tableName)
+                                .item(dynamoDBListingMapper.toDynamoDbItem(listing))
+                                .build())
+                        .build());
+                ListingSqsMessage message = messagesById.get(listing.getListingId());
+                if (message != null) {
+                    items.add(outboxPut(message));
+                }
+            }
+            try {
+                transactWrite(items);
+            } catch (DynamoDbException e) {
+                logger.error("Failed to persist a transaction of {} listings with their outbox records",
+                        chunk.size(), e);
+                failed.addAll(chunk);
+            }
+        }
+
+        logger.info("Batch persisted {} of {} listings with their outbox records",
+                listings.size() - failed.size(), listings.size());
+        return failed;
+    }
+
+    /**
+     * Builds the transaction item writing the outbox record of an inference message, under a new outbox id.
+     *
+     * @throws IllegalStateException if no outbox table is configured.
+     */
+    private TransactWriteItem outboxPut(ListingSqsMessage message) {
+        return TransactWriteItem.builder()
+                .put(Put.builder()
+                        .tableName(DynamoDBOutboxRepository.outboxTableName(configService))
+                        .item(DynamoDBOutboxRepository.toOutboxItem(UUID.randomUUID().toString(), message, Instant.now()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Runs a TransactWriteItems call, retrying it with the same client request token while it is cancelled by a
+     * conflict with another transaction or by throttling, up to the configured number of attempts. The token makes
+     * a retry of a transaction that was actually committed a no-op.
+     *
+     * @param items the items of the transaction.
+     * @throws TransactionCanceledException if the transaction is cancelled for another reason, such as a failed
+     *                                      condition, or still cancelled after the last attempt.
+     */
+    private void transactWrite(List<TransactWriteItem> items) {
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
+                .transactItems(items)
+                .clientRequestToken(UUID.randomUUID().toString())
+                .build();
+        int maxAttempts = Math.max(1, configService.getBatchMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dynamoDbClient.transactWriteItems(request);
+                return;
+            } catch (TransactionCanceledException e) {
+                if (!isRetryable(e) || attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.warn("Transaction of {} items cancelled, retrying (attempt {} of {})",
+                        items.size(), attempt + 1, maxAttempts);
+                BackoffUtil.pause(attempt);
+            }
+        }
+    }
+
+    /**
+     * Tells whether a transaction was cancelled only because of a conflict with another transaction or throttling,
+     * so that running it again may succeed.
+     */
+    static boolean isRetryable(TransactionCanceledException e) {
+        if (!e.hasCancellationReasons()) {
+            return false;
+        }
+        boolean retryable = false;
+        for (CancellationReason reason : e.cancellationReasons()) {
+            String code = reason.code();
+            if ("TransactionConflict".equals(code) || "ThrottlingError".equals(code)
+                    || "ProvisionedThroughputExceeded".equals(code)) {
+                retryable = true;
+            } else if (code != null && !"None".equals(code)) {
+                return false;
+            }
+        }
+        return retryable;
+    }
+
+    /**
+     * Returns the stored item carried by a transaction cancelled because the condition of its first item failed.
+     *
+     * @return the stored item, empty if the listing does not exist, or null if the transaction was cancelled for
+     * another reason.
+     */
+    private static Map<String, AttributeValue> conditionFailedItem(TransactionCanceledException e) {
+        if (!e.hasCancellationReasons() || e.cancellationReasons().isEmpty()) {
+            return null;
+        }
+        CancellationReason reason = e.cancellationReasons().get(0);
+        if (!"ConditionalCheckFailed".equals(reason.code())) {
+            return null;
+        }
+        return reason.hasItem() ? reason.item() : Map.of();
+    }
+
+    /**
+     * Persists the given listings in DynamoDB using BatchWriteItem.
+     * <p>
+     * Listings are written in chunks of {@value #BATCH_WRITE_MAX_ITEMS}. The {@code UnprocessedItems} returned
+     * by DynamoDB are retried with exponential backoff and full jitter, up to the configured number of attempts.
+     * </p>
+     *
+     * @param listings the listings to persist.
+     * @return the listings that were still unprocessed after the last attempt.
+     */
+    @Override
+    public List<Listing> saveAll(List<Listing> listings) {
+        String tableName = tableName();
+        List<Listing> failed = new ArrayList<>();
+
+        for (int from = 0; from < listings.size(); from += BATCH_WRITE_MAX_ITEMS) {
+            List<Listing> chunk = listings.subList(from, Math.min(from + BATCH_WRITE_MAX_ITEMS, listings.size()));
+            Map<String, Listing> chunkById = new LinkedHashMap<>();
+            List<WriteRequest> writeRequests = new ArrayList<>(chunk.size());
+            for (Listing listing : chunk) {
+                chunkById.put(listing.getListingId(), listing);
+                writeRequests.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(dynamoDBListingMapper.toDynamoDbItem(listing)).build())
+                        .build());
+            }
+
+            List<WriteRequest> unprocessed = writeChunk(dynamoDbClient, tableName, writeRequests,
+                    configService.getBatchMaxAttempts());
+            for (WriteRequest writeRequest : unprocessed) {
+                failed.add(chunkById.get(writeRequest.putRequest().item().get("listingId").s()));
+            }
+        }
+
+        logger.info("Batch persisted {} of {} listings", listings.size() - failed.size(), listings.size());
+        return failed;
+    }
+
+    /**
+     * Writes a chunk of requests with BatchWriteItem, retrying the unprocessed items.
+     *
+     * @param dynamoDbClient the DynamoDB client.
+     * @param tableName      the table to write to.
+     * @param writeRequests  the write requests, at most {@value #BATCH_WRITE_MAX_ITEMS}.
+     * @param maxAttempts    the maximum number of BatchWriteItem calls.
+     * @return the write requests still unprocessed after the last attempt.
+     */
+    static List<WriteRequest> writeChunk(DynamoDbClient dynamoDbClient, String tableName,
+                                         List<WriteRequest> writeRequests, int maxAttempts) {
+        List<WriteRequest> pending = writeRequests;
+        for (int attempt = 0; attempt < maxAttempts && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                logger.warn("Retrying {} unprocessed items (attempt {} of {})", pending.size(), attempt + 1, maxAttempts);
+                BackoffUtil.pause(attempt);
+            }
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(Map.of(tableName, pending))
+                    .build());
+            pending = response.hasUnprocessedItems()
+                    ? response.unprocessedItems().getOrDefault(tableName, List.of())
+                    : List.of();
+        }
+        return pending;
+    }
+
+    /**
+     * Builds the conditional UpdateItem request used to update a listing.
+     * <p>
+     * The name, attributes, prediction and revision are only written when not null, the attributes together with
+     * their fingerprint; the completed flag is always written. The write is conditioned on the item existing and
+     * returns the updated item ({@code ReturnValues ALL_NEW}).
+     * </p>
+     *
+     * @param tableName                 the listing table.
+     * @param listing                   the listing with updated data, with a valid listingId and userId.
+     * @param compressionThresholdBytes the size from which attributes and prediction are written compressed.
+     * @param pendingIndexShards        the number of partitions of the pending index, or zero if it is disabled.
+     * @param packedPredictions         whether the prediction is written packed rather than as a map of number lists.
+     * @return the UpdateItem request.
+     */
+    static UpdateItemRequest buildUpdateRequest(String tableName, Listing listing, int compressionThresholdBytes,
+                                                int pendingIndexShards, boolean packedPredictions) {
         Map<String, AttributeValue> key = buildCompositeKey(listing.getListingId(), listing.getUserId());
-        String updateExpression = "SET #name = :name, #attributes = :attributes, completed = :completed";
-        Map<String, String> exprAttrNames = Map.of(
-                "#name", "name",
-                "#attributes", "attributes"
-        );
+        List<String> setClauses = new ArrayList<>();
+        List<String> removeClauses = new ArrayList<>();
+        Map<String, String> exprAttrNames = new HashMap<>();
         Map<String, AttributeValue> exprAttrValues = new HashMap<>();
-        exprAttrValues.put(":name", AttributeValue.builder().s(listing.getName()).build());
-
-        // Convert attributes to a DynamoDB map
-        Map<String, AttributeValue> attributesMap = listing.getAttributes().entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> {
-                            Object value = e.getValue();
-                            if (value instanceof List) {
-                                @SuppressWarnings("unchecked")
-                                List<Object> list = (List<Object>) value;
-                                return AttributeValue.builder()
-                                        .l(list.stream()
-                                                .map(item -> AttributeValue.builder().s(item.toString()).build())
-                                                .collect(Collectors.toList()))
-                                        .build();
-                            } else {
-                                return AttributeValue.builder().s(value.toString()).build();
-                            }
-                        }
-                ));
-        exprAttrValues.put(":attributes", AttributeValue.builder().m(attributesMap).build());
-        exprAttrValues.put(":completed", AttributeValue.builder().bool(listing.isCompleted()).build());
-
-        UpdateItemRequest request = UpdateItemRequest.builder()
-                .tableName(configService.getDynamoDbListingTableName())
+
+        if (listing.getName() != null) {
+            setClauses.add("#name = :name");
+            exprAttrNames.put("#name", "name");
+            exprAttrValues.put(":name", AttributeValue.builder().s(listing.getName()).build());
+        }
+
+        if (listing.getAttributes() != null) {
+            setClauses.add("#attributes = :attributes");
+            exprAttrNames.put("#attributes", "attributes");
+            exprAttrValues.put(":attributes",
+                    ListingItemCodec.toAttributesValue(listing.getAttributes(), compressionThresholdBytes));
+            setClauses.add("#fingerprint = :fingerprint");
+            exprAttrNames.put("#fingerprint", DynamoDBListingMapper.FINGERPRINT);
+            exprAttrValues.put(":fingerprint",
+                    ListingItemCodec.string(AttributesFingerprint.of(listing.getAttributes())));
+        }
+
+        if (listing.getPrediction() != null) {
+            setClauses.add("#prediction = :prediction");
+            exprAttrNames.put("#prediction", "prediction");
+            exprAttrValues.put(":prediction",
+                    ListingItemCodec.toPredictionValue(listing.getPrediction(), compressionThresholdBytes, packedPredictions));
+        }
+
+        if (listing.getRevision() != null) {
+            setRevision(listing.getRevision(), setClauses, exprAttrNames, exprAttrValues);
+        }
+
+        setClauses.add("completed = :completed");
+        exprAttrValues.put(":completed", ListingItemCodec.bool(listing.isCompleted()));
+        exprAttrNames.put("#listingId", "listingId");
+        if (pendingIndexShards > 0) {
+            if (listing.isCompleted()) {
+                removePendingIndexKeys(removeClauses, exprAttrNames);
+            } else {
+                setPendingIndexKeys(listing.getListingId(), pendingIndexShards, setClauses, exprAttrNames, exprAttrValues);
+            }
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
                 .key(key)
-                .updateExpression(updateExpression)
+                .updateExpression("SET " + String.join(", ", setClauses)
+                        + (removeClauses.isEmpty() ? "" : " REMOVE " + String.join(", ", removeClauses)))
+                .conditionExpression("attribute_exists(#listingId)")
                 .expressionAttributeNames(exprAttrNames)
                 .expressionAttributeValues(exprAttrValues)
+                .returnValues(ReturnValue.ALL_NEW)
+                .build();
+    }
+
+    /**
+     * Updates an existing listing in DynamoDB using a single conditional UpdateItem call.
+     * <p>
+     * The write is conditioned on the item existing, so that a missing listing is detected without a prior read,
+     * and the updated item is returned with {@code ReturnValues ALL_NEW}. The name, attributes and prediction are
+     * only written when not null; the completed flag is always written.
+     * </p>
+     *
+     * @param listing the Listing object containing updated data. The listing must have a valid listingId and userId.
+     * @return the listing as stored after the update, or null if no listing exists for the key.
+     * @throws RuntimeException if the update operation fails.
+     */
+    @Override
+    public Listing update(Listing listing) {
+        UpdateItemRequest request = buildUpdateRequest(tableName(), listing, configService.getItemCompressionThresholdBytes(),
+                dynamoDBListingMapper.getPendingIndexShards(), dynamoDBListingMapper.isPackedPredictions());
+
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(request);
+            logger.info("Updated listing with ID: {} for user: {}", listing.getListingId(), listing.getUserId());
+            return response.hasAttributes()
+                    ? dynamoDBListingMapper.fromDynamoDbItem(response.attributes())
+                    : listing;
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Listing with ID: {} for user: {} not found, nothing to update",
+                    listing.getListingId(), listing.getUserId());
+            return null;
+        }
+    }
+
+    /**
+     * Builds the UpdateItem request replacing the attributes of a listing and resetting its prediction, conditioned
+     * on the stored attributes having another fingerprint (or none). When the condition fails, the stored item is
+     * returned with the exception ({@code ReturnValuesOnConditionCheckFailure ALL_OLD}), so that an unchanged or
+     * missing listing is told apart without another read.
+     *
+     * @param tableName                 the listing table.
+     * @param listing                   the listing with the new name and attributes and the reset prediction state.
+     * @param compressionThresholdBytes the size from which attributes and prediction are written compressed.
+     * @param pendingIndexShards        the number of partitions of the pending index, or zero if it is disabled.
+     * @param packedPredictions         whether the prediction is written packed rather than as a map of number lists.
+     * @return the UpdateItem request.
+     */
+    static UpdateItemRequest buildContentUpdateRequest(String tableName, Listing listing, int compressionThresholdBytes,
+                                                       int pendingIndexShards, boolean packedPredictions) {
+        return buildUpdateRequest(tableName, listing, compressionThresholdBytes, pendingIndexShards, packedPredictions)
+                .toBuilder()
+                .conditionExpression("attribute_exists(#listingId) AND "
+                        + "(attribute_not_exists(#fingerprint) OR #fingerprint <> :fingerprint)")
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * Builds the UpdateItem request writing the name of a listing alone, conditioned on the stored name being
+     * another one. When the condition fails, the stored item is returned with the exception.
+     *
+     * @param tableName the listing table.
+     * @param listingId the identifier of the listing.
+     * @param userId    the identifier of the user.
+     * @param name      the new name.
+     * @return the UpdateItem request.
+     */
+    static UpdateItemRequest buildRenameRequest(String tableName, String listingId, String userId, String name) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(buildCompositeKey(listingId, userId))
+                .updateExpression("SET #name = :name")
+                .conditionExpression("attribute_exists(#listingId) AND (attribute_not_exists(#name) OR #name <> :name)")
+                .expressionAttributeNames(Map.of("#listingId", "listingId", "#name", "name"))
+                .expressionAttributeValues(Map.of(":name", ListingItemCodec.string(name)))
+                .returnValues(ReturnValue.ALL_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
                 .build();
+    }
+
+    /**
+     * Replaces the name and attributes of a listing, resetting its prediction only when the attributes changed.
+     * <p>
+     * The attributes are written with a single UpdateItem conditioned on their fingerprint changing. When it does
+     * not, the stored item returned with the failed condition tells whether the listing exists and whether its name
+     * changed; only then is the name written, with a second UpdateItem. An update changing nothing costs the failed
+     * conditional write alone. Listings written before fingerprints were stored have their prediction reset once.
+     * </p>
+     *
+     * @param listing the listing with the new name and attributes, and the prediction state to set if the
+     *                attributes changed.
+     * @return the outcome of the update, or null if no listing exists for the key.
+     */
+    @Override
+    public ContentUpdate updateContent(Listing listing) {
+        String tableName = tableName();
+        if (listing.getAttributes() != null) {
+            UpdateItemRequest request = buildContentUpdateRequest(tableName, listing,
+                    configService.getItemCompressionThresholdBytes(), dynamoDBListingMapper.getPendingIndexShards(),
+                    dynamoDBListingMapper.isPackedPredictions());
+            try {
+                UpdateItemResponse response = dynamoDbClient.updateItem(request);
+                logger.info("Updated attributes of listing with ID: {} for user: {}", listing.getListingId(), listing.getUserId());
+                return new ContentUpdate(dynamoDBListingMapper.fromDynamoDbItem(response.attributes()),
+                        ContentUpdate.Change.ATTRIBUTES);
+            } catch (ConditionalCheckFailedException e) {
+                ContentUpdate unchanged = unchanged(listing, e, dynamoDBListingMapper);
+                if (unchanged == null || !isRenamed(listing, unchanged.getListing())) {
+                    return unchanged;
+                }
+            }
+        }
+        return renameContent(tableName, listing);
+    }
+
+    /**
+     * Replaces the name and attributes of a listing like {@link #updateContent}, writing the outbox record of its
+     * inference message in the same transaction as the attributes.
+     * <p>
+     * The attributes are written by a TransactWriteItems call holding the update conditioned on their fingerprint
+     * changing and the put of the outbox record, so that the record exists if and only if the prediction was reset.
+     * As a transaction does not return the updated item, it is read back with a strongly consistent GetItem.
+     * </p>
+     *
+     * @param listing the listing with the new name and attributes, and the prediction state to set if the
+     *                attributes changed.
+     * @param message the inference message to store in the outbox table if the attributes changed.
+     * @return the outcome of the update, or null if no listing exists for the key.
+     * @throws IllegalStateException if no outbox table is configured.
+     */
+    @Override
+    public ContentUpdate updateContentWithOutbox(Listing listing, ListingSqsMessage message) {
+        if (listing.getAttributes() == null) {
+            return updateContent(listing);
+        }
+        String tableName = tableName();
+        UpdateItemRequest request = buildContentUpdateRequest(tableName, listing,
+                configService.getItemCompressionThresholdBytes(), dynamoDBListingMapper.getPendingIndexShards(),
+                dynamoDBListingMapper.isPackedPredictions());
+        try {
+            transactWrite(List.of(toTransactItem(request), outboxPut(message)));
+        } catch (TransactionCanceledException e) {
+            Map<String, AttributeValue> stored = conditionFailedItem(e);
+            if (stored == null) {
+                throw e;
+            }
+            ContentUpdate unchanged = unchanged(listing, stored, dynamoDBListingMapper);
+            if (unchanged == null || !isRenamed(listing, unchanged.getListing())) {
+                return unchanged;
+            }
+            return renameContent(tableName, listing);
+        }
+        logger.info("Updated attributes of listing with ID: {} for user: {} with an outbox record",
+                listing.getListingId(), listing.getUserId());
+        Map<String, AttributeValue> updated = readItem(tableName, listing.getListingId(), listing.getUserId());
+        // A listing deleted right after the update is reported with the written content
+        return new ContentUpdate(updated == null ? listing : dynamoDBListingMapper.fromDynamoDbItem(updated),
+                ContentUpdate.Change.ATTRIBUTES);
+    }
+
+    /**
+     * Writes the name of a content update whose attributes are unchanged or absent, conditioned on it differing
+     * from the stored one.
+     *
+     * @return the outcome of the update, or null if no listing exists for the key.
+     * @throws IllegalArgumentException if the update carries no name.
+     */
+    private ContentUpdate renameContent(String tableName, Listing listing) {
+        if (listing.getName() == null) {
+            throw new IllegalArgumentException("Update does not change the listing");
+        }
+
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(
+                    buildRenameRequest(tableName, listing.getListingId(), listing.getUserId(), listing.getName()));
+            logger.info("Renamed listing with ID: {} for user: {}", listing.getListingId(), listing.getUserId());
+            return new ContentUpdate(dynamoDBListingMapper.fromDynamoDbItem(response.attributes()), ContentUpdate.Change.NAME);
+        } catch (ConditionalCheckFailedException e) {
+            return unchanged(listing, e, dynamoDBListingMapper);
+        }
+    }
+
+    /**
+     * Converts a conditional UpdateItem request into the equivalent item of a TransactWriteItems call. The values
+     * returned on success are dropped, as transactions do not return them.
+     */
+    static TransactWriteItem toTransactItem(UpdateItemRequest request) {
+        Update.Builder update = Update.builder()
+                .tableName(request.tableName())
+                .key(request.key())
+                .updateExpression(request.updateExpression())
+                .conditionExpression(request.conditionExpression())
+                .expressionAttributeNames(request.expressionAttributeNames())
+                .returnValuesOnConditionCheckFailure(request.returnValuesOnConditionCheckFailureAsString());
+        if (request.hasExpressionAttributeValues()) {
+            update.expressionAttributeValues(request.expressionAttributeValues());
+        }
+        return TransactWriteItem.builder().update(update.build()).build();
+    }
+
+    /**
+     * Tells whether the name of the update differs from the stored one.
+     *
+     * @param listing the listing with the new name, or a null name to leave it unchanged.
+     * @param stored  the listing as stored.
+     * @return true if the name has to be written.
+     */
+    static boolean isRenamed(Listing listing, Listing stored) {
+        return listing.getName() != null && !listing.getName().equals(stored.getName());
+    }
+
+    /**
+     * Resolves the outcome of a content update whose condition failed, from the stored item carried by the exception.
+     *
+     * @param listing               the listing with the new name and attributes.
+     * @param e                     the exception carrying the stored item, if any.
+     * @param dynamoDBListingMapper the mapper reading the stored item.
+     * @return null if the listing does not exist, otherwise an outcome without change.
+     */
+    static ContentUpdate unchanged(Listing listing, ConditionalCheckFailedException e,
+                                   DynamoDBListingMapper dynamoDBListingMapper) {
+        return unchanged(listing, e.hasItem() ? e.item() : Map.of(), dynamoDBListingMapper);
+    }
+
+    /**
+     * Resolves the outcome of a content update whose condition failed, from the stored item.
+     *
+     * @param listing               the listing with the new name and attributes.
+     * @param stored                the stored item, empty if the listing does not exist.
+     * @param dynamoDBListingMapper the mapper reading the stored item.
+     * @return null if the listing does not exist, otherwise an outcome without change.
+     */
+    static ContentUpdate unchanged(Listing listing, Map<String, AttributeValue> stored,
+                                   DynamoDBListingMapper dynamoDBListingMapper) {
+        if (stored.isEmpty()) {
+            logger.info("Listing with ID: {} for user: {} not found, nothing to update",
+                    listing.getListingId(), listing.getUserId());
+            return null;
+        }
+        logger.info("Listing with ID: {} for user: {} unchanged, nothing to update",
+                listing.getListingId(), listing.getUserId());
+        return new ContentUpdate(dynamoDBListingMapper.fromDynamoDbItem(stored), ContentUpdate.Change.NONE);
+    }
+
+    /**
+     * Writes the predictions of several listings with conditional UpdateItem calls, up to
+     * {@value #PREDICTION_WRITE_CONCURRENCY} in parallel.
+     * <p>
+     * Every write is conditioned on the listing existing with the revision of the result, or without a revision
+     * for results without one, so that the results of a superseded inference request are dropped instead of
+     * overwriting the state of a newer one.
+     * </p>
+     *
+     * @param results the prediction results.
+     * @return the results whose write failed.
+     */
+    @Override
+    public List<PredictionResultMessage> applyPredictions(List<PredictionResultMessage> results) {
+        String tableName = tableName();
+        int compressionThresholdBytes = configService.getItemCompressionThresholdBytes();
+        int pendingIndexShards = dynamoDBListingMapper.getPendingIndexShards();
+        boolean packedPredictions = dynamoDBListingMapper.isPackedPredictions();
+        List<PredictionResultMessage> failed = new ArrayList<>();
+        int written = 0;
+        for (int from = 0; from < results.size(); from += PREDICTION_WRITE_CONCURRENCY) {
+            List<PredictionResultMessage> chunk =
+                    results.subList(from, Math.min(from + PREDICTION_WRITE_CONCURRENCY, results.size()));
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(chunk.size());
+            for (PredictionResultMessage result : chunk) {
+                UpdateItemRequest request = buildPredictionRequest(
+                        tableName, result, compressionThresholdBytes, pendingIndexShards, packedPredictions);
+                futures.add(CompletableFuture.supplyAsync(() -> applyPrediction(request, result), parallelCallExecutor()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    if (futures.get(i).join()) {
+                        written++;
+                    }
+                } catch (CompletionException e) {
+                    logger.error("Failed to write the prediction of listing with ID: {}",
+                            chunk.get(i).getListingId(), FutureUtil.unwrap(e));
+                    failed.add(chunk.get(i));
+                }
+            }
+        }
+        logger.info("Wrote {} predictions, dropped {} stale ones, {} failed",
+                written, results.size() - written - failed.size(), failed.size());
+        return failed;
+    }
 
-        dynamoDbClient.updateItem(request);
-        logger.info("Updated listing with ID: {} for user: {}", listing.getListingId(), listing.getUserId());
+    /**
+     * Runs a prediction write.
+     *
+     * @return true if the prediction was written, false if it was stale or the listing does not exist.
+     */
+    private boolean applyPrediction(UpdateItemRequest request, PredictionResultMessage result) {
+        try {
+            dynamoDbClient.updateItem(request);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Dropped the prediction of revision {} of listing with ID: {} for user: {}, stale or deleted",
+                    result.getRevision(), result.getListingId(), result.getUserId());
+            return false;
+        }
     }
 
     /**
-     * Retrieves all listings associated with the specified user ID from DynamoDB using the Global Secondary Index (GSI).
+     * Builds the conditional UpdateItem request writing a prediction result and marking the listing as completed.
+     *
+     * @param tableName                 the listing table.
+     * @param result                    the prediction result.
+     * @param compressionThresholdBytes the size from which the packed prediction is written compressed.
+     * @param pendingIndexShards        the number of partitions of the pending index, or zero if it is disabled.
+     * @param packedPredictions         whether the prediction is written packed rather than as a map of number lists.
+     * @return the UpdateItem request.
+     */
+    static UpdateItemRequest buildPredictionRequest(String tableName, PredictionResultMessage result,
+                                                    int compressionThresholdBytes, int pendingIndexShards,
+                                                    boolean packedPredictions) {
+        List<String> removeClauses = new ArrayList<>();
+        Map<String, String> exprAttrNames = new HashMap<>();
+        Map<String, AttributeValue> exprAttrValues = new HashMap<>();
+        exprAttrNames.put("#listingId", "listingId");
+        exprAttrNames.put("#prediction", "prediction");
+        exprAttrNames.put("#revision", DynamoDBListingMapper.REVISION);
+        exprAttrValues.put(":prediction",
+                ListingItemCodec.toPredictionValue(result.getPrediction(), compressionThresholdBytes, packedPredictions));
+        exprAttrValues.put(":completed", ListingItemCodec.bool(true));
+
+        String condition = "attribute_exists(#listingId) AND ";
+        if (result.getRevision() != null) {
+            condition += "#revision = :revision";
+            exprAttrValues.put(":revision", AttributeValue.builder().n(result.getRevision().toString()).build());
+        } else {
+            condition += "attribute_not_exists(#revision)";
+        }
+        if (pendingIndexShards > 0) {
+            removePendingIndexKeys(removeClauses, exprAttrNames);
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(buildCompositeKey(result.getListingId(), result.getUserId()))
+                .updateExpression("SET #prediction = :prediction, completed = :completed"
+                        + (removeClauses.isEmpty() ? "" : " REMOVE " + String.join(", ", removeClauses)))
+                .conditionExpression(condition)
+                .expressionAttributeNames(exprAttrNames)
+                .expressionAttributeValues(exprAttrValues)
+                .build();
+    }
+
+    /**
+     * Retrieves all listings associated with the specified user ID from DynamoDB using the Global Secondary Index (GSI),
+     * or the table itself if it is partitioned by userId.
+     * <p>
+     * The query follows {@code LastEvaluatedKey} until every page of the index has been read,
+     * so results larger than a single DynamoDB page are not truncated.
+     * </p>
      *
      * @param userId the unique identifier for the user.
+     * @param view   the portion of each listing to read.
      * @return a list of Listing objects for the given user, or an empty list if no listings are found.
      */
     @Override
-    public List<Listing> findByUserId(String userId) {
+    public List<Listing> findByUserId(String userId, ListingView view) {
+        if (readsUserShards()) {
+            return findByUserShards(userId, view);
+        }
+        List<Listing> listings = new ArrayList<>();
+        queryAllPages(buildUserListingsQuery(userId, null, null, view))
+                .forEach(item -> listings.add(mapItem(item, view)));
+
+        logger.info("Found {} listings for user {}", listings.size(), userId);
+        return listings;
+    }
+
+    /**
+     * Reads every shard of the user in parallel from the sharded user index, following {@code LastEvaluatedKey}
+     * within each shard, and merges the listings by listingId.
+     */
+    private List<Listing> findByUserShards(String userId, ListingView view) {
+        int shards = dynamoDBListingMapper.getUserIndexShards();
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> futures = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            QueryRequest request = buildUserShardQuery(userId, shard, null, null, view);
+            futures.add(CompletableFuture.supplyAsync(() -> queryAllPages(request), parallelCallExecutor()));
+        }
+
+        List<Listing> listings = FutureUtil.join(FutureUtil.allOf(futures)).stream()
+                .flatMap(List::stream)
+                .map(item -> mapItem(item, view))
+                .sorted(Comparator.comparing(Listing::getListingId))
+                .collect(Collectors.toList());
+        logger.info("Found {} listings for user {} over {} shards", listings.size(), userId, shards);
+        return listings;
+    }
+
+    /**
+     * Runs the query, following {@code LastEvaluatedKey} until every page has been read.
+     */
+    private List<Map<String, AttributeValue>> queryAllPages(QueryRequest request) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            QueryRequest pageRequest = exclusiveStartKey == null
+                    ? request
+                    : request.toBuilder().exclusiveStartKey(exclusiveStartKey).build();
+            QueryResponse response = dynamoDbClient.query(pageRequest);
+            items.addAll(response.items());
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+        return items;
+    }
+
+    /**
+     * Retrieves a single page of listings associated with the specified user ID using the Global Secondary Index (GSI).
+     *
+     * @param userId            the unique identifier for the user.
+     * @param limit             the maximum number of items to evaluate.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null for the first page.
+     * @param view              the portion of each listing to read.
+     * @return the page of listings, with the key to resume from when more results are available.
+     */
+    @Override
+    public ListingPage findByUserId(String userId, int limit, Map<String, String> exclusiveStartKey, ListingView view) {
+        if (readsUserShards()) {
+            return findPageByUserShards(userId, limit, exclusiveStartKey, view);
+        }
+        QueryResponse response = dynamoDbClient.query(
+                buildUserListingsQuery(userId, limit, toAttributeValueKey(exclusiveStartKey), view));
+        logger.info("Found {} listings for user {} in page", response.count(), userId);
+
+        List<Listing> listings = response.items().stream()
+                .map(item -> mapItem(item, view))
+                .collect(Collectors.toList());
+        Map<String, String> lastEvaluatedKey = response.hasLastEvaluatedKey()
+                ? fromAttributeValueKey(response.lastEvaluatedKey())
+                : null;
+        return new ListingPage(listings, lastEvaluatedKey);
+    }
+
+    /**
+     * Reads a single page of the user's listings from the sharded user index.
+     * <p>
+     * Every shard is queried in parallel for up to {@code limit} listings after the listingId the page starts
+     * after; the first {@code limit} listings by listingId make the page, and the last of them is where the next
+     * page starts after. A page may read up to {@code limit} listings per shard to return {@code limit} of them.
+     * The pagination keys carry the userId along with that listingId, like those of the user index.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the start key was not returned by the sharded user index for the user.
+     */
+    private ListingPage findPageByUserShards(String userId, int limit, Map<String, String> exclusiveStartKey,
+                                             ListingView view) {
+        String afterListingId = null;
+        if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+            afterListingId = exclusiveStartKey.get(AFTER_LISTING_ID);
+            if (afterListingId == null || !userId.equals(exclusiveStartKey.get("userId"))) {
+                throw new IllegalArgumentException("Invalid pagination cursor");
+            }
+        }
+
+        int shards = dynamoDBListingMapper.getUserIndexShards();
+        List<CompletableFuture<QueryResponse>> futures = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            QueryRequest request = buildUserShardQuery(userId, shard, limit, afterListingId, view);
+            futures.add(CompletableFuture.supplyAsync(() -> dynamoDbClient.query(request), parallelCallExecutor()));
+        }
+        List<QueryResponse> responses = FutureUtil.join(FutureUtil.allOf(futures));
+
+        List<Listing> merged = responses.stream()
+                .flatMap(response -> response.items().stream())
+                .map(item -> mapItem(item, view))
+                .sorted(Comparator.comparing(Listing::getListingId))
+                .collect(Collectors.toList());
+        boolean hasMore = merged.size() > limit || responses.stream().anyMatch(QueryResponse::hasLastEvaluatedKey);
+        List<Listing> listings = merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+        logger.info("Found {} listings for user {} in page over {} shards", listings.size(), userId, shards);
+
+        Map<String, String> lastEvaluatedKey = hasMore && !listings.isEmpty()
+                ? Map.of(AFTER_LISTING_ID, listings.get(listings.size() - 1).getListingId(), "userId", userId)
+                : null;
+        return new ListingPage(listings, lastEvaluatedKey);
+    }
+
+    /**
+     * Builds the query of a shard of the user on the sharded user index, in listingId order.
+     *
+     * @param userId         the unique identifier for the user.
+     * @param shard          the shard to read.
+     * @param limit          the maximum number of items to evaluate, or null for no limit.
+     * @param afterListingId the listingId to read after, or null to read from the first listing of the shard.
+     * @param view           the portion of each listing to read.
+     * @return the query request.
+     */
+    private QueryRequest buildUserShardQuery(String userId, int shard, Integer limit, String afterListingId,
+                                             ListingView view) {
+        Map<String, String> exprAttrNames = new HashMap<>();
+        Map<String, AttributeValue> exprAttrValues = new HashMap<>();
+        exprAttrNames.put("#userShard", DynamoDBListingMapper.USER_SHARD);
+        exprAttrValues.put(":userShard", AttributeValue.builder().s(DynamoDBListingMapper.userShard(userId, shard)).build());
+        String keyCondition = "#userShard = :userShard";
+        if (afterListingId != null) {
+            keyCondition += " AND #listingId > :afterListingId";
+            exprAttrNames.put("#listingId", "listingId");
+            exprAttrValues.put(":afterListingId", AttributeValue.builder().s(afterListingId).build());
+        }
+
+        QueryRequest.Builder builder = QueryRequest.builder()
+                .tableName(tableName())
+                .indexName(configService.getListingUserShardIndexName()
+                        .orElseThrow(() -> new IllegalStateException("LISTING_USER_SHARD_INDEX_NAME is not set")))
+                .keyConditionExpression(keyCondition)
+                .expressionAttributeValues(exprAttrValues);
+        if (view == ListingView.SUMMARY) {
+            builder.projectionExpression(summaryProjection(exprAttrNames));
+        }
+        builder.expressionAttributeNames(exprAttrNames);
+        if (limit != null) {
+            builder.limit(limit);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Indicates whether the user's listings are read from the sharded user index. A user-partitioned table is
+     * always read directly.
+     */
+    private boolean readsUserShards() {
+        return !userPartitioned && configService.isListingUserShardReadsEnabled()
+                && dynamoDBListingMapper.getUserIndexShards() > 0;
+    }
+
+    /**
+     * Returns the executor running the parallel calls of the repository, the shard queries of the sharded user index
+     * and the prediction writes, creating it on first use. Its threads are daemons, so that it never keeps the
+     * container alive.
+     */
+    private synchronized ExecutorService parallelCallExecutor() {
+        if (parallelCallExecutor == null) {
+            parallelCallExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "listing-parallel-call");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return parallelCallExecutor;
+    }
+
+    /**
+     * Builds the projection of the summary attributes, adding their names to the given expression attribute names.
+     */
+    private static String summaryProjection(Map<String, String> exprAttrNames) {
+        StringBuilder projection = new StringBuilder();
+        for (String attribute : DynamoDBListingMapper.SUMMARY_ATTRIBUTES) {
+            if (projection.length() > 0) {
+                projection.append(", ");
+            }
+            projection.append('#').append(attribute);
+            exprAttrNames.put("#" + attribute, attribute);
+        }
+        return projection.toString();
+    }
+
+    /**
+     * Builds the query on the user's listings index, or on the table itself if it is partitioned by userId.
+     * <p>
+     * For the summary view, only the summary attributes are projected. If a dedicated summary index
+     * (projecting only those attributes) is configured, the query is routed to it, so that the
+     * consumed read capacity is also computed on the smaller projected items.
+     * </p>
+     *
+     * @param userId            the unique identifier for the user.
+     * @param limit             the maximum number of items to evaluate, or null for no limit.
+     * @param exclusiveStartKey the key to resume from, or null for the first page.
+     * @param view              the portion of each listing to read.
+     * @return the query request.
+     */
+    private QueryRequest buildUserListingsQuery(String userId,
+                                                Integer limit,
+                                                Map<String, AttributeValue> exclusiveStartKey,
+                                                ListingView view) {
         Map<String, AttributeValue> expressionAttributeValues = Map.of(
                 ":userId", AttributeValue.builder().s(userId).build()
         );
 
-        // Query using the GSI
-        QueryRequest request = QueryRequest.builder()
-                .tableName(configService.getDynamoDbListingTableName())
-                .indexName(configService.getDynamoDbUserListingsIndexName())
+        QueryRequest.Builder builder = QueryRequest.builder()
+                .tableName(tableName())
                 .keyConditionExpression("userId = :userId")
-                .expressionAttributeValues(expressionAttributeValues)
-                .build();
+                .expressionAttributeValues(expressionAttributeValues);
+        if (userPartitioned) {
+            // The table itself is partitioned by userId: no index hop, and the read sees every acknowledged write
+            builder.consistentRead(true);
+        } else {
+            // Query using the GSI
+            builder.indexName(configService.getDynamoDbUserListingsIndexName());
+        }
+        if (view == ListingView.SUMMARY) {
+            if (!userPartitioned) {
+                configService.getDynamoDbUserListingsSummaryIndexName().ifPresent(builder::indexName);
+            }
+            Map<String, String> exprAttrNames = new HashMap<>();
+            builder.projectionExpression(summaryProjection(exprAttrNames))
+                    .expressionAttributeNames(exprAttrNames);
+        }
+        if (limit != null) {
+            builder.limit(limit);
+        }
+        if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+            builder.exclusiveStartKey(exclusiveStartKey);
+        }
+        return builder.build();
+    }
 
-        QueryResponse response = dynamoDbClient.query(request);
-        logger.info("Found {} listings for user {}", response.count(), userId);
+    /**
+     * Retrieves a single page of the user's listings from the creation time index, newest or oldest first.
+     * <p>
+     * The creation time bounds are key conditions of the index, so only the listings of the page are read. They are
+     * written with the same fixed-width format as the {@code createdAt} strings the listings are stored with (see
+     * {@link DynamoDBListingMapper#sortableTimestamp(Instant)}), so they compare as strings. On the user-partitioned
+     * table the index is local and is read with strongly consistent reads.
+     * </p>
+     *
+     * @param userId            the unique identifier for the user.
+     * @param query             the order and the creation time bounds of the listings.
+     * @param limit             the maximum number of items to evaluate.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null for the first page.
+     * @param view              the portion of each listing to read.
+     * @return the page of listings, with the key to resume from when more results are available.
+     */
+    @Override
+    public ListingPage findByUserIdOrderedByCreation(String userId, CreationTimeQuery query, int limit,
+                                                     Map<String, String> exclusiveStartKey, ListingView view) {
+        String indexName = configService.getListingCreatedIndexName()
+                .orElseThrow(() -> new IllegalStateException("LISTING_CREATED_INDEX_NAME is not set"));
+        Map<String, AttributeValue> startKey = toAttributeValueKey(exclusiveStartKey);
+        if (startKey != null && !startKey.containsKey("createdAt")) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
 
-        return response.items().stream()
+        Map<String, String> exprAttrNames = new HashMap<>();
+        Map<String, AttributeValue> exprAttrValues = new HashMap<>();
+        StringBuilder keyCondition = new StringBuilder("#userId = :userId");
+        exprAttrNames.put("#userId", "userId");
+        exprAttrValues.put(":userId", AttributeValue.builder().s(userId).build());
+        Instant createdAfter = query.getCreatedAfter();
+        Instant createdBefore = query.getCreatedBefore();
+        if (createdAfter != null && createdBefore != null) {
+            keyCondition.append(" AND #createdAt BETWEEN :createdAfter AND :createdBefore");
+        } else if (createdAfter != null) {
+            keyCondition.append(" AND #createdAt >= :createdAfter");
+        } else if (createdBefore != null) {
+            keyCondition.append(" AND #createdAt <= :createdBefore");
+        }
+        if (createdAfter != null) {
+            exprAttrValues.put(":createdAfter", AttributeValue.builder().s(DynamoDBListingMapper.sortableTimestamp(createdAfter)).build());
+        }
+        if (createdBefore != null) {
+            exprAttrValues.put(":createdBefore", AttributeValue.builder().s(DynamoDBListingMapper.sortableTimestamp(createdBefore)).build());
+        }
+        if (createdAfter != null || createdBefore != null) {
+            exprAttrNames.put("#createdAt", "createdAt");
+        }
+
+        QueryRequest.Builder builder = QueryRequest.builder()
+                .tableName(tableName())
+                .indexName(indexName)
+                .keyConditionExpression(keyCondition.toString())
+                .scanIndexForward(!query.isNewestFirst())
+                .limit(limit);
+        if (userPartitioned) {
+            builder.consistentRead(true);
+        }
+        if (view == ListingView.SUMMARY) {
+            builder.projectionExpression(summaryProjection(exprAttrNames));
+        }
+        builder.expressionAttributeNames(exprAttrNames)
+                .expressionAttributeValues(exprAttrValues);
+        if (startKey != null) {
+            builder.exclusiveStartKey(startKey);
+        }
+
+        QueryResponse response = dynamoDbClient.query(builder.build());
+        logger.info("Found {} listings for user {} by creation time ({})", response.count(), userId, query);
+        List<Listing> listings = response.items().stream()
+                .map(item -> mapItem(item, view))
+                .collect(Collectors.toList());
+        Map<String, String> lastEvaluatedKey = response.hasLastEvaluatedKey()
+                ? fromAttributeValueKey(response.lastEvaluatedKey())
+                : null;
+        return new ListingPage(listings, lastEvaluatedKey);
+    }
+
+    /**
+     * Retrieves a single page of pending listings from the sparse pending index.
+     * <p>
+     * The index only holds the items carrying its keys, that is the listings waiting for their prediction, so the
+     * query reads the pending backlog instead of the whole table. The index is expected to project all attributes.
+     * </p>
+     *
+     * @param shard             the pending index partition.
+     * @param pendingBefore     the instant the listings must have started waiting before.
+     * @param limit             the maximum number of items to evaluate.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null for the first page.
+     * @return the page of pending listings, with the key to resume from when more results are available.
+     */
+    @Override
+    public ListingPage findPending(int shard, Instant pendingBefore, int limit, Map<String, String> exclusiveStartKey) {
+        String indexName = configService.getListingPendingIndexName()
+                .orElseThrow(() -> new IllegalStateException("LISTING_PENDING_INDEX_NAME is not set"));
+        QueryRequest.Builder builder = QueryRequest.builder()
+                .tableName(tableName())
+                .indexName(indexName)
+                .keyConditionExpression("#pendingShard = :shard AND #pendingSince < :pendingBefore")
+                .expressionAttributeNames(Map.of(
+                        "#pendingShard", DynamoDBListingMapper.PENDING_SHARD,
+                        "#pendingSince", DynamoDBListingMapper.PENDING_SINCE))
+                .expressionAttributeValues(Map.of(
+                        ":shard", AttributeValue.builder().s(Integer.toString(shard)).build(),
+                        ":pendingBefore",
+                        AttributeValue.builder().s(DynamoDBListingMapper.sortableTimestamp(pendingBefore)).build()))
+                .limit(limit);
+        Map<String, AttributeValue> startKey = toAttributeValueKey(exclusiveStartKey);
+        if (startKey != null) {
+            builder.exclusiveStartKey(startKey);
+        }
+
+        QueryResponse response = dynamoDbClient.query(builder.build());
+        logger.info("Found {} pending listings in shard {}", response.count(), shard);
+        List<Listing> listings = response.items().stream()
                 .map(dynamoDBListingMapper::fromDynamoDbItem)
                 .collect(Collectors.toList());
+        Map<String, String> lastEvaluatedKey = response.hasLastEvaluatedKey()
+                ? fromAttributeValueKey(response.lastEvaluatedKey())
+                : null;
+        return new ListingPage(listings, lastEvaluatedKey);
+    }
+
+    /**
+     * Records that a pending listing is sent to the inference queue again.
+     * <p>
+     * A single conditional UpdateItem moves the listing to the back of its pending index partition and counts the
+     * attempt, as long as the listing is still pending and has attempts left. A pending listing without attempts left
+     * has its index keys removed instead: it stays incomplete, but is no longer swept.
+     * </p>
+     *
+     * @param listingId   the unique identifier for the listing.
+     * @param userId      the unique identifier for the user.
+     * @param now         the instant the listing is sent again at.
+     * @param maxAttempts the number of times a listing can be sent again.
+     * @return true if the listing is to be sent again, false if it is no longer pending or has no attempts left.
+     */
+    @Override
+    public boolean requeuePending(String listingId, String userId, Instant now, int maxAttempts) {
+        Map<String, AttributeValue> key = buildCompositeKey(listingId, userId);
+        Map<String, String> exprAttrNames = Map.of(
+                "#pendingShard", DynamoDBListingMapper.PENDING_SHARD,
+                "#pendingSince", DynamoDBListingMapper.PENDING_SINCE,
+                "#pendingAttempts", DynamoDBListingMapper.PENDING_ATTEMPTS);
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName())
+                    .key(key)
+                    .updateExpression("SET #pendingSince = :pendingSince ADD #pendingAttempts :one")
+                    .conditionExpression("attribute_exists(#pendingShard)"
+                            + " AND (attribute_not_exists(#pendingAttempts) OR #pendingAttempts < :maxAttempts)")
+                    .expressionAttributeNames(exprAttrNames)
+                    .expressionAttributeValues(Map.of(
+                            ":pendingSince", AttributeValue.builder().s(DynamoDBListingMapper.sortableTimestamp(now)).build(),
+                            ":one", AttributeValue.builder().n("1").build(),
+                            ":maxAttempts", AttributeValue.builder().n(Integer.toString(maxAttempts)).build()))
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            if (!e.hasItem() || !e.item().containsKey(DynamoDBListingMapper.PENDING_SHARD)) {
+                logger.info("Listing with ID: {} for user: {} is no longer pending", listingId, userId);
+                return false;
+            }
+        }
+
+        logger.warn("Listing with ID: {} for user: {} sent again {} times without a prediction, no longer swept",
+                listingId, userId, maxAttempts);
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName())
+                    .key(key)
+                    .updateExpression("REMOVE #pendingShard, #pendingSince, #pendingAttempts")
+                    .conditionExpression("attribute_exists(#pendingShard)")
+                    .expressionAttributeNames(exprAttrNames)
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Listing with ID: {} for user: {} is no longer pending", listingId, userId);
+        }
+        return false;
+    }
+
+    /**
+     * Writes the sharded user index key of a single page of the listing table.
+     * <p>
+     * The page is scanned projecting only the keys, and each listing whose {@value DynamoDBListingMapper#USER_SHARD}
+     * is missing or differs from the one of the configured number of shards is updated on its own. The update is
+     * conditioned on the listing existing, so that listings deleted in the meantime are not written back. Only the
+     * index key changes, so the update is not seen as an edit by the listing stream consumer.
+     * </p>
+     *
+     * @param limit             the maximum number of listings to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null for the first page.
+     * @return the outcome of the page, with the key to resume from when more listings remain.
+     */
+    @Override
+    public BackfillPage backfillUserShards(int limit, Map<String, String> exclusiveStartKey) {
+        int shards = dynamoDBListingMapper.getUserIndexShards();
+        if (shards <= 0) {
+            throw new IllegalStateException("LISTING_USER_SHARD_INDEX_NAME is not set");
+        }
+        String tableName = tableName();
+        ScanRequest.Builder builder = ScanRequest.builder()
+                .tableName(tableName)
+                .projectionExpression("#listingId, #userId, #userShard")
+                .expressionAttributeNames(Map.of(
+                        "#listingId", "listingId",
+                        "#userId", "userId",
+                        "#userShard", DynamoDBListingMapper.USER_SHARD))
+                .limit(limit);
+        Map<String, AttributeValue> startKey = toAttributeValueKey(exclusiveStartKey);
+        if (startKey != null) {
+            builder.exclusiveStartKey(startKey);
+        }
+
+        ScanResponse response = dynamoDbClient.scan(builder.build());
+        int updated = 0;
+        for (Map<String, AttributeValue> item : response.items()) {
+            String listingId = item.get("listingId").s();
+            String userId = item.get("userId").s();
+            String userShard = DynamoDBListingMapper.userShard(userId, listingId, shards);
+            AttributeValue stored = item.get(DynamoDBListingMapper.USER_SHARD);
+            if (stored != null && userShard.equals(stored.s())) {
+                continue;
+            }
+            try {
+                dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                        .tableName(tableName)
+                        .key(buildCompositeKey(listingId, userId))
+                        .updateExpression("SET #userShard = :userShard")
+                        .conditionExpression("attribute_exists(#listingId)")
+                        .expressionAttributeNames(Map.of(
+                                "#userShard", DynamoDBListingMapper.USER_SHARD,
+                                "#listingId", "listingId"))
+                        .expressionAttributeValues(Map.of(":userShard", AttributeValue.builder().s(userShard).build()))
+                        .build());
+                updated++;
+            } catch (ConditionalCheckFailedException e) {
+                logger.info("Listing with ID: {} for user: {} deleted during the backfill", listingId, userId);
+            }
+        }
+
+        logger.info("Backfilled the user shard of {} out of {} listings", updated, response.count());
+        Map<String, String> lastEvaluatedKey = response.hasLastEvaluatedKey()
+                ? fromAttributeValueKey(response.lastEvaluatedKey())
+                : null;
+        return new BackfillPage(response.count(), updated, lastEvaluatedKey);
+    }
+
+    /**
+     * Maps a queried item according to the requested view.
+     */
+    private Listing mapItem(Map<String, AttributeValue> item, ListingView view) {
+        return view == ListingView.SUMMARY
+                ? dynamoDBListingMapper.fromSummaryItem(item)
+                : dynamoDBListingMapper.fromDynamoDbItem(item);
+    }
+
+    /**
+     * Converts a key made of string attributes into its DynamoDB representation.
+     *
+     * @param key the key as plain strings, may be null.
+     * @return the key as DynamoDB attribute values, or null if no key was given.
+     */
+    private static Map<String, AttributeValue> toAttributeValueKey(Map<String, String> key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Map<String, AttributeValue> attributeValueKey = new HashMap<>();
+        key.forEach((name, value) -> attributeValueKey.put(name, AttributeValue.builder().s(value).build()));
+        return attributeValueKey;
+    }
+
+    /**
+     * Converts a DynamoDB key into plain strings. All the key attributes of the table and its indexes are strings.
+     *
+     * @param key the DynamoDB key.
+     * @return the key as plain strings, or null if the key is empty.
+     */
+    private static Map<String, String> fromAttributeValueKey(Map<String, AttributeValue> key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Map<String, String> stringKey = new HashMap<>();
+        key.forEach((name, value) -> stringKey.put(name, value.s()));
+        return stringKey;
     }
 
     /**
      * Deletes a Listing from DynamoDB identified by its composite primary key.
+     * <p>
+     * The delete is conditioned on the item existing, so that a missing listing is detected without a prior read.
+     * </p>
      *
      * @param listingId the unique identifier for the listing.
      * @param userId    the unique identifier for the user.
+     * @return the deleted listing, or null if no listing exists for the key.
      */
     @Override
-    public void delete(String listingId, String userId) {
+    public Listing delete(String listingId, String userId) {
         Map<String, AttributeValue> key = buildCompositeKey(listingId, userId);
         DeleteItemRequest request = DeleteItemRequest.builder()
-                .tableName(configService.getDynamoDbListingTableName())
+                .tableName(tableName())
                 .key(key)
+                .conditionExpression("attribute_exists(#listingId)")
+                .expressionAttributeNames(Map.of("#listingId", "listingId"))
+                .returnValues(ReturnValue.ALL_OLD)
                 .build();
-        dynamoDbClient.deleteItem(request);
-        logger.info("Deleted listing with ID: {} for user: {}", listingId, userId);
+        try {
+            DeleteItemResponse response = dynamoDbClient.deleteItem(request);
+            logger.info("Deleted listing with ID: {} for user: {}", listingId, userId);
+            return dynamoDBListingMapper.fromDynamoDbItem(response.attributes());
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Listing with ID: {} for user: {} not found, nothing to delete", listingId, userId);
+            return null;
+        }
     }
 }
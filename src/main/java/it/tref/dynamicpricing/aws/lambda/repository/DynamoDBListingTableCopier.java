@@ -0,0 +1,150 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copies the items of the legacy listing table to the user-partitioned listing table, one page of a parallel scan
+ * segment at a time.
+ * <p>
+ * Items are copied as stored, whatever their attributes layout, while the legacy table is the primary one
+ * ({@link ListingTableMode#DUAL_WRITE}). Every item is written with a conditional PutItem that only creates it, so
+ * that a listing mirrored to the user-partitioned table after the page was scanned is never overwritten by the
+ * scanned copy. Once written, the item is read back from the legacy table with a consistent read, and removed from
+ * the user-partitioned table if the listing was deleted in the meantime: its mirrored delete may have run before the
+ * copy. Running the copy again is harmless.
+ * </p>
+ */
+@DynamoDBErrorHandled
+@ApplicationScoped
+public class DynamoDBListingTableCopier {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBListingTableCopier.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new DynamoDBListingTableCopier on the client of the {@link DynamoDBClientService}.
+     *
+     * @param dynamoDBClientService the service providing the DynamoDB client.
+     * @param configService         the configuration service that provides the tables.
+     */
+    @Inject
+    public DynamoDBListingTableCopier(DynamoDBClientService dynamoDBClientService, ConfigService configService) {
+        this(dynamoDBClientService.getDynamoDbClient(), configService);
+    }
+
+    /**
+     * Constructs a new DynamoDBListingTableCopier.
+     *
+     * @param dynamoDbClient the DynamoDB client.
+     * @param configService  the configuration service that provides the tables.
+     */
+    public DynamoDBListingTableCopier(DynamoDbClient dynamoDbClient, ConfigService configService) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.configService = configService;
+    }
+
+    /**
+     * Copies a single page of a segment of the legacy table. If a write fails, the page can be copied again.
+     *
+     * @param segment           the segment to scan, from zero to the number of segments minus one.
+     * @param totalSegments     the number of segments the table is scanned in.
+     * @param limit             the maximum number of items to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page of the segment, or null for its first page.
+     * @return the outcome of the page, carrying the key to resume the segment from when more items remain.
+     * @throws IllegalStateException if the user-partitioned table is not configured.
+     */
+    public BackfillPage copySegmentPage(int segment, int totalSegments, int limit, Map<String, String> exclusiveStartKey) {
+        String targetTable = configService.getListingUserTableName()
+                .orElseThrow(() -> new IllegalStateException("LISTING_USER_TABLE_NAME is not set"));
+        ScanRequest.Builder builder = ScanRequest.builder()
+                .tableName(configService.getDynamoDbListingTableName())
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .limit(limit);
+        if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+            Map<String, AttributeValue> startKey = new HashMap<>();
+            exclusiveStartKey.forEach((name, value) -> startKey.put(name, AttributeValue.builder().s(value).build()));
+            builder.exclusiveStartKey(startKey);
+        }
+
+        ScanResponse response = dynamoDbClient.scan(builder.build());
+        int copied = 0;
+        for (Map<String, AttributeValue> item : response.items()) {
+            if (copyItem(targetTable, item)) {
+                copied++;
+            }
+        }
+
+        logger.info("Copied {} of {} listings of segment {} of {}", copied, response.count(), segment, totalSegments);
+        Map<String, String> lastEvaluatedKey = null;
+        if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+            lastEvaluatedKey = new HashMap<>();
+            for (Map.Entry<String, AttributeValue> entry : response.lastEvaluatedKey().entrySet()) {
+                lastEvaluatedKey.put(entry.getKey(), entry.getValue().s());
+            }
+        }
+        return new BackfillPage(response.count(), copied, lastEvaluatedKey);
+    }
+
+    /**
+     * Copies an item unless the user-partitioned table already has the listing, then removes the copy if the listing
+     * was deleted from the legacy table meanwhile.
+     *
+     * @param targetTable the user-partitioned table.
+     * @param item        the item as scanned from the legacy table.
+     * @return true if the item was copied, false if the listing was already there or has been deleted.
+     */
+    private boolean copyItem(String targetTable, Map<String, AttributeValue> item) {
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(targetTable)
+                    .item(item)
+                    .conditionExpression("attribute_not_exists(#listingId)")
+                    .expressionAttributeNames(Map.of("#listingId", "listingId"))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            // Already written to both tables, the stored listing is at least as recent as the scanned one
+            return false;
+        }
+
+        Map<String, AttributeValue> key = DynamoDBListingRepository.buildCompositeKey(
+                item.get("listingId").s(), item.get("userId").s());
+        GetItemResponse current = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(configService.getDynamoDbListingTableName())
+                .key(key)
+                .consistentRead(true)
+                .projectionExpression("#listingId")
+                .expressionAttributeNames(Map.of("#listingId", "listingId"))
+                .build());
+        if (current.hasItem() && !current.item().isEmpty()) {
+            return true;
+        }
+        dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                .tableName(targetTable)
+                .key(key)
+                .build());
+        logger.info("Removed the copy of listing with ID: {}, deleted during the copy", key.get("listingId").s());
+        return false;
+    }
+}
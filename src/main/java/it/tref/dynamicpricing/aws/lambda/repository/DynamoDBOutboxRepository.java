@@ -0,0 +1,190 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.TypedAttributeCodec;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxPage;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxRecord;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of OutboxRepository on a dedicated DynamoDB table keyed by {@code outboxId}.
+ * <p>
+ * The table only holds the messages not sent yet, so reading it whole costs in proportion to the backlog.
+ * </p>
+ */
+@DynamoDBErrorHandled
+@ApplicationScoped
+public class DynamoDBOutboxRepository implements OutboxRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBOutboxRepository.class);
+
+    /**
+     * Maximum number of delete requests accepted by a single BatchWriteItem call.
+     */
+    static final int BATCH_WRITE_MAX_ITEMS = 25;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new DynamoDBOutboxRepository on the client of the {@link DynamoDBClientService}.
+     *
+     * @param dynamoDBClientService the service providing the DynamoDB client.
+     * @param configService         the configuration service that provides the outbox table.
+     */
+    @Inject
+    public DynamoDBOutboxRepository(DynamoDBClientService dynamoDBClientService, ConfigService configService) {
+        this(dynamoDBClientService.getDynamoDbClient(), configService);
+    }
+
+    /**
+     * Constructs a new DynamoDBOutboxRepository.
+     *
+     * @param dynamoDbClient the DynamoDB client.
+     * @param configService  the configuration service that provides the outbox table.
+     */
+    public DynamoDBOutboxRepository(DynamoDbClient dynamoDbClient, ConfigService configService) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.configService = configService;
+    }
+
+    /**
+     * Converts an inference message into an outbox item.
+     *
+     * @param outboxId  the unique identifier of the record.
+     * @param message   the inference message.
+     * @param createdAt when the record is written.
+     * @return the DynamoDB item.
+     */
+    static Map<String, AttributeValue> toOutboxItem(String outboxId, ListingSqsMessage message, Instant createdAt) {
+        Map<String, AttributeValue> details = new HashMap<>();
+        message.getListingDetails().forEach((k, v) -> details.put(k, TypedAttributeCodec.encode(v)));
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("outboxId", AttributeValue.builder().s(outboxId).build());
+        item.put("listingId", AttributeValue.builder().s(message.getListingId()).build());
+        item.put("userId", AttributeValue.builder().s(message.getUserId()).build());
+        item.put("listingDetails", AttributeValue.builder().m(details).build());
+        item.put("createdAt", AttributeValue.builder().s(createdAt.toString()).build());
+        if (message.getRevision() != null) {
+            item.put("revision", AttributeValue.builder().n(message.getRevision().toString()).build());
+        }
+        if (message.getFingerprint() != null) {
+            item.put("fingerprint", AttributeValue.builder().s(message.getFingerprint()).build());
+        }
+        return item;
+    }
+
+    /**
+     * Converts an outbox item back into a record.
+     *
+     * @param item the DynamoDB item.
+     * @return the outbox record.
+     */
+    static OutboxRecord fromOutboxItem(Map<String, AttributeValue> item) {
+        Map<String, Object> details = new HashMap<>();
+        if (item.containsKey("listingDetails")) {
+            item.get("listingDetails").m().forEach((k, v) -> details.put(k, TypedAttributeCodec.decode(v)));
+        }
+        Long revision = item.containsKey("revision") ? Long.valueOf(item.get("revision").n()) : null;
+        String fingerprint = item.containsKey("fingerprint") ? item.get("fingerprint").s() : null;
+        return new OutboxRecord(item.get("outboxId").s(),
+                new ListingSqsMessage(item.get("listingId").s(), item.get("userId").s(), details, revision, fingerprint));
+    }
+
+    /**
+     * Returns the configured outbox table.
+     *
+     * @param configService the configuration service.
+     * @return the outbox table name.
+     * @throws IllegalStateException if no outbox table is configured.
+     */
+    static String outboxTableName(ConfigService configService) {
+        return configService.getOutboxTableName()
+                .orElseThrow(() -> new IllegalStateException("OUTBOX_TABLE_NAME is not set"));
+    }
+
+    /**
+     * Reads a page of outbox records with a strongly consistent Scan, so that records deleted by a previous
+     * relay are not read again.
+     *
+     * @param limit             the maximum number of records to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null for the first page.
+     * @return the page of records.
+     */
+    @Override
+    public OutboxPage findPage(int limit, Map<String, String> exclusiveStartKey) {
+        ScanRequest.Builder builder = ScanRequest.builder()
+                .tableName(outboxTableName(configService))
+                .consistentRead(true)
+                .limit(limit);
+        if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+            builder.exclusiveStartKey(Map.of("outboxId", AttributeValue.builder().s(exclusiveStartKey.get("outboxId")).build()));
+        }
+
+        ScanResponse response = dynamoDbClient.scan(builder.build());
+        List<OutboxRecord> records = response.items().stream()
+                .map(DynamoDBOutboxRepository::fromOutboxItem)
+                .collect(Collectors.toList());
+        Map<String, String> lastEvaluatedKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                ? Map.of("outboxId", response.lastEvaluatedKey().get("outboxId").s())
+                : null;
+        logger.info("Read {} outbox records", records.size());
+        return new OutboxPage(records, lastEvaluatedKey);
+    }
+
+    /**
+     * Deletes the given outbox records with BatchWriteItem, in chunks of {@value #BATCH_WRITE_MAX_ITEMS},
+     * retrying the unprocessed deletes with exponential backoff up to the configured number of attempts.
+     *
+     * @param outboxIds the identifiers of the records.
+     * @return the identifiers of the records still unprocessed after the last attempt.
+     */
+    @Override
+    public List<String> deleteAll(List<String> outboxIds) {
+        String tableName = outboxTableName(configService);
+        List<String> failed = new ArrayList<>();
+        for (int from = 0; from < outboxIds.size(); from += BATCH_WRITE_MAX_ITEMS) {
+            List<WriteRequest> pending = outboxIds.subList(from, Math.min(from + BATCH_WRITE_MAX_ITEMS, outboxIds.size()))
+                    .stream()
+                    .map(outboxId -> WriteRequest.builder()
+                            .deleteRequest(DeleteRequest.builder()
+                                    .key(Map.of("outboxId", AttributeValue.builder().s(outboxId).build()))
+                                    .build())
+                            .build())
+                    .collect(Collectors.toList());
+
+            int maxAttempts = configService.getBatchMaxAttempts();
+            for (int attempt = 0; attempt < maxAttempts && !pending.isEmpty(); attempt++) {
+                if (attempt > 0) {
+                    logger.warn("Retrying {} unprocessed outbox deletes (attempt {} of {})", pending.size(), attempt + 1, maxAttempts);
+                    BackoffUtil.pause(attempt);
+                }
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, pending))
+                        .build());
+                pending = response.hasUnprocessedItems()
+                        ? response.unprocessedItems().getOrDefault(tableName, List.of())
+                        : List.of();
+            }
+            pending.forEach(request -> failed.add(request.deleteRequest().key().get("outboxId").s()));
+        }
+        logger.info("Deleted {} of {} outbox records", outboxIds.size() - failed.size(), outboxIds.size());
+        return failed;
+    }
+}
@@ -0,0 +1,160 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.mapper.ListingItemCodec;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of PredictionCacheRepository on a dedicated DynamoDB table keyed by {@code cacheKey}, the
+ * attributes fingerprint and the model version ({@code fingerprint#modelVersion}).
+ * <p>
+ * Predictions are stored in the packed layout of the listing items, and expire after the configured TTL through
+ * the {@code expiresAt} attribute, in epoch seconds, which should be the TTL attribute of the table.
+ * </p>
+ */
+@DynamoDBErrorHandled
+@ApplicationScoped
+public class DynamoDBPredictionCacheRepository implements PredictionCacheRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBPredictionCacheRepository.class);
+
+    /**
+     * Maximum number of put requests accepted by a single BatchWriteItem call.
+     */
+    static final int BATCH_WRITE_MAX_ITEMS = 25;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new DynamoDBPredictionCacheRepository on the client of the {@link DynamoDBClientService}.
+     *
+     * @param dynamoDBClientService the service providing the DynamoDB client.
+     * @param configService         the configuration service that provides the prediction cache table.
+     */
+    @Inject
+    public DynamoDBPredictionCacheRepository(DynamoDBClientService dynamoDBClientService, ConfigService configService) {
+        this(dynamoDBClientService.getDynamoDbClient(), configService);
+    }
+
+    /**
+     * Constructs a new DynamoDBPredictionCacheRepository.
+     *
+     * @param dynamoDbClient the DynamoDB client.
+     * @param configService  the configuration service that provides the prediction cache table.
+     */
+    public DynamoDBPredictionCacheRepository(DynamoDbClient dynamoDbClient, ConfigService configService) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.configService = configService;
+    }
+
+    /**
+     * Builds the key of a cached prediction.
+     *
+     * @param fingerprint  the fingerprint of the attributes.
+     * @param modelVersion the version of the model.
+     * @return the cache key.
+     */
+    static String cacheKey(String fingerprint, String modelVersion) {
+        return fingerprint + "#" + modelVersion;
+    }
+
+    /**
+     * Returns the configured prediction cache table.
+     *
+     * @param configService the configuration service.
+     * @return the prediction cache table name.
+     * @throws IllegalStateException if no prediction cache table is configured.
+     */
+    static String predictionCacheTableName(ConfigService configService) {
+        return configService.getPredictionCacheTableName()
+                .orElseThrow(() -> new IllegalStateException("PREDICTION_CACHE_TABLE_NAME is not set"));
+    }
+
+    /**
+     * Reads the cached prediction with an eventually consistent GetItem; entries past their expiration time but not
+     * yet deleted by TTL are treated as missing.
+     *
+     * @param fingerprint  the fingerprint of the attributes.
+     * @param modelVersion the version of the model.
+     * @return the cached prediction, or null if none is cached.
+     */
+    @Override
+    public Map<String, double[]> find(String fingerprint, String modelVersion) {
+        GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(predictionCacheTableName(configService))
+                .key(Map.of("cacheKey", AttributeValue.builder().s(cacheKey(fingerprint, modelVersion)).build()))
+                .build());
+        if (!response.hasItem() || response.item().isEmpty()) {
+            return null;
+        }
+        Map<String, AttributeValue> item = response.item();
+        if (Long.parseLong(item.get("expiresAt").n()) <= Instant.now().getEpochSecond()) {
+            return null;
+        }
+        return ListingItemCodec.fromPredictionValue(item.get("prediction"));
+    }
+
+    /**
+     * Writes the predictions with BatchWriteItem, in chunks of {@value #BATCH_WRITE_MAX_ITEMS}, retrying the
+     * unprocessed puts with exponential backoff up to the configured number of attempts. Existing entries are
+     * overwritten, renewing their expiration.
+     *
+     * @param predictions  the predictions, by the fingerprint of the attributes they were computed for.
+     * @param modelVersion the version of the model.
+     * @return the fingerprints still unprocessed after the last attempt.
+     */
+    @Override
+    public List<String> putAll(Map<String, Map<String, double[]>> predictions, String modelVersion) {
+        String tableName = predictionCacheTableName(configService);
+        AttributeValue expiresAt = AttributeValue.builder()
+                .n(Long.toString(Instant.now().getEpochSecond() + configService.getPredictionCacheTtlSeconds()))
+                .build();
+        List<WriteRequest> requests = new ArrayList<>(predictions.size());
+        predictions.forEach((fingerprint, prediction) -> {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("cacheKey", AttributeValue.builder().s(cacheKey(fingerprint, modelVersion)).build());
+            item.put("fingerprint", AttributeValue.builder().s(fingerprint).build());
+            // The cache table is only read by versions that read the packed layout
+            item.put("prediction",
+                    ListingItemCodec.toPredictionValue(prediction, configService.getItemCompressionThresholdBytes(), true));
+            item.put("expiresAt", expiresAt);
+            requests.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        });
+
+        List<String> failed = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += BATCH_WRITE_MAX_ITEMS) {
+            List<WriteRequest> pending = requests.subList(from, Math.min(from + BATCH_WRITE_MAX_ITEMS, requests.size()));
+            int maxAttempts = configService.getBatchMaxAttempts();
+            for (int attempt = 0; attempt < maxAttempts && !pending.isEmpty(); attempt++) {
+                if (attempt > 0) {
+                    logger.warn("Retrying {} unprocessed prediction cache writes (attempt {} of {})", pending.size(), attempt + 1, maxAttempts);
+                    BackoffUtil.pause(attempt);
+                }
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, pending))
+                        .build());
+                pending = response.hasUnprocessedItems()
+                        ? response.unprocessedItems().getOrDefault(tableName, List.of())
+                        : List.of();
+            }
+            pending.forEach(request -> failed.add(request.putRequest().item().get("fingerprint").s()));
+        }
+        logger.info("Cached {} of {} predictions for model {}", predictions.size() - failed.size(), predictions.size(), modelVersion);
+        return failed;
+    }
+}
@@ -0,0 +1,48 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.model.IdempotencyRecord;
+
+import java.time.Instant;
+
+/**
+ * Interface for remembering the listings created for the idempotency keys of create requests.
+ */
+public interface IdempotencyRepository {
+    /**
+     * Claims an idempotency key, writing its in-progress record unless the key already has a record that is
+     * unexpired, or in progress. An in-progress claim whose lease ended is not overwritten, since its listing may have
+     * been written: it is taken over with {@link #takeOver(IdempotencyRecord, IdempotencyRecord)}.
+     *
+     * @param record the record to write.
+     * @param now    the current time, against which existing records are expired.
+     * @return null if the key was claimed, otherwise the record already stored for the key.
+     */
+    IdempotencyRecord claim(IdempotencyRecord record, Instant now);
+
+    /**
+     * Claims an idempotency key whose failed or expired claim was returned by
+     * {@link #claim(IdempotencyRecord, Instant)}, replacing that claim unless it changed meanwhile.
+     *
+     * @param previous the record returned by the claim.
+     * @param record   the in-progress record to write, of the listing of the previous claim.
+     * @return true if the key was claimed, false if the previous claim changed.
+     */
+    boolean takeOver(IdempotencyRecord previous, IdempotencyRecord record);
+
+    /**
+     * Marks the claim of an idempotency key completed, replacing its lease with the expiration of the record.
+     *
+     * @param record the completed record, of the listing of the claim.
+     * @return true if the claim was completed, false if it was lost because its lease ended and the key was claimed
+     * again.
+     */
+    boolean complete(IdempotencyRecord record);
+
+    /**
+     * Marks the claim of an idempotency key failed after a failed create, keeping its listingId so that a retry of
+     * the request writes the same listing. A claim no longer in progress is kept.
+     *
+     * @param record the failed record, of the listing of the claim.
+     */
+    void fail(IdempotencyRecord record);
+}
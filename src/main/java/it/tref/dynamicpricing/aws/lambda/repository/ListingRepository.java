@@ -1,8 +1,19 @@
 package it.tref.dynamicpricing.aws.lambda.repository;
 
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Interface for managing Listing objects at persistence layer.
@@ -16,11 +27,90 @@ public interface ListingRepository {
     void save(Listing listing);
 
     /**
-     * Updates an existing listing in the datastore.
+     * Persists a listing together with the outbox record of its inference message, atomically:
+     * either both are written or neither is.
+     *
+     * @param listing the listing to persist.
+     * @param message the inference message to store in the outbox.
+     */
+    void saveWithOutbox(Listing listing, ListingSqsMessage message);
+
+    /**
+     * Persists several listings in the datastore, retrying the items the datastore could not process.
+     *
+     * @param listings the listings to persist.
+     * @return the listings that could not be persisted after all attempts; empty if every listing was saved.
+     */
+    List<Listing> saveAll(List<Listing> listings);
+
+    /**
+     * Persists several listings together with the outbox records of their inference messages, each listing
+     * atomically with its record.
+     *
+     * @param listings the listings to persist.
+     * @param messages the inference messages to store in the outbox, of the listings that need one.
+     * @return the listings that could not be persisted, without their records; empty if every listing was saved.
+     */
+    List<Listing> saveAllWithOutbox(List<Listing> listings, List<ListingSqsMessage> messages);
+
+    /**
+     * Updates an existing listing in the datastore, in a single round trip.
+     * <p>
+     * Null name, attributes or prediction are left unchanged.
+     * </p>
      *
      * @param listing the listing with updated data.
+     * @return the listing as stored after the update, or null if the listing does not exist.
      */
-    void update(Listing listing);
+    Listing update(Listing listing);
+
+    /**
+     * Replaces the name and attributes of an existing listing, resetting its prediction only when the attributes
+     * change.
+     * <p>
+     * The prediction state carried by the listing (prediction, completed flag and revision) is only written when the
+     * attributes differ from the stored ones; a change of the name alone is written without it, and nothing is
+     * written when neither changes. A null name or null attributes are left unchanged.
+     * </p>
+     *
+     * @param listing the listing with the new name and attributes, and the prediction state to set if the
+     *                attributes change.
+     * @return the outcome of the update, or null if the listing does not exist.
+     */
+    ContentUpdate updateContent(Listing listing);
+
+    /**
+     * Replaces the name and attributes of an existing listing like {@link #updateContent}, writing the outbox record
+     * of its inference message atomically with the attributes, only if they change.
+     *
+     * @param listing the listing with the new name and attributes, and the prediction state to set if the
+     *                attributes change.
+     * @param message the inference message to store in the outbox if the attributes change.
+     * @return the outcome of the update, or null if the listing does not exist.
+     */
+    ContentUpdate updateContentWithOutbox(Listing listing, ListingSqsMessage message);
+
+    /**
+     * Applies a partial update to an existing listing, in a single round trip where possible.
+     * <p>
+     * Only the fields and attribute keys carried by the patch are written, and the prediction is only reset when
+     * the patch changes at least one attribute value; a patch repeating the stored values writes nothing.
+     * </p>
+     *
+     * @param patch the partial update.
+     * @return the outcome of the patch, or null if the listing does not exist.
+     */
+    ContentUpdate patch(ListingPatch patch);
+
+    /**
+     * Applies a partial update to an existing listing like {@link #patch}, writing the outbox record of the inference
+     * message of the patched listing atomically with the attributes, only if they change.
+     *
+     * @param patch     the partial update.
+     * @param toMessage builds the inference message of the listing as patched.
+     * @return the outcome of the patch, or null if the listing does not exist.
+     */
+    ContentUpdate patchWithOutbox(ListingPatch patch, Function<Listing, ListingSqsMessage> toMessage);
 
     /**
      * Finds a listing by its composite primary key (listingId and userId).
@@ -31,19 +121,129 @@ public interface ListingRepository {
      */
     Listing findById(String listingId, String userId);
 
+    /**
+     * Finds a listing by its composite primary key, choosing the read consistency.
+     *
+     * @param listingId      the unique identifier for the listing.
+     * @param userId         the unique identifier for the user.
+     * @param consistentRead true to read the latest acknowledged write (bypassing any cache), false to allow
+     *                       an eventually consistent or cached read.
+     * @return the Listing if found, or null if not found.
+     */
+    Listing findById(String listingId, String userId, boolean consistentRead);
+
+    /**
+     * Finds several listings of the same user by their listingIds.
+     * <p>
+     * Every id is looked up with the composite key built from the given userId, so listings of other users
+     * are never returned. Duplicate ids are read once.
+     * </p>
+     *
+     * @param listingIds the identifiers of the listings.
+     * @param userId     the unique identifier for the user.
+     * @param view       the portion of each listing to read.
+     * @return the listings found, in the order of the requested ids; ids without a listing are omitted.
+     */
+    List<Listing> findByIds(List<String> listingIds, String userId, ListingView view);
+
     /**
      * Retrieves all listings associated with the specified user.
+     * <p>
+     * When the sharded user index is read, every shard of the user is queried in parallel and the listings are
+     * returned sorted by listingId.
+     * </p>
      *
      * @param userId the unique identifier of the user.
+     * @param view   the portion of each listing to read.
      * @return a list of Listing objects; may be empty if none are found.
      */
-    List<Listing> findByUserId(String userId);
+    List<Listing> findByUserId(String userId, ListingView view);
+
+    /**
+     * Retrieves a single page of listings associated with the specified user.
+     * <p>
+     * When the sharded user index is read, pages are sorted by listingId and only resume from keys returned by
+     * that index.
+     * </p>
+     *
+     * @param userId            the unique identifier of the user.
+     * @param limit             the maximum number of listings to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null to start from the beginning.
+     * @param view              the portion of each listing to read.
+     * @return the page of listings, carrying the key to resume from when more results are available.
+     */
+    ListingPage findByUserId(String userId, int limit, Map<String, String> exclusiveStartKey, ListingView view);
+
+    /**
+     * Retrieves a single page of the listings of the specified user ordered by creation time, optionally restricted
+     * to a range of creation times. Only the listings of the page are read, whatever the number of listings of the
+     * user.
+     *
+     * @param userId            the unique identifier of the user.
+     * @param query             the order and the creation time bounds of the listings.
+     * @param limit             the maximum number of listings to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page of the same query, or null to start from
+     *                          the beginning.
+     * @param view              the portion of each listing to read.
+     * @return the page of listings, carrying the key to resume from when more results are available.
+     * @throws IllegalStateException    if the creation time index is not configured.
+     * @throws IllegalArgumentException if the start key was not returned by a query ordered by creation time.
+     */
+    ListingPage findByUserIdOrderedByCreation(String userId, CreationTimeQuery query, int limit,
+                                              Map<String, String> exclusiveStartKey, ListingView view);
+
+    /**
+     * Retrieves a single page of the listings of a pending index partition that have been waiting for their
+     * prediction since before the given instant. Only pending listings are read, whatever the size of the table.
+     *
+     * @param shard             the pending index partition, from zero to the number of shards minus one.
+     * @param pendingBefore     the instant the listings must have started waiting before.
+     * @param limit             the maximum number of listings to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null to start from the beginning.
+     * @return the page of pending listings, carrying the key to resume from when more results are available.
+     * @throws IllegalStateException if the pending index is not configured.
+     */
+    ListingPage findPending(int shard, Instant pendingBefore, int limit, Map<String, String> exclusiveStartKey);
+
+    /**
+     * Records that a pending listing is sent to the inference queue again, moving it behind the other pending
+     * listings of its partition. A listing already sent again the maximum number of times leaves the pending index.
+     *
+     * @param listingId   the unique identifier for the listing.
+     * @param userId      the unique identifier for the user.
+     * @param now         the instant the listing is sent again at.
+     * @param maxAttempts the number of times a listing can be sent again.
+     * @return true if the listing is to be sent again, false if it is no longer pending or has no attempts left.
+     */
+    boolean requeuePending(String listingId, String userId, Instant now, int maxAttempts);
+
+    /**
+     * Writes the sharded user index key of a single page of the listing table, for the listings that do not carry
+     * it yet or that carry the key of a different number of shards.
+     *
+     * @param limit             the maximum number of listings to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null to start from the beginning.
+     * @return the outcome of the page, carrying the key to resume from when more listings remain.
+     * @throws IllegalStateException if the sharded user index is not configured.
+     */
+    BackfillPage backfillUserShards(int limit, Map<String, String> exclusiveStartKey);
+
+    /**
+     * Writes the predictions of several listings and marks them as completed, each only if the listing still waits
+     * for the revision the prediction was computed for. Results of another revision, or of a deleted listing,
+     * are dropped.
+     *
+     * @param results the prediction results.
+     * @return the results that could not be written; empty if every result was written or dropped.
+     */
+    List<PredictionResultMessage> applyPredictions(List<PredictionResultMessage> results);
 
     /**
-     * Deletes a listing for the given listingId and userId.
+     * Deletes a listing for the given listingId and userId, in a single round trip.
      *
      * @param listingId the identifier of the listing.
      * @param userId    the identifier of the user.
+     * @return the deleted listing, or null if the listing does not exist.
      */
-    void delete(String listingId, String userId);
+    Listing delete(String listingId, String userId);
 }
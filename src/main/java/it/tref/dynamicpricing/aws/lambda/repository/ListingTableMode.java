@@ -0,0 +1,70 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+/**
+ * Which listing tables are read and written while migrating from the legacy table
+ * ({@code listingId} HASH, {@code userId} RANGE) to the user-partitioned table ({@code userId} HASH,
+ * {@code listingId} RANGE).
+ * <p>
+ * The migration goes through the modes in order: {@link #DUAL_WRITE}, then the backfill of the user-partitioned
+ * table, then {@link #DUAL_READ} and finally {@link #USER_TABLE}. Each step can be rolled back to the previous one,
+ * as long as both tables are still written.
+ * </p>
+ */
+public enum ListingTableMode {
+    /**
+     * Only the legacy table is read and written.
+     */
+    LEGACY,
+    /**
+     * Both tables are written, the legacy table first; reads are served by the legacy table.
+     */
+    DUAL_WRITE,
+    /**
+     * Both tables are written, the user-partitioned table first; reads are served by the user-partitioned table,
+     * falling back to the legacy table for listings it does not hold.
+     */
+    DUAL_READ,
+    /**
+     * Only the user-partitioned table is read and written.
+     */
+    USER_TABLE;
+
+    /**
+     * Resolves the table mode from its configuration value ({@code legacy}, {@code dual-write}, {@code dual-read}
+     * or {@code user-table}).
+     *
+     * @param value the configuration value; null selects {@link #LEGACY}.
+     * @return the matching table mode.
+     * @throws IllegalArgumentException if the value does not match any mode.
+     */
+    public static ListingTableMode fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return LEGACY;
+        }
+        String normalized = value.trim().replace('-', '_').toUpperCase();
+        for (ListingTableMode mode : values()) {
+            if (mode.name().equals(normalized)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported listing table mode: " + value);
+    }
+
+    /**
+     * Indicates whether the writes go to both tables.
+     *
+     * @return true in the dual-write and dual-read modes.
+     */
+    public boolean writesBothTables() {
+        return this == DUAL_WRITE || this == DUAL_READ;
+    }
+
+    /**
+     * Indicates whether the user-partitioned table is the one served first.
+     *
+     * @return true in the dual-read and user-table modes.
+     */
+    public boolean servesUserTable() {
+        return this == DUAL_READ || this == USER_TABLE;
+    }
+}
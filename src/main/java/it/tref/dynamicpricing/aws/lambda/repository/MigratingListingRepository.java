@@ -0,0 +1,348 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.aop.DynamoDBErrorHandled;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Listing repository routing the reads and writes between the legacy listing table and the user-partitioned one,
+ * according to the configured {@link ListingTableMode}.
+ * <p>
+ * In the modes writing both tables, every write is first made on the primary table, whose outcome is returned,
+ * then mirrored on the secondary one: the listing as stored by the primary table is written to the secondary table,
+ * so that both converge whatever the secondary table held. A failed mirror write is logged and does not fail the
+ * request; the listing is repaired by its next write or, while the legacy table is primary and the listing is
+ * missing from the user-partitioned table, by the backfill.
+ * </p>
+ */
+@DynamoDBErrorHandled
+@ApplicationScoped
+public class MigratingListingRepository implements ListingRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigratingListingRepository.class);
+
+    private final ListingTableMode mode;
+    private final ListingRepository primary;
+    private final ListingRepository secondary;
+    private final ListingRepository legacy;
+
+    /**
+     * Constructs a new MigratingListingRepository on the client of the {@link DynamoDBClientService},
+     * which uses the shared, configurable HTTP transport.
+     *
+     * @param dynamoDBClientService the service providing the DynamoDB client.
+     * @param configService         the configuration service that provides the tables and the table mode.
+     * @param dynamoDBListingMapper the mapper to convert Listing objects to DynamoDB items.
+     * @throws IllegalStateException if the table mode uses the user-partitioned table and it is not configured.
+     */
+    @Inject
+    public MigratingListingRepository(DynamoDBClientService dynamoDBClientService,
+                                      ConfigService configService,
+                                      DynamoDBListingMapper dynamoDBListingMapper) {
+        this(ListingTableMode.fromConfig(configService.getListingTableMode()),
+                new DynamoDBListingRepository(dynamoDBClientService.getDynamoDbClient(), configService,
+                        dynamoDBListingMapper),
+                userTableRepository(dynamoDBClientService, configService, dynamoDBListingMapper));
+    }
+
+    /**
+     * Constructs a new MigratingListingRepository on the given repositories.
+     *
+     * @param mode      the table mode.
+     * @param legacy    the repository of the legacy table.
+     * @param userTable the repository of the user-partitioned table, or null if the mode does not use it.
+     * @throws IllegalStateException if the mode uses the user-partitioned table and none is given.
+     */
+    public MigratingListingRepository(ListingTableMode mode, ListingRepository legacy, ListingRepository userTable) {
+        if (mode != ListingTableMode.LEGACY && userTable == null) {
+            throw new IllegalStateException("LISTING_USER_TABLE_NAME is required by the " + mode + " table mode");
+        }
+        this.mode = mode;
+        this.legacy = legacy;
+        this.primary = mode.servesUserTable() ? userTable : legacy;
+        this.secondary = mode.writesBothTables() ? (mode.servesUserTable() ? legacy : userTable) : null;
+        logger.info("Listing table mode: {}", mode);
+    }
+
+    /**
+     * Returns the table the writes go to first in the configured table mode.
+     *
+     * @param configService the configuration service that provides the tables and the table mode.
+     * @return the name of the primary listing table.
+     */
+    public static String primaryTableName(ConfigService configService) {
+        if (ListingTableMode.fromConfig(configService.getListingTableMode()).servesUserTable()) {
+            return configService.getListingUserTableName()
+                    .orElseThrow(() -> new IllegalStateException("LISTING_USER_TABLE_NAME is not set"));
+        }
+        return configService.getDynamoDbListingTableName();
+    }
+
+    private static ListingRepository userTableRepository(DynamoDBClientService dynamoDBClientService,
+                                                         ConfigService configService,
+                                                         DynamoDBListingMapper dynamoDBListingMapper) {
+        return configService.getListingUserTableName()
+                .map(tableName -> new DynamoDBListingRepository(dynamoDBClientService.getDynamoDbClient(),
+                        configService, dynamoDBListingMapper, tableName, true))
+                .orElse(null);
+    }
+
+    @Override
+    public void save(Listing listing) {
+        primary.save(listing);
+        mirror(listing, secondaryTable -> secondaryTable.save(listing));
+    }
+
+    @Override
+    public void saveWithOutbox(Listing listing, ListingSqsMessage message) {
+        primary.saveWithOutbox(listing, message);
+        mirror(listing, secondaryTable -> secondaryTable.save(listing));
+    }
+
+    @Override
+    public List<Listing> saveAll(List<Listing> listings) {
+        List<Listing> failed = primary.saveAll(listings);
+        mirrorSaved(listings, failed);
+        return failed;
+    }
+
+    @Override
+    public List<Listing> saveAllWithOutbox(List<Listing> listings, List<ListingSqsMessage> messages) {
+        List<Listing> failed = primary.saveAllWithOutbox(listings, messages);
+        mirrorSaved(listings, failed);
+        return failed;
+    }
+
+    /**
+     * Copies the listings of a batch written to the primary table to the secondary one, in the dual-write modes.
+     *
+     * @param listings the listings of the batch.
+     * @param failed   the listings that could not be written to the primary table.
+     */
+    private void mirrorSaved(List<Listing> listings, List<Listing> failed) {
+        if (secondary == null) {
+            return;
+        }
+        Set<Listing> notSaved = Collections.newSetFromMap(new IdentityHashMap<>());
+        notSaved.addAll(failed);
+        List<Listing> saved = listings.stream().filter(listing -> !notSaved.contains(listing)).toList();
+        try {
+            List<Listing> notMirrored = secondary.saveAll(saved);
+            if (!notMirrored.isEmpty()) {
+                logger.error("{} listings could not be mirrored to the secondary table", notMirrored.size());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to mirror {} listings to the secondary table", saved.size(), e);
+        }
+    }
+
+    @Override
+    public Listing update(Listing listing) {
+        Listing updated = primary.update(listing);
+        mirrorStored(updated);
+        return updated;
+    }
+
+    @Override
+    public ContentUpdate updateContent(Listing listing) {
+        ContentUpdate updated = primary.updateContent(listing);
+        if (updated != null && updated.getChange() != ContentUpdate.Change.NONE) {
+            mirrorStored(updated.getListing());
+        }
+        return updated;
+    }
+
+    @Override
+    public ContentUpdate updateContentWithOutbox(Listing listing, ListingSqsMessage message) {
+        ContentUpdate updated = primary.updateContentWithOutbox(listing, message);
+        if (updated != null && updated.getChange() != ContentUpdate.Change.NONE) {
+            mirrorStored(updated.getListing());
+        }
+        return updated;
+    }
+
+    @Override
+    public ContentUpdate patchWithOutbox(ListingPatch patch, Function<Listing, ListingSqsMessage> toMessage) {
+        ContentUpdate patched = primary.patchWithOutbox(patch, toMessage);
+        if (patched != null && patched.getChange() != ContentUpdate.Change.NONE) {
+            mirrorStored(patched.getListing());
+        }
+        return patched;
+    }
+
+    @Override
+    public ContentUpdate patch(ListingPatch patch) {
+        ContentUpdate patched = primary.patch(patch);
+        if (patched != null && patched.getChange() != ContentUpdate.Change.NONE) {
+            mirrorStored(patched.getListing());
+        }
+        return patched;
+    }
+
+    @Override
+    public Listing findById(String listingId, String userId) {
+        return findById(listingId, userId, false);
+    }
+
+    /**
+     * Finds a listing in the primary table; in the dual-read mode, listings not found there are read from the
+     * legacy table.
+     */
+    @Override
+    public Listing findById(String listingId, String userId, boolean consistentRead) {
+        Listing listing = primary.findById(listingId, userId, consistentRead);
+        if (listing == null && mode == ListingTableMode.DUAL_READ) {
+            listing = legacy.findById(listingId, userId, consistentRead);
+            if (listing != null) {
+                logger.warn("Listing with ID: {} for user: {} only found in the legacy table", listingId, userId);
+            }
+        }
+        return listing;
+    }
+
+    /**
+     * Finds listings in the primary table; in the dual-read mode, listings not found there are read from the
+     * legacy table.
+     */
+    @Override
+    public List<Listing> findByIds(List<String> listingIds, String userId, ListingView view) {
+        List<Listing> found = primary.findByIds(listingIds, userId, view);
+        if (mode != ListingTableMode.DUAL_READ || found.size() == new HashSet<>(listingIds).size()) {
+            return found;
+        }
+        Map<String, Listing> byId = new LinkedHashMap<>();
+        found.forEach(listing -> byId.put(listing.getListingId(), listing));
+        List<String> missing = listingIds.stream().distinct().filter(id -> !byId.containsKey(id)).toList();
+        legacy.findByIds(missing, userId, view).forEach(listing -> byId.put(listing.getListingId(), listing));
+
+        List<Listing> listings = new ArrayList<>(byId.size());
+        for (String listingId : new LinkedHashSet<>(listingIds)) {
+            Listing listing = byId.get(listingId);
+            if (listing != null) {
+                listings.add(listing);
+            }
+        }
+        return listings;
+    }
+
+    @Override
+    public List<Listing> findByUserId(String userId, ListingView view) {
+        return primary.findByUserId(userId, view);
+    }
+
+    @Override
+    public ListingPage findByUserId(String userId, int limit, Map<String, String> exclusiveStartKey, ListingView view) {
+        return primary.findByUserId(userId, limit, exclusiveStartKey, view);
+    }
+
+    @Override
+    public ListingPage findByUserIdOrderedByCreation(String userId, CreationTimeQuery query, int limit,
+                                                     Map<String, String> exclusiveStartKey, ListingView view) {
+        return primary.findByUserIdOrderedByCreation(userId, query, limit, exclusiveStartKey, view);
+    }
+
+    @Override
+    public ListingPage findPending(int shard, Instant pendingBefore, int limit, Map<String, String> exclusiveStartKey) {
+        return primary.findPending(shard, pendingBefore, limit, exclusiveStartKey);
+    }
+
+    @Override
+    public boolean requeuePending(String listingId, String userId, Instant now, int maxAttempts) {
+        return primary.requeuePending(listingId, userId, now, maxAttempts);
+    }
+
+    @Override
+    public BackfillPage backfillUserShards(int limit, Map<String, String> exclusiveStartKey) {
+        return primary.backfillUserShards(limit, exclusiveStartKey);
+    }
+
+    /**
+     * Writes the predictions on the primary table, then mirrors the results it did not fail on to the secondary
+     * table, whose listings carry the same revisions.
+     */
+    @Override
+    public List<PredictionResultMessage> applyPredictions(List<PredictionResultMessage> results) {
+        List<PredictionResultMessage> failed = primary.applyPredictions(results);
+        if (secondary != null) {
+            Set<PredictionResultMessage> notWritten = Collections.newSetFromMap(new IdentityHashMap<>());
+            notWritten.addAll(failed);
+            List<PredictionResultMessage> written = results.stream().filter(result -> !notWritten.contains(result)).toList();
+            try {
+                List<PredictionResultMessage> notMirrored = secondary.applyPredictions(written);
+                if (!notMirrored.isEmpty()) {
+                    logger.error("{} predictions could not be mirrored to the secondary table", notMirrored.size());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to mirror {} predictions to the secondary table", written.size(), e);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public Listing delete(String listingId, String userId) {
+        Listing deleted = primary.delete(listingId, userId);
+        if (secondary != null) {
+            try {
+                secondary.delete(listingId, userId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to delete listing with ID: {} for user: {} from the secondary table",
+                        listingId, userId, e);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Writes the listing as stored by the primary table to the secondary table, if any.
+     *
+     * @param stored the listing returned by the primary table, or null if it does not exist.
+     */
+    private void mirrorStored(Listing stored) {
+        if (stored != null) {
+            mirror(stored, secondaryTable -> secondaryTable.save(stored));
+        }
+    }
+
+    /**
+     * Runs the given write on the secondary table, if any, logging its failure.
+     */
+    private void mirror(Listing listing, Consumer<ListingRepository> write) {
+        if (secondary == null) {
+            return;
+        }
+        try {
+            write.accept(secondary);
+        } catch (RuntimeException e) {
+            logger.error("Failed to mirror listing with ID: {} for user: {} to the secondary table",
+                    listing.getListingId(), listing.getUserId(), e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.model.OutboxPage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for reading and clearing the inference messages waiting in the outbox.
+ * <p>
+ * Outbox records are written together with their listing, see {@link ListingRepository#saveWithOutbox}.
+ * </p>
+ */
+public interface OutboxRepository {
+    /**
+     * Reads a single page of outbox records.
+     *
+     * @param limit             the maximum number of records to read.
+     * @param exclusiveStartKey the last evaluated key of the previous page, or null to start from the beginning.
+     * @return the page of records, carrying the key to resume from when more records are available.
+     */
+    OutboxPage findPage(int limit, Map<String, String> exclusiveStartKey);
+
+    /**
+     * Deletes the outbox records whose messages have been sent.
+     *
+     * @param outboxIds the identifiers of the records.
+     * @return the identifiers of the records that could not be deleted after all attempts; empty if every record was deleted.
+     */
+    List<String> deleteAll(List<String> outboxIds);
+}
@@ -0,0 +1,27 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for caching the predictions of the models by the fingerprint of the inferred attributes.
+ */
+public interface PredictionCacheRepository {
+    /**
+     * Finds the prediction cached for the given attributes fingerprint and model version.
+     *
+     * @param fingerprint  the fingerprint of the attributes.
+     * @param modelVersion the version of the model.
+     * @return the cached prediction, or null if none is cached.
+     */
+    Map<String, double[]> find(String fingerprint, String modelVersion);
+
+    /**
+     * Caches predictions of the same model version.
+     *
+     * @param predictions  the predictions, by the fingerprint of the attributes they were computed for.
+     * @param modelVersion the version of the model.
+     * @return the fingerprints whose prediction could not be cached after all attempts; empty if every one was.
+     */
+    List<String> putAll(Map<String, Map<String, double[]>> predictions, String modelVersion);
+}
@@ -0,0 +1,105 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.dto.BatchItemResult;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.AsyncListingRepository;
+import it.tref.dynamicpricing.aws.lambda.util.FutureUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Asynchronous batch create path of {@link ListingService}, selected with {@code ASYNC_IO_ENABLED}.
+ * <p>
+ * Independent I/O is overlapped instead of being issued back to back: the chunks of a batch are written and queued
+ * concurrently. The inference request of a listing is only queued once its write is acknowledged, so that no message
+ * references a listing whose write failed, or reaches the consumer before the listing. Single listings are written
+ * by the synchronous path: their write and send cannot overlap, so the asynchronous clients would only add thread
+ * hops.
+ * </p>
+ */
+@ApplicationScoped
+public class AsyncListingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncListingService.class);
+
+    /**
+     * Number of listings written and queued together by a batch create, matching the BatchWriteItem limit.
+     */
+    static final int BATCH_CHUNK_SIZE = 25;
+
+    private final AsyncListingRepository asyncListingRepository;
+    private final AsyncSqsProducerService asyncSqsProducerService;
+
+    /**
+     * Constructs a new AsyncListingService.
+     *
+     * @param asyncListingRepository  the non-blocking repository to persist listings.
+     * @param asyncSqsProducerService the non-blocking service for sending SQS messages for AI inference.
+     */
+    public AsyncListingService(AsyncListingRepository asyncListingRepository,
+                               AsyncSqsProducerService asyncSqsProducerService) {
+        this.asyncListingRepository = asyncListingRepository;
+        this.asyncSqsProducerService = asyncSqsProducerService;
+    }
+
+    /**
+     * Persists several listings and queues the inference requests of the persisted ones, except those already
+     * completed with a cached prediction.
+     * <p>
+     * Listings are processed in chunks of {@value #BATCH_CHUNK_SIZE}; every chunk is queued as soon as its own write
+     * completes, so writes and sends of different chunks overlap. A failure of a whole chunk is reported on its
+     * listings instead of failing the batch.
+     * </p>
+     *
+     * @param listings the listings to create.
+     * @return the per-listing results, in the order of the listings.
+     */
+    public List<BatchItemResult> createListings(List<Listing> listings) {
+        Set<String> notSaved = ConcurrentHashMap.newKeySet();
+        Set<String> notQueued = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+        for (int from = 0; from < listings.size(); from += BATCH_CHUNK_SIZE) {
+            List<Listing> chunk = listings.subList(from, Math.min(from + BATCH_CHUNK_SIZE, listings.size()));
+            chunks.add(asyncListingRepository.saveAll(chunk).handle((failed, error) -> {
+                if (error != null) {
+                    logger.error("Could not save a chunk of {} listings: {}", chunk.size(), error.getMessage(), error);
+                    chunk.forEach(listing -> notSaved.add(listing.getListingId()));
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                failed.forEach(listing -> notSaved.add(listing.getListingId()));
+                List<ListingSqsMessage> messages = new ArrayList<>(chunk.size());
+                for (Listing listing : chunk) {
+                    if (!notSaved.contains(listing.getListingId()) && !listing.isCompleted()) {
+                        messages.add(ListingService.toSqsMessage(listing));
+                    }
+                }
+                if (messages.isEmpty()) {
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                return asyncSqsProducerService.sendListingsToQueue(messages).handle((unsent, sendError) -> {
+                    if (sendError != null) {
+                        logger.error("Could not queue a chunk of {} listings: {}",
+                                messages.size(), sendError.getMessage(), sendError);
+                        messages.forEach(message -> notQueued.add(message.getListingId()));
+                    } else {
+                        unsent.forEach(message -> notQueued.add(message.getListingId()));
+                    }
+                    return (Void) null;
+                });
+            }).thenCompose(Function.identity()));
+        }
+
+        FutureUtil.join(CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])));
+        return ListingService.toBatchResults(listings, notSaved, notQueued);
+    }
+}
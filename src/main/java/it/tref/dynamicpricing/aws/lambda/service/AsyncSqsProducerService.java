@@ -0,0 +1,137 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.client.SqsAsyncClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
+import it.tref.dynamicpricing.aws.lambda.util.FutureUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link SqsProducerService} for the batch sends, using the asynchronous SQS client.
+ * <p>
+ * Batches of {@value SqsProducerService#SEND_BATCH_MAX_ENTRIES} messages are sent concurrently. Messages go to the
+ * same queue, with the same delay, as those of {@link SqsProducerService}, including in the coalescing mode.
+ * </p>
+ */
+@ApplicationScoped
+public class AsyncSqsProducerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncSqsProducerService.class);
+
+    private final SqsAsyncClientService sqsAsyncClientService;
+    private final ConfigService configService;
+    private final MapperService mapperService;
+
+    /**
+     * Constructs a new AsyncSqsProducerService.
+     *
+     * @param sqsAsyncClientService the service providing the asynchronous SQS client.
+     * @param configService         the configuration service that provides the SQS queue URL.
+     * @param mapperService         the service for JSON serialization and deserialization.
+     */
+    public AsyncSqsProducerService(SqsAsyncClientService sqsAsyncClientService,
+                                   ConfigService configService,
+                                   MapperService mapperService) {
+        this.sqsAsyncClientService = sqsAsyncClientService;
+        this.configService = configService;
+        this.mapperService = mapperService;
+    }
+
+    /**
+     * Sends several listing messages to the SQS queue using concurrent SendMessageBatch calls.
+     * <p>
+     * Entries that fail because of a service-side error are retried after a non-blocking backoff,
+     * up to the configured number of attempts; entries rejected because of a sender fault are not retried.
+     * </p>
+     *
+     * @param messages the messages to send.
+     * @return a future completing with the messages that could not be sent.
+     */
+    public CompletableFuture<List<ListingSqsMessage>> sendListingsToQueue(List<ListingSqsMessage> messages) {
+        List<CompletableFuture<List<ListingSqsMessage>>> batches = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += SqsProducerService.SEND_BATCH_MAX_ENTRIES) {
+            List<ListingSqsMessage> batch = messages.subList(from,
+                    Math.min(from + SqsProducerService.SEND_BATCH_MAX_ENTRIES, messages.size()));
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(SendMessageBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .messageBody(mapperService.writeValueAsString(batch.get(i)))
+                        .delaySeconds(SqsProducerService.triggerDelaySeconds(configService))
+                        .build());
+            }
+            batches.add(sendBatch(batch, entries, 0));
+        }
+
+        return FutureUtil.allOf(batches).thenApply(failedBatches -> {
+            List<ListingSqsMessage> failed = new ArrayList<>();
+            failedBatches.forEach(failed::addAll);
+            logger.info("Successfully sent {} of {} SQS messages", messages.size() - failed.size(), messages.size());
+            return failed;
+        });
+    }
+
+    /**
+     * Sends the pending entries of a batch, rescheduling the retryable failures after a non-blocking backoff.
+     * The entry id of each message is its position in the batch.
+     *
+     * @param batch   the messages of the batch.
+     * @param pending the entries still to send.
+     * @param attempt the zero-based attempt.
+     * @return a future completing with the messages that could not be sent.
+     */
+    private CompletableFuture<List<ListingSqsMessage>> sendBatch(List<ListingSqsMessage> batch,
+                                                                 List<SendMessageBatchRequestEntry> pending,
+                                                                 int attempt) {
+        return client().sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(SqsProducerService.triggerQueueUrl(configService))
+                        .entries(pending)
+                        .build())
+                .thenCompose(response -> {
+                    Map<String, SendMessageBatchRequestEntry> pendingById = pending.stream()
+                            .collect(Collectors.toMap(SendMessageBatchRequestEntry::id, Function.identity()));
+                    int maxAttempts = configService.getBatchMaxAttempts();
+                    List<ListingSqsMessage> failed = new ArrayList<>();
+                    List<SendMessageBatchRequestEntry> retryable = new ArrayList<>();
+                    for (BatchResultErrorEntry error : response.failed()) {
+                        if (Boolean.TRUE.equals(error.senderFault()) || attempt + 1 >= maxAttempts) {
+                            ListingSqsMessage message = batch.get(Integer.parseInt(error.id()));
+                            logger.error("Failed to send SQS message for listingId: {}. Error: {} {}",
+                                    message.getListingId(), error.code(), error.message());
+                            failed.add(message);
+                        } else {
+                            retryable.add(pendingById.get(error.id()));
+                        }
+                    }
+                    if (retryable.isEmpty()) {
+                        return CompletableFuture.completedFuture(failed);
+                    }
+                    logger.warn("Retrying {} failed SQS entries (attempt {} of {})", retryable.size(), attempt + 2, maxAttempts);
+                    return CompletableFuture.supplyAsync(() -> null, BackoffUtil.delayedExecutor(attempt + 1))
+                            .thenCompose(ignored -> sendBatch(batch, retryable, attempt + 1))
+                            .thenApply(retryFailed -> {
+                                failed.addAll(retryFailed);
+                                return failed;
+                            });
+                });
+    }
+
+    private SqsAsyncClient client() {
+        return sqsAsyncClientService.getSqsAsyncClient();
+    }
+}
@@ -0,0 +1,212 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.exception.ConflictException;
+import it.tref.dynamicpricing.aws.lambda.model.IdempotencyRecord;
+import it.tref.dynamicpricing.aws.lambda.repository.IdempotencyRepository;
+import it.tref.dynamicpricing.aws.lambda.util.LruTtlCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs the create requests carrying an {@code Idempotency-Key} header at most once per key.
+ * <p>
+ * The listingId is chosen before the listing is written, and the key is claimed for it with a conditional put on
+ * the idempotency table, in progress for a lease of {@code IDEMPOTENCY_LEASE_SECONDS}. Once the listing is written,
+ * the claim is marked completed and remembered for {@code IDEMPOTENCY_TTL_SECONDS}: a retry of the request finds the
+ * record and gets the same listingId back, without writing the listing or sending its inference message again. The
+ * completed records of the keys seen by the container are also cached, so that back-to-back retries are answered
+ * without reading the table. Keys are scoped to the user who sent them, and reusing a key with a different request
+ * body is rejected.
+ * </p>
+ * <p>
+ * A retry sent while the first request is still running is rejected with a {@link ConflictException}, since that
+ * request may still fail. If the create fails, the claim is marked failed, and a retry claims the key again; if the
+ * request never completes, for instance because the function timed out, the key can be claimed again once the
+ * lease ends. In both cases the listing may already be written, for example when only its inference message could
+ * not be sent, so the retry keeps the listingId of the first claim and writes the same listing again instead of
+ * creating another one.
+ * </p>
+ */
+@ApplicationScoped
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /**
+     * Maximum length of an idempotency key.
+     */
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final ConfigService configService;
+    private final LruTtlCache<String, IdempotencyRecord> cache;
+
+    /**
+     * Constructs a new IdempotencyService.
+     *
+     * @param idempotencyRepository the repository of the idempotency records.
+     * @param configService         the configuration service that provides the idempotency table, TTL, lease and
+     *                              cache size.
+     */
+    public IdempotencyService(IdempotencyRepository idempotencyRepository, ConfigService configService) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.configService = configService;
+        this.cache = new LruTtlCache<>(configService.getIdempotencyCacheMaxSize(),
+                configService.getIdempotencyTtlSeconds() * 1000);
+    }
+
+    /**
+     * Indicates whether idempotency keys are honored, that is whether an idempotency table is configured.
+     *
+     * @return true if idempotency keys are honored, false otherwise.
+     */
+    public boolean isEnabled() {
+        return configService.getIdempotencyTableName().isPresent();
+    }
+
+    /**
+     * Creates a listing unless the idempotency key was already used by the user.
+     *
+     * @param userId         the user identifier extracted from token claims.
+     * @param idempotencyKey the idempotency key sent with the request.
+     * @param requestBody    the body of the request.
+     * @param create         creates the listing with the given listingId and returns it.
+     * @return the listingId of the listing created for the key, now or by an earlier request.
+     * @throws IllegalArgumentException if the key is invalid, or was used with a different request body.
+     * @throws ConflictException        if a request with the same key is still running.
+     */
+    public String createOnce(String userId, String idempotencyKey, String requestBody, UnaryOperator<String> create) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = userId + "#" + idempotencyKey;
+        String requestHash = hash(requestBody);
+        Instant now = Instant.now();
+
+        IdempotencyRecord cached = cache.get(scopedKey);
+        if (cached != null && cached.getExpiresAt().isAfter(now)) {
+            return replay(cached, requestHash);
+        }
+
+        IdempotencyRecord claim = claim(scopedKey, UUID.randomUUID().toString(), requestHash, now);
+        IdempotencyRecord existing = idempotencyRepository.claim(claim, now);
+        if (existing != null) {
+            if (existing.isCompleted()) {
+                cache.put(scopedKey, existing);
+            }
+            if (!isRetryable(existing, now)) {
+                return replay(existing, requestHash);
+            }
+            checkRequest(existing, requestHash);
+            claim = claim(scopedKey, existing.getListingId(), requestHash, now);
+            if (!idempotencyRepository.takeOver(existing, claim)) {
+                throw new ConflictException("A request with the same Idempotency-Key is still in progress");
+            }
+        }
+
+        String listingId;
+        try {
+            listingId = create.apply(claim.getListingId());
+        } catch (RuntimeException e) {
+            fail(new IdempotencyRecord(scopedKey, claim.getListingId(), requestHash,
+                    Instant.now().plusSeconds(configService.getIdempotencyTtlSeconds()), IdempotencyRecord.Status.FAILED));
+            throw e;
+        }
+        IdempotencyRecord completed = new IdempotencyRecord(scopedKey, listingId, requestHash,
+                Instant.now().plusSeconds(configService.getIdempotencyTtlSeconds()), IdempotencyRecord.Status.COMPLETED);
+        complete(completed);
+        cache.put(scopedKey, completed);
+        return listingId;
+    }
+
+    /**
+     * Builds an in-progress claim of a key for the given listing, holding the key for a lease.
+     */
+    private IdempotencyRecord claim(String scopedKey, String listingId, String requestHash, Instant now) {
+        return new IdempotencyRecord(scopedKey, listingId, requestHash,
+                now.plusSeconds(configService.getIdempotencyLeaseSeconds()), IdempotencyRecord.Status.IN_PROGRESS);
+    }
+
+    /**
+     * Indicates whether the stored claim of a key can be taken over by a retry: it failed, or it is in progress past
+     * its lease.
+     */
+    private static boolean isRetryable(IdempotencyRecord record, Instant now) {
+        return record.getStatus() == IdempotencyRecord.Status.FAILED
+                || (record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS && !record.getExpiresAt().isAfter(now));
+    }
+
+    /**
+     * Rejects a retry whose request body differs from the one sent first with the key.
+     */
+    private static void checkRequest(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with a different request");
+        }
+    }
+
+    /**
+     * Returns the listingId remembered for a key, if the retry carries the same request body and the listing was
+     * created.
+     *
+     * @throws ConflictException if the request of the key is still running.
+     */
+    private static String replay(IdempotencyRecord record, String requestHash) {
+        checkRequest(record, requestHash);
+        if (!record.isCompleted()) {
+            throw new ConflictException("A request with the same Idempotency-Key is still in progress");
+        }
+        logger.info("Replaying create request of listing {}", record.getListingId());
+        return record.getListingId();
+    }
+
+    /**
+     * Marks a claim completed after its listing was created; a failure is logged, the listing being created anyway.
+     * The key can then be claimed again once the lease ends.
+     */
+    private void complete(IdempotencyRecord record) {
+        try {
+            idempotencyRepository.complete(record);
+        } catch (RuntimeException e) {
+            logger.error("Failed to complete idempotency key of listing {}", record.getListingId(), e);
+        }
+    }
+
+    /**
+     * Marks a claim failed after a failed create; a failure to do so is logged, the key then being claimed again with
+     * the same listingId once the lease ends.
+     */
+    private void fail(IdempotencyRecord record) {
+        try {
+            idempotencyRepository.fail(record);
+        } catch (RuntimeException e) {
+            logger.error("Failed to mark idempotency key of listing {} failed", record.getListingId(), e);
+        }
+    }
+
+    /**
+     * Hashes a request body with SHA-256.
+     *
+     * @param requestBody the request body, possibly null.
+     * @return the Base64 encoded hash.
+     */
+    static String hash(String requestBody) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((requestBody != null ? requestBody : "").getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Forwards the coalesced inference triggers to the prediction queue.
+ * <p>
+ * In the coalescing mode, every change of a listing queues an inference message, carrying the revision of the
+ * change, on the coalescing queue with a delivery delay. Once delivered, a message is forwarded only if the listing,
+ * read consistently, is still at its revision and not completed yet: the messages of the changes superseded within
+ * the delay, and of deleted listings, are dropped, so that only the last of several rapid changes is inferred.
+ * Messages without a revision are forwarded as long as the listing exists.
+ * </p>
+ * <p>
+ * Messages that cannot be read, checked or forwarded are reported as batch item failures, and redelivered by the
+ * queue.
+ * </p>
+ */
+@ApplicationScoped
+public class InferenceCoalescingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InferenceCoalescingService.class);
+
+    private final ListingRepository listingRepository;
+    private final SqsProducerService sqsProducerService;
+    private final MapperService mapperService;
+
+    /**
+     * Constructs a new InferenceCoalescingService.
+     *
+     * @param listingRepository  the repository reading the current revision of the listings.
+     * @param sqsProducerService the service sending the messages to the prediction queue.
+     * @param mapperService      the service reading the message bodies.
+     */
+    public InferenceCoalescingService(ListingRepository listingRepository,
+                                      SqsProducerService sqsProducerService,
+                                      MapperService mapperService) {
+        this.listingRepository = listingRepository;
+        this.sqsProducerService = sqsProducerService;
+        this.mapperService = mapperService;
+    }
+
+    /**
+     * Forwards the messages of a batch that are still current.
+     *
+     * @param event the SQS event of the coalescing queue.
+     * @return the messages that could not be processed, identified by their message id.
+     */
+    public SQSBatchResponse forward(SQSEvent event) {
+        List<ListingSqsMessage> current = new ArrayList<>();
+        Map<ListingSqsMessage, String> messageIds = new IdentityHashMap<>();
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (SQSEvent.SQSMessage record : event.getRecords()) {
+            ListingSqsMessage message = read(record);
+            if (message == null) {
+                failures.add(new SQSBatchResponse.BatchItemFailure(record.getMessageId()));
+                continue;
+            }
+            try {
+                if (isCurrent(message)) {
+                    current.add(message);
+                    messageIds.put(message, record.getMessageId());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to read the listing of inference message {}", record.getMessageId(), e);
+                failures.add(new SQSBatchResponse.BatchItemFailure(record.getMessageId()));
+            }
+        }
+
+        if (!current.isEmpty()) {
+            for (ListingSqsMessage failed : sqsProducerService.sendListingsToPredictionQueue(current)) {
+                failures.add(new SQSBatchResponse.BatchItemFailure(messageIds.get(failed)));
+            }
+        }
+        logger.info("Forwarded {} of {} inference messages, {} failed",
+                current.size(), event.getRecords().size(), failures.size());
+        return new SQSBatchResponse(failures);
+    }
+
+    /**
+     * Reads the inference message of a record.
+     *
+     * @return the message, or null if the record is not a complete inference message.
+     */
+    private ListingSqsMessage read(SQSEvent.SQSMessage record) {
+        try {
+            ListingSqsMessage message = mapperService.readValue(record.getBody(), ListingSqsMessage.class);
+            if (message != null && message.getListingId() != null && message.getUserId() != null) {
+                return message;
+            }
+            logger.error("Incomplete inference message {}", record.getMessageId());
+        } catch (JsonProcessingRuntimeException e) {
+            logger.error("Unreadable inference message {}", record.getMessageId(), e);
+        }
+        return null;
+    }
+
+    /**
+     * Indicates whether a message is the inference trigger of the current revision of its listing.
+     */
+    private boolean isCurrent(ListingSqsMessage message) {
+        Listing listing = listingRepository.findById(message.getListingId(), message.getUserId(), true);
+        if (listing == null || listing.isCompleted()) {
+            return false;
+        }
+        return message.getRevision() == null || Objects.equals(message.getRevision(), listing.getRevision());
+    }
+}
@@ -0,0 +1,41 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+/**
+ * How the inference message of a created or updated listing reaches the SQS queue.
+ */
+public enum InferenceDispatchMode {
+    /**
+     * The message is sent to the queue right after the listing is persisted, within the request.
+     */
+    DIRECT,
+    /**
+     * The listing and an outbox record of the message are written in a single transaction, by single and batch
+     * creates, updates and patches alike; the outbox relay sends the message to the queue later.
+     */
+    OUTBOX,
+    /**
+     * Only the listing is written; the listing stream consumer sends the message for inserts and for
+     * modifications that change the attributes or reset the prediction.
+     */
+    STREAM;
+
+    /**
+     * Resolves the dispatch mode from its configuration value ({@code direct}, {@code outbox} or {@code stream}).
+     *
+     * @param value the configuration value; null selects {@link #DIRECT}.
+     * @return the matching dispatch mode.
+     * @throws IllegalArgumentException if the value does not match any mode.
+     */
+    public static InferenceDispatchMode fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return DIRECT;
+        }
+        String normalized = value.trim().replace('-', '_').toUpperCase();
+        for (InferenceDispatchMode mode : values()) {
+            if (mode.name().equals(normalized)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported inference dispatch mode: " + value);
+    }
+}
@@ -1,18 +1,34 @@
 package it.tref.dynamicpricing.aws.lambda.service;
 
 import it.tref.dynamicpricing.aws.lambda.aop.ValidatePayload;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchCreateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchItemResult;
 import it.tref.dynamicpricing.aws.lambda.dto.CreateListingRequest;
 import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PatchListingRequest;
 import it.tref.dynamicpricing.aws.lambda.dto.UpdateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.mapper.AttributesFingerprint;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
 import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingTableMode;
+import it.tref.dynamicpricing.aws.lambda.util.RevisionUtil;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -26,22 +42,44 @@ public class ListingService {
 
     private final ListingRepository listingRepository;
     private final SqsProducerService sqsProducerService;
+    private final AsyncListingService asyncListingService;
+    private final ConfigService configService;
+    private final PredictionCacheService predictionCacheService;
 
     /**
      * Constructs a new ListingService.
      *
-     * @param listingRepository the repository to persist listings.
-     * @param sqsProducerService the service for sending SQS messages for AI inference.
+     * @param listingRepository      the repository to persist listings.
+     * @param sqsProducerService     the service for sending SQS messages for AI inference.
+     * @param asyncListingService    the asynchronous batch create path, used when asynchronous I/O is enabled.
+     * @param configService          the configuration service that provides the pagination limits and the I/O mode.
+     * @param predictionCacheService the cache of the predictions computed for identical attributes.
      */
-    public ListingService(ListingRepository listingRepository, SqsProducerService sqsProducerService) {
+    public ListingService(ListingRepository listingRepository,
+                          SqsProducerService sqsProducerService,
+                          AsyncListingService asyncListingService,
+                          ConfigService configService,
+                          PredictionCacheService predictionCacheService) {
         this.listingRepository = listingRepository;
         this.sqsProducerService = sqsProducerService;
+        this.asyncListingService = asyncListingService;
+        this.configService = configService;
+        this.predictionCacheService = predictionCacheService;
     }
 
     /**
      * Creates a new listing from the client-supplied DTO,
      * persisting it and sending an SQS message (with the composite key
      * and attributes) for AI inference processing.
+     * <p>
+     * In the outbox dispatch mode, the listing and its message are written in a single transaction and the
+     * message is sent later by the outbox relay, so the request does not wait for SQS. In the stream dispatch mode,
+     * only the listing is written.
+     * </p>
+     * <p>
+     * When a prediction of the current model is cached for the same attributes, the listing is written completed
+     * with that prediction, and no inference message is sent in any mode.
+     * </p>
      *
      * @param request the DTO containing client-provided data.
      * @param userId  the user identifier extracted from token claims.
@@ -49,8 +87,214 @@ public class ListingService {
      * @throws IllegalArgumentException if validation fails.
      */
     public String createListing(CreateListingRequest request, String userId) {
+        return createListing(request, userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Creates a new listing with a listingId chosen by the caller, as {@link #createListing(CreateListingRequest, String)}
+     * does with a generated one. Used when the listingId must be known before the listing is written, such as
+     * for the idempotency keys of the create requests.
+     * <p>
+     * The listing is written with an unconditional put, so creating it again with the same listingId replaces it
+     * rather than adding another one: a retry of a create that failed after the write, such as when the inference
+     * message could not be sent, writes the same listing and sends its message again.
+     * </p>
+     *
+     * @param request   the DTO containing client-provided data.
+     * @param userId    the user identifier extracted from token claims.
+     * @param listingId the identifier of the new listing.
+     * @return the listingId of the new listing.
+     * @throws IllegalArgumentException if validation fails.
+     */
+    public String createListing(CreateListingRequest request, String userId, String listingId) {
+        Listing listing = newListing(request, userId, listingId);
+        Map<String, double[]> cachedPrediction = predictionCacheService.find(listing.getAttributes());
+        if (cachedPrediction != null) {
+            listing.setPrediction(cachedPrediction);
+            listing.setCompleted(true);
+            listingRepository.save(listing);
+            logger.info("Created listing with ID: {} with a cached prediction", listingId);
+            return listing.getListingId();
+        }
+        InferenceDispatchMode dispatchMode = dispatchMode();
+        if (dispatchMode == InferenceDispatchMode.OUTBOX) {
+            listingRepository.saveWithOutbox(listing, toSqsMessage(listing));
+            return listing.getListingId();
+        }
+        if (dispatchMode == InferenceDispatchMode.STREAM) {
+            // The stream consumer sends the inference message of the inserted item
+            listingRepository.save(listing);
+            return listing.getListingId();
+        }
+        listingRepository.save(listing);
+
+        // Send the SQS message with the composite key and listing details for AI inference processing
+        sqsProducerService.sendListingToQueue(toSqsMessage(listing));
+        return listing.getListingId();
+    }
+
+    /**
+     * Creates several listings from the client-supplied batch DTO.
+     * <p>
+     * Listings are persisted with batched writes, then the inference messages of the persisted listings are
+     * sent with batched SQS calls. The outcome of every listing is reported individually, in request order: a
+     * failure of a whole chunk is reported on its listings instead of failing the batch, which may already be
+     * partly written.
+     * </p>
+     * <p>
+     * The prediction cache is looked up once per distinct attributes fingerprint of the batch: the listings with a
+     * cached prediction are written completed, and no inference message is sent for them.
+     * </p>
+     * <p>
+     * In the outbox dispatch mode, the listings are written with transactions that also write the outbox records of
+     * their inference messages, and nothing is sent within the request.
+     * </p>
+     *
+     * @param request the DTO containing the listings to create.
+     * @param userId  the user identifier extracted from token claims.
+     * @return the per-listing results.
+     * @throws IllegalArgumentException if validation fails or the batch is too large.
+     */
+    public List<BatchItemResult> createListings(BatchCreateListingRequest request, String userId) {
+        List<CreateListingRequest> requests = request.getListings();
+        if (requests.size() > configService.getListingBatchMaxSize()) {
+            throw new IllegalArgumentException(String.format(
+                    "A batch can contain at most %d listings", configService.getListingBatchMaxSize()));
+        }
+
+        List<Listing> listings = new ArrayList<>(requests.size());
+        for (CreateListingRequest createRequest : requests) {
+            listings.add(newListing(createRequest, userId, UUID.randomUUID().toString()));
+        }
+        predictionCacheService.completeFromCache(listings);
+        InferenceDispatchMode dispatchMode = dispatchMode();
+        if (asyncIo() && dispatchMode == InferenceDispatchMode.DIRECT) {
+            return asyncListingService.createListings(listings);
+        }
+
+        Set<String> notSaved = new HashSet<>();
+        Set<String> notQueued = new HashSet<>();
+        for (int from = 0; from < listings.size(); from += AsyncListingService.BATCH_CHUNK_SIZE) {
+            List<Listing> chunk = listings.subList(from, Math.min(from + AsyncListingService.BATCH_CHUNK_SIZE, listings.size()));
+            createChunk(chunk, dispatchMode, notSaved, notQueued);
+        }
+        return toBatchResults(listings, notSaved, notQueued);
+    }
+
+    /**
+     * Persists a chunk of a batch with the inference requests of its listings that were not completed from the
+     * prediction cache: in the direct mode they are queued once the listings are persisted, in the outbox mode their
+     * outbox records are written in the transactions of their listings, and in the stream mode they are left to
+     * the stream consumer.
+     * <p>
+     * A failure of the whole write marks every listing of the chunk as not saved, and a failure of the whole send
+     * marks every persisted listing of the chunk as not queued, so the chunks already written are still reported.
+     * </p>
+     *
+     * @param chunk        the listings of the chunk.
+     * @param dispatchMode how the inference requests are sent.
+     * @param notSaved     collects the ids of the listings that could not be persisted.
+     * @param notQueued    collects the ids of the persisted listings whose inference request could not be queued.
+     */
+    private void createChunk(List<Listing> chunk, InferenceDispatchMode dispatchMode, Set<String> notSaved,
+                             Set<String> notQueued) {
+        List<ListingSqsMessage> messages = new ArrayList<>(chunk.size());
+        for (Listing listing : chunk) {
+            if (!listing.isCompleted()) {
+                messages.add(toSqsMessage(listing));
+            }
+        }
+        try {
+            List<Listing> failed = dispatchMode == InferenceDispatchMode.OUTBOX
+                    ? listingRepository.saveAllWithOutbox(chunk, messages)
+                    : listingRepository.saveAll(chunk);
+            failed.forEach(listing -> notSaved.add(listing.getListingId()));
+        } catch (RuntimeException e) {
+            logger.error("Could not save a chunk of {} listings: {}", chunk.size(), e.getMessage(), e);
+            chunk.forEach(listing -> notSaved.add(listing.getListingId()));
+            return;
+        }
+        if (dispatchMode != InferenceDispatchMode.DIRECT) {
+            return;
+        }
+
+        messages.removeIf(message -> notSaved.contains(message.getListingId()));
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            sqsProducerService.sendListingsToQueue(messages).forEach(message -> notQueued.add(message.getListingId()));
+        } catch (RuntimeException e) {
+            logger.error("Could not queue a chunk of {} listings: {}", messages.size(), e.getMessage(), e);
+            messages.forEach(message -> notQueued.add(message.getListingId()));
+        }
+    }
+
+    /**
+     * Builds the per-listing results of a batch create, in the order of the listings.
+     *
+     * @param listings  the listings of the batch.
+     * @param notSaved  the ids of the listings that could not be persisted.
+     * @param notQueued the ids of the persisted listings whose inference request could not be queued.
+     * @return the per-listing results.
+     */
+    static List<BatchItemResult> toBatchResults(List<Listing> listings, Set<String> notSaved, Set<String> notQueued) {
+        List<BatchItemResult> results = new ArrayList<>(listings.size());
+        for (int i = 0; i < listings.size(); i++) {
+            String listingId = listings.get(i).getListingId();
+            if (notSaved.contains(listingId)) {
+                results.add(new BatchItemResult(i, null, BatchItemResult.Status.FAILED, "Listing could not be saved"));
+            } else if (notQueued.contains(listingId)) {
+                results.add(new BatchItemResult(i, listingId, BatchItemResult.Status.QUEUE_FAILED,
+                        "Inference request could not be queued"));
+            } else {
+                results.add(new BatchItemResult(i, listingId, BatchItemResult.Status.CREATED, null));
+            }
+        }
+        logger.info("Batch created {} listings ({} not saved, {} not queued)",
+                listings.size() - notSaved.size(), notSaved.size(), notQueued.size());
+        return results;
+    }
+
+    /**
+     * Indicates whether batch creates take the asynchronous path. It is not used while the listing table migration
+     * writes both tables, which only the synchronous repository does.
+     */
+    private boolean asyncIo() {
+        return configService.isAsyncIoEnabled()
+                && !ListingTableMode.fromConfig(configService.getListingTableMode()).writesBothTables();
+    }
+
+    /**
+     * Resolves the configured inference dispatch mode.
+     */
+    private InferenceDispatchMode dispatchMode() {
+        return InferenceDispatchMode.fromConfig(configService.getInferenceDispatchMode());
+    }
+
+    /**
+     * Builds the inference request message of a listing, carrying its composite key, attributes, revision and
+     * attributes fingerprint.
+     *
+     * @param listing the listing to infer.
+     * @return the SQS message.
+     */
+    static ListingSqsMessage toSqsMessage(Listing listing) {
+        return new ListingSqsMessage(
+                listing.getListingId(),
+                listing.getUserId(),
+                ListingSqsMessage.convertAttributes(listing.getAttributes()),
+                listing.getRevision(),
+                AttributesFingerprint.of(listing.getAttributes())
+        );
+    }
+
+    /**
+     * Builds a new listing, with the given listingId, an empty prediction and a new revision, from a create request.
+     */
+    private Listing newListing(CreateListingRequest request, String userId, String listingId) {
         Listing listing = new Listing();
-        listing.setListingId(UUID.randomUUID().toString());
+        listing.setListingId(listingId);
         listing.setUserId(userId);
         listing.setCreatedAt(Instant.now());
         listing.setName(request.getName());
@@ -58,58 +302,105 @@ public class ListingService {
             request.getAttributes().forEach(listing::addAttribute);
         }
         listing.setPrediction(new HashMap<>());
-        listingRepository.save(listing);
-
-        // Send the SQS message with the composite key and listing details for AI inference processing
-        sqsProducerService.sendListingToQueue(new ListingSqsMessage(
-                listing.getListingId(),
-                listing.getUserId(),
-                ListingSqsMessage.convertAttributes(listing.getAttributes())
-        ));
-        return listing.getListingId();
+        listing.setRevision(RevisionUtil.next());
+        return listing;
     }
 
     /**
-     * Partially updates an existing listing and resets its inference state.
+     * Updates the name and attributes of an existing listing, resetting its inference state if the attributes change.
      * <p>
-     * This method updates the listing's name and attributes if provided, then resets the
-     * 'completed' flag to false and clears the prediction field. Finally, it triggers an SQS
-     * message to re-run AI inference.
+     * This method replaces the listing's name and attributes if provided. When the attributes differ from the stored
+     * ones, the 'completed' flag is reset to false and the prediction cleared in the same conditional write, and an
+     * SQS message is sent to re-run AI inference using the updated attributes. A change of the name alone keeps the
+     * prediction, and an update identical to the stored listing writes nothing and sends nothing. When a prediction of
+     * the current model is cached for the new attributes, it is written instead of the reset and nothing is sent.
+     * In the outbox dispatch mode, the outbox record of the message is written in the transaction resetting the
+     * prediction instead.
      * </p>
      *
      * @param listingId the identifier of the listing to update.
      * @param request   the DTO containing the update data (fields are optional).
      * @param userId    the user identifier.
-     * @throws IllegalArgumentException if the listing is not found.
+     * @throws IllegalArgumentException if the update is empty or the listing is not found.
      */
     public void updateListing(String listingId, UpdateListingRequest request, String userId) {
+        if (request.getName() == null && request.getAttributes() == null) {
+            throw new IllegalArgumentException("Update must change the name or the attributes");
+        }
+        Listing changes = new Listing();
+        changes.setListingId(listingId);
+        changes.setUserId(userId);
+        changes.setName(request.getName());
+        // Replaces all the old attributes - client must send the complete list of attributes
+        changes.setAttributes(request.getAttributes());
 
-        Listing existingListing = listingRepository.findById(listingId, userId);
-        if (existingListing == null) {
-            throw new IllegalArgumentException(String.format("Listing not found for key: (listingId) %s, (userId) %s", listingId, userId));
+        // Prediction state written if the attributes change, under a new revision so that the results of the
+        // previous one are dropped
+        changes.setCompleted(false);
+        changes.setPrediction(new HashMap<>());
+        changes.setRevision(RevisionUtil.next());
+        if (request.getAttributes() != null) {
+            Map<String, double[]> cachedPrediction = predictionCacheService.find(request.getAttributes());
+            if (cachedPrediction != null) {
+                changes.setCompleted(true);
+                changes.setPrediction(cachedPrediction);
+            }
         }
 
-        if (request.getName() != null) {
-            existingListing.setName(request.getName());
+        InferenceDispatchMode dispatchMode = dispatchMode();
+        // In the outbox mode, the outbox record is written in the transaction resetting the prediction
+        ContentUpdate updated = dispatchMode == InferenceDispatchMode.OUTBOX && changes.getAttributes() != null
+                && !changes.isCompleted()
+                ? listingRepository.updateContentWithOutbox(changes, toSqsMessage(changes))
+                : listingRepository.updateContent(changes);
+        if (updated == null) {
+            throw new IllegalArgumentException(String.format("Listing not found for key: (listingId) %s, (userId) %s", listingId, userId));
         }
-        if (request.getAttributes() != null) {
-            // Replaces all the old attributes - client must send the complete list of attributes
-            existingListing.setAttributes(request.getAttributes());
+        logger.info("Updated listing with ID: {} for user: {}, changed: {}", listingId, userId, updated.getChange());
+
+        // Trigger the SQS message to re-run AI inference on changed attributes, unless the outbox relay or the stream
+        // consumer does
+        if (updated.isInferenceNeeded() && dispatchMode == InferenceDispatchMode.DIRECT) {
+            sqsProducerService.sendListingToQueue(toSqsMessage(updated.getListing()));
         }
+    }
 
-        // Reset prediction state
-        existingListing.setCompleted(false);
-        existingListing.setPrediction(new HashMap<>());
+    /**
+     * Partially updates an existing listing using JSON merge-patch semantics.
+     * <p>
+     * Only the name and the attribute keys present in the request are written; attribute keys mapped to null
+     * are removed. When an attribute value actually changes, the prediction is reset and an SQS message is sent
+     * to re-run AI inference on the resulting attributes. A patch that only changes the name keeps the current
+     * prediction, and a patch repeating the stored values writes nothing and sends nothing. In the outbox dispatch mode,
+     * the outbox record of the message is written in the transaction resetting the prediction instead.
+     * </p>
+     *
+     * @param listingId the identifier of the listing to patch.
+     * @param request   the DTO containing the changes.
+     * @param userId    the user identifier extracted from token claims.
+     * @throws IllegalArgumentException if the patch is empty or the listing is not found.
+     */
+    public void patchListing(String listingId, PatchListingRequest request, String userId) {
+        boolean attributesChanged = request.getAttributes() != null && !request.getAttributes().isEmpty();
+        if (request.getName() == null && !attributesChanged) {
+            throw new IllegalArgumentException("Patch must change the name or at least one attribute");
+        }
 
-        listingRepository.update(existingListing);
-        logger.info("Updated listing with ID: {} for user: {}", listingId, userId);
+        // The reset is only applied by the repository if at least one attribute value differs from the stored one
+        ListingPatch patch = new ListingPatch(listingId, userId, request.getName(), request.getAttributes(), attributesChanged);
+        InferenceDispatchMode dispatchMode = dispatchMode();
+        ContentUpdate patched = dispatchMode == InferenceDispatchMode.OUTBOX
+                ? listingRepository.patchWithOutbox(patch, ListingService::toSqsMessage)
+                : listingRepository.patch(patch);
+        if (patched == null) {
+            throw new IllegalArgumentException(String.format("Listing not found for key: (listingId) %s, (userId) %s", listingId, userId));
+        }
+        logger.info("Patched listing with ID: {} for user: {}, changed: {}", listingId, userId, patched.getChange());
 
-        // Trigger the SQS message to re-run AI inference
-        sqsProducerService.sendListingToQueue(new ListingSqsMessage(
-                existingListing.getListingId(),
-                existingListing.getUserId(),
-                ListingSqsMessage.convertAttributes(existingListing.getAttributes())
-        ));
+        if (patched.isInferenceNeeded() && dispatchMode == InferenceDispatchMode.DIRECT) {
+            // Trigger the SQS message to re-run AI inference, unless the outbox relay or the stream consumer does
+            sqsProducerService.sendListingToQueue(toSqsMessage(patched.getListing()));
+        }
     }
 
     /**
@@ -121,7 +412,20 @@ public class ListingService {
      * @throws IllegalArgumentException if no listing is found.
      */
     public Listing getListing(String listingId, String userId) {
-        Listing listing = listingRepository.findById(listingId, userId);
+        return getListing(listingId, userId, false);
+    }
+
+    /**
+     * Retrieves a single listing for the specified listingId and userId, choosing the read consistency.
+     *
+     * @param listingId      the identifier of the listing.
+     * @param userId         the identifier of the user.
+     * @param consistentRead true to bypass the cache and read the latest acknowledged write.
+     * @return the Listing object.
+     * @throws IllegalArgumentException if no listing is found.
+     */
+    public Listing getListing(String listingId, String userId, boolean consistentRead) {
+        Listing listing = listingRepository.findById(listingId, userId, consistentRead);
         if (listing == null) {
             throw new IllegalArgumentException(
                     String.format("Listing not found for listingId %s and userId %s", listingId, userId)
@@ -130,14 +434,95 @@ public class ListingService {
         return listing;
     }
 
+    /**
+     * Retrieves several listings of the specified user by their identifiers.
+     *
+     * @param listingIds the identifiers of the listings.
+     * @param userId     the identifier of the user.
+     * @param view       the portion of each listing to return.
+     * @return the listings found, in the order of the requested ids; ids without a listing are omitted.
+     * @throws IllegalArgumentException if no id or too many ids are requested.
+     */
+    public List<Listing> getListings(List<String> listingIds, String userId, ListingView view) {
+        if (listingIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one listing id is required");
+        }
+        if (listingIds.size() > configService.getListingMultiGetMaxIds()) {
+            throw new IllegalArgumentException(String.format(
+                    "At most %d listing ids can be requested", configService.getListingMultiGetMaxIds()));
+        }
+        return listingRepository.findByIds(listingIds, userId, view);
+    }
+
     /**
      * Retrieves all listings for the specified user.
      *
      * @param userId the unique identifier of the user.
+     * @param view   the portion of each listing to return.
      * @return a list of Listing objects.
      */
-    public List<Listing> listListings(String userId) {
-        return listingRepository.findByUserId(userId);
+    public List<Listing> listListings(String userId, ListingView view) {
+        return listingRepository.findByUserId(userId, view);
+    }
+
+    /**
+     * Retrieves a single page of listings for the specified user.
+     *
+     * @param userId            the unique identifier of the user.
+     * @param limit             the requested page size, or null to use the default page size.
+     * @param exclusiveStartKey the key returned with the previous page, or null for the first page.
+     * @param view              the portion of each listing to return.
+     * @return the page of listings.
+     * @throws IllegalArgumentException if the limit is outside the allowed range.
+     */
+    public ListingPage listListings(String userId, Integer limit, Map<String, String> exclusiveStartKey, ListingView view) {
+        int pageSize = pageSize(limit);
+        checkCursor(userId, exclusiveStartKey);
+        return listingRepository.findByUserId(userId, pageSize, exclusiveStartKey, view);
+    }
+
+    /**
+     * Retrieves a single page of listings for the specified user, ordered by creation time and optionally restricted
+     * to a range of creation times.
+     *
+     * @param userId            the unique identifier of the user.
+     * @param query             the order and the creation time bounds of the listings.
+     * @param limit             the requested page size, or null to use the default page size.
+     * @param exclusiveStartKey the key returned with the previous page of the same query, or null for the first page.
+     * @param view              the portion of each listing to return.
+     * @return the page of listings.
+     * @throws IllegalArgumentException if the limit is outside the allowed range or the cursor is invalid.
+     */
+    public ListingPage listListings(String userId, CreationTimeQuery query, Integer limit,
+                                    Map<String, String> exclusiveStartKey, ListingView view) {
+        int pageSize = pageSize(limit);
+        checkCursor(userId, exclusiveStartKey);
+        return listingRepository.findByUserIdOrderedByCreation(userId, query, pageSize, exclusiveStartKey, view);
+    }
+
+    /**
+     * Resolves the page size of a list request.
+     *
+     * @throws IllegalArgumentException if the limit is outside the allowed range.
+     */
+    private int pageSize(Integer limit) {
+        int pageSize = limit != null ? limit : configService.getListingPageDefaultLimit();
+        if (pageSize < 1 || pageSize > configService.getListingPageMaxLimit()) {
+            throw new IllegalArgumentException(String.format(
+                    "Limit must be between 1 and %d", configService.getListingPageMaxLimit()));
+        }
+        return pageSize;
+    }
+
+    /**
+     * Checks that the pagination cursor belongs to the user.
+     *
+     * @throws IllegalArgumentException if the cursor was issued for another user.
+     */
+    private static void checkCursor(String userId, Map<String, String> exclusiveStartKey) {
+        if (exclusiveStartKey != null && !userId.equals(exclusiveStartKey.get("userId"))) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
     }
 
     /**
@@ -148,13 +533,12 @@ public class ListingService {
      * @throws IllegalArgumentException if the listing is not found.
      */
     public void deleteListing(String listingId, String userId) {
-        Listing existing = listingRepository.findById(listingId, userId);
-        if (existing == null) {
+        Listing deleted = listingRepository.delete(listingId, userId);
+        if (deleted == null) {
             throw new IllegalArgumentException(
                     String.format("Listing not found for listingId %s and userId %s", listingId, userId)
             );
         }
-        listingRepository.delete(listingId, userId);
     }
 
 }
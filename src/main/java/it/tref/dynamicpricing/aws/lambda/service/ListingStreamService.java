@@ -0,0 +1,110 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.mapper.StreamImageConverter;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sends the inference messages of the listings written to the listing table, from its DynamoDB Stream.
+ * <p>
+ * A message is sent for every inserted listing, and for every modified listing whose attributes changed or
+ * whose prediction was reset (completed going from true to false). Writes of a prediction and deletes do not
+ * trigger inference. The stream must carry both the new and the old images ({@code NEW_AND_OLD_IMAGES}).
+ * </p>
+ * <p>
+ * The messages of a batch of records are sent with batched SQS calls. The records whose message could not be
+ * sent are reported as batch item failures, so that the stream retries from the first of them.
+ * </p>
+ */
+@ApplicationScoped
+public class ListingStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingStreamService.class);
+
+    private final SqsProducerService sqsProducerService;
+    private final DynamoDBListingMapper dynamoDBListingMapper;
+
+    /**
+     * Constructs a new ListingStreamService.
+     *
+     * @param sqsProducerService    the service for sending SQS messages for AI inference.
+     * @param dynamoDBListingMapper the mapper to read the listings from the stream images.
+     */
+    public ListingStreamService(SqsProducerService sqsProducerService, DynamoDBListingMapper dynamoDBListingMapper) {
+        this.sqsProducerService = sqsProducerService;
+        this.dynamoDBListingMapper = dynamoDBListingMapper;
+    }
+
+    /**
+     * Sends the inference messages triggered by a batch of stream records.
+     *
+     * @param event the stream event.
+     * @return the records whose message could not be sent, identified by their sequence number.
+     */
+    public StreamsEventResponse dispatch(DynamodbEvent event) {
+        List<ListingSqsMessage> messages = new ArrayList<>();
+        Map<ListingSqsMessage, String> sequenceNumbers = new IdentityHashMap<>();
+        for (DynamodbEvent.DynamodbStreamRecord record : event.getRecords()) {
+            Listing listing = toInferredListing(record);
+            if (listing != null) {
+                ListingSqsMessage message = ListingService.toSqsMessage(listing);
+                messages.add(message);
+                sequenceNumbers.put(message, record.getDynamodb().getSequenceNumber());
+            }
+        }
+
+        List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>();
+        if (!messages.isEmpty()) {
+            for (ListingSqsMessage failed : sqsProducerService.sendListingsToQueue(messages)) {
+                failures.add(new StreamsEventResponse.BatchItemFailure(sequenceNumbers.get(failed)));
+            }
+        }
+        logger.info("Dispatched {} inference messages from {} stream records, {} failed",
+                messages.size() - failures.size(), event.getRecords().size(), failures.size());
+        return new StreamsEventResponse(failures);
+    }
+
+    /**
+     * Returns the listing of a stream record if the record triggers inference.
+     *
+     * @param record the stream record.
+     * @return the listing as written, or null if no inference is needed.
+     */
+    Listing toInferredListing(DynamodbEvent.DynamodbStreamRecord record) {
+        String eventName = record.getEventName();
+        if (!"INSERT".equals(eventName) && !"MODIFY".equals(eventName)) {
+            return null;
+        }
+        Listing newListing = dynamoDBListingMapper.fromDynamoDbItem(
+                StreamImageConverter.toItem(record.getDynamodb().getNewImage()));
+        if (newListing.isCompleted()) {
+            // Written with its prediction, such as a cached one
+            return null;
+        }
+        if ("INSERT".equals(eventName)) {
+            return newListing;
+        }
+
+        Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> oldImage =
+                record.getDynamodb().getOldImage();
+        if (oldImage == null) {
+            return newListing;
+        }
+        Listing oldListing = dynamoDBListingMapper.fromDynamoDbItem(StreamImageConverter.toItem(oldImage));
+        boolean attributesChanged = !Objects.equals(oldListing.getAttributes(), newListing.getAttributes());
+        boolean predictionReset = oldListing.isCompleted() && !newListing.isCompleted();
+        return attributesChanged || predictionReset ? newListing : null;
+    }
+}
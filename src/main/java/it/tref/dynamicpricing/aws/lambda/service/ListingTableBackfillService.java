@@ -0,0 +1,153 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingTableBackfillResponse;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.repository.DynamoDBListingTableCopier;
+import it.tref.dynamicpricing.aws.lambda.util.FutureUtil;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Copies the legacy listing table to the user-partitioned one with a parallel scan.
+ * <p>
+ * Every segment of the scan is copied by its own thread, page by page, as long as the invocation has time left,
+ * keeping {@value #TIME_RESERVE_MILLIS} ms for the last page. A run that stops before every segment is copied
+ * returns the key to resume each unfinished segment from, so the backfill is completed by invoking it again with
+ * those keys until it reports completion. A segment whose page fails is resumed from that page by the next run.
+ * </p>
+ */
+@ApplicationScoped
+public class ListingTableBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingTableBackfillService.class);
+
+    /**
+     * Maximum number of listings read per page of a segment.
+     */
+    static final int PAGE_SIZE = 100;
+
+    /**
+     * Time kept to copy the last page before the invocation times out, in milliseconds.
+     */
+    static final long TIME_RESERVE_MILLIS = 10000;
+
+    private final DynamoDBListingTableCopier listingTableCopier;
+    private final ConfigService configService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new ListingTableBackfillService.
+     *
+     * @param listingTableCopier the copier of the listing table pages.
+     * @param configService      the configuration service that provides the number of segments.
+     * @param invocationDeadline the deadline of the current invocation, bounding the run.
+     */
+    public ListingTableBackfillService(DynamoDBListingTableCopier listingTableCopier,
+                                       ConfigService configService,
+                                       InvocationDeadline invocationDeadline) {
+        this.listingTableCopier = listingTableCopier;
+        this.configService = configService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Runs the backfill, from the beginning of the table or from the keys returned by the previous run.
+     *
+     * @param totalSegments the number of segments of the previous run, or null to use the configured number.
+     * @param segmentKeys   the key to resume each unfinished segment from, returned by the previous run,
+     *                      or null to copy every segment from the beginning.
+     * @return the number of listings scanned and copied, and the keys of the unfinished segments.
+     */
+    public ListingTableBackfillResponse backfill(Integer totalSegments, Map<Integer, Map<String, String>> segmentKeys) {
+        int segments = totalSegments != null ? totalSegments : configService.getListingTableBackfillSegments();
+        Map<Integer, Map<String, String>> startKeys = segmentKeys;
+        if (startKeys == null) {
+            startKeys = new HashMap<>();
+            for (int segment = 0; segment < segments; segment++) {
+                startKeys.put(segment, null);
+            }
+        }
+        if (startKeys.isEmpty()) {
+            return new ListingTableBackfillResponse(0, 0, segments, Map.of(), true);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(startKeys.size(), runnable -> {
+            Thread thread = new Thread(runnable, "listing-table-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<SegmentProgress>> futures = new ArrayList<>();
+            for (Map.Entry<Integer, Map<String, String>> entry : startKeys.entrySet()) {
+                int segment = entry.getKey();
+                Map<String, String> startKey = entry.getValue();
+                futures.add(CompletableFuture.supplyAsync(() -> copySegment(segment, segments, startKey), executor));
+            }
+
+            int scanned = 0;
+            int copied = 0;
+            Map<String, Map<String, String>> unfinished = new TreeMap<>();
+            for (SegmentProgress progress : FutureUtil.join(FutureUtil.allOf(futures))) {
+                scanned += progress.scanned;
+                copied += progress.copied;
+                if (!progress.complete) {
+                    unfinished.put(Integer.toString(progress.segment), progress.resumeKey);
+                }
+            }
+            logger.info("Listing table backfill copied {} of {} listings, {} segments left",
+                    copied, scanned, unfinished.size());
+            return new ListingTableBackfillResponse(scanned, copied, segments, unfinished, unfinished.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Copies a segment page by page until its end, a failure or the end of the time available.
+     */
+    private SegmentProgress copySegment(int segment, int totalSegments, Map<String, String> startKey) {
+        SegmentProgress progress = new SegmentProgress(segment, startKey);
+        do {
+            try {
+                BackfillPage page = listingTableCopier.copySegmentPage(segment, totalSegments, PAGE_SIZE,
+                        progress.resumeKey);
+                progress.scanned += page.getScanned();
+                progress.copied += page.getUpdated();
+                progress.resumeKey = page.getLastEvaluatedKey();
+                progress.complete = !page.hasMore();
+            } catch (RuntimeException e) {
+                logger.error("Failed to copy a page of segment {}, it is resumed by the next run", segment, e);
+                return progress;
+            }
+        } while (!progress.complete && invocationDeadline.remainingMillis() > TIME_RESERVE_MILLIS);
+        return progress;
+    }
+
+    /**
+     * Progress of a segment within a run.
+     */
+    private static final class SegmentProgress {
+        private final int segment;
+        private Map<String, String> resumeKey;
+        private int scanned;
+        private int copied;
+        private boolean complete;
+
+        private SegmentProgress(int segment, Map<String, String> resumeKey) {
+            this.segment = segment;
+            this.resumeKey = resumeKey;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.OutboxRelayResponse;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxPage;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxRecord;
+import it.tref.dynamicpricing.aws.lambda.repository.OutboxRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drains the outbox: sends the stored inference messages to the SQS queue and deletes the records sent.
+ * <p>
+ * Records are read page by page and each page is sent with batched SQS calls. A record is only deleted once its
+ * message has been sent, so delivery is at least once: a record whose delete fails is sent again by a later relay.
+ * Records whose message could not be sent stay in the outbox for the next relay.
+ * </p>
+ */
+@ApplicationScoped
+public class OutboxRelayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    /**
+     * Maximum number of outbox records read per page.
+     */
+    static final int PAGE_SIZE = 100;
+
+    private final OutboxRepository outboxRepository;
+    private final SqsProducerService sqsProducerService;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new OutboxRelayService.
+     *
+     * @param outboxRepository   the repository of the outbox records.
+     * @param sqsProducerService the service for sending SQS messages for AI inference.
+     * @param configService      the configuration service that provides the relay limits.
+     */
+    public OutboxRelayService(OutboxRepository outboxRepository,
+                              SqsProducerService sqsProducerService,
+                              ConfigService configService) {
+        this.outboxRepository = outboxRepository;
+        this.sqsProducerService = sqsProducerService;
+        this.configService = configService;
+    }
+
+    /**
+     * Sends the outbox records to the queue, up to the configured maximum per relay.
+     *
+     * @return the number of records read, sent and not sent.
+     */
+    public OutboxRelayResponse relay() {
+        int maxRecords = configService.getOutboxRelayMaxRecords();
+        int read = 0;
+        int failed = 0;
+        Map<String, String> exclusiveStartKey = null;
+        do {
+            OutboxPage page = outboxRepository.findPage(Math.min(PAGE_SIZE, maxRecords - read), exclusiveStartKey);
+            read += page.getRecords().size();
+            failed += relayPage(page.getRecords());
+            exclusiveStartKey = page.getLastEvaluatedKey();
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty() && read < maxRecords);
+
+        logger.info("Outbox relay sent {} of {} records", read - failed, read);
+        return new OutboxRelayResponse(read, read - failed, failed);
+    }
+
+    /**
+     * Sends the messages of a page and deletes the records sent.
+     *
+     * @return the number of records whose message could not be sent.
+     */
+    private int relayPage(List<OutboxRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        List<ListingSqsMessage> messages = new ArrayList<>(records.size());
+        records.forEach(record -> messages.add(record.getMessage()));
+        Set<ListingSqsMessage> notSent = Collections.newSetFromMap(new IdentityHashMap<>());
+        notSent.addAll(sqsProducerService.sendListingsToQueue(messages));
+
+        List<String> sent = new ArrayList<>(records.size());
+        for (OutboxRecord record : records) {
+            if (!notSent.contains(record.getMessage())) {
+                sent.add(record.getOutboxId());
+            }
+        }
+        if (!sent.isEmpty()) {
+            List<String> notDeleted = outboxRepository.deleteAll(sent);
+            if (!notDeleted.isEmpty()) {
+                logger.warn("{} outbox records were sent but not deleted, they will be sent again", notDeleted.size());
+            }
+        }
+        return notSent.size();
+    }
+}
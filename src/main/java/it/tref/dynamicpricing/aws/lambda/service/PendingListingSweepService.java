@@ -0,0 +1,102 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PendingSweepResponse;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the listings stuck waiting for their prediction to the inference queue again.
+ * <p>
+ * Stuck listings are read from the sparse pending index, partition by partition, so the cost of a sweep is
+ * proportional to the pending backlog rather than to the size of the table. A listing is stuck when it has been
+ * pending for longer than the configured minimum age; it stays in the index, and is sent again by later sweeps,
+ * until its prediction is completed or it has been sent again the configured maximum number of times.
+ * </p>
+ */
+@ApplicationScoped
+public class PendingListingSweepService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingListingSweepService.class);
+
+    /**
+     * Maximum number of pending listings read per index query.
+     */
+    static final int PAGE_SIZE = 100;
+
+    private final ListingRepository listingRepository;
+    private final SqsProducerService sqsProducerService;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new PendingListingSweepService.
+     *
+     * @param listingRepository  the repository to read pending listings from.
+     * @param sqsProducerService the service for sending SQS messages for AI inference.
+     * @param configService      the configuration service that provides the pending index and sweep settings.
+     */
+    public PendingListingSweepService(ListingRepository listingRepository,
+                                      SqsProducerService sqsProducerService,
+                                      ConfigService configService) {
+        this.listingRepository = listingRepository;
+        this.sqsProducerService = sqsProducerService;
+        this.configService = configService;
+    }
+
+    /**
+     * Sends the stuck listings to the inference queue again, up to the configured maximum per sweep.
+     * <p>
+     * The maximum is shared evenly among the pending index partitions, so that a large backlog in one partition
+     * does not starve the others. Every listing sent again moves behind the other pending listings of its partition,
+     * so the next sweeps reach the listings it was hiding, and leaves the pending index once it has been sent the
+     * configured maximum number of times.
+     * </p>
+     *
+     * @param now the instant the sweep runs at.
+     * @return the number of stuck listings found, sent again and not sent; the listings no longer pending or without
+     * attempts left are found but neither sent nor counted as not sent.
+     * @throws IllegalStateException if the pending index is not configured.
+     */
+    public PendingSweepResponse requeueStuckListings(Instant now) {
+        Instant pendingBefore = now.minusMillis(configService.getPendingSweepMinAgeMillis());
+        int maxListings = configService.getPendingSweepMaxListings();
+        int shards = configService.getListingPendingIndexShards();
+        int maxListingsPerShard = (maxListings + shards - 1) / shards;
+
+        int found = 0;
+        List<ListingSqsMessage> messages = new ArrayList<>();
+        for (int shard = 0; shard < shards && found < maxListings; shard++) {
+            int shardQuota = Math.min(maxListingsPerShard, maxListings - found);
+            int shardFound = 0;
+            Map<String, String> exclusiveStartKey = null;
+            do {
+                int limit = Math.min(PAGE_SIZE, shardQuota - shardFound);
+                ListingPage page = listingRepository.findPending(shard, pendingBefore, limit, exclusiveStartKey);
+                for (Listing listing : page.getListings()) {
+                    shardFound++;
+                    if (listingRepository.requeuePending(listing.getListingId(), listing.getUserId(), now,
+                            configService.getPendingSweepMaxAttempts())) {
+                        messages.add(ListingService.toSqsMessage(listing));
+                    }
+                }
+                exclusiveStartKey = page.getLastEvaluatedKey();
+            } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty() && shardFound < shardQuota);
+            found += shardFound;
+        }
+
+        int failed = messages.isEmpty() ? 0 : sqsProducerService.sendListingsToQueue(messages).size();
+        logger.info("Pending sweep found {} stuck listings pending before {}, {} sent again, {} not sent, {} skipped",
+                found, pendingBefore, messages.size() - failed, failed, found - messages.size());
+        return new PendingSweepResponse(found, messages.size() - failed, failed);
+    }
+}
@@ -0,0 +1,146 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.AttributesFingerprint;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.PredictionCacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reuses the predictions computed for identical attributes across listings.
+ * <p>
+ * The inference results are cached by the fingerprint of the inferred attributes and the version of the model that
+ * computed them. A listing created or updated with attributes already inferred by the current model gets the cached
+ * prediction right away, without an inference request. The cache is best-effort: a failed lookup falls back to the
+ * inference, and a failed write only loses the entry.
+ * </p>
+ */
+@ApplicationScoped
+public class PredictionCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PredictionCacheService.class);
+
+    private final PredictionCacheRepository predictionCacheRepository;
+    private final ConfigService configService;
+
+    /**
+     * Constructs a new PredictionCacheService.
+     *
+     * @param predictionCacheRepository the repository of the cached predictions.
+     * @param configService             the configuration service that provides the cache table and the model version.
+     */
+    public PredictionCacheService(PredictionCacheRepository predictionCacheRepository, ConfigService configService) {
+        this.predictionCacheRepository = predictionCacheRepository;
+        this.configService = configService;
+    }
+
+    /**
+     * Indicates whether predictions are cached, that is whether a cache table and the current model version are
+     * configured.
+     *
+     * @return true if predictions are cached, false otherwise.
+     */
+    public boolean isEnabled() {
+        return configService.getPredictionCacheTableName().isPresent() && configService.getModelVersion().isPresent();
+    }
+
+    /**
+     * Finds the prediction of the current model for the given attributes.
+     *
+     * @param attributes the attributes of a listing.
+     * @return the cached prediction, or null if the cache is disabled, has no prediction for the attributes or
+     * cannot be read.
+     */
+    public Map<String, double[]> find(Map<String, Object> attributes) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return lookup(AttributesFingerprint.of(attributes), configService.getModelVersion().get());
+    }
+
+    /**
+     * Completes the listings of a batch whose attributes have a prediction of the current model cached, setting the
+     * prediction and the completed flag. Each distinct fingerprint of the batch is looked up once; a failed lookup
+     * leaves the listings of that fingerprint to the inference.
+     *
+     * @param listings the new listings of a batch.
+     * @return the number of listings completed with a cached prediction.
+     */
+    public int completeFromCache(List<Listing> listings) {
+        if (!isEnabled() || listings.isEmpty()) {
+            return 0;
+        }
+        String modelVersion = configService.getModelVersion().get();
+        Map<String, Map<String, double[]>> predictions = new HashMap<>();
+        int completed = 0;
+        for (Listing listing : listings) {
+            String fingerprint = AttributesFingerprint.of(listing.getAttributes());
+            if (!predictions.containsKey(fingerprint)) {
+                predictions.put(fingerprint, lookup(fingerprint, modelVersion));
+            }
+            Map<String, double[]> prediction = predictions.get(fingerprint);
+            if (prediction != null) {
+                // Every listing gets its own copy, as the listings are written and cached independently
+                listing.setPrediction(new HashMap<>(prediction));
+                listing.setCompleted(true);
+                completed++;
+            }
+        }
+        logger.info("Completed {} of {} listings from {} cached fingerprints", completed, listings.size(), predictions.size());
+        return completed;
+    }
+
+    /**
+     * Reads a cached prediction, treating a failed lookup or an empty prediction as a miss.
+     */
+    private Map<String, double[]> lookup(String fingerprint, String modelVersion) {
+        try {
+            Map<String, double[]> prediction = predictionCacheRepository.find(fingerprint, modelVersion);
+            return prediction != null && !prediction.isEmpty() ? prediction : null;
+        } catch (RuntimeException e) {
+            logger.warn("Prediction cache lookup failed, falling back to inference", e);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the predictions of a batch of inference results. Only the results reporting exactly the current model
+     * version are cached: results without the fingerprint of their attributes, without a model version (which may
+     * come from any model, for example during a model rollout), of another model version, or with an empty
+     * prediction are skipped.
+     *
+     * @param results the inference results.
+     */
+    public void remember(List<PredictionResultMessage> results) {
+        if (!isEnabled()) {
+            return;
+        }
+        String modelVersion = configService.getModelVersion().get();
+        Map<String, Map<String, double[]>> predictions = new HashMap<>();
+        for (PredictionResultMessage result : results) {
+            if (result.getFingerprint() != null
+                    && modelVersion.equals(result.getModelVersion())
+                    && result.getPrediction() != null && !result.getPrediction().isEmpty()) {
+                predictions.put(result.getFingerprint(), result.getPrediction());
+            }
+        }
+        if (predictions.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> failed = predictionCacheRepository.putAll(predictions, modelVersion);
+            if (!failed.isEmpty()) {
+                logger.warn("{} predictions could not be cached", failed.size());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to cache {} predictions", predictions.size(), e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the predictions sent back by the inference side to the listing table.
+ * <p>
+ * The results of a batch of messages are written together through {@link ListingRepository#applyPredictions(List)};
+ * results computed for a superseded revision of the listing are dropped. Messages that cannot be read, and results
+ * whose write failed, are reported as batch item failures: the queue redelivers them, and eventually moves the
+ * unreadable ones to its dead-letter queue.
+ * </p>
+ * <p>
+ * The predictions are also remembered by the {@link PredictionCacheService}, for listings created or updated later
+ * with the same attributes. Results dropped as superseded are remembered too, their prediction still matching the
+ * attributes they were computed for.
+ * </p>
+ */
+@ApplicationScoped
+public class PredictionResultService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PredictionResultService.class);
+
+    private final ListingRepository listingRepository;
+    private final MapperService mapperService;
+    private final PredictionCacheService predictionCacheService;
+
+    /**
+     * Constructs a new PredictionResultService.
+     *
+     * @param listingRepository      the repository writing the predictions.
+     * @param mapperService          the service reading the message bodies.
+     * @param predictionCacheService the cache of the predictions by attributes.
+     */
+    public PredictionResultService(ListingRepository listingRepository, MapperService mapperService,
+                                   PredictionCacheService predictionCacheService) {
+        this.listingRepository = listingRepository;
+        this.mapperService = mapperService;
+        this.predictionCacheService = predictionCacheService;
+    }
+
+    /**
+     * Writes the predictions of a batch of result messages.
+     *
+     * @param event the SQS event.
+     * @return the messages that could not be read or written, identified by their message id.
+     */
+    public SQSBatchResponse apply(SQSEvent event) {
+        List<PredictionResultMessage> results = new ArrayList<>();
+        Map<PredictionResultMessage, String> messageIds = new IdentityHashMap<>();
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            PredictionResultMessage result = read(message);
+            if (result == null) {
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                continue;
+            }
+            results.add(result);
+            messageIds.put(result, message.getMessageId());
+        }
+
+        if (!results.isEmpty()) {
+            for (PredictionResultMessage failed : listingRepository.applyPredictions(results)) {
+                failures.add(new SQSBatchResponse.BatchItemFailure(messageIds.get(failed)));
+            }
+            predictionCacheService.remember(results);
+        }
+        logger.info("Processed {} prediction results, {} failed", event.getRecords().size(), failures.size());
+        return new SQSBatchResponse(failures);
+    }
+
+    /**
+     * Reads the prediction result of a message.
+     *
+     * @return the result, or null if the message is not a complete prediction result.
+     */
+    private PredictionResultMessage read(SQSEvent.SQSMessage message) {
+        try {
+            PredictionResultMessage result = mapperService.readValue(message.getBody(), PredictionResultMessage.class);
+            if (result != null && result.isComplete()) {
+                return result;
+            }
+            logger.error("Incomplete prediction result in message {}", message.getMessageId());
+        } catch (JsonProcessingRuntimeException e) {
+            logger.error("Unreadable prediction result in message {}", message.getMessageId(), e);
+        }
+        return null;
+    }
+}
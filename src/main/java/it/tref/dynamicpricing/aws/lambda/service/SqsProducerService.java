@@ -4,12 +4,20 @@ import it.tref.dynamicpricing.aws.lambda.client.SqsClientService;
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
 import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
 import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.util.BackoffUtil;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Service for sending messages to the SQS queue to trigger AI inference.
  * <p>
@@ -17,12 +25,22 @@ import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
  * and sends it to the configured SQS queue.
  * The message includes the composite key (listingId and userId) and the listing details required for processing.
  * </p>
+ * <p>
+ * In the coalescing mode, enabled by {@code INFERENCE_COALESCING_QUEUE_URL}, messages are sent to the coalescing
+ * queue with a delivery delay instead, and forwarded to the prediction queue by {@link InferenceCoalescingService}
+ * only if the listing is still at their revision.
+ * </p>
  */
 @ApplicationScoped
 public class SqsProducerService {
 
     private static final Logger logger = LoggerFactory.getLogger(SqsProducerService.class);
 
+    /**
+     * Maximum number of entries accepted by a single SendMessageBatch call.
+     */
+    static final int SEND_BATCH_MAX_ENTRIES = 10;
+
     private final SqsClientService sqsClientService;
     private final ConfigService configService;
     private final MapperService mapperService;
@@ -44,6 +62,30 @@ public class SqsProducerService {
         this.mapperService = mapperService;
     }
 
+    /**
+     * Returns the queue receiving the inference triggers: the coalescing queue in the coalescing mode, the
+     * prediction queue otherwise.
+     *
+     * @param configService the configuration service.
+     * @return the queue URL.
+     */
+    static String triggerQueueUrl(ConfigService configService) {
+        return configService.getInferenceCoalescingQueueUrl().orElse(configService.getSqsQueueUrl());
+    }
+
+    /**
+     * Returns the delivery delay of the inference triggers: the coalescing window in the coalescing mode, none
+     * otherwise.
+     *
+     * @param configService the configuration service.
+     * @return the delay in seconds, or null to use the delay of the queue.
+     */
+    static Integer triggerDelaySeconds(ConfigService configService) {
+        return configService.getInferenceCoalescingQueueUrl().isPresent()
+                ? configService.getInferenceCoalescingDelaySeconds()
+                : null;
+    }
+
     /**
      * Sends a listing message to the SQS queue.
      * <p>
@@ -54,16 +96,111 @@ public class SqsProducerService {
      * @param message the {@link ListingSqsMessage} containing the listing's composite key and details.
      */
     public void sendListingToQueue(ListingSqsMessage message) {
-        String queueUrl = configService.getSqsQueueUrl();
+        String queueUrl = triggerQueueUrl(configService);
         String messageBody = mapperService.writeValueAsString(message);
 
         SendMessageRequest request = SendMessageRequest.builder()
                 .queueUrl(queueUrl)
                 .messageBody(messageBody)
+                .delaySeconds(triggerDelaySeconds(configService))
                 .build();
 
         SqsClient client = sqsClientService.getSqsClient();
         client.sendMessage(request);
         logger.info("Successfully sent SQS message for listingId: {}", message.getListingId());
     }
+
+    /**
+     * Sends several listing messages to the SQS queue using SendMessageBatch.
+     * <p>
+     * Messages are sent in batches of {@value #SEND_BATCH_MAX_ENTRIES}. Entries that fail because of a
+     * service-side error are retried with exponential backoff, up to the configured number of attempts;
+     * entries rejected because of a sender fault are not retried.
+     * </p>
+     *
+     * @param messages the messages to send.
+     * @return the messages that could not be sent; empty if every message was sent.
+     */
+    public List<ListingSqsMessage> sendListingsToQueue(List<ListingSqsMessage> messages) {
+        return sendAll(messages, triggerQueueUrl(configService), triggerDelaySeconds(configService));
+    }
+
+    /**
+     * Sends several listing messages straight to the prediction queue, bypassing the coalescing queue, as
+     * {@link #sendListingsToQueue(List)} does.
+     *
+     * @param messages the messages to send.
+     * @return the messages that could not be sent; empty if every message was sent.
+     */
+    public List<ListingSqsMessage> sendListingsToPredictionQueue(List<ListingSqsMessage> messages) {
+        return sendAll(messages, configService.getSqsQueueUrl(), null);
+    }
+
+    private List<ListingSqsMessage> sendAll(List<ListingSqsMessage> messages, String queueUrl, Integer delaySeconds) {
+        List<ListingSqsMessage> failed = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += SEND_BATCH_MAX_ENTRIES) {
+            failed.addAll(sendBatch(messages.subList(from, Math.min(from + SEND_BATCH_MAX_ENTRIES, messages.size())),
+                    queueUrl, delaySeconds));
+        }
+        logger.info("Successfully sent {} of {} SQS messages", messages.size() - failed.size(), messages.size());
+        return failed;
+    }
+
+    /**
+     * Sends a single batch of at most {@value #SEND_BATCH_MAX_ENTRIES} messages, retrying the failed entries.
+     * The entry id of each message is its position in the batch.
+     *
+     * @param batch        the messages to send.
+     * @param queueUrl     the queue to send them to.
+     * @param delaySeconds the delivery delay, or null to use the delay of the queue.
+     * @return the messages that could not be sent.
+     */
+    private List<ListingSqsMessage> sendBatch(List<ListingSqsMessage> batch, String queueUrl, Integer delaySeconds) {
+        SqsClient client = sqsClientService.getSqsClient();
+
+        List<SendMessageBatchRequestEntry> pending = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            pending.add(SendMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .messageBody(mapperService.writeValueAsString(batch.get(i)))
+                    .delaySeconds(delaySeconds)
+                    .build());
+        }
+
+        List<ListingSqsMessage> failed = new ArrayList<>();
+        int maxAttempts = configService.getBatchMaxAttempts();
+        for (int attempt = 0; attempt < maxAttempts && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                logger.warn("Retrying {} failed SQS entries (attempt {} of {})", pending.size(), attempt + 1, maxAttempts);
+                BackoffUtil.pause(attempt);
+            }
+            SendMessageBatchResponse response = client.sendMessageBatch(SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(pending)
+                    .build());
+
+            List<SendMessageBatchRequestEntry> retryable = new ArrayList<>();
+            for (BatchResultErrorEntry error : response.failed()) {
+                if (Boolean.TRUE.equals(error.senderFault()) || attempt == maxAttempts - 1) {
+                    ListingSqsMessage message = batch.get(Integer.parseInt(error.id()));
+                    logger.error("Failed to send SQS message for listingId: {}. Error: {} {}",
+                            message.getListingId(), error.code(), error.message());
+                    failed.add(message);
+                } else {
+                    retryable.add(findEntry(pending, error.id()));
+                }
+            }
+            pending = retryable;
+        }
+        return failed;
+    }
+
+    private static SendMessageBatchRequestEntry findEntry(List<SendMessageBatchRequestEntry> entries, String id) {
+        for (SendMessageBatchRequestEntry entry : entries) {
+            if (entry.id().equals(id)) {
+                return entry;
+            }
+        }
+        throw new IllegalStateException("Unknown SQS batch entry id: " + id);
+    }
 }
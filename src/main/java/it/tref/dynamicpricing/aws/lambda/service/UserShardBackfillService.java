@@ -0,0 +1,75 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.UserShardBackfillResponse;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Writes the sharded user index key of the listings stored before the index was enabled.
+ * <p>
+ * The listing table is processed page by page as long as the invocation has time left, keeping
+ * {@value #TIME_RESERVE_MILLIS} ms for the last page. A run that stops before the end of the table returns the key
+ * to resume from, so the backfill is completed by invoking it again with that key until it reports completion.
+ * Running it again over the whole table is harmless: listings already carrying the right key are not written.
+ * </p>
+ */
+@ApplicationScoped
+public class UserShardBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserShardBackfillService.class);
+
+    /**
+     * Time kept to process the last page before the invocation times out, in milliseconds.
+     */
+    static final long TIME_RESERVE_MILLIS = 10000;
+
+    private final ListingRepository listingRepository;
+    private final ConfigService configService;
+    private final InvocationDeadline invocationDeadline;
+
+    /**
+     * Constructs a new UserShardBackfillService.
+     *
+     * @param listingRepository  the repository of the listings.
+     * @param configService      the configuration service that provides the page size.
+     * @param invocationDeadline the deadline of the current invocation, bounding the run.
+     */
+    public UserShardBackfillService(ListingRepository listingRepository,
+                                    ConfigService configService,
+                                    InvocationDeadline invocationDeadline) {
+        this.listingRepository = listingRepository;
+        this.configService = configService;
+        this.invocationDeadline = invocationDeadline;
+    }
+
+    /**
+     * Runs the backfill from the given key until the end of the table or of the time available.
+     *
+     * @param startKey the key returned by the previous run, or null to start from the beginning of the table.
+     * @return the number of listings scanned and updated, and the key to resume from if the table is not complete.
+     */
+    public UserShardBackfillResponse backfill(Map<String, String> startKey) {
+        int pageSize = configService.getUserShardBackfillPageSize();
+        int scanned = 0;
+        int updated = 0;
+        Map<String, String> exclusiveStartKey = startKey;
+        boolean complete;
+        do {
+            BackfillPage page = listingRepository.backfillUserShards(pageSize, exclusiveStartKey);
+            scanned += page.getScanned();
+            updated += page.getUpdated();
+            exclusiveStartKey = page.getLastEvaluatedKey();
+            complete = !page.hasMore();
+        } while (!complete && invocationDeadline.remainingMillis() > TIME_RESERVE_MILLIS);
+
+        logger.info("User shard backfill updated {} of {} listings, complete: {}", updated, scanned, complete);
+        return new UserShardBackfillResponse(scanned, updated, complete ? null : exclusiveStartKey, complete);
+    }
+}
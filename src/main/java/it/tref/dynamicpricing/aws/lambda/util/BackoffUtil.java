@@ -0,0 +1,59 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility class for pausing between retries of partially processed batch operations.
+ * <p>
+ * Delays follow an exponential backoff with full jitter: the delay before retry {@code n}
+ * is a random value between zero and {@code min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS * 2^n)}.
+ * </p>
+ */
+public final class BackoffUtil {
+
+    static final long BASE_DELAY_MILLIS = 50;
+    static final long MAX_DELAY_MILLIS = 2000;
+
+    private BackoffUtil() {
+    }
+
+    /**
+     * Computes the full-jitter delay for the given retry attempt.
+     *
+     * @param attempt the zero-based retry attempt.
+     * @return the delay in milliseconds.
+     */
+    public static long delayMillis(int attempt) {
+        long cap = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Sleeps for the full-jitter delay of the given retry attempt.
+     *
+     * @param attempt the zero-based retry attempt.
+     * @throws IllegalStateException if the thread is interrupted while sleeping.
+     */
+    public static void pause(int attempt) {
+        try {
+            Thread.sleep(delayMillis(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    /**
+     * Returns an executor that runs tasks after the full-jitter delay of the given retry attempt,
+     * to back off without blocking the calling thread.
+     *
+     * @param attempt the zero-based retry attempt.
+     * @return the delayed executor.
+     */
+    public static Executor delayedExecutor(int attempt) {
+        return CompletableFuture.delayedExecutor(delayMillis(attempt), TimeUnit.MILLISECONDS);
+    }
+}
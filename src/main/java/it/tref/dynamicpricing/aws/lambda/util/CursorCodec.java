@@ -0,0 +1,110 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Encodes and decodes the opaque pagination cursors returned to the clients.
+ * <p>
+ * A cursor is the Base64 (URL-safe) encoding of the last evaluated key of a page, followed by
+ * an HMAC-SHA256 signature that also covers the userId the cursor was issued to.
+ * Cursors that were tampered with, or that belong to a different user, are rejected.
+ * </p>
+ */
+@ApplicationScoped
+public class CursorCodec {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final TypeReference<Map<String, String>> KEY_TYPE = new TypeReference<>() {
+    };
+
+    private final MapperService mapperService;
+    private final SecretKeySpec signingKey;
+
+    /**
+     * Constructs a new CursorCodec.
+     *
+     * @param configService the configuration service that provides the signing key.
+     * @param mapperService the service for JSON serialization and deserialization.
+     * @throws IllegalStateException if no signing key is configured.
+     */
+    public CursorCodec(ConfigService configService, MapperService mapperService) {
+        this.mapperService = mapperService;
+        byte[] key = configService.getCursorSigningKey()
+                .filter(secret -> !secret.isBlank())
+                .map(secret -> secret.getBytes(StandardCharsets.UTF_8))
+                .orElseThrow(() -> new IllegalStateException("CURSOR_SIGNING_KEY is not set"));
+        this.signingKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Encodes the given key into a signed cursor bound to the given user.
+     *
+     * @param lastEvaluatedKey the key of the last evaluated item.
+     * @param userId           the user the cursor is issued to.
+     * @return the opaque cursor, or null if there is no key to encode.
+     */
+    public String encode(Map<String, String> lastEvaluatedKey, String userId) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                mapperService.writeValueAsString(lastEvaluatedKey).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + sign(payload, userId);
+    }
+
+    /**
+     * Decodes and verifies a cursor previously issued to the given user.
+     *
+     * @param cursor the opaque cursor sent by the client.
+     * @param userId the user presenting the cursor.
+     * @return the key to resume the query from.
+     * @throws IllegalArgumentException if the cursor is malformed, tampered with or issued to another user.
+     */
+    public Map<String, String> decode(String cursor, String userId) {
+        int separator = cursor.indexOf('.');
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
+        String payload = cursor.substring(0, separator);
+        byte[] signature = cursor.substring(separator + 1).getBytes(StandardCharsets.US_ASCII);
+        byte[] expectedSignature = sign(payload, userId).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expectedSignature, signature)) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
+
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+            return mapperService.readValue(json, KEY_TYPE);
+        } catch (IllegalArgumentException | JsonProcessingRuntimeException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor", e);
+        }
+    }
+
+    /**
+     * Computes the Base64 (URL-safe) HMAC of the payload for the given user.
+     */
+    private String sign(String payload, String userId) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            mac.update(userId.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '\n');
+            byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign pagination cursor", e);
+        }
+    }
+}
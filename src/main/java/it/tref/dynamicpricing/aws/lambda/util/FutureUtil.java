@@ -0,0 +1,67 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Utility class for working with {@link CompletableFuture}s on the asynchronous I/O path.
+ */
+public final class FutureUtil {
+
+    private FutureUtil() {
+    }
+
+    /**
+     * Waits for the future and returns its value.
+     * <p>
+     * The wrapping {@link CompletionException} is removed, so that callers (and the error handling interceptors)
+     * see the same exceptions they would see on the synchronous path.
+     * </p>
+     *
+     * @param future the future to wait for.
+     * @param <T>    the type of the value.
+     * @return the value of the future.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the root cause of an exception thrown by a future stage.
+     *
+     * @param throwable the exception, possibly wrapped.
+     * @return the unwrapped exception.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Combines the futures into a single future completing with all their values, in order.
+     *
+     * @param futures the futures to combine.
+     * @param <T>     the type of the values.
+     * @return a future completing with the values of all futures.
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+}
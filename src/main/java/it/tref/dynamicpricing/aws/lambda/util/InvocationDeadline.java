@@ -0,0 +1,61 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the time left to the current Lambda invocation, so that retries and waits never outlive it.
+ * <p>
+ * A Lambda container serves one invocation at a time: every entry point calls {@link #start(Context)}
+ * when an invocation begins. Until then, or when no context is available, the remaining time is unbounded.
+ * </p>
+ */
+@ApplicationScoped
+public class InvocationDeadline {
+
+    private final LongSupplier clock;
+    private volatile long deadlineMillis = Long.MAX_VALUE;
+
+    /**
+     * Constructs a new InvocationDeadline using the system clock.
+     */
+    public InvocationDeadline() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new InvocationDeadline using the given clock.
+     *
+     * @param clock the source of the current time, in milliseconds.
+     */
+    InvocationDeadline(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Starts tracking the invocation of the given context.
+     *
+     * @param context the Lambda execution context, or null if the remaining time is unknown.
+     */
+    public void start(Context context) {
+        deadlineMillis = context != null
+                ? clock.getAsLong() + context.getRemainingTimeInMillis()
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the time left to the current invocation.
+     *
+     * @return the remaining time in milliseconds, zero once the deadline has passed,
+     * or {@link Long#MAX_VALUE} if the remaining time is unknown.
+     */
+    public long remainingMillis() {
+        long deadline = deadlineMillis;
+        if (deadline == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadline - clock.getAsLong());
+    }
+}
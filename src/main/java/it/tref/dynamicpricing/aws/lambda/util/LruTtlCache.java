@@ -0,0 +1,138 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded in-memory cache with least-recently-used eviction and a per-entry time to live.
+ * <p>
+ * Entries older than the TTL are treated as misses and dropped on access. When the cache is full,
+ * the least recently accessed entry is evicted. Hit, miss and eviction counters are kept for metrics.
+ * All operations are synchronized; the cache is meant for small, per-container working sets.
+ * </p>
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class LruTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs a new LruTtlCache using the system clock.
+     *
+     * @param maxSize   the maximum number of entries; zero disables the cache.
+     * @param ttlMillis the time to live of an entry, in milliseconds.
+     */
+    public LruTtlCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new LruTtlCache using the given clock.
+     *
+     * @param maxSize   the maximum number of entries; zero disables the cache.
+     * @param ttlMillis the time to live of an entry, in milliseconds.
+     * @param nanoClock the monotonic clock, in nanoseconds.
+     */
+    public LruTtlCache(int maxSize, long ttlMillis, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruTtlCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the value cached for the key, if present and not expired.
+     *
+     * @param key the key.
+     * @return the cached value, or null on a miss.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.createdAtNanos >= ttlNanos) {
+            entries.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Caches the value for the key, replacing any previous value.
+     *
+     * @param key   the key.
+     * @param value the value; null values are not cached.
+     */
+    public synchronized void put(K key, V value) {
+        if (maxSize <= 0 || value == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+    }
+
+    /**
+     * Removes the value cached for the key, if any.
+     *
+     * @param key the key.
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all the cached values.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long createdAtNanos;
+
+        private Entry(V value, long createdAtNanos) {
+            this.value = value;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
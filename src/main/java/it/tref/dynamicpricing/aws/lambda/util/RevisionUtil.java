@@ -0,0 +1,32 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utility class generating the revisions of the inference requests of the listings.
+ * <p>
+ * A revision is the time the listing started waiting for its prediction, in microseconds since the epoch, raised
+ * when needed so that the revisions generated by a container are strictly increasing. Revisions are generated
+ * before the listing is written, so that the listing and its inference message carry the same revision whatever
+ * the write path.
+ * </p>
+ */
+public final class RevisionUtil {
+
+    private static final AtomicLong LAST_REVISION = new AtomicLong();
+
+    private RevisionUtil() {
+    }
+
+    /**
+     * Generates a new revision.
+     *
+     * @return the revision, greater than every revision previously generated by the container.
+     */
+    public static long next() {
+        Instant now = Instant.now();
+        long micros = now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+        return LAST_REVISION.accumulateAndGet(micros, (last, candidate) -> Math.max(last + 1, candidate));
+    }
+}
@@ -0,0 +1,115 @@
+package it.tref.dynamicpricing.aws.lambda.aop;
+
+import it.tref.dynamicpricing.aws.lambda.client.AdaptiveRateLimiter;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import jakarta.interceptor.InvocationContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DynamoDBErrorHandlingInterceptorTest {
+
+    private AdaptiveRateLimiter adaptiveRateLimiter;
+    private InvocationDeadline invocationDeadline;
+    private DynamoDBErrorHandlingInterceptor interceptor;
+    private InvocationContext ctx;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getDynamoDbThrottleMaxAttempts()).thenReturn(3);
+        when(configService.isDynamoDbRateLimiterEnabled()).thenReturn(true);
+        when(configService.getDynamoDbRateLimiterMinRate()).thenReturn(5.0);
+        invocationDeadline = mock(InvocationDeadline.class);
+        when(invocationDeadline.remainingMillis()).thenReturn(Long.MAX_VALUE);
+        adaptiveRateLimiter = new AdaptiveRateLimiter(configService, invocationDeadline);
+        interceptor = new DynamoDBErrorHandlingInterceptor(adaptiveRateLimiter, invocationDeadline, configService);
+
+        ctx = mock(InvocationContext.class);
+        when(ctx.getMethod()).thenReturn(Object.class.getMethod("toString"));
+    }
+
+    @Test
+    public void testThrottledOperationIsRetried() throws Exception {
+        when(ctx.proceed())
+                .thenThrow(ProvisionedThroughputExceededException.builder().message("throttled").build())
+                .thenReturn("result");
+
+        assertEquals("result", interceptor.handleDynamoDBErrors(ctx));
+        verify(ctx, times(2)).proceed();
+        assertEquals(1, adaptiveRateLimiter.getRetryCount());
+    }
+
+    @Test
+    public void testThrottlingIsRethrownAfterMaxAttempts() throws Exception {
+        when(ctx.proceed()).thenThrow(ProvisionedThroughputExceededException.builder().message("throttled").build());
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> interceptor.handleDynamoDBErrors(ctx));
+        verify(ctx, times(3)).proceed();
+        assertEquals(2, adaptiveRateLimiter.getRetryCount());
+    }
+
+    @Test
+    public void testThrottlingIsNotRetriedWithoutTimeLeft() throws Exception {
+        when(invocationDeadline.remainingMillis()).thenReturn(100L);
+        when(ctx.proceed()).thenThrow(ProvisionedThroughputExceededException.builder().message("throttled").build());
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> interceptor.handleDynamoDBErrors(ctx));
+        verify(ctx, times(1)).proceed();
+        assertEquals(0, adaptiveRateLimiter.getRetryCount());
+    }
+
+    @Test
+    public void testThrottledFutureIsRetried() throws Exception {
+        when(ctx.proceed())
+                .thenReturn(CompletableFuture.failedFuture(
+                        ProvisionedThroughputExceededException.builder().message("throttled").build()))
+                .thenReturn(CompletableFuture.completedFuture("result"));
+
+        Object result = interceptor.handleDynamoDBErrors(ctx);
+
+        assertEquals("result", ((CompletableFuture<?>) result).join());
+        verify(ctx, times(2)).proceed();
+        assertEquals(1, adaptiveRateLimiter.getRetryCount());
+    }
+
+    @Test
+    public void testFailedFutureIsNotRetriedUnlessThrottled() throws Exception {
+        when(ctx.proceed()).thenReturn(CompletableFuture.failedFuture(
+                ConditionalCheckFailedException.builder().message("failed").build()));
+
+        CompletableFuture<?> result = (CompletableFuture<?>) interceptor.handleDynamoDBErrors(ctx);
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(ConditionalCheckFailedException.class, e.getCause());
+        verify(ctx, times(1)).proceed();
+    }
+
+    @Test
+    public void testOtherErrorsAreNotRetried() throws Exception {
+        when(ctx.proceed()).thenThrow(ConditionalCheckFailedException.builder().message("failed").build());
+
+        assertThrows(ConditionalCheckFailedException.class, () -> interceptor.handleDynamoDBErrors(ctx));
+        verify(ctx, times(1)).proceed();
+    }
+
+    @Test
+    public void testNestedOperationsAreOnlyRetriedByTheOutermost() throws Exception {
+        InvocationContext inner = mock(InvocationContext.class);
+        when(inner.getMethod()).thenReturn(Object.class.getMethod("hashCode"));
+        when(inner.proceed()).thenThrow(ProvisionedThroughputExceededException.builder().message("throttled").build());
+        when(ctx.proceed()).thenAnswer(invocation -> interceptor.handleDynamoDBErrors(inner));
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> interceptor.handleDynamoDBErrors(ctx));
+        verify(ctx, times(3)).proceed();
+        verify(inner, times(3)).proceed();
+    }
+}
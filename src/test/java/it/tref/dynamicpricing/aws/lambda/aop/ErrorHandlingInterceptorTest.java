@@ -0,0 +1,48 @@
+package it.tref.dynamicpricing.aws.lambda.aop;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import it.tref.dynamicpricing.aws.lambda.exception.ConflictException;
+import jakarta.interceptor.InvocationContext;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ErrorHandlingInterceptorTest {
+
+    private final ErrorHandlingInterceptor interceptor = new ErrorHandlingInterceptor();
+
+    @Test
+    public void testThrottlingReturnsServiceUnavailable() throws Exception {
+        InvocationContext ctx = mock(InvocationContext.class);
+        when(ctx.proceed()).thenThrow(ProvisionedThroughputExceededException.builder().message("throttled").build());
+
+        APIGatewayProxyResponseEvent response = (APIGatewayProxyResponseEvent) interceptor.handleErrors(ctx);
+
+        assertEquals(503, response.getStatusCode());
+        assertEquals("1", response.getHeaders().get("Retry-After"));
+    }
+
+    @Test
+    public void testOtherDynamoDbErrorsReturnInternalServerError() throws Exception {
+        InvocationContext ctx = mock(InvocationContext.class);
+        when(ctx.proceed()).thenThrow(DynamoDbException.builder().message("failure").build());
+
+        APIGatewayProxyResponseEvent response = (APIGatewayProxyResponseEvent) interceptor.handleErrors(ctx);
+
+        assertEquals(500, response.getStatusCode());
+    }
+
+    @Test
+    public void testConflictReturnsConflict() throws Exception {
+        InvocationContext ctx = mock(InvocationContext.class);
+        when(ctx.proceed()).thenThrow(new ConflictException("in progress"));
+
+        APIGatewayProxyResponseEvent response = (APIGatewayProxyResponseEvent) interceptor.handleErrors(ctx);
+
+        assertEquals(409, response.getStatusCode());
+        assertEquals("1", response.getHeaders().get("Retry-After"));
+    }
+}
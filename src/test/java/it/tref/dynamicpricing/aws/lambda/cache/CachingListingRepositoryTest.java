@@ -0,0 +1,124 @@
+package it.tref.dynamicpricing.aws.lambda.cache;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingListingRepositoryTest {
+
+    private ListingRepository delegate;
+    private ListingCache listingCache;
+    private ListingRepository cachingRepository;
+    private Listing listing;
+
+    @BeforeEach
+    public void setUp() {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getListingCacheMaxSize()).thenReturn(10);
+        when(configService.getListingCacheTtlMillis()).thenReturn(60_000L);
+        delegate = mock(ListingRepository.class);
+        listingCache = new ListingCache(configService);
+        cachingRepository = new CachingListingRepository(delegate, listingCache);
+
+        listing = new Listing();
+        listing.setListingId("listing-1");
+        listing.setUserId("user@example.com");
+        when(delegate.findById("listing-1", "user@example.com", false)).thenReturn(listing);
+        when(delegate.findById("listing-1", "user@example.com", true)).thenReturn(listing);
+    }
+
+    @Test
+    public void testFindByIdIsServedFromCache() {
+        assertSame(listing, cachingRepository.findById("listing-1", "user@example.com"));
+        assertEquals("listing-1", cachingRepository.findById("listing-1", "user@example.com").getListingId());
+
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", false);
+        assertEquals(1, listingCache.getHits());
+        assertEquals(1, listingCache.getMisses());
+    }
+
+    @Test
+    public void testConsistentReadBypassesCache() {
+        cachingRepository.findById("listing-1", "user@example.com");
+        cachingRepository.findById("listing-1", "user@example.com", true);
+
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", true);
+    }
+
+    @Test
+    public void testFirstReadAfterWriteIsConsistent() {
+        cachingRepository.findById("listing-1", "user@example.com");
+        cachingRepository.update(listing);
+        cachingRepository.findById("listing-1", "user@example.com");
+        cachingRepository.findById("listing-1", "user@example.com");
+
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", false);
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", true);
+    }
+
+    @Test
+    public void testFailedWriteStillRequiresConsistentRead() {
+        cachingRepository.findById("listing-1", "user@example.com");
+        when(delegate.update(listing)).thenThrow(new IllegalStateException("timeout"));
+
+        assertThrows(IllegalStateException.class, () -> cachingRepository.update(listing));
+        cachingRepository.findById("listing-1", "user@example.com");
+
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", true);
+    }
+
+    @Test
+    public void testDeleteLeavesTombstone() {
+        cachingRepository.findById("listing-1", "user@example.com");
+        cachingRepository.delete("listing-1", "user@example.com");
+
+        assertNull(cachingRepository.findById("listing-1", "user@example.com"));
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", false);
+        verify(delegate, never()).findById("listing-1", "user@example.com", true);
+    }
+
+    @Test
+    public void testCachedListingIsNotShared() {
+        listing.addAttribute("rooms", 2);
+        listing.setPrediction(Map.of("price", new double[]{100.0}));
+        cachingRepository.findById("listing-1", "user@example.com");
+
+        // Changes to the listing read, or to a cached copy, do not reach the cache
+        listing.addAttribute("rooms", 3);
+        Listing first = cachingRepository.findById("listing-1", "user@example.com");
+        first.getPrediction().get("price")[0] = 200.0;
+        first.setCompleted(true);
+        Listing second = cachingRepository.findById("listing-1", "user@example.com");
+
+        assertNotSame(first, second);
+        assertEquals(2, second.getAttributes().get("rooms"));
+        assertEquals(100.0, second.getPrediction().get("price")[0]);
+        assertFalse(second.isCompleted());
+    }
+
+    @Test
+    public void testConsistentReadOfMissingListingLeavesTombstone() {
+        cachingRepository.findById("listing-1", "user@example.com");
+        when(delegate.findById("listing-1", "user@example.com", true)).thenReturn(null);
+
+        assertNull(cachingRepository.findById("listing-1", "user@example.com", true));
+        assertNull(cachingRepository.findById("listing-1", "user@example.com"));
+
+        verify(delegate, times(1)).findById("listing-1", "user@example.com", false);
+    }
+
+    @Test
+    public void testCacheIsScopedToUser() {
+        cachingRepository.findById("listing-1", "user@example.com");
+
+        assertNull(cachingRepository.findById("listing-1", "other@example.com"));
+        verify(delegate).findById("listing-1", "other@example.com", false);
+    }
+}
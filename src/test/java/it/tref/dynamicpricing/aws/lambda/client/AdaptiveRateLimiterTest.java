@@ -0,0 +1,138 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private AdaptiveRateLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        limiter = new AdaptiveRateLimiter(true, 5, new InvocationDeadline(), clock::get);
+    }
+
+    @Test
+    public void testCallsAreNotDelayedBeforeThrottling() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.reserve());
+        }
+        assertEquals(Double.POSITIVE_INFINITY, limiter.getCurrentRate());
+    }
+
+    @Test
+    public void testThrottlingSlowsCallsDownToAFractionOfTheMeasuredRate() {
+        sendAtRate(100, 2);
+
+        limiter.onThrottle();
+
+        assertEquals(70, limiter.getCurrentRate(), 1);
+        assertEquals(1, limiter.getThrottleCount());
+        long totalWait = 0;
+        for (int i = 0; i < 70; i++) {
+            totalWait += limiter.reserve();
+        }
+        assertTrue(totalWait > 0, "calls sent right after the throttling must wait for a token");
+    }
+
+    @Test
+    public void testRateRecoversUntilTheLimiterTurnsInactive() {
+        sendAtRate(100, 2);
+        limiter.onThrottle();
+
+        advanceMillis(1000);
+        assertEquals(80, limiter.getCurrentRate(), 1);
+
+        advanceMillis(2500);
+        assertEquals(0, limiter.reserve());
+        assertEquals(Double.POSITIVE_INFINITY, limiter.getCurrentRate());
+    }
+
+    @Test
+    public void testRateNeverGoesBelowTheMinimum() {
+        sendAtRate(10, 1);
+        for (int i = 0; i < 20; i++) {
+            limiter.onThrottle();
+        }
+
+        assertEquals(5, limiter.getCurrentRate(), 0.01);
+    }
+
+    @Test
+    public void testAsyncCallsWaitForTheirTokenWithoutBlocking() throws Exception {
+        assertTrue(limiter.acquireAsync().isDone());
+
+        sendAtRate(100, 2);
+        limiter.onThrottle();
+        CompletableFuture<Void> token = null;
+        for (int i = 0; i < 70 && (token == null || token.isDone()); i++) {
+            token = limiter.acquireAsync();
+        }
+
+        // The caller gets the future back at once, and the call is let through once the wait is over
+        assertFalse(token.isDone());
+        token.get(5, TimeUnit.SECONDS);
+        assertTrue(limiter.getDelayedCallCount() > 0);
+    }
+
+    @Test
+    public void testDisabledLimiterOnlyCountsThrottles() {
+        AdaptiveRateLimiter disabled = new AdaptiveRateLimiter(false, 5, new InvocationDeadline(), clock::get);
+
+        disabled.onThrottle();
+
+        assertEquals(1, disabled.getThrottleCount());
+        assertEquals(0, disabled.reserve());
+    }
+
+    @Test
+    public void testIsThrottling() {
+        assertTrue(AdaptiveRateLimiter.isThrottling(ProvisionedThroughputExceededException.builder().build()));
+        assertTrue(AdaptiveRateLimiter.isThrottling(new CompletionException(
+                ProvisionedThroughputExceededException.builder().build())));
+        assertTrue(AdaptiveRateLimiter.isThrottling(DynamoDbException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("ThrottlingException").build())
+                .build()));
+        assertTrue(AdaptiveRateLimiter.isThrottling(TransactionCanceledException.builder()
+                .cancellationReasons(CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code("ThrottlingError").build())
+                .build()));
+
+        assertFalse(AdaptiveRateLimiter.isThrottling(ConditionalCheckFailedException.builder().build()));
+        assertFalse(AdaptiveRateLimiter.isThrottling(TransactionCanceledException.builder()
+                .cancellationReasons(CancellationReason.builder().code("ConditionalCheckFailed").build())
+                .build()));
+        assertFalse(AdaptiveRateLimiter.isThrottling(SdkClientException.create("timeout")));
+    }
+
+    /**
+     * Sends calls evenly at the given rate for the given number of seconds.
+     */
+    private void sendAtRate(int callsPerSecond, int seconds) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / callsPerSecond;
+        for (int i = 0; i < callsPerSecond * seconds; i++) {
+            limiter.reserve();
+            clock.addAndGet(interval);
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -1,10 +1,13 @@
 package it.tref.dynamicpricing.aws.lambda.client;
 
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
+import java.util.Optional;
+
 public class DynamoDBClientServiceTest {
 
     @Test
@@ -15,13 +18,41 @@ public class DynamoDBClientServiceTest {
             public String getDynamoDbRegion() {
                 return "eu-west-1";
             }
+
+            @Override
+            public Optional<String> getDynamoDbEndpointOverride() {
+                return Optional.empty();
+            }
+
+            @Override
+            public long getHttpConnectTimeoutMillis() {
+                return 2000;
+            }
+
+            @Override
+            public long getHttpReadTimeoutMillis() {
+                return 5000;
+            }
         };
 
         // Create the service.
-        DynamoDBClientService service = new DynamoDBClientService(configService);
+        HttpClientService httpClientService = new HttpClientService(configService);
+        DynamoDBClientService service = new DynamoDBClientService(configService, httpClientService,
+                new AdaptiveRateLimiter(configService, new InvocationDeadline()));
         DynamoDbClient client = service.getDynamoDbClient();
 
         // Assert that the client is not null.
         Assertions.assertNotNull(client);
+        service.close();
+        httpClientService.close();
+    }
+
+    @Test
+    public void testHttpClientTypeFromConfig() {
+        Assertions.assertEquals(HttpClientType.URL_CONNECTION, HttpClientType.fromConfig(null));
+        Assertions.assertEquals(HttpClientType.URL_CONNECTION, HttpClientType.fromConfig("url-connection"));
+        Assertions.assertEquals(HttpClientType.APACHE, HttpClientType.fromConfig("apache"));
+        Assertions.assertEquals(HttpClientType.CRT, HttpClientType.fromConfig(" CRT "));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HttpClientType.fromConfig("okhttp"));
     }
 }
@@ -0,0 +1,69 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.mockito.Mockito.*;
+
+public class HttpClientServiceTest {
+
+    private ConfigService configService;
+
+    @BeforeEach
+    public void setUp() {
+        configService = mock(ConfigService.class);
+        when(configService.getHttpMaxConnections()).thenReturn(50);
+        when(configService.getHttpConnectionTtlMillis()).thenReturn(60_000L);
+        when(configService.isHttpTcpKeepAlive()).thenReturn(true);
+        when(configService.getHttpReadTimeoutMillis()).thenReturn(5000L);
+    }
+
+    @Test
+    public void testDefaultSettingsAreNeverReported() {
+        for (HttpClientType type : HttpClientType.values()) {
+            assertEquals(List.of(), HttpClientService.ignoredSettings(type, configService));
+        }
+    }
+
+    @Test
+    public void testUrlConnectionReportsPoolSettings() {
+        when(configService.getHttpMaxConnections()).thenReturn(200);
+        when(configService.isHttpTcpKeepAlive()).thenReturn(false);
+        when(configService.getHttpReadTimeoutMillis()).thenReturn(1000L);
+
+        assertEquals(List.of("HTTP_MAX_CONNECTIONS", "HTTP_TCP_KEEP_ALIVE"),
+                HttpClientService.ignoredSettings(HttpClientType.URL_CONNECTION, configService));
+        assertEquals(List.of(), HttpClientService.ignoredSettings(HttpClientType.APACHE, configService));
+    }
+
+    @Test
+    public void testCrtReportsReadTimeout() {
+        when(configService.getHttpMaxConnections()).thenReturn(200);
+        when(configService.getHttpReadTimeoutMillis()).thenReturn(1000L);
+
+        assertEquals(List.of("HTTP_READ_TIMEOUT_MILLIS"),
+                HttpClientService.ignoredSettings(HttpClientType.CRT, configService));
+    }
+
+    @Test
+    public void testUrlConnectionIsAlwaysAvailable() {
+        assertTrue(HttpClientService.isAvailable(HttpClientType.URL_CONNECTION));
+        when(configService.getHttpConnectTimeoutMillis()).thenReturn(2000L);
+
+        HttpClientService.buildHttpClient(HttpClientType.URL_CONNECTION, configService).close();
+    }
+
+    @Test
+    public void testTransportMissingFromTheBuildIsRejected() {
+        assumeFalse(HttpClientService.isAvailable(HttpClientType.APACHE), "apache is included in this build");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> HttpClientService.buildHttpClient(HttpClientType.APACHE, configService));
+        assertTrue(e.getMessage().contains("-PhttpClients=apache"));
+    }
+}
@@ -0,0 +1,145 @@
+package it.tref.dynamicpricing.aws.lambda.client;
+
+import it.tref.dynamicpricing.aws.lambda.DynamoDBTestResource;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compares the per-request latency of the HTTP transports against DynamoDB Local.
+ * <p>
+ * Excluded from the default test task; run with {@code ./gradlew benchmarkTest -PhttpClients=apache,crt}, the
+ * transports not included in the build are skipped.
+ * </p>
+ */
+@Tag("benchmark")
+public class HttpTransportBenchmarkTest {
+
+    private static final String TABLE_NAME = "dynamic-pricing-demo-listings";
+    private static final int WARMUP_REQUESTS = 200;
+    private static final int MEASURED_REQUESTS = 1000;
+
+    private static DynamoDBTestResource dynamoDBTestResource;
+    private static String endpoint;
+
+    @BeforeAll
+    public static void startDynamoDB() {
+        dynamoDBTestResource = new DynamoDBTestResource();
+        endpoint = dynamoDBTestResource.start().get("quarkus.dynamodb.endpoint-override");
+    }
+
+    @AfterAll
+    public static void stopDynamoDB() {
+        dynamoDBTestResource.stop();
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpClientType.class)
+    public void benchmarkPutAndGet(HttpClientType type) {
+        Assumptions.assumeTrue(HttpClientService.isAvailable(type), type + " is not included in this build");
+        ConfigService configService = new BenchmarkConfigService(type);
+        HttpClientService httpClientService = new HttpClientService(configService);
+        DynamoDBClientService dynamoDBClientService = new DynamoDBClientService(configService, httpClientService,
+                new AdaptiveRateLimiter(configService, new InvocationDeadline()));
+        DynamoDbClient client = dynamoDBClientService.getDynamoDbClient();
+
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            roundTrip(client, i);
+        }
+        long[] latencies = new long[MEASURED_REQUESTS];
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            long start = System.nanoTime();
+            roundTrip(client, i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%-15s PutItem+GetItem p50=%.2fms p90=%.2fms p99=%.2fms%n", type,
+                latencies[MEASURED_REQUESTS / 2] / 1e6,
+                latencies[MEASURED_REQUESTS * 90 / 100] / 1e6,
+                latencies[MEASURED_REQUESTS * 99 / 100] / 1e6);
+
+        dynamoDBClientService.close();
+        httpClientService.close();
+    }
+
+    private static void roundTrip(DynamoDbClient client, int i) {
+        Map<String, AttributeValue> key = Map.of(
+                "listingId", AttributeValue.builder().s("benchmark-" + (i % 50)).build(),
+                "userId", AttributeValue.builder().s("benchmark@example.com").build());
+        client.putItem(PutItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .item(key)
+                .build());
+        Assertions.assertTrue(client.getItem(GetItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .key(key)
+                .build()).hasItem());
+    }
+
+    /**
+     * ConfigService stub pointing the clients at DynamoDB Local with the given transport and the default settings.
+     */
+    private static class BenchmarkConfigService extends ConfigService {
+
+        private final HttpClientType type;
+
+        BenchmarkConfigService(HttpClientType type) {
+            this.type = type;
+        }
+
+        @Override
+        public String getDynamoDbRegion() {
+            return "eu-south-1";
+        }
+
+        @Override
+        public Optional<String> getDynamoDbEndpointOverride() {
+            return Optional.of(endpoint);
+        }
+
+        @Override
+        public String getHttpClientType() {
+            return type.name();
+        }
+
+        @Override
+        public int getHttpMaxConnections() {
+            return 50;
+        }
+
+        @Override
+        public long getHttpConnectionTtlMillis() {
+            return 60000;
+        }
+
+        @Override
+        public boolean isHttpTcpKeepAlive() {
+            return true;
+        }
+
+        @Override
+        public long getHttpConnectTimeoutMillis() {
+            return 2000;
+        }
+
+        @Override
+        public long getHttpReadTimeoutMillis() {
+            return 5000;
+        }
+    }
+}
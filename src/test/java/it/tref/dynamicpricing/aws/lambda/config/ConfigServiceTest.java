@@ -0,0 +1,45 @@
+package it.tref.dynamicpricing.aws.lambda.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigServiceTest {
+
+    @Test
+    public void testCoalescingDelayWithinSqsLimits() {
+        ConfigService configService = validConfigService();
+
+        configService.inferenceCoalescingDelaySeconds = 0;
+        assertDoesNotThrow(configService::validate);
+        configService.inferenceCoalescingDelaySeconds = 900;
+        assertDoesNotThrow(configService::validate);
+
+        configService.inferenceCoalescingDelaySeconds = 901;
+        assertThrows(IllegalStateException.class, configService::validate);
+        configService.inferenceCoalescingDelaySeconds = -1;
+        assertThrows(IllegalStateException.class, configService::validate);
+    }
+
+    @Test
+    public void testCursorSigningKeyRequiredByTheApi() {
+        ConfigService configService = validConfigService();
+
+        configService.cursorSigningKey = Optional.empty();
+        assertThrows(IllegalStateException.class, configService::validate);
+        configService.cursorSigningKey = Optional.of(" ");
+        assertThrows(IllegalStateException.class, configService::validate);
+
+        configService.lambdaHandler = "pending-sweep";
+        assertDoesNotThrow(configService::validate);
+    }
+
+    private static ConfigService validConfigService() {
+        ConfigService configService = new ConfigService();
+        configService.lambdaHandler = ConfigService.API_HANDLER;
+        configService.cursorSigningKey = Optional.of("signing-key");
+        return configService;
+    }
+}
@@ -0,0 +1,73 @@
+package it.tref.dynamicpricing.aws.lambda.handler;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchCreateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchCreateListingResponse;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchItemResult;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.service.ListingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BatchCreateListingHandlerTest {
+
+    private MapperService mapperService;
+    private ListingService listingService;
+    private BatchCreateListingHandler batchCreateListingHandler;
+
+    @BeforeEach
+    public void setUp() {
+        mapperService = mock(MapperService.class);
+        listingService = mock(ListingService.class);
+        batchCreateListingHandler = new BatchCreateListingHandler(mapperService, listingService);
+    }
+
+    @Test
+    public void testHandleEventBatchCreateSuccess() {
+        String jsonPayload = "{\"listings\": [{\"name\": \"First\"}, {\"name\": \"Second\"}]}";
+
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        requestEvent.setBody(jsonPayload);
+        requestEvent.setHttpMethod("POST");
+        requestEvent.setPath("/listings:batch");
+
+        // Set up a valid request context with authorizer claims
+        APIGatewayProxyRequestEvent.ProxyRequestContext proxyRequestContext =
+                new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "test@example.com");
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", claims);
+        proxyRequestContext.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(proxyRequestContext);
+
+        BatchCreateListingRequest batchRequest = new BatchCreateListingRequest();
+        when(mapperService.readValue(jsonPayload, BatchCreateListingRequest.class)).thenReturn(batchRequest);
+
+        List<BatchItemResult> results = List.of(
+                new BatchItemResult(0, "id-1", BatchItemResult.Status.CREATED, null),
+                new BatchItemResult(1, "id-2", BatchItemResult.Status.QUEUE_FAILED, "Inference request could not be queued"));
+        when(listingService.createListings(eq(batchRequest), anyString())).thenReturn(results);
+        when(mapperService.writeValueAsString(any(BatchCreateListingResponse.class))).thenReturn("{\"results\":[]}");
+
+        APIGatewayProxyResponseEvent responseEvent = batchCreateListingHandler.handleEvent(requestEvent);
+
+        assertEquals(200, responseEvent.getStatusCode());
+        assertEquals("{\"results\":[]}", responseEvent.getBody());
+
+        ArgumentCaptor<BatchCreateListingResponse> responseCaptor = ArgumentCaptor.forClass(BatchCreateListingResponse.class);
+        verify(mapperService).writeValueAsString(responseCaptor.capture());
+        assertEquals(results, responseCaptor.getValue().getResults());
+        verify(listingService, times(1)).createListings(eq(batchRequest), eq("test@example.com"));
+    }
+}
@@ -4,6 +4,7 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import it.tref.dynamicpricing.aws.lambda.dto.CreateListingRequest;
 import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.service.IdempotencyService;
 import it.tref.dynamicpricing.aws.lambda.service.ListingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,13 +21,15 @@ public class CreateListingHandlerTest {
 
     private MapperService mapperService;
     private ListingService listingService;
+    private IdempotencyService idempotencyService;
     private CreateListingHandler createListingHandler;
 
     @BeforeEach
     public void setUp() {
         mapperService = mock(MapperService.class);
         listingService = mock(ListingService.class);
-        createListingHandler = new CreateListingHandler(mapperService, listingService);
+        idempotencyService = mock(IdempotencyService.class);
+        createListingHandler = new CreateListingHandler(mapperService, listingService, idempotencyService);
     }
 
     @Test
@@ -73,4 +76,30 @@ public class CreateListingHandlerTest {
         verify(listingService, times(1)).createListing(eq(createListingRequest), userIdCaptor.capture());
         assertNotNull(userIdCaptor.getValue());
     }
+
+    @Test
+    public void testHandleEventWithIdempotencyKeyRunsOnce() {
+        String jsonPayload = "{\"name\": \"Test Listing\"}";
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        requestEvent.setBody(jsonPayload);
+        requestEvent.setHttpMethod("POST");
+        requestEvent.setHeaders(Map.of("idempotency-key", "retry-key"));
+        APIGatewayProxyRequestEvent.ProxyRequestContext proxyRequestContext =
+                new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        proxyRequestContext.setAuthorizer(Map.of("claims", Map.of("email", "test@example.com")));
+        requestEvent.setRequestContext(proxyRequestContext);
+
+        CreateListingRequest createListingRequest = new CreateListingRequest();
+        createListingRequest.setName("Test Listing");
+        when(mapperService.readValue(jsonPayload, CreateListingRequest.class)).thenReturn(createListingRequest);
+        when(idempotencyService.isEnabled()).thenReturn(true);
+        when(idempotencyService.createOnce(eq("test@example.com"), eq("retry-key"), eq(jsonPayload), any()))
+                .thenReturn("original-id");
+
+        APIGatewayProxyResponseEvent responseEvent = createListingHandler.handleEvent(requestEvent);
+
+        assertEquals(201, responseEvent.getStatusCode());
+        assertEquals("/listings/original-id", responseEvent.getHeaders().get("Location"));
+        verify(listingService, never()).createListing(any(), anyString());
+    }
 }
@@ -4,12 +4,18 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import it.tref.dynamicpricing.aws.lambda.dto.ListListingsResponse;
 import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
 import it.tref.dynamicpricing.aws.lambda.service.ListingService;
+import it.tref.dynamicpricing.aws.lambda.util.CursorCodec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,13 +26,15 @@ public class ListListingHandlerTest {
 
     private MapperService mapperService;
     private ListingService listingService;
+    private CursorCodec cursorCodec;
     private ListListingHandler listListingHandler;
 
     @BeforeEach
     public void setUp() {
         mapperService = mock(MapperService.class);
         listingService = mock(ListingService.class);
-        listListingHandler = new ListListingHandler(mapperService, listingService);
+        cursorCodec = mock(CursorCodec.class);
+        listListingHandler = new ListListingHandler(mapperService, listingService, cursorCodec);
     }
 
     @Test
@@ -54,7 +62,7 @@ public class ListListingHandlerTest {
         listing2.setName("Listing Two");
         listing2.setCreatedAt(Instant.now());
 
-        when(listingService.listListings(anyString())).thenReturn(Arrays.asList(listing1, listing2));
+        when(listingService.listListings(anyString(), eq(ListingView.FULL))).thenReturn(Arrays.asList(listing1, listing2));
 
         String jsonResponse = "{\"listings\":[{\"listingId\":\"listing-1\",\"name\":\"Listing One\"}," +
                 "{\"listingId\":\"listing-2\",\"name\":\"Listing Two\"}]}";
@@ -65,4 +73,144 @@ public class ListListingHandlerTest {
         assertEquals(200, responseEvent.getStatusCode());
         assertEquals(jsonResponse, responseEvent.getBody());
     }
+
+    @Test
+    public void testHandleEventListPageWithCursor() {
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        APIGatewayProxyRequestEvent.ProxyRequestContext context = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> authorizer = new HashMap<>();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "user@example.com");
+        authorizer.put("claims", claims);
+        context.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(context);
+
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("limit", "1");
+        queryParams.put("cursor", "incoming-cursor");
+        queryParams.put("view", "summary");
+        requestEvent.setQueryStringParameters(queryParams);
+
+        Map<String, String> startKey = Map.of("listingId", "listing-1", "userId", "user@example.com");
+        Map<String, String> lastKey = Map.of("listingId", "listing-2", "userId", "user@example.com");
+        when(cursorCodec.decode("incoming-cursor", "user@example.com")).thenReturn(startKey);
+        when(cursorCodec.encode(lastKey, "user@example.com")).thenReturn("next-cursor");
+
+        Listing listing = new Listing();
+        listing.setListingId("listing-2");
+        listing.setUserId("user@example.com");
+        listing.setName("Listing Two");
+        when(listingService.listListings("user@example.com", 1, startKey, ListingView.SUMMARY))
+                .thenReturn(new ListingPage(Collections.singletonList(listing), lastKey));
+        when(mapperService.writeValueAsString(any(ListListingsResponse.class))).thenReturn("[]");
+
+        APIGatewayProxyResponseEvent responseEvent = listListingHandler.handleEvent(requestEvent);
+
+        assertEquals(200, responseEvent.getStatusCode());
+        assertEquals("next-cursor", responseEvent.getHeaders().get(ListListingHandler.NEXT_CURSOR_HEADER));
+        verify(listingService, never()).listListings(anyString(), any(ListingView.class));
+    }
+
+    @Test
+    public void testHandleEventListByIds() {
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        APIGatewayProxyRequestEvent.ProxyRequestContext context = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> authorizer = new HashMap<>();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "user@example.com");
+        authorizer.put("claims", claims);
+        context.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(context);
+        requestEvent.setQueryStringParameters(Collections.singletonMap("ids", "listing-2, listing-1,,"));
+
+        Listing listing = new Listing();
+        listing.setListingId("listing-2");
+        listing.setUserId("user@example.com");
+        when(listingService.getListings(Arrays.asList("listing-2", "listing-1"), "user@example.com", ListingView.FULL))
+                .thenReturn(Collections.singletonList(listing));
+        when(mapperService.writeValueAsString(any(ListListingsResponse.class))).thenReturn("[]");
+
+        APIGatewayProxyResponseEvent responseEvent = listListingHandler.handleEvent(requestEvent);
+
+        assertEquals(200, responseEvent.getStatusCode());
+        verify(listingService).getListings(Arrays.asList("listing-2", "listing-1"), "user@example.com", ListingView.FULL);
+        verify(listingService, never()).listListings(anyString(), any(ListingView.class));
+    }
+
+    @Test
+    public void testHandleEventListByIdsWithSummaryView() {
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        APIGatewayProxyRequestEvent.ProxyRequestContext context = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> authorizer = new HashMap<>();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "user@example.com");
+        authorizer.put("claims", claims);
+        context.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(context);
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("ids", "listing-1");
+        queryParams.put("view", "summary");
+        requestEvent.setQueryStringParameters(queryParams);
+
+        when(listingService.getListings(Collections.singletonList("listing-1"), "user@example.com", ListingView.SUMMARY))
+                .thenReturn(Collections.emptyList());
+        when(mapperService.writeValueAsString(any(ListListingsResponse.class))).thenReturn("[]");
+
+        APIGatewayProxyResponseEvent responseEvent = listListingHandler.handleEvent(requestEvent);
+
+        assertEquals(200, responseEvent.getStatusCode());
+        verify(listingService).getListings(Collections.singletonList("listing-1"), "user@example.com", ListingView.SUMMARY);
+    }
+
+    @Test
+    public void testHandleEventListNewestFirstInCreationRange() {
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        APIGatewayProxyRequestEvent.ProxyRequestContext context = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> authorizer = new HashMap<>();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "user@example.com");
+        authorizer.put("claims", claims);
+        context.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(context);
+
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("limit", "20");
+        queryParams.put("createdAfter", "2024-01-01T00:00:00Z");
+        requestEvent.setQueryStringParameters(queryParams);
+
+        Map<String, String> lastKey = Map.of("listingId", "listing-2", "userId", "user@example.com",
+                "createdAt", "2024-02-01T00:00:00Z");
+        when(cursorCodec.encode(lastKey, "user@example.com")).thenReturn("next-cursor");
+        when(listingService.listListings(eq("user@example.com"), any(CreationTimeQuery.class), eq(20), isNull(),
+                eq(ListingView.FULL))).thenReturn(new ListingPage(Collections.emptyList(), lastKey));
+        when(mapperService.writeValueAsString(any(ListListingsResponse.class))).thenReturn("[]");
+
+        APIGatewayProxyResponseEvent responseEvent = listListingHandler.handleEvent(requestEvent);
+
+        assertEquals(200, responseEvent.getStatusCode());
+        assertEquals("next-cursor", responseEvent.getHeaders().get(ListListingHandler.NEXT_CURSOR_HEADER));
+        ArgumentCaptor<CreationTimeQuery> captor = ArgumentCaptor.forClass(CreationTimeQuery.class);
+        verify(listingService).listListings(eq("user@example.com"), captor.capture(), eq(20), isNull(),
+                eq(ListingView.FULL));
+        assertEquals(Instant.parse("2024-01-01T00:00:00Z"), captor.getValue().getCreatedAfter());
+        assertNull(captor.getValue().getCreatedBefore());
+        assertTrue(captor.getValue().isNewestFirst());
+        verify(listingService, never()).listListings(anyString(), anyInt(), any(), any(ListingView.class));
+    }
+
+    @Test
+    public void testHandleEventRejectsInvalidCreationTime() {
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        APIGatewayProxyRequestEvent.ProxyRequestContext context = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> authorizer = new HashMap<>();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "user@example.com");
+        authorizer.put("claims", claims);
+        context.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(context);
+        requestEvent.setQueryStringParameters(Collections.singletonMap("createdBefore", "yesterday"));
+
+        assertThrows(IllegalArgumentException.class, () -> listListingHandler.handleEvent(requestEvent));
+        verifyNoInteractions(listingService);
+    }
 }
@@ -0,0 +1,58 @@
+package it.tref.dynamicpricing.aws.lambda.handler;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import it.tref.dynamicpricing.aws.lambda.dto.PatchListingRequest;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.service.ListingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PatchListingHandlerTest {
+
+    private MapperService mapperService;
+    private ListingService listingService;
+    private PatchListingHandler patchListingHandler;
+
+    @BeforeEach
+    public void setUp() {
+        mapperService = mock(MapperService.class);
+        listingService = mock(ListingService.class);
+        patchListingHandler = new PatchListingHandler(mapperService, listingService);
+    }
+
+    @Test
+    public void testHandleEventPatchSuccess() {
+        String jsonPayload = "{\"attributes\": {\"color\": \"red\", \"size\": null}}";
+
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        requestEvent.setBody(jsonPayload);
+        requestEvent.setHttpMethod("PATCH");
+        requestEvent.setPathParameters(Map.of("listingId", "test-id"));
+
+        // Set up a valid request context with authorizer claims
+        APIGatewayProxyRequestEvent.ProxyRequestContext proxyRequestContext =
+                new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "user@example.com");
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", claims);
+        proxyRequestContext.setAuthorizer(authorizer);
+        requestEvent.setRequestContext(proxyRequestContext);
+
+        PatchListingRequest patchRequest = new PatchListingRequest();
+        when(mapperService.readValue(jsonPayload, PatchListingRequest.class)).thenReturn(patchRequest);
+
+        APIGatewayProxyResponseEvent responseEvent = patchListingHandler.handleEvent(requestEvent);
+
+        assertEquals(204, responseEvent.getStatusCode());
+        assertNull(responseEvent.getBody());
+        verify(listingService, times(1)).patchListing("test-id", patchRequest, "user@example.com");
+    }
+}
@@ -52,7 +52,7 @@ public class RetrieveListingHandlerTest {
         listing.setName("Test Listing");
         listing.setCreatedAt(Instant.now());
 
-        when(listingService.getListing(eq(listingId), anyString())).thenReturn(listing);
+        when(listingService.getListing(eq(listingId), anyString(), eq(false))).thenReturn(listing);
 
         GetListingResponse responseDto = new GetListingResponse();
         responseDto.setListing(listing);
@@ -65,7 +65,7 @@ public class RetrieveListingHandlerTest {
         assertEquals(responseBody, responseEvent.getBody());
 
         ArgumentCaptor<String> userIdCaptor = ArgumentCaptor.forClass(String.class);
-        verify(listingService, times(1)).getListing(eq(listingId), userIdCaptor.capture());
+        verify(listingService, times(1)).getListing(eq(listingId), userIdCaptor.capture(), eq(false));
         assertEquals("user@example.com", userIdCaptor.getValue());
     }
 }
@@ -0,0 +1,93 @@
+package it.tref.dynamicpricing.aws.lambda.mapper;
+
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Measures the time and the heap allocated per conversion of the listing mapper, for listings of growing size.
+ * <p>
+ * Allocations are read from the thread allocation counter of HotSpot. Excluded from the default test task;
+ * run with {@code ./gradlew benchmarkTest}.
+ * </p>
+ */
+@Tag("benchmark")
+public class ListingMapperBenchmarkTest {
+
+    private static final int WARMUP_OPERATIONS = 20_000;
+    private static final int MEASURED_OPERATIONS = 100_000;
+
+    private final DynamoDBListingMapper dynamoDBListingMapper = new DynamoDBListingMapper(0);
+
+    /**
+     * Keeps the results reachable, so that the conversions are not optimized away.
+     */
+    private Object sink;
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50, 500})
+    public void benchmarkConversions(int size) {
+        Listing listing = listing(size);
+        Map<String, AttributeValue> item = dynamoDBListingMapper.toDynamoDbItem(listing);
+
+        measure("toDynamoDbItem", size, () -> dynamoDBListingMapper.toDynamoDbItem(listing));
+        measure("fromDynamoDbItem", size, () -> dynamoDBListingMapper.fromDynamoDbItem(item));
+        measure("toAttributesValue", size, () -> ListingItemCodec.toAttributesValue(listing.getAttributes(), 0));
+        Assertions.assertNotNull(sink);
+    }
+
+    private void measure(String operation, int size, Supplier<Object> conversion) {
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            sink = conversion.get();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            sink = conversion.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-18s size=%-4d %10.1f ns/op %10.1f bytes/op%n", operation, size,
+                (double) elapsed / MEASURED_OPERATIONS, (double) allocated / MEASURED_OPERATIONS);
+    }
+
+    /**
+     * Builds a listing with the given number of attributes, a fifth of them lists, and a prediction of the given
+     * number of points.
+     */
+    private static Listing listing(int size) {
+        Listing listing = new Listing();
+        listing.setListingId("benchmark-listing");
+        listing.setUserId("benchmark@example.com");
+        listing.setName("Benchmark Listing");
+        for (int i = 0; i < size; i++) {
+            if (i % 5 == 0) {
+                listing.addAttribute("list-" + i, List.of("a" + i, "b" + i, "c" + i));
+            } else {
+                listing.addAttribute("attribute-" + i, "value-" + i);
+            }
+        }
+        double[] points = new double[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = 100.0 + i / 10.0;
+        }
+        Map<String, double[]> prediction = new HashMap<>();
+        prediction.put("price", points);
+        listing.setPrediction(prediction);
+        listing.setCompleted(true);
+        return listing;
+    }
+}
@@ -7,7 +7,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 @QuarkusTest
 public class ListingMapperTest {
@@ -37,4 +44,279 @@ public class ListingMapperTest {
         Assertions.assertEquals(listing.isCompleted(), convertedListing.isCompleted());
         Assertions.assertEquals(listing.getAttributes(), convertedListing.getAttributes());
     }
+
+    @Test
+    public void testFromSummaryItemOmitsAttributesAndPrediction() {
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.setName("Summary Listing");
+        listing.addAttribute("color", "blue");
+
+        Map<String, AttributeValue> item = dynamoDBListingMapper.toDynamoDbItem(listing);
+
+        Listing summary = dynamoDBListingMapper.fromSummaryItem(item);
+
+        Assertions.assertEquals("testId", summary.getListingId());
+        Assertions.assertEquals("Summary Listing", summary.getName());
+        Assertions.assertEquals(listing.getCreatedAt(), summary.getCreatedAt());
+        Assertions.assertNull(summary.getAttributes());
+        Assertions.assertNull(summary.getPrediction());
+    }
+
+    @Test
+    public void testCompressedAttributesAndPredictionRoundTrip() {
+        DynamoDBListingMapper compressingMapper = new DynamoDBListingMapper(64, 0, 0, true);
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.setName("Compressed Listing");
+        listing.addAttribute("description", "A long description. ".repeat(50));
+        listing.addAttribute("amenities", List.of("wifi", "parking", "pool"));
+        // A year of daily prices with a weekly pattern
+        double[] prices = new double[365];
+        for (int day = 0; day < prices.length; day++) {
+            prices[day] = 100.0 + (day % 7) * 2.5;
+        }
+        Map<String, double[]> prediction = new HashMap<>();
+        prediction.put("price", prices);
+        listing.setPrediction(prediction);
+
+        Map<String, AttributeValue> item = compressingMapper.toDynamoDbItem(listing);
+
+        Assertions.assertNotNull(item.get("attributes").b());
+        Assertions.assertEquals(CompressedPayloadCodec.GZIP_FORMAT, item.get("attributes").b().asByteArray()[0]);
+        Assertions.assertEquals(CompressedPayloadCodec.GZIP_PACKED_FORMAT, item.get("prediction").b().asByteArray()[0]);
+
+        // Both the compressing and the default mapper read the compressed layout
+        Listing converted = dynamoDBListingMapper.fromDynamoDbItem(item);
+        Assertions.assertEquals(listing.getAttributes(), converted.getAttributes());
+        Assertions.assertArrayEquals(prices, converted.getPrediction().get("price"));
+        Assertions.assertEquals(listing.getAttributes(), compressingMapper.fromDynamoDbItem(item).getAttributes());
+    }
+
+    @Test
+    public void testSmallPayloadsKeepMapLayout() {
+        DynamoDBListingMapper compressingMapper = new DynamoDBListingMapper(4096, 0, 0, true);
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.addAttribute("color", "blue");
+        listing.setPrediction(Map.of("price", new double[]{100.0}));
+
+        Map<String, AttributeValue> item = compressingMapper.toDynamoDbItem(listing);
+
+        Assertions.assertNull(item.get("attributes").b());
+        Assertions.assertEquals("blue", item.get("attributes").m().get("color").s());
+        byte[] packed = item.get("prediction").b().asByteArray();
+        Assertions.assertEquals(CompressedPayloadCodec.PACKED_FORMAT, packed[0]);
+        Assertions.assertEquals(1 + 4 + 4 + "price".length() + 4 + 8, packed.length);
+        Listing converted = compressingMapper.fromDynamoDbItem(item);
+        Assertions.assertEquals(listing.getAttributes(), converted.getAttributes());
+        Assertions.assertArrayEquals(new double[]{100.0}, converted.getPrediction().get("price"));
+    }
+
+    @Test
+    public void testSortableTimestampHasFixedWidth() {
+        String wholeSecond = DynamoDBListingMapper.sortableTimestamp(Instant.parse("2024-01-01T00:00:00Z"));
+        String halfSecond = DynamoDBListingMapper.sortableTimestamp(Instant.parse("2024-01-01T00:00:00.5Z"));
+
+        Assertions.assertEquals("2024-01-01T00:00:00.000000000Z", wholeSecond);
+        Assertions.assertEquals("2024-01-01T00:00:00.500000000Z", halfSecond);
+        Assertions.assertTrue(wholeSecond.compareTo(halfSecond) < 0);
+        Assertions.assertEquals(Instant.parse("2024-01-01T00:00:00.5Z"), Instant.parse(halfSecond));
+    }
+
+    @Test
+    public void testCreatedAtIsStoredWithFixedWidth() {
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.setCreatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+
+        Map<String, AttributeValue> item = dynamoDBListingMapper.toDynamoDbItem(listing);
+
+        Assertions.assertEquals("2024-01-01T00:00:00.000000000Z", item.get("createdAt").s());
+        Assertions.assertEquals(listing.getCreatedAt(), dynamoDBListingMapper.fromDynamoDbItem(item).getCreatedAt());
+    }
+
+    @Test
+    public void testPendingIndexKeysOnlyWhilePending() {
+        DynamoDBListingMapper pendingIndexMapper = new DynamoDBListingMapper(0, 4);
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+
+        Map<String, AttributeValue> pendingItem = pendingIndexMapper.toDynamoDbItem(listing);
+        listing.setCompleted(true);
+        Map<String, AttributeValue> completedItem = pendingIndexMapper.toDynamoDbItem(listing);
+
+        Assertions.assertEquals(DynamoDBListingMapper.pendingShard("testId", 4),
+                pendingItem.get(DynamoDBListingMapper.PENDING_SHARD).s());
+        Assertions.assertEquals(DynamoDBListingMapper.sortableTimestamp(listing.getCreatedAt()),
+                pendingItem.get(DynamoDBListingMapper.PENDING_SINCE).s());
+        Assertions.assertFalse(completedItem.containsKey(DynamoDBListingMapper.PENDING_SHARD));
+        Assertions.assertFalse(completedItem.containsKey(DynamoDBListingMapper.PENDING_SINCE));
+        Assertions.assertFalse(dynamoDBListingMapper.toDynamoDbItem(listing).containsKey(DynamoDBListingMapper.PENDING_SHARD));
+    }
+
+    @Test
+    public void testUserShardKeyWrittenWhenEnabled() {
+        DynamoDBListingMapper userShardMapper = new DynamoDBListingMapper(0, 0, 8);
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+
+        String userShard = userShardMapper.toDynamoDbItem(listing).get(DynamoDBListingMapper.USER_SHARD).s();
+
+        Assertions.assertEquals(DynamoDBListingMapper.userShard("user123", "testId", 8), userShard);
+        Assertions.assertTrue(userShard.startsWith("user123#"));
+        int shard = Integer.parseInt(userShard.substring("user123#".length()));
+        Assertions.assertTrue(shard >= 0 && shard < 8);
+        Assertions.assertFalse(dynamoDBListingMapper.toDynamoDbItem(listing).containsKey(DynamoDBListingMapper.USER_SHARD));
+    }
+
+    @Test
+    public void testListsAndPredictionRoundTripWithSharedFlags() {
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.setCompleted(true);
+        listing.addAttribute("tags", List.of("a", "b"));
+        Map<String, double[]> prediction = new HashMap<>();
+        prediction.put("price", new double[]{1.5, 2.5, 3.5});
+        listing.setPrediction(prediction);
+
+        Map<String, AttributeValue> item = dynamoDBListingMapper.toDynamoDbItem(listing);
+        Listing convertedListing = dynamoDBListingMapper.fromDynamoDbItem(item);
+
+        Assertions.assertSame(ListingItemCodec.TRUE, item.get("completed"));
+        Assertions.assertEquals(List.of("a", "b"), convertedListing.getAttributes().get("tags"));
+        Assertions.assertArrayEquals(new double[]{1.5, 2.5, 3.5}, convertedListing.getPrediction().get("price"));
+    }
+
+    @Test
+    public void testLegacyPredictionMapLayoutIsRead() {
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.setPrediction(new HashMap<>());
+        Map<String, AttributeValue> item = new HashMap<>(dynamoDBListingMapper.toDynamoDbItem(listing));
+        Assertions.assertSame(ListingItemCodec.EMPTY_MAP, item.get("prediction"));
+
+        item.put("prediction", AttributeValue.builder().m(Map.of("price", AttributeValue.builder().l(
+                AttributeValue.builder().n("99.5").build(),
+                AttributeValue.builder().n("101").build()).build())).build());
+
+        Assertions.assertArrayEquals(new double[]{99.5, 101.0},
+                dynamoDBListingMapper.fromDynamoDbItem(item).getPrediction().get("price"));
+    }
+
+    @Test
+    public void testPredictionIsWrittenAsMapUntilPackedWritesAreEnabled() {
+        DynamoDBListingMapper legacyWriter = new DynamoDBListingMapper(0);
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        Map<String, double[]> prediction = new HashMap<>();
+        prediction.put("price", new double[]{99.5, 101.0});
+        listing.setPrediction(prediction);
+
+        Map<String, AttributeValue> item = legacyWriter.toDynamoDbItem(listing);
+
+        Assertions.assertNull(item.get("prediction").b());
+        Assertions.assertEquals(List.of(AttributeValue.builder().n("99.5").build(),
+                AttributeValue.builder().n("101.0").build()), item.get("prediction").m().get("price").l());
+        Assertions.assertArrayEquals(new double[]{99.5, 101.0},
+                dynamoDBListingMapper.fromDynamoDbItem(item).getPrediction().get("price"));
+    }
+
+    @Test
+    public void testTypedAttributesRoundTripInBothLayouts() {
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user123");
+        listing.addAttribute("color", "blue");
+        listing.addAttribute("rooms", 3);
+        listing.addAttribute("price", 99.5);
+        listing.addAttribute("furnished", true);
+        listing.addAttribute("scores", List.of(1, 2.5, "n/a"));
+        listing.addAttribute("address", Map.of("city", "Rome", "floor", 2));
+
+        Map<String, AttributeValue> item = new DynamoDBListingMapper(0).toDynamoDbItem(listing);
+        Map<String, AttributeValue> stored = item.get("attributes").m();
+        Assertions.assertEquals("3", stored.get("rooms").n());
+        Assertions.assertEquals("99.5", stored.get("price").n());
+        Assertions.assertTrue(stored.get("furnished").bool());
+        Assertions.assertEquals("Rome", stored.get("address").m().get("city").s());
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("color", "blue");
+        expected.put("rooms", 3L);
+        expected.put("price", 99.5);
+        expected.put("furnished", true);
+        expected.put("scores", List.of(1L, 2.5, "n/a"));
+        expected.put("address", Map.of("city", "Rome", "floor", 2L));
+        Assertions.assertEquals(expected, new DynamoDBListingMapper(0).fromDynamoDbItem(item).getAttributes());
+
+        Map<String, AttributeValue> compressedItem = new DynamoDBListingMapper(1).toDynamoDbItem(listing);
+        Assertions.assertNotNull(compressedItem.get("attributes").b());
+        Assertions.assertEquals(expected, new DynamoDBListingMapper(1).fromDynamoDbItem(compressedItem).getAttributes());
+    }
+
+    @Test
+    public void testNumbersBeyondDynamoDbLimitsAreStoredAsStrings() {
+        BigInteger tooPrecise = new BigInteger("1234567890123456789012345678901234567890");
+        BigDecimal tooSmall = new BigDecimal("1E-131");
+
+        Assertions.assertEquals("1.0E126", TypedAttributeCodec.encode(1E126).s());
+        Assertions.assertEquals("1.0E-131", TypedAttributeCodec.encode(1E-131).s());
+        Assertions.assertEquals(tooPrecise.toString(), TypedAttributeCodec.encode(tooPrecise).s());
+        Assertions.assertEquals(tooSmall.toString(), TypedAttributeCodec.encode(tooSmall).s());
+        Assertions.assertEquals("9.99E125", TypedAttributeCodec.encode(9.99E125).n());
+        Assertions.assertEquals("0.0", TypedAttributeCodec.encode(0.0).n());
+        Assertions.assertEquals("12345678901234567890123456789012345678",
+                TypedAttributeCodec.encode(new BigInteger("12345678901234567890123456789012345678")).n());
+        Assertions.assertEquals("1E+125", TypedAttributeCodec.encode(new BigDecimal("1E+125")).n());
+        // Trailing zeros do not count as significant digits
+        Assertions.assertNotNull(TypedAttributeCodec.encode(BigInteger.TEN.pow(100)).n());
+    }
+
+    @Test
+    public void testAttributesFingerprintIsCanonical() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("color", "red");
+        attributes.put("rooms", 3);
+        attributes.put("tags", List.of("sea", "view"));
+        Map<String, Object> reordered = new TreeMap<>(Comparator.reverseOrder());
+        reordered.put("tags", List.of("sea", "view"));
+        reordered.put("rooms", 3.0);
+        reordered.put("color", "red");
+
+        Assertions.assertEquals(AttributesFingerprint.of(attributes), AttributesFingerprint.of(reordered));
+        Assertions.assertNotEquals(AttributesFingerprint.of(attributes), AttributesFingerprint.of(Map.of("color", "red")));
+        Assertions.assertNotEquals(AttributesFingerprint.of(Map.of("rooms", 3)), AttributesFingerprint.of(Map.of("rooms", "3")));
+
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user@example.com");
+        attributes.forEach(listing::addAttribute);
+        Map<String, AttributeValue> item = dynamoDBListingMapper.toDynamoDbItem(listing);
+        Assertions.assertEquals(AttributesFingerprint.of(attributes), item.get(DynamoDBListingMapper.FINGERPRINT).s());
+    }
+
+    @Test
+    public void testAttributesFingerprintSkipsTopLevelNulls() {
+        Map<String, Object> withNull = new HashMap<>();
+        withNull.put("a", 1);
+        withNull.put("b", null);
+        Map<String, Object> nestedNull = new HashMap<>();
+        nestedNull.put("b", null);
+
+        Assertions.assertEquals(AttributesFingerprint.of(Map.of("a", 1)), AttributesFingerprint.of(withNull));
+        Assertions.assertEquals(AttributesFingerprint.of(Map.of()), AttributesFingerprint.of(nestedNull));
+        // Nested nulls are stored, so they still count
+        Assertions.assertNotEquals(AttributesFingerprint.of(Map.of("m", Map.of())),
+                AttributesFingerprint.of(Map.of("m", nestedNull)));
+    }
 }
@@ -0,0 +1,222 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.DynamoDBTestResource;
+import it.tref.dynamicpricing.aws.lambda.cache.ListingCache;
+import it.tref.dynamicpricing.aws.lambda.client.DynamoDBAsyncClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the asynchronous batch writes on DynamoDB Local.
+ * <p>
+ * An interceptor on the client can hold back the last item of the next BatchWriteItem and report it as unprocessed,
+ * as DynamoDB does when a partition is throttled.
+ * </p>
+ */
+public class DynamoDBAsyncListingRepositoryTest {
+
+    private static final String TABLE_NAME = "dynamic-pricing-demo-listings";
+    private static final String USER_ID = "async@example.com";
+
+    private static DynamoDBTestResource dynamoDBTestResource;
+    private static DynamoDbAsyncClient asyncClient;
+    private static DynamoDbClient client;
+    private static final AtomicInteger batchWriteCalls = new AtomicInteger();
+    private static final AtomicInteger itemsToHoldBack = new AtomicInteger();
+    private static final AtomicReference<WriteRequest> heldBack = new AtomicReference<>();
+
+    private ConfigService configService;
+    private ListingCache listingCache;
+    private DynamoDBAsyncListingRepository repository;
+
+    @BeforeAll
+    public static void startDynamoDB() {
+        dynamoDBTestResource = new DynamoDBTestResource();
+        String endpoint = dynamoDBTestResource.start().get("quarkus.dynamodb.endpoint-override");
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy"));
+        asyncClient = DynamoDbAsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of("eu-south-1"))
+                .credentialsProvider(credentials)
+                .overrideConfiguration(config -> config.addExecutionInterceptor(new HoldBackInterceptor()))
+                .build();
+        client = DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of("eu-south-1"))
+                .credentialsProvider(credentials)
+                .build();
+    }
+
+    @AfterAll
+    public static void stopDynamoDB() {
+        asyncClient.close();
+        client.close();
+        dynamoDBTestResource.stop();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        batchWriteCalls.set(0);
+        itemsToHoldBack.set(0);
+        heldBack.set(null);
+
+        configService = mock(ConfigService.class);
+        when(configService.getDynamoDbListingTableName()).thenReturn(TABLE_NAME);
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        when(configService.getListingCacheMaxSize()).thenReturn(100);
+        when(configService.getListingCacheTtlMillis()).thenReturn(60_000L);
+
+        DynamoDBAsyncClientService asyncClientService = mock(DynamoDBAsyncClientService.class);
+        when(asyncClientService.execute(any())).thenAnswer(invocation ->
+                ((Function<DynamoDbAsyncClient, CompletableFuture<?>>) invocation.getArgument(0)).apply(asyncClient));
+
+        listingCache = new ListingCache(configService);
+        repository = new DynamoDBAsyncListingRepository(asyncClientService, configService,
+                new DynamoDBListingMapper(0), listingCache);
+    }
+
+    @Test
+    public void testSaveAllRetriesUnprocessedItems() {
+        List<Listing> listings = listings("retried", DynamoDBListingRepository.BATCH_WRITE_MAX_ITEMS + 5);
+        itemsToHoldBack.set(1);
+
+        List<Listing> failed = repository.saveAll(listings).join();
+
+        assertTrue(failed.isEmpty());
+        assertNotNull(heldBack.get(), "An item should have been held back");
+        assertEquals(3, batchWriteCalls.get(), "Two chunks plus one retry of the unprocessed item");
+        for (Listing listing : listings) {
+            assertTrue(exists(listing), "Listing " + listing.getListingId() + " should have been written");
+        }
+    }
+
+    @Test
+    public void testSaveAllReportsItemsStillUnprocessedAfterTheLastAttempt() {
+        when(configService.getBatchMaxAttempts()).thenReturn(1);
+        List<Listing> listings = listings("unprocessed", 3);
+        itemsToHoldBack.set(1);
+
+        List<Listing> failed = repository.saveAll(listings).join();
+
+        String heldBackId = heldBack.get().putRequest().item().get("listingId").s();
+        assertEquals(1, failed.size());
+        assertEquals(heldBackId, failed.get(0).getListingId());
+        assertEquals(1, batchWriteCalls.get());
+        assertFalse(exists(failed.get(0)));
+    }
+
+    @Test
+    public void testSaveAllInvalidatesCachedListings() {
+        List<Listing> listings = listings("cached", 2);
+        listings.forEach(listingCache::put);
+        assertNotNull(listingCache.get(listings.get(0).getListingId(), USER_ID).getListing());
+
+        repository.saveAll(listings).join();
+
+        for (Listing listing : listings) {
+            ListingCache.Lookup lookup = listingCache.get(listing.getListingId(), USER_ID);
+            assertNull(lookup.getListing());
+            assertTrue(lookup.isConsistentReadRequired());
+        }
+    }
+
+    private static boolean exists(Listing listing) {
+        return client.getItem(GetItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .key(Map.of(
+                        "listingId", AttributeValue.builder().s(listing.getListingId()).build(),
+                        "userId", AttributeValue.builder().s(listing.getUserId()).build()))
+                .consistentRead(true)
+                .build()).hasItem();
+    }
+
+    private static List<Listing> listings(String prefix, int count) {
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Listing listing = new Listing();
+            listing.setListingId(prefix + "-" + i);
+            listing.setUserId(USER_ID);
+            listing.setName("Async listing " + i);
+            listing.setCreatedAt(Instant.now());
+            listing.addAttribute("rooms", i);
+            listings.add(listing);
+        }
+        return listings;
+    }
+
+    /**
+     * Holds back the last item of a BatchWriteItem while items to hold back remain, and returns it as unprocessed.
+     */
+    private static class HoldBackInterceptor implements ExecutionInterceptor {
+
+        private static final ExecutionAttribute<WriteRequest> HELD_BACK = new ExecutionAttribute<>("HeldBackWriteRequest");
+
+        @Override
+        public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+            if (!(context.request() instanceof BatchWriteItemRequest)) {
+                return context.request();
+            }
+            batchWriteCalls.incrementAndGet();
+            BatchWriteItemRequest request = (BatchWriteItemRequest) context.request();
+            List<WriteRequest> writeRequests = request.requestItems().get(TABLE_NAME);
+            if (writeRequests.size() < 2 || itemsToHoldBack.getAndUpdate(n -> Math.max(0, n - 1)) == 0) {
+                return request;
+            }
+            WriteRequest writeRequest = writeRequests.get(writeRequests.size() - 1);
+            heldBack.set(writeRequest);
+            executionAttributes.putAttribute(HELD_BACK, writeRequest);
+            return request.toBuilder()
+                    .requestItems(Map.of(TABLE_NAME, writeRequests.subList(0, writeRequests.size() - 1)))
+                    .build();
+        }
+
+        @Override
+        public SdkResponse modifyResponse(Context.ModifyResponse context, ExecutionAttributes executionAttributes) {
+            if (!(context.response() instanceof BatchWriteItemResponse)) {
+                return context.response();
+            }
+            WriteRequest writeRequest = executionAttributes.getAttribute(HELD_BACK);
+            if (writeRequest == null) {
+                return context.response();
+            }
+            return ((BatchWriteItemResponse) context.response()).toBuilder()
+                    .unprocessedItems(Map.of(TABLE_NAME, List.of(writeRequest)))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.DynamoDBTestResource;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.model.IdempotencyRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the conditional writes of the idempotency records on DynamoDB Local.
+ */
+public class DynamoDBIdempotencyRepositoryTest {
+
+    private static final String TABLE_NAME = "dynamic-pricing-demo-idempotency";
+    private static final String REQUEST_HASH = "request-hash";
+
+    private static DynamoDBTestResource dynamoDBTestResource;
+    private static DynamoDbClient client;
+
+    private DynamoDBIdempotencyRepository idempotencyRepository;
+    private Instant now;
+
+    @BeforeAll
+    public static void startDynamoDB() {
+        dynamoDBTestResource = new DynamoDBTestResource();
+        String endpoint = dynamoDBTestResource.start().get("quarkus.dynamodb.endpoint-override");
+        client = DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of("eu-south-1"))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy")))
+                .build();
+        client.createTable(CreateTableRequest.builder()
+                .tableName(TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .keySchema(KeySchemaElement.builder().attributeName("idempotencyKey").keyType(KeyType.HASH).build())
+                .attributeDefinitions(AttributeDefinition.builder()
+                        .attributeName("idempotencyKey")
+                        .attributeType(ScalarAttributeType.S)
+                        .build())
+                .build());
+    }
+
+    @AfterAll
+    public static void stopDynamoDB() {
+        client.close();
+        dynamoDBTestResource.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getIdempotencyTableName()).thenReturn(Optional.of(TABLE_NAME));
+        idempotencyRepository = new DynamoDBIdempotencyRepository(client, configService);
+        now = Instant.now();
+    }
+
+    @Test
+    public void testClaimIsExclusiveWhileInProgress() {
+        assertNull(idempotencyRepository.claim(record("exclusive", "first", 60, IdempotencyRecord.Status.IN_PROGRESS), now));
+
+        IdempotencyRecord existing = idempotencyRepository.claim(
+                record("exclusive", "second", 60, IdempotencyRecord.Status.IN_PROGRESS), now);
+
+        assertNotNull(existing);
+        assertEquals("first", existing.getListingId());
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, existing.getStatus());
+    }
+
+    @Test
+    public void testClaimOverwritesExpiredCompletedRecord() {
+        put(record("expired-completed", "first", -10, IdempotencyRecord.Status.COMPLETED));
+
+        assertNull(idempotencyRepository.claim(
+                record("expired-completed", "second", 60, IdempotencyRecord.Status.IN_PROGRESS), now));
+
+        assertEquals("second", get("expired-completed").getListingId());
+    }
+
+    @Test
+    public void testExpiredLeaseIsTakenOverWithItsListingId() {
+        put(record("expired-lease", "first", -10, IdempotencyRecord.Status.IN_PROGRESS));
+
+        IdempotencyRecord existing = idempotencyRepository.claim(
+                record("expired-lease", "second", 60, IdempotencyRecord.Status.IN_PROGRESS), now);
+
+        assertNotNull(existing, "An expired in-progress claim must not be overwritten by a new listingId");
+        assertEquals("first", existing.getListingId());
+        IdempotencyRecord takeOver = record("expired-lease", existing.getListingId(), 60, IdempotencyRecord.Status.IN_PROGRESS);
+        assertTrue(idempotencyRepository.takeOver(existing, takeOver));
+        IdempotencyRecord stored = get("expired-lease");
+        assertEquals("first", stored.getListingId());
+        assertEquals(takeOver.getExpiresAt().getEpochSecond(), stored.getExpiresAt().getEpochSecond());
+
+        // A second retry holding the same stale record loses the race
+        assertFalse(idempotencyRepository.takeOver(existing, takeOver));
+    }
+
+    @Test
+    public void testFailedClaimIsTakenOverWithItsListingId() {
+        put(record("failed", "first", 3600, IdempotencyRecord.Status.FAILED));
+
+        IdempotencyRecord existing = idempotencyRepository.claim(
+                record("failed", "second", 60, IdempotencyRecord.Status.IN_PROGRESS), now);
+
+        assertEquals(IdempotencyRecord.Status.FAILED, existing.getStatus());
+        assertTrue(idempotencyRepository.takeOver(existing,
+                record("failed", existing.getListingId(), 60, IdempotencyRecord.Status.IN_PROGRESS)));
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, get("failed").getStatus());
+        assertEquals("first", get("failed").getListingId());
+    }
+
+    @Test
+    public void testCompleteIsConditionedOnListingId() {
+        put(record("complete", "first", 60, IdempotencyRecord.Status.IN_PROGRESS));
+
+        assertFalse(idempotencyRepository.complete(record("complete", "other", 3600, IdempotencyRecord.Status.COMPLETED)));
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, get("complete").getStatus());
+
+        assertTrue(idempotencyRepository.complete(record("complete", "first", 3600, IdempotencyRecord.Status.COMPLETED)));
+        assertTrue(get("complete").isCompleted());
+    }
+
+    @Test
+    public void testFailIsConditionedOnListingIdAndProgress() {
+        put(record("fail", "first", 60, IdempotencyRecord.Status.IN_PROGRESS));
+
+        idempotencyRepository.fail(record("fail", "other", 3600, IdempotencyRecord.Status.FAILED));
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, get("fail").getStatus());
+
+        idempotencyRepository.fail(record("fail", "first", 3600, IdempotencyRecord.Status.FAILED));
+        IdempotencyRecord failed = get("fail");
+        assertEquals(IdempotencyRecord.Status.FAILED, failed.getStatus());
+        assertEquals("first", failed.getListingId());
+
+        // A completed claim is never marked failed
+        put(record("fail-completed", "first", 3600, IdempotencyRecord.Status.COMPLETED));
+        idempotencyRepository.fail(record("fail-completed", "first", 3600, IdempotencyRecord.Status.FAILED));
+        assertTrue(get("fail-completed").isCompleted());
+    }
+
+    private IdempotencyRecord record(String key, String listingId, long expiresInSeconds, IdempotencyRecord.Status status) {
+        return new IdempotencyRecord(key, listingId, REQUEST_HASH, now.plusSeconds(expiresInSeconds), status);
+    }
+
+    private static void put(IdempotencyRecord record) {
+        client.putItem(PutItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .item(DynamoDBIdempotencyRepository.toIdempotencyItem(record))
+                .build());
+    }
+
+    private static IdempotencyRecord get(String key) {
+        return DynamoDBIdempotencyRepository.fromIdempotencyItem(client.getItem(GetItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .key(Map.of("idempotencyKey", AttributeValue.builder().s(key).build()))
+                .consistentRead(true)
+                .build()).item());
+    }
+}
@@ -1,14 +1,26 @@
 package it.tref.dynamicpricing.aws.lambda.repository;
 
 import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.AttributesFingerprint;
 import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.mapper.ListingItemCodec;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.CreationTimeQuery;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.time.Instant;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,6 +61,151 @@ public class DynamoDBListingRepositoryTest {
         assertEquals(dummyItem, capturedRequest.item());
     }
 
+    @Test
+    public void testSaveWithOutboxWritesBothItemsInOneTransaction() {
+        Listing listing = new Listing();
+        listing.setListingId("testId");
+        listing.setUserId("user@example.com");
+        Map<String, AttributeValue> listingItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        when(dynamoDBListingMapper.toDynamoDbItem(listing)).thenReturn(listingItem);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+
+        listingRepository.saveWithOutbox(listing, new ListingSqsMessage("testId", "user@example.com", Map.of("color", "red")));
+
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(captor.capture());
+        List<TransactWriteItem> items = captor.getValue().transactItems();
+        assertEquals(2, items.size());
+        assertEquals("TestTable", items.get(0).put().tableName());
+        assertEquals(listingItem, items.get(0).put().item());
+        assertEquals("OutboxTable", items.get(1).put().tableName());
+        assertEquals("testId", items.get(1).put().item().get("listingId").s());
+        assertNotNull(items.get(1).put().item().get("outboxId").s());
+        verify(dynamoDbClient, never()).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    public void testSaveAllWithOutboxWritesListingsAndRecordsInTransactions() {
+        List<Listing> listings = new ArrayList<>();
+        List<ListingSqsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Listing listing = new Listing();
+            listing.setListingId("id-" + i);
+            listings.add(listing);
+            when(dynamoDBListingMapper.toDynamoDbItem(listing))
+                    .thenReturn(Map.of("listingId", AttributeValue.builder().s("id-" + i).build()));
+            // The first listing was completed from the prediction cache and needs no inference
+            if (i > 0) {
+                messages.add(new ListingSqsMessage("id-" + i, "user@example.com", Map.of("color", "red")));
+            }
+        }
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+
+        List<Listing> failed = listingRepository.saveAllWithOutbox(listings, messages);
+
+        assertTrue(failed.isEmpty());
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient, times(3)).transactWriteItems(captor.capture());
+        List<Integer> sizes = captor.getAllValues().stream().map(request -> request.transactItems().size()).toList();
+        assertEquals(List.of(23, 24, 2), sizes);
+        List<TransactWriteItem> last = captor.getAllValues().get(2).transactItems();
+        assertEquals("TestTable", last.get(0).put().tableName());
+        assertEquals("OutboxTable", last.get(1).put().tableName());
+        assertEquals("id-24", last.get(1).put().item().get("listingId").s());
+        verify(dynamoDbClient, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void testSaveAllWithOutboxRetriesConflictsAndReportsFailedTransactions() {
+        List<Listing> listings = new ArrayList<>();
+        List<ListingSqsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < DynamoDBListingRepository.OUTBOX_TRANSACTION_MAX_LISTINGS + 1; i++) {
+            Listing listing = new Listing();
+            listing.setListingId("id-" + i);
+            listings.add(listing);
+            when(dynamoDBListingMapper.toDynamoDbItem(listing))
+                    .thenReturn(Map.of("listingId", AttributeValue.builder().s("id-" + i).build()));
+            messages.add(new ListingSqsMessage("id-" + i, "user@example.com", Map.of("color", "red")));
+        }
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        // The first transaction conflicts once, the second is rejected
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(transactionCanceled(CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code("TransactionConflict").build()))
+                .thenReturn(TransactWriteItemsResponse.builder().build())
+                .thenThrow(transactionCanceled(CancellationReason.builder().code("ValidationError").build()));
+
+        List<Listing> failed = listingRepository.saveAllWithOutbox(listings, messages);
+
+        assertEquals(List.of(listings.get(DynamoDBListingRepository.OUTBOX_TRANSACTION_MAX_LISTINGS)), failed);
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient, times(3)).transactWriteItems(captor.capture());
+        // The retry reuses the client request token, so that it cannot write the records twice
+        assertEquals(captor.getAllValues().get(0).clientRequestToken(), captor.getAllValues().get(1).clientRequestToken());
+        assertNotEquals(captor.getAllValues().get(1).clientRequestToken(), captor.getAllValues().get(2).clientRequestToken());
+    }
+
+    @Test
+    public void testSaveAllRetriesUnprocessedItems() {
+        Listing first = new Listing();
+        first.setListingId("id-1");
+        Listing second = new Listing();
+        second.setListingId("id-2");
+
+        Map<String, AttributeValue> firstItem = Map.of("listingId", AttributeValue.builder().s("id-1").build());
+        Map<String, AttributeValue> secondItem = Map.of("listingId", AttributeValue.builder().s("id-2").build());
+        when(dynamoDBListingMapper.toDynamoDbItem(first)).thenReturn(firstItem);
+        when(dynamoDBListingMapper.toDynamoDbItem(second)).thenReturn(secondItem);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+
+        WriteRequest unprocessed = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(secondItem).build())
+                .build();
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder()
+                        .unprocessedItems(Map.of("TestTable", List.of(unprocessed)))
+                        .build())
+                .thenReturn(BatchWriteItemResponse.builder().build());
+
+        List<Listing> failed = listingRepository.saveAll(List.of(first, second));
+
+        assertTrue(failed.isEmpty());
+        ArgumentCaptor<BatchWriteItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(dynamoDbClient, times(2)).batchWriteItem(requestCaptor.capture());
+        assertEquals(2, requestCaptor.getAllValues().get(0).requestItems().get("TestTable").size());
+        assertEquals(List.of(unprocessed), requestCaptor.getAllValues().get(1).requestItems().get("TestTable"));
+    }
+
+    @Test
+    public void testSaveAllReturnsItemsStillUnprocessed() {
+        Listing listing = new Listing();
+        listing.setListingId("id-1");
+
+        Map<String, AttributeValue> item = Map.of("listingId", AttributeValue.builder().s("id-1").build());
+        when(dynamoDBListingMapper.toDynamoDbItem(listing)).thenReturn(item);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getBatchMaxAttempts()).thenReturn(2);
+
+        WriteRequest unprocessed = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(item).build())
+                .build();
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder()
+                        .unprocessedItems(Map.of("TestTable", List.of(unprocessed)))
+                        .build());
+
+        List<Listing> failed = listingRepository.saveAll(List.of(listing));
+
+        assertEquals(List.of(listing), failed);
+        verify(dynamoDbClient, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
     @Test
     public void testUpdateDynamoDbExceptionHandling() {
         // Create a sample listing
@@ -110,6 +267,550 @@ public class DynamoDBListingRepositoryTest {
         assertNotNull(capturedRequest.updateExpression());
         assertTrue(capturedRequest.expressionAttributeNames().containsKey("#name"));
         assertTrue(capturedRequest.expressionAttributeValues().containsKey(":name"));
+
+        // The write is conditioned on the listing existing and returns the updated item.
+        assertEquals("attribute_exists(#listingId)", capturedRequest.conditionExpression());
+        assertEquals(ReturnValue.ALL_NEW, capturedRequest.returnValues());
+    }
+
+    @Test
+    public void testUpdateListingLeavesNullFieldsUnchanged() {
+        Listing changes = new Listing();
+        changes.setListingId("testId");
+        changes.setUserId("user@example.com");
+        changes.setAttributes(null);
+
+        Map<String, AttributeValue> newItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(newItem).build());
+        Listing storedListing = new Listing();
+        when(dynamoDBListingMapper.fromDynamoDbItem(newItem)).thenReturn(storedListing);
+
+        Listing result = listingRepository.update(changes);
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        assertEquals("SET completed = :completed", captor.getValue().updateExpression());
+        assertSame(storedListing, result);
+    }
+
+    @Test
+    public void testUpdateListingMaintainsPendingIndexKeys() {
+        Listing pending = new Listing();
+        pending.setListingId("testId");
+        pending.setUserId("user@example.com");
+        pending.setAttributes(null);
+        Listing completed = new Listing();
+        completed.setListingId("testId");
+        completed.setUserId("user@example.com");
+        completed.setAttributes(null);
+        completed.setCompleted(true);
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDBListingMapper.getPendingIndexShards()).thenReturn(4);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(UpdateItemResponse.builder().build());
+
+        listingRepository.update(pending);
+        listingRepository.update(completed);
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(captor.capture());
+        UpdateItemRequest pendingRequest = captor.getAllValues().get(0);
+        assertEquals("SET completed = :completed, #pendingShard = :pendingShard, #pendingSince = :pendingSince, "
+                + "#pendingAttempts = :pendingAttempts", pendingRequest.updateExpression());
+        assertEquals(DynamoDBListingMapper.pendingShard("testId", 4),
+                pendingRequest.expressionAttributeValues().get(":pendingShard").s());
+        assertEquals("SET completed = :completed REMOVE #pendingShard, #pendingSince, #pendingAttempts",
+                captor.getAllValues().get(1).updateExpression());
+    }
+
+    @Test
+    public void testUpdateListingNotFound() {
+        Listing listing = new Listing();
+        listing.setListingId("nonexistent");
+        listing.setUserId("user@example.com");
+        listing.setName("Name");
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").build());
+
+        assertNull(listingRepository.update(listing));
+    }
+
+    @Test
+    public void testUpdateContentResetsPredictionWhenAttributesChange() {
+        Listing changes = contentChanges("Name");
+        Map<String, AttributeValue> newItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(newItem).build());
+        Listing stored = new Listing();
+        when(dynamoDBListingMapper.fromDynamoDbItem(newItem)).thenReturn(stored);
+
+        ContentUpdate result = listingRepository.updateContent(changes);
+
+        assertEquals(ContentUpdate.Change.ATTRIBUTES, result.getChange());
+        assertSame(stored, result.getListing());
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        UpdateItemRequest request = captor.getValue();
+        assertTrue(request.updateExpression().contains("#fingerprint = :fingerprint"));
+        assertEquals(AttributesFingerprint.of(Map.of("color", "red")),
+                request.expressionAttributeValues().get(":fingerprint").s());
+        assertEquals("attribute_exists(#listingId) AND (attribute_not_exists(#fingerprint) OR #fingerprint <> :fingerprint)",
+                request.conditionExpression());
+        assertEquals(ReturnValuesOnConditionCheckFailure.ALL_OLD, request.returnValuesOnConditionCheckFailure());
+    }
+
+    @Test
+    public void testUpdateContentWritesNothingMoreWhenUnchanged() {
+        Listing changes = contentChanges("Name");
+        Map<String, AttributeValue> storedItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").item(storedItem).build());
+        Listing stored = new Listing();
+        stored.setName("Name");
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(stored);
+
+        ContentUpdate result = listingRepository.updateContent(changes);
+
+        assertEquals(ContentUpdate.Change.NONE, result.getChange());
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void testUpdateContentWritesNameAloneWhenAttributesAreUnchanged() {
+        Listing changes = contentChanges("New Name");
+        Map<String, AttributeValue> storedItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        Map<String, AttributeValue> renamedItem = Map.of("name", AttributeValue.builder().s("New Name").build());
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").item(storedItem).build())
+                .thenReturn(UpdateItemResponse.builder().attributes(renamedItem).build());
+        Listing stored = new Listing();
+        stored.setName("Old Name");
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(stored);
+        when(dynamoDBListingMapper.fromDynamoDbItem(renamedItem)).thenReturn(new Listing());
+
+        ContentUpdate result = listingRepository.updateContent(changes);
+
+        assertEquals(ContentUpdate.Change.NAME, result.getChange());
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(captor.capture());
+        UpdateItemRequest rename = captor.getAllValues().get(1);
+        assertEquals("SET #name = :name", rename.updateExpression());
+        assertEquals("New Name", rename.expressionAttributeValues().get(":name").s());
+    }
+
+    @Test
+    public void testUpdateContentNotFound() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").build());
+
+        assertNull(listingRepository.updateContent(contentChanges("Name")));
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    private static Listing contentChanges(String name) {
+        Listing changes = new Listing();
+        changes.setListingId("testId");
+        changes.setUserId("user@example.com");
+        changes.setName(name);
+        changes.addAttribute("color", "red");
+        changes.setPrediction(new HashMap<>());
+        changes.setRevision(1L);
+        return changes;
+    }
+
+    @Test
+    public void testUpdateContentWithOutboxWritesRecordInTheConditionedTransaction() {
+        Listing changes = contentChanges("Renamed");
+        ListingSqsMessage message = new ListingSqsMessage("testId", "user@example.com", Map.of("color", "red"));
+        Map<String, AttributeValue> updatedItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        Listing updated = new Listing();
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().item(updatedItem).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(updatedItem)).thenReturn(updated);
+
+        ContentUpdate result = listingRepository.updateContentWithOutbox(changes, message);
+
+        assertEquals(ContentUpdate.Change.ATTRIBUTES, result.getChange());
+        assertSame(updated, result.getListing());
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(captor.capture());
+        List<TransactWriteItem> items = captor.getValue().transactItems();
+        assertEquals(2, items.size());
+        Update update = items.get(0).update();
+        assertEquals("TestTable", update.tableName());
+        assertEquals("attribute_exists(#listingId) AND (attribute_not_exists(#fingerprint) OR #fingerprint <> :fingerprint)",
+                update.conditionExpression());
+        assertEquals(ReturnValuesOnConditionCheckFailure.ALL_OLD, update.returnValuesOnConditionCheckFailure());
+        assertEquals("OutboxTable", items.get(1).put().tableName());
+        assertEquals("testId", items.get(1).put().item().get("listingId").s());
+        ArgumentCaptor<GetItemRequest> getCaptor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDbClient).getItem(getCaptor.capture());
+        assertTrue(getCaptor.getValue().consistentRead());
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void testUpdateContentWithOutboxOfUnchangedAttributesOnlyRenames() {
+        Listing changes = contentChanges("Renamed");
+        Map<String, AttributeValue> storedItem = Map.of("listingId", AttributeValue.builder().s("testId").build());
+        Listing stored = new Listing();
+        stored.setName("Old name");
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(transactionCanceled(CancellationReason.builder().code("ConditionalCheckFailed").item(storedItem).build(),
+                        CancellationReason.builder().code("None").build()));
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(storedItem).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(stored);
+
+        ContentUpdate result = listingRepository.updateContentWithOutbox(changes,
+                new ListingSqsMessage("testId", "user@example.com", Map.of("color", "red")));
+
+        // The outbox record was cancelled with the attributes, only the name is written
+        assertEquals(ContentUpdate.Change.NAME, result.getChange());
+        verify(dynamoDbClient, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(requestCaptor.capture());
+        assertEquals("SET #name = :name", requestCaptor.getValue().updateExpression());
+    }
+
+    @Test
+    public void testPatchWithOutboxWritesPatchedAttributesWithRecord() {
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, Map.of("color", "red"), true);
+        AttributeValue storedAttributes = AttributeValue.builder()
+                .m(Map.of("size", AttributeValue.builder().s("XL").build()))
+                .build();
+        Map<String, AttributeValue> storedItem = Map.of(
+                "listingId", AttributeValue.builder().s("testId").build(),
+                "attributes", storedAttributes);
+        Listing stored = new Listing();
+        stored.setListingId("testId");
+        stored.setUserId("user@example.com");
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().item(storedItem).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(stored);
+        List<Listing> messageListings = new ArrayList<>();
+
+        ContentUpdate result = listingRepository.patchWithOutbox(patch, listing -> {
+            messageListings.add(listing);
+            return new ListingSqsMessage(listing.getListingId(), listing.getUserId(),
+                    ListingSqsMessage.convertAttributes(listing.getAttributes()), listing.getRevision(), null);
+        });
+
+        assertEquals(ContentUpdate.Change.ATTRIBUTES, result.getChange());
+        assertEquals(Map.of("size", "XL", "color", "red"), result.getListing().getAttributes());
+        assertFalse(result.getListing().isCompleted());
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(captor.capture());
+        List<TransactWriteItem> items = captor.getValue().transactItems();
+        Update update = items.get(0).update();
+        assertTrue(update.updateExpression().startsWith("SET #attributes = :attributes"));
+        assertEquals("attribute_exists(#listingId) AND #attributes = :expectedAttributes", update.conditionExpression());
+        assertEquals(storedAttributes, update.expressionAttributeValues().get(":expectedAttributes"));
+        // The record carries the whole patched attributes and the revision set by the patch
+        assertEquals(1, messageListings.size());
+        String revision = update.expressionAttributeValues().get(":revision").n();
+        assertEquals(revision, messageListings.get(0).getRevision().toString());
+        assertEquals("OutboxTable", items.get(1).put().tableName());
+        assertEquals(revision, items.get(1).put().item().get("revision").n());
+
+        // The fingerprint of the patched attributes is written afterwards
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(requestCaptor.capture());
+        assertEquals("SET #fingerprint = :fingerprint", requestCaptor.getValue().updateExpression());
+        assertEquals(revision, requestCaptor.getValue().expressionAttributeValues().get(":revision").n());
+    }
+
+    @Test
+    public void testPatchWithOutboxRepeatingStoredValuesWritesNoRecord() {
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, Map.of("size", "XL"), true);
+        Map<String, AttributeValue> storedItem = Map.of(
+                "listingId", AttributeValue.builder().s("testId").build(),
+                "attributes", AttributeValue.builder().m(Map.of("size", AttributeValue.builder().s("XL").build())).build());
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().item(storedItem).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(new Listing());
+
+        ContentUpdate result = listingRepository.patchWithOutbox(patch, listing -> {
+            throw new AssertionError("No record expected");
+        });
+
+        assertEquals(ContentUpdate.Change.NONE, result.getChange());
+        verify(dynamoDbClient, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    private static TransactionCanceledException transactionCanceled(CancellationReason... reasons) {
+        return TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(reasons)
+                .build();
+    }
+
+    @Test
+    public void testPatchWritesOnlyChangedAttributeKeys() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("color", "red");
+        changes.put("size", null);
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, changes, true);
+
+        Listing patched = new Listing();
+        patched.setListingId("testId");
+        patched.setUserId("user@example.com");
+        patched.addAttribute("color", "red");
+        patched.setRevision(5L);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of("listingId", AttributeValue.builder().s("testId").build())).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(anyMap())).thenReturn(patched);
+
+        ContentUpdate updated = listingRepository.patch(patch);
+
+        assertSame(patched, updated.getListing());
+        assertEquals(ContentUpdate.Change.ATTRIBUTES, updated.getChange());
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(requestCaptor.capture());
+        UpdateItemRequest request = requestCaptor.getAllValues().get(0);
+        assertEquals("SET #attributes.#a0 = :a0, completed = :completed, #prediction = :prediction, #revision = :revision REMOVE #attributes.#a1, #fingerprint",
+                request.updateExpression());
+        assertEquals("color", request.expressionAttributeNames().get("#a0"));
+        assertEquals("size", request.expressionAttributeNames().get("#a1"));
+        assertEquals("red", request.expressionAttributeValues().get(":a0").s());
+        assertFalse(request.expressionAttributeValues().containsKey(":attributes"));
+        assertEquals("attribute_exists(#listingId) AND (attribute_not_exists(#attributes.#a0) OR #attributes.#a0 <> :a0 "
+                + "OR attribute_exists(#attributes.#a1))", request.conditionExpression());
+        assertEquals(ReturnValuesOnConditionCheckFailure.ALL_OLD, request.returnValuesOnConditionCheckFailure());
+
+        // The fingerprint of the patched attributes is written, unless the listing changed again meanwhile
+        UpdateItemRequest fingerprint = requestCaptor.getAllValues().get(1);
+        assertEquals("SET #fingerprint = :fingerprint", fingerprint.updateExpression());
+        assertEquals("#revision = :revision", fingerprint.conditionExpression());
+        assertEquals("5", fingerprint.expressionAttributeValues().get(":revision").n());
+        assertEquals(AttributesFingerprint.of(Map.of("color", "red")),
+                fingerprint.expressionAttributeValues().get(":fingerprint").s());
+    }
+
+    @Test
+    public void testPatchRepeatingStoredValuesWritesNothing() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("color", "red");
+        changes.put("size", null);
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, changes, true);
+
+        Map<String, AttributeValue> storedItem = Map.of(
+                "listingId", AttributeValue.builder().s("testId").build(),
+                "attributes", AttributeValue.builder().m(Map.of("color", AttributeValue.builder().s("red").build())).build());
+        Listing stored = new Listing();
+        stored.setName("Name");
+        stored.addAttribute("color", "red");
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").item(storedItem).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(stored);
+
+        ContentUpdate updated = listingRepository.patch(patch);
+
+        assertEquals(ContentUpdate.Change.NONE, updated.getChange());
+        assertFalse(updated.isPredictionReset());
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+        verify(dynamoDbClient, never()).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    public void testPatchRepeatingStoredValuesOnlyRenames() {
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", "New name", Map.of("color", "red"), true);
+
+        Map<String, AttributeValue> storedItem = Map.of(
+                "listingId", AttributeValue.builder().s("testId").build(),
+                "attributes", AttributeValue.builder().m(Map.of("color", AttributeValue.builder().s("red").build())).build());
+        Listing stored = new Listing();
+        stored.setName("Old name");
+        Listing renamed = new Listing();
+        renamed.setName("New name");
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").item(storedItem).build())
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of("listingId", AttributeValue.builder().s("testId").build())).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(anyMap())).thenReturn(renamed);
+        when(dynamoDBListingMapper.fromDynamoDbItem(storedItem)).thenReturn(stored);
+
+        ContentUpdate updated = listingRepository.patch(patch);
+
+        assertEquals(ContentUpdate.Change.NAME, updated.getChange());
+        assertSame(renamed, updated.getListing());
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(requestCaptor.capture());
+        UpdateItemRequest rename = requestCaptor.getAllValues().get(1);
+        assertEquals("SET #name = :name", rename.updateExpression());
+        assertEquals("New name", rename.expressionAttributeValues().get(":name").s());
+    }
+
+    @Test
+    public void testApplyPredictionsDropsStaleRevisionsAndReportsFailures() {
+        PredictionResultMessage current = new PredictionResultMessage("current", "user@example.com", 2L,
+                Map.of("price", new double[]{100.0, 101.5}));
+        PredictionResultMessage stale = new PredictionResultMessage("stale", "user@example.com", 1L,
+                Map.of("price", new double[]{90.0}));
+        PredictionResultMessage failing = new PredictionResultMessage("failing", "user@example.com", null,
+                Map.of("price", new double[]{80.0}));
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDBListingMapper.getPendingIndexShards()).thenReturn(4);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+            String listingId = invocation.<UpdateItemRequest>getArgument(0).key().get("listingId").s();
+            if ("stale".equals(listingId)) {
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+            if ("failing".equals(listingId)) {
+                throw DynamoDbException.builder().message("Internal error").build();
+            }
+            return UpdateItemResponse.builder().build();
+        });
+
+        List<PredictionResultMessage> failed = listingRepository.applyPredictions(List.of(current, stale, failing));
+
+        assertEquals(List.of(failing), failed);
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(3)).updateItem(captor.capture());
+        UpdateItemRequest currentRequest = captor.getAllValues().stream()
+                .filter(request -> "current".equals(request.key().get("listingId").s()))
+                .findFirst().orElseThrow();
+        assertEquals("SET #prediction = :prediction, completed = :completed "
+                + "REMOVE #pendingShard, #pendingSince, #pendingAttempts", currentRequest.updateExpression());
+        assertEquals("attribute_exists(#listingId) AND #revision = :revision", currentRequest.conditionExpression());
+        assertEquals("2", currentRequest.expressionAttributeValues().get(":revision").n());
+        assertTrue(currentRequest.expressionAttributeValues().get(":completed").bool());
+        assertArrayEquals(new double[]{100.0, 101.5}, ListingItemCodec.fromPredictionValue(
+                currentRequest.expressionAttributeValues().get(":prediction")).get("price"));
+        UpdateItemRequest unversionedRequest = captor.getAllValues().stream()
+                .filter(request -> "failing".equals(request.key().get("listingId").s()))
+                .findFirst().orElseThrow();
+        assertEquals("attribute_exists(#listingId) AND attribute_not_exists(#revision)",
+                unversionedRequest.conditionExpression());
+    }
+
+    @Test
+    public void testPatchWritesWholeMapWhenAttributesAreMissing() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("color", "red");
+        changes.put("size", null);
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, changes, true);
+
+        DynamoDbException invalidPath = (DynamoDbException) DynamoDbException.builder()
+                .message("The document path provided in the update expression is invalid for update")
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("ValidationException").build())
+                .statusCode(400)
+                .build();
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(invalidPath)
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of("listingId", AttributeValue.builder().s("testId").build())).build());
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(Map.of("listingId", AttributeValue.builder().s("testId").build())).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(anyMap())).thenReturn(new Listing());
+
+        assertNotNull(listingRepository.patch(patch));
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(requestCaptor.capture());
+        UpdateItemRequest fallback = requestCaptor.getAllValues().get(1);
+        assertTrue(fallback.updateExpression().startsWith("SET #attributes = :attributes"));
+        assertEquals(Map.of("color", AttributeValue.builder().s("red").build()),
+                fallback.expressionAttributeValues().get(":attributes").m());
+        assertEquals("attribute_exists(#listingId) AND attribute_not_exists(#attributes)", fallback.conditionExpression());
+    }
+
+    @Test
+    public void testPatchRewritesCompressedAttributes() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("color", "red");
+        changes.put("size", null);
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, changes, false);
+
+        Map<String, Object> storedAttributes = new HashMap<>();
+        storedAttributes.put("size", "XL");
+        storedAttributes.put("description", "x".repeat(512));
+        AttributeValue compressed = ListingItemCodec.toAttributesValue(storedAttributes, 64);
+        assertNotNull(compressed.b());
+
+        DynamoDbException invalidPath = (DynamoDbException) DynamoDbException.builder()
+                .message("The document path provided in the update expression is invalid for update")
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("ValidationException").build())
+                .statusCode(400)
+                .build();
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getItemCompressionThresholdBytes()).thenReturn(64);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(invalidPath)
+                .thenReturn(UpdateItemResponse.builder().attributes(Map.of("listingId", AttributeValue.builder().s("testId").build())).build());
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(Map.of(
+                        "listingId", AttributeValue.builder().s("testId").build(),
+                        "attributes", compressed)).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(anyMap())).thenReturn(new Listing());
+
+        assertNotNull(listingRepository.patch(patch));
+
+        ArgumentCaptor<GetItemRequest> getCaptor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDbClient).getItem(getCaptor.capture());
+        assertTrue(getCaptor.getValue().consistentRead());
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(requestCaptor.capture());
+        UpdateItemRequest rewrite = requestCaptor.getAllValues().get(1);
+        assertEquals("SET #attributes = :attributes REMOVE #fingerprint", rewrite.updateExpression());
+        assertEquals("attribute_exists(#listingId) AND #attributes = :expectedAttributes", rewrite.conditionExpression());
+        assertEquals(compressed, rewrite.expressionAttributeValues().get(":expectedAttributes"));
+        Map<String, Object> expected = Map.of("color", "red", "description", "x".repeat(512));
+        assertEquals(expected, ListingItemCodec.fromAttributesValue(rewrite.expressionAttributeValues().get(":attributes")));
+    }
+
+    @Test
+    public void testPatchOfCompressedAttributesRepeatingStoredValuesWritesNothing() {
+        ListingPatch patch = new ListingPatch("testId", "user@example.com", null, Map.of("size", "XL"), true);
+
+        Map<String, Object> storedAttributes = new HashMap<>();
+        storedAttributes.put("size", "XL");
+        storedAttributes.put("description", "x".repeat(512));
+        AttributeValue compressed = ListingItemCodec.toAttributesValue(storedAttributes, 64);
+        Map<String, AttributeValue> storedItem = Map.of(
+                "listingId", AttributeValue.builder().s("testId").build(),
+                "attributes", compressed);
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").item(storedItem).build());
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(storedItem).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(anyMap())).thenReturn(new Listing());
+
+        assertEquals(ContentUpdate.Change.NONE, listingRepository.patch(patch).getChange());
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void testPatchNotFound() {
+        ListingPatch patch = new ListingPatch("nonexistent", "user@example.com", "Name", null, false);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").build());
+
+        assertNull(listingRepository.patch(patch));
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
     }
 
     @Test
@@ -158,6 +859,67 @@ public class DynamoDBListingRepositoryTest {
         assertNull(result);
     }
 
+    @Test
+    public void testFindByIdsRetriesUnprocessedKeysAndPreservesOrder() {
+        String userId = "user@example.com";
+        Map<String, AttributeValue> firstItem = Map.of("listingId", AttributeValue.builder().s("id-1").build());
+        Map<String, AttributeValue> secondItem = Map.of("listingId", AttributeValue.builder().s("id-2").build());
+        Listing first = new Listing();
+        first.setListingId("id-1");
+        Listing second = new Listing();
+        second.setListingId("id-2");
+        when(dynamoDBListingMapper.fromDynamoDbItem(firstItem)).thenReturn(first);
+        when(dynamoDBListingMapper.fromDynamoDbItem(secondItem)).thenReturn(second);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+
+        Map<String, AttributeValue> unprocessedKey = Map.of(
+                "listingId", AttributeValue.builder().s("id-2").build(),
+                "userId", AttributeValue.builder().s(userId).build());
+        when(dynamoDbClient.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(BatchGetItemResponse.builder()
+                        .responses(Map.of("TestTable", List.of(firstItem)))
+                        .unprocessedKeys(Map.of("TestTable", KeysAndAttributes.builder().keys(unprocessedKey).build()))
+                        .build())
+                .thenReturn(BatchGetItemResponse.builder()
+                        .responses(Map.of("TestTable", List.of(secondItem)))
+                        .build());
+
+        // id-2 is requested first and twice, id-3 does not exist
+        List<Listing> result = listingRepository.findByIds(List.of("id-2", "id-1", "id-2", "id-3"), userId, ListingView.FULL);
+
+        assertEquals(List.of(second, first), result);
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(dynamoDbClient, times(2)).batchGetItem(requestCaptor.capture());
+        List<Map<String, AttributeValue>> requestedKeys = requestCaptor.getAllValues().get(0).requestItems().get("TestTable").keys();
+        assertEquals(3, requestedKeys.size());
+        requestedKeys.forEach(key -> assertEquals(userId, key.get("userId").s()));
+        assertEquals(List.of(unprocessedKey), requestCaptor.getAllValues().get(1).requestItems().get("TestTable").keys());
+    }
+
+    @Test
+    public void testFindByIdsProjectsSummaryAttributes() {
+        String userId = "user@example.com";
+        Map<String, AttributeValue> item = Map.of("listingId", AttributeValue.builder().s("id-1").build());
+        Listing summary = new Listing();
+        summary.setListingId("id-1");
+        when(dynamoDBListingMapper.fromSummaryItem(item)).thenReturn(summary);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        when(dynamoDbClient.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(BatchGetItemResponse.builder().responses(Map.of("TestTable", List.of(item))).build());
+
+        assertEquals(List.of(summary), listingRepository.findByIds(List.of("id-1"), userId, ListingView.SUMMARY));
+
+        ArgumentCaptor<BatchGetItemRequest> requestCaptor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(dynamoDbClient).batchGetItem(requestCaptor.capture());
+        KeysAndAttributes keysAndAttributes = requestCaptor.getValue().requestItems().get("TestTable");
+        assertNotNull(keysAndAttributes.projectionExpression());
+        assertFalse(keysAndAttributes.expressionAttributeNames().containsValue("prediction"));
+        assertTrue(keysAndAttributes.expressionAttributeNames().containsValue("createdAt"));
+        verify(dynamoDBListingMapper, never()).fromDynamoDbItem(any());
+    }
+
     @Test
     public void testFindByUserIdFound() {
         // Prepare two dummy DynamoDB items.
@@ -195,7 +957,7 @@ public class DynamoDBListingRepositoryTest {
         when(dynamoDBListingMapper.fromDynamoDbItem(item2)).thenReturn(listing2);
 
         // Call findByUserId.
-        List<Listing> result = listingRepository.findByUserId("user@example.com");
+        List<Listing> result = listingRepository.findByUserId("user@example.com", ListingView.FULL);
 
         // Verify that both listings are returned and correctly mapped.
         assertNotNull(result);
@@ -216,22 +978,364 @@ public class DynamoDBListingRepositoryTest {
         when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(queryResponse);
 
         // Call findByUserId.
-        List<Listing> result = listingRepository.findByUserId("user@example.com");
+        List<Listing> result = listingRepository.findByUserId("user@example.com", ListingView.FULL);
 
         // Verify that the result is an empty list.
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    public void testFindByUserIdFollowsLastEvaluatedKey() {
+        Map<String, AttributeValue> item1 = Map.of("listingId", AttributeValue.builder().s("listing-1").build());
+        Map<String, AttributeValue> item2 = Map.of("listingId", AttributeValue.builder().s("listing-2").build());
+        Map<String, AttributeValue> lastKey = Map.of(
+                "listingId", AttributeValue.builder().s("listing-1").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build());
+
+        QueryResponse firstPage = QueryResponse.builder()
+                .items(Collections.singletonList(item1))
+                .count(1)
+                .lastEvaluatedKey(lastKey)
+                .build();
+        QueryResponse secondPage = QueryResponse.builder()
+                .items(Collections.singletonList(item2))
+                .count(1)
+                .build();
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(firstPage, secondPage);
+        when(dynamoDBListingMapper.fromDynamoDbItem(item1)).thenReturn(new Listing());
+        when(dynamoDBListingMapper.fromDynamoDbItem(item2)).thenReturn(new Listing());
+
+        List<Listing> result = listingRepository.findByUserId("user@example.com", ListingView.FULL);
+
+        assertEquals(2, result.size());
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient, times(2)).query(captor.capture());
+        assertFalse(captor.getAllValues().get(0).hasExclusiveStartKey());
+        assertEquals(lastKey, captor.getAllValues().get(1).exclusiveStartKey());
+    }
+
+    @Test
+    public void testFindByUserIdPage() {
+        Map<String, AttributeValue> item = Map.of("listingId", AttributeValue.builder().s("listing-2").build());
+        Map<String, AttributeValue> lastKey = Map.of(
+                "listingId", AttributeValue.builder().s("listing-2").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build());
+        QueryResponse queryResponse = QueryResponse.builder()
+                .items(Collections.singletonList(item))
+                .count(1)
+                .lastEvaluatedKey(lastKey)
+                .build();
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getDynamoDbUserListingsIndexName()).thenReturn("TestIndex");
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(queryResponse);
+        Listing listing = new Listing();
+        listing.setListingId("listing-2");
+        when(dynamoDBListingMapper.fromDynamoDbItem(item)).thenReturn(listing);
+
+        Map<String, String> startKey = Map.of("listingId", "listing-1", "userId", "user@example.com");
+        ListingPage page = listingRepository.findByUserId("user@example.com", 1, startKey, ListingView.FULL);
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(captor.capture());
+        QueryRequest capturedRequest = captor.getValue();
+        assertEquals("TestIndex", capturedRequest.indexName());
+        assertEquals(1, capturedRequest.limit());
+        assertEquals("listing-1", capturedRequest.exclusiveStartKey().get("listingId").s());
+
+        assertEquals(1, page.getListings().size());
+        assertTrue(page.hasMore());
+        assertEquals("listing-2", page.getLastEvaluatedKey().get("listingId"));
+        assertEquals("user@example.com", page.getLastEvaluatedKey().get("userId"));
+    }
+
+    @Test
+    public void testFindByUserIdSummaryProjection() {
+        Map<String, AttributeValue> item = Map.of("listingId", AttributeValue.builder().s("listing-1").build());
+        QueryResponse queryResponse = QueryResponse.builder()
+                .items(Collections.singletonList(item))
+                .count(1)
+                .build();
+
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(queryResponse);
+        Listing summary = new Listing();
+        summary.setListingId("listing-1");
+        when(dynamoDBListingMapper.fromSummaryItem(item)).thenReturn(summary);
+
+        List<Listing> result = listingRepository.findByUserId("user@example.com", ListingView.SUMMARY);
+
+        assertEquals(1, result.size());
+        verify(dynamoDBListingMapper, never()).fromDynamoDbItem(any());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(captor.capture());
+        QueryRequest capturedRequest = captor.getValue();
+        assertNotNull(capturedRequest.projectionExpression());
+        assertTrue(capturedRequest.expressionAttributeNames().containsValue("name"));
+        assertFalse(capturedRequest.expressionAttributeNames().containsValue("attributes"));
+        assertFalse(capturedRequest.expressionAttributeNames().containsValue("prediction"));
+    }
+
+    @Test
+    public void testFindByUserIdOnUserPartitionedTableQueriesTheTableConsistently() {
+        ListingRepository userTableRepository = new DynamoDBListingRepository(dynamoDbClient, configService,
+                dynamoDBListingMapper, "UserTable", true);
+        when(configService.getDynamoDbUserListingsIndexName()).thenReturn("TestIndex");
+        when(configService.getDynamoDbUserListingsSummaryIndexName()).thenReturn(Optional.of("SummaryIndex"));
+        when(configService.isListingUserShardReadsEnabled()).thenReturn(true);
+        when(dynamoDBListingMapper.getUserIndexShards()).thenReturn(4);
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder()
+                .items(Collections.emptyList())
+                .count(0)
+                .build());
+
+        userTableRepository.findByUserId("user@example.com", ListingView.SUMMARY);
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient, times(1)).query(captor.capture());
+        QueryRequest capturedRequest = captor.getValue();
+        assertEquals("UserTable", capturedRequest.tableName());
+        assertNull(capturedRequest.indexName());
+        assertTrue(capturedRequest.consistentRead());
+        assertEquals("userId = :userId", capturedRequest.keyConditionExpression());
+        verify(configService, never()).getDynamoDbListingTableName();
+    }
+
+    @Test
+    public void testFindByUserIdOrderedByCreationQueriesNewestFirstInRange() {
+        Map<String, AttributeValue> item = Map.of("listingId", AttributeValue.builder().s("listing-2").build());
+        Map<String, AttributeValue> lastKey = Map.of(
+                "listingId", AttributeValue.builder().s("listing-2").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build(),
+                "createdAt", AttributeValue.builder().s("2024-02-01T00:00:00.000000000Z").build());
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getListingCreatedIndexName()).thenReturn(Optional.of("CreatedIndex"));
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder()
+                .items(Collections.singletonList(item))
+                .count(1)
+                .lastEvaluatedKey(lastKey)
+                .build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(item)).thenReturn(new Listing());
+
+        CreationTimeQuery query = new CreationTimeQuery(Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-03-01T00:00:00Z"), true);
+        ListingPage page = listingRepository.findByUserIdOrderedByCreation("user@example.com", query, 1, null,
+                ListingView.FULL);
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(captor.capture());
+        QueryRequest capturedRequest = captor.getValue();
+        assertEquals("CreatedIndex", capturedRequest.indexName());
+        assertFalse(capturedRequest.scanIndexForward());
+        assertEquals(1, capturedRequest.limit());
+        assertEquals("#userId = :userId AND #createdAt BETWEEN :createdAfter AND :createdBefore",
+                capturedRequest.keyConditionExpression());
+        assertEquals("2024-01-01T00:00:00.000000000Z",
+                capturedRequest.expressionAttributeValues().get(":createdAfter").s());
+        assertEquals("2024-03-01T00:00:00.000000000Z",
+                capturedRequest.expressionAttributeValues().get(":createdBefore").s());
+        assertEquals(1, page.getListings().size());
+        assertEquals("2024-02-01T00:00:00.000000000Z", page.getLastEvaluatedKey().get("createdAt"));
+    }
+
+    @Test
+    public void testFindByUserIdOrderedByCreationRejectsCursorOfAnotherQuery() {
+        when(configService.getListingCreatedIndexName()).thenReturn(Optional.of("CreatedIndex"));
+        Map<String, String> startKey = Map.of("listingId", "listing-1", "userId", "user@example.com");
+
+        assertThrows(IllegalArgumentException.class, () -> listingRepository.findByUserIdOrderedByCreation(
+                "user@example.com", new CreationTimeQuery(null, null, true), 10, startKey, ListingView.FULL));
+        verify(dynamoDbClient, never()).query(any(QueryRequest.class));
+    }
+
+    @Test
+    public void testFindPendingQueriesSparseIndex() {
+        Map<String, AttributeValue> item = Map.of("listingId", AttributeValue.builder().s("pending-1").build());
+        Map<String, AttributeValue> lastKey = Map.of(
+                "listingId", AttributeValue.builder().s("pending-1").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build(),
+                "pendingShard", AttributeValue.builder().s("2").build(),
+                "pendingSince", AttributeValue.builder().s("2024-01-01T00:00:00Z").build());
+        Listing pending = new Listing();
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getListingPendingIndexName()).thenReturn(Optional.of("PendingIndex"));
+        when(dynamoDbClient.query(any(QueryRequest.class)))
+                .thenReturn(QueryResponse.builder().items(item).count(1).lastEvaluatedKey(lastKey).build());
+        when(dynamoDBListingMapper.fromDynamoDbItem(item)).thenReturn(pending);
+
+        Instant pendingBefore = Instant.parse("2024-01-02T00:00:00Z");
+        ListingPage page = listingRepository.findPending(2, pendingBefore, 10, null);
+
+        assertEquals(List.of(pending), page.getListings());
+        assertEquals("2", page.getLastEvaluatedKey().get("pendingShard"));
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(captor.capture());
+        QueryRequest request = captor.getValue();
+        assertEquals("PendingIndex", request.indexName());
+        assertEquals("#pendingShard = :shard AND #pendingSince < :pendingBefore", request.keyConditionExpression());
+        assertEquals("2", request.expressionAttributeValues().get(":shard").s());
+        assertEquals("2024-01-02T00:00:00.000000000Z", request.expressionAttributeValues().get(":pendingBefore").s());
+        assertEquals(10, request.limit());
+    }
+
+    @Test
+    public void testRequeuePendingMovesListingBehindAndCountsAttempt() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(UpdateItemResponse.builder().build());
+
+        assertTrue(listingRepository.requeuePending("testId", "user@example.com",
+                Instant.parse("2024-01-01T00:00:00.5Z"), 5));
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        UpdateItemRequest request = captor.getValue();
+        assertEquals("SET #pendingSince = :pendingSince ADD #pendingAttempts :one", request.updateExpression());
+        assertEquals("attribute_exists(#pendingShard)"
+                + " AND (attribute_not_exists(#pendingAttempts) OR #pendingAttempts < :maxAttempts)",
+                request.conditionExpression());
+        assertEquals("2024-01-01T00:00:00.500000000Z", request.expressionAttributeValues().get(":pendingSince").s());
+        assertEquals("5", request.expressionAttributeValues().get(":maxAttempts").n());
+    }
+
+    @Test
+    public void testRequeuePendingWithoutAttemptsLeftLeavesPendingIndex() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder()
+                        .item(Map.of(DynamoDBListingMapper.PENDING_SHARD, AttributeValue.builder().s("1").build()))
+                        .build())
+                .thenReturn(UpdateItemResponse.builder().build());
+
+        assertFalse(listingRepository.requeuePending("testId", "user@example.com", Instant.now(), 5));
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(captor.capture());
+        assertEquals("REMOVE #pendingShard, #pendingSince, #pendingAttempts",
+                captor.getAllValues().get(1).updateExpression());
+    }
+
+    @Test
+    public void testRequeuePendingOfCompletedListing() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().build());
+
+        assertFalse(listingRepository.requeuePending("testId", "user@example.com", Instant.now(), 5));
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    public void testFindPendingWithoutIndexFails() {
+        when(configService.getListingPendingIndexName()).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> listingRepository.findPending(0, Instant.now(), 10, null));
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    @Test
+    public void testFindByUserIdPageMergesUserShards() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getListingUserShardIndexName()).thenReturn(Optional.of("UserShardIndex"));
+        when(configService.isListingUserShardReadsEnabled()).thenReturn(true);
+        when(dynamoDBListingMapper.getUserIndexShards()).thenReturn(2);
+        Map<String, List<String>> shardListings = Map.of(
+                "user@example.com#0", List.of("listing-b", "listing-d"),
+                "user@example.com#1", List.of("listing-c"));
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (String listingId : shardListings.get(request.expressionAttributeValues().get(":userShard").s())) {
+                items.add(Map.of("listingId", AttributeValue.builder().s(listingId).build()));
+            }
+            return QueryResponse.builder().items(items).count(items.size()).build();
+        });
+        when(dynamoDBListingMapper.fromDynamoDbItem(any())).thenAnswer(invocation -> {
+            Map<String, AttributeValue> item = invocation.getArgument(0);
+            Listing listing = new Listing();
+            listing.setListingId(item.get("listingId").s());
+            return listing;
+        });
+
+        ListingPage page = listingRepository.findByUserId("user@example.com", 2,
+                Map.of(DynamoDBListingRepository.AFTER_LISTING_ID, "listing-a", "userId", "user@example.com"),
+                ListingView.FULL);
+
+        assertEquals(List.of("listing-b", "listing-c"),
+                page.getListings().stream().map(Listing::getListingId).toList());
+        assertEquals(Map.of(DynamoDBListingRepository.AFTER_LISTING_ID, "listing-c", "userId", "user@example.com"),
+                page.getLastEvaluatedKey());
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient, times(2)).query(captor.capture());
+        for (QueryRequest request : captor.getAllValues()) {
+            assertEquals("UserShardIndex", request.indexName());
+            assertEquals("#userShard = :userShard AND #listingId > :afterListingId", request.keyConditionExpression());
+            assertEquals("listing-a", request.expressionAttributeValues().get(":afterListingId").s());
+            assertEquals(2, request.limit());
+        }
+    }
+
+    @Test
+    public void testFindByUserIdPageRejectsUnshardedKeyWhenReadingUserShards() {
+        when(configService.isListingUserShardReadsEnabled()).thenReturn(true);
+        when(dynamoDBListingMapper.getUserIndexShards()).thenReturn(2);
+
+        Map<String, String> startKey = Map.of("listingId", "listing-1", "userId", "user@example.com");
+        assertThrows(IllegalArgumentException.class,
+                () -> listingRepository.findByUserId("user@example.com", 10, startKey, ListingView.FULL));
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    @Test
+    public void testBackfillUserShardsOnlyWritesMissingOrStaleKeys() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDBListingMapper.getUserIndexShards()).thenReturn(4);
+        String upToDate = DynamoDBListingMapper.userShard("user@example.com", "listing-1", 4);
+        Map<String, AttributeValue> current = Map.of(
+                "listingId", AttributeValue.builder().s("listing-1").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build(),
+                "userShard", AttributeValue.builder().s(upToDate).build());
+        Map<String, AttributeValue> missing = Map.of(
+                "listingId", AttributeValue.builder().s("listing-2").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build());
+        Map<String, AttributeValue> lastKey = Map.of(
+                "listingId", AttributeValue.builder().s("listing-2").build(),
+                "userId", AttributeValue.builder().s("user@example.com").build());
+        when(dynamoDbClient.scan(any(ScanRequest.class)))
+                .thenReturn(ScanResponse.builder().items(current, missing).count(2).lastEvaluatedKey(lastKey).build());
+
+        BackfillPage page = listingRepository.backfillUserShards(100, null);
+
+        assertEquals(2, page.getScanned());
+        assertEquals(1, page.getUpdated());
+        assertEquals("listing-2", page.getLastEvaluatedKey().get("listingId"));
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        UpdateItemRequest request = captor.getValue();
+        assertEquals("listing-2", request.key().get("listingId").s());
+        assertEquals(DynamoDBListingMapper.userShard("user@example.com", "listing-2", 4),
+                request.expressionAttributeValues().get(":userShard").s());
+        assertEquals("attribute_exists(#listingId)", request.conditionExpression());
+    }
+
     @Test
     public void testDeleteListingSuccess() {
         String listingId = "testId";
         String userId = "user@example.com";
 
         when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        Map<String, AttributeValue> oldItem = Map.of("listingId", AttributeValue.builder().s(listingId).build());
+        when(dynamoDbClient.deleteItem(any(DeleteItemRequest.class)))
+                .thenReturn(DeleteItemResponse.builder().attributes(oldItem).build());
+        Listing deletedListing = new Listing();
+        deletedListing.setListingId(listingId);
+        when(dynamoDBListingMapper.fromDynamoDbItem(oldItem)).thenReturn(deletedListing);
 
         // Call the repository delete method.
-        listingRepository.delete(listingId, userId);
+        Listing result = listingRepository.delete(listingId, userId);
 
         // Capture and verify the DeleteItemRequest.
         ArgumentCaptor<DeleteItemRequest> captor = ArgumentCaptor.forClass(DeleteItemRequest.class);
@@ -242,6 +1346,19 @@ public class DynamoDBListingRepositoryTest {
         Map<String, AttributeValue> key = capturedRequest.key();
         assertEquals(listingId, key.get("listingId").s());
         assertEquals(userId, key.get("userId").s());
+        assertEquals("attribute_exists(#listingId)", capturedRequest.conditionExpression());
+        assertEquals(Map.of("#listingId", "listingId"), capturedRequest.expressionAttributeNames());
+        assertEquals(ReturnValue.ALL_OLD, capturedRequest.returnValues());
+        assertSame(deletedListing, result);
+    }
+
+    @Test
+    public void testDeleteListingNotFound() {
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(dynamoDbClient.deleteItem(any(DeleteItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").build());
+
+        assertNull(listingRepository.delete("nonexistent", "user@example.com"));
     }
 
     @Test
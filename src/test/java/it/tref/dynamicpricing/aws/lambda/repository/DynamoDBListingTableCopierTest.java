@@ -0,0 +1,82 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DynamoDBListingTableCopierTest {
+
+    private DynamoDbClient dynamoDbClient;
+    private DynamoDBListingTableCopier listingTableCopier;
+
+    @BeforeEach
+    public void setUp() {
+        dynamoDbClient = mock(DynamoDbClient.class);
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getDynamoDbListingTableName()).thenReturn("LegacyTable");
+        when(configService.getListingUserTableName()).thenReturn(Optional.of("UserTable"));
+        listingTableCopier = new DynamoDBListingTableCopier(dynamoDbClient, configService);
+    }
+
+    @Test
+    public void testCopyOnlyCreatesMissingListings() {
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder()
+                .items(item("missing"), item("mirrored")).count(2).build());
+        when(dynamoDbClient.putItem(any(PutItemRequest.class))).thenAnswer(invocation -> {
+            PutItemRequest request = invocation.getArgument(0);
+            if ("mirrored".equals(request.item().get("listingId").s())) {
+                throw ConditionalCheckFailedException.builder().message("exists").build();
+            }
+            return PutItemResponse.builder().build();
+        });
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(item("missing")).build());
+
+        BackfillPage page = listingTableCopier.copySegmentPage(0, 1, 100, null);
+
+        assertEquals(2, page.getScanned());
+        assertEquals(1, page.getUpdated());
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient, times(2)).putItem(captor.capture());
+        for (PutItemRequest request : captor.getAllValues()) {
+            assertEquals("UserTable", request.tableName());
+            assertEquals("attribute_not_exists(#listingId)", request.conditionExpression());
+        }
+        verify(dynamoDbClient, never()).deleteItem(any(DeleteItemRequest.class));
+    }
+
+    @Test
+    public void testCopyOfListingDeletedDuringTheCopyIsRemoved() {
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder()
+                .items(List.of(item("deleted"))).count(1).build());
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        BackfillPage page = listingTableCopier.copySegmentPage(0, 1, 100, null);
+
+        assertEquals(0, page.getUpdated());
+        ArgumentCaptor<GetItemRequest> getCaptor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDbClient).getItem(getCaptor.capture());
+        assertEquals("LegacyTable", getCaptor.getValue().tableName());
+        assertTrue(getCaptor.getValue().consistentRead());
+        ArgumentCaptor<DeleteItemRequest> deleteCaptor = ArgumentCaptor.forClass(DeleteItemRequest.class);
+        verify(dynamoDbClient).deleteItem(deleteCaptor.capture());
+        assertEquals("UserTable", deleteCaptor.getValue().tableName());
+        assertEquals("deleted", deleteCaptor.getValue().key().get("listingId").s());
+    }
+
+    private static Map<String, AttributeValue> item(String listingId) {
+        return Map.of("listingId", AttributeValue.builder().s(listingId).build(),
+                "userId", AttributeValue.builder().s("user@example.com").build());
+    }
+}
@@ -0,0 +1,90 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxPage;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DynamoDBOutboxRepositoryTest {
+
+    private DynamoDbClient dynamoDbClient;
+    private ConfigService configService;
+    private DynamoDBOutboxRepository outboxRepository;
+
+    @BeforeEach
+    public void setUp() {
+        dynamoDbClient = mock(DynamoDbClient.class);
+        configService = mock(ConfigService.class);
+        when(configService.getOutboxTableName()).thenReturn(Optional.of("OutboxTable"));
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        outboxRepository = new DynamoDBOutboxRepository(dynamoDbClient, configService);
+    }
+
+    @Test
+    public void testOutboxItemRoundTrip() {
+        ListingSqsMessage message = new ListingSqsMessage("listing-1", "user@example.com", Map.of("color", "red"));
+
+        Map<String, AttributeValue> item = DynamoDBOutboxRepository.toOutboxItem("o-1", message, Instant.now());
+        OutboxRecord record = DynamoDBOutboxRepository.fromOutboxItem(item);
+
+        assertEquals("o-1", record.getOutboxId());
+        assertEquals("listing-1", record.getMessage().getListingId());
+        assertEquals("user@example.com", record.getMessage().getUserId());
+        assertEquals(Map.of("color", "red"), record.getMessage().getListingDetails());
+    }
+
+    @Test
+    public void testFindPageScansConsistently() {
+        Map<String, AttributeValue> item = DynamoDBOutboxRepository.toOutboxItem("o-1",
+                new ListingSqsMessage("listing-1", "user@example.com", Map.of()), Instant.now());
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder()
+                .items(item)
+                .lastEvaluatedKey(Map.of("outboxId", AttributeValue.builder().s("o-1").build()))
+                .build());
+
+        OutboxPage page = outboxRepository.findPage(10, null);
+
+        assertEquals(1, page.getRecords().size());
+        assertEquals(Map.of("outboxId", "o-1"), page.getLastEvaluatedKey());
+        ArgumentCaptor<ScanRequest> captor = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(dynamoDbClient).scan(captor.capture());
+        assertEquals("OutboxTable", captor.getValue().tableName());
+        assertTrue(captor.getValue().consistentRead());
+        assertEquals(10, captor.getValue().limit());
+    }
+
+    @Test
+    public void testDeleteAllRetriesUnprocessedDeletes() {
+        WriteRequest unprocessed = WriteRequest.builder()
+                .deleteRequest(DeleteRequest.builder()
+                        .key(Map.of("outboxId", AttributeValue.builder().s("o-2").build()))
+                        .build())
+                .build();
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().unprocessedItems(Map.of("OutboxTable", List.of(unprocessed))).build())
+                .thenReturn(BatchWriteItemResponse.builder().build());
+
+        List<String> failed = outboxRepository.deleteAll(List.of("o-1", "o-2"));
+
+        assertTrue(failed.isEmpty());
+        verify(dynamoDbClient, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    public void testMissingOutboxTableFails() {
+        when(configService.getOutboxTableName()).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> outboxRepository.findPage(10, null));
+    }
+}
@@ -0,0 +1,116 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.mapper.ListingItemCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DynamoDBPredictionCacheRepositoryTest {
+
+    private static final Map<String, double[]> PREDICTION = Map.of("price", new double[]{100.0, 120.0});
+
+    private DynamoDbClient dynamoDbClient;
+    private ConfigService configService;
+    private DynamoDBPredictionCacheRepository predictionCacheRepository;
+
+    @BeforeEach
+    public void setUp() {
+        dynamoDbClient = mock(DynamoDbClient.class);
+        configService = mock(ConfigService.class);
+        when(configService.getPredictionCacheTableName()).thenReturn(Optional.of("PredictionCacheTable"));
+        when(configService.getPredictionCacheTtlSeconds()).thenReturn(3600L);
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        predictionCacheRepository = new DynamoDBPredictionCacheRepository(dynamoDbClient, configService);
+    }
+
+    @Test
+    public void testFindReadsTheEntryOfTheModelVersion() {
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(item("fp", Instant.now().getEpochSecond() + 60)).build());
+
+        Map<String, double[]> prediction = predictionCacheRepository.find("fp", "v2");
+
+        assertArrayEquals(PREDICTION.get("price"), prediction.get("price"));
+        ArgumentCaptor<GetItemRequest> captor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDbClient).getItem(captor.capture());
+        assertEquals("PredictionCacheTable", captor.getValue().tableName());
+        assertEquals("fp#v2", captor.getValue().key().get("cacheKey").s());
+    }
+
+    @Test
+    public void testFindTreatsExpiredEntriesAsMissing() {
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(item("fp", Instant.now().getEpochSecond() - 1)).build());
+
+        assertNull(predictionCacheRepository.find("fp", "v2"));
+    }
+
+    @Test
+    public void testFindReturnsNullWithoutItem() {
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        assertNull(predictionCacheRepository.find("fp", "v2"));
+    }
+
+    @Test
+    public void testPutAllRetriesUnprocessedPuts() {
+        WriteRequest unprocessed = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(item("fp-2", Instant.now().getEpochSecond() + 60)).build())
+                .build();
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder()
+                        .unprocessedItems(Map.of("PredictionCacheTable", List.of(unprocessed)))
+                        .build())
+                .thenReturn(BatchWriteItemResponse.builder().build());
+        Map<String, Map<String, double[]>> predictions = new LinkedHashMap<>();
+        predictions.put("fp-1", PREDICTION);
+        predictions.put("fp-2", PREDICTION);
+
+        List<String> failed = predictionCacheRepository.putAll(predictions, "v2");
+
+        assertTrue(failed.isEmpty());
+        ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(dynamoDbClient, times(2)).batchWriteItem(captor.capture());
+        List<WriteRequest> first = captor.getAllValues().get(0).requestItems().get("PredictionCacheTable");
+        assertEquals(2, first.size());
+        Map<String, AttributeValue> written = first.get(0).putRequest().item();
+        assertEquals("fp-1#v2", written.get("cacheKey").s());
+        assertTrue(Long.parseLong(written.get("expiresAt").n()) > Instant.now().getEpochSecond());
+        assertEquals(List.of(unprocessed), captor.getAllValues().get(1).requestItems().get("PredictionCacheTable"));
+    }
+
+    @Test
+    public void testPutAllReportsPutsStillUnprocessedAfterTheLastAttempt() {
+        when(configService.getBatchMaxAttempts()).thenReturn(2);
+        WriteRequest unprocessed = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(item("fp-1", Instant.now().getEpochSecond() + 60)).build())
+                .build();
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder()
+                        .unprocessedItems(Map.of("PredictionCacheTable", List.of(unprocessed)))
+                        .build());
+
+        List<String> failed = predictionCacheRepository.putAll(Map.of("fp-1", PREDICTION), "v2");
+
+        assertEquals(List.of("fp-1"), failed);
+        verify(dynamoDbClient, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    private static Map<String, AttributeValue> item(String fingerprint, long expiresAt) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("cacheKey", AttributeValue.builder().s(fingerprint + "#v2").build());
+        item.put("fingerprint", AttributeValue.builder().s(fingerprint).build());
+        item.put("prediction", ListingItemCodec.toPredictionValue(PREDICTION, 0, true));
+        item.put("expiresAt", AttributeValue.builder().n(Long.toString(expiresAt)).build());
+        return item;
+    }
+}
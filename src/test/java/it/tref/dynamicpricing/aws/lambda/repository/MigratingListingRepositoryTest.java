@@ -0,0 +1,150 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MigratingListingRepositoryTest {
+
+    private ListingRepository legacy;
+    private ListingRepository userTable;
+    private Listing listing;
+
+    @BeforeEach
+    public void setUp() {
+        legacy = mock(ListingRepository.class);
+        userTable = mock(ListingRepository.class);
+        listing = listing("listing-1");
+    }
+
+    @Test
+    public void testLegacyModeNeverTouchesTheUserTable() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.LEGACY, legacy, null);
+
+        repository.save(listing);
+        repository.delete("listing-1", "user@example.com");
+
+        verify(legacy).save(listing);
+        verify(legacy).delete("listing-1", "user@example.com");
+    }
+
+    @Test
+    public void testUserTableModesRequireTheUserTable() {
+        assertThrows(IllegalStateException.class,
+                () -> new MigratingListingRepository(ListingTableMode.DUAL_WRITE, legacy, null));
+    }
+
+    @Test
+    public void testDualWriteWritesBothTablesAndReadsTheLegacyOne() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_WRITE, legacy, userTable);
+        when(legacy.findByUserId("user@example.com", ListingView.FULL)).thenReturn(List.of(listing));
+
+        repository.save(listing);
+        List<Listing> listings = repository.findByUserId("user@example.com", ListingView.FULL);
+
+        verify(legacy).save(listing);
+        verify(userTable).save(listing);
+        assertEquals(List.of(listing), listings);
+        verify(userTable, never()).findByUserId(anyString(), any());
+    }
+
+    @Test
+    public void testDualWriteMirrorsTheStoredListingOfAnUpdate() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_WRITE, legacy, userTable);
+        Listing stored = listing("listing-1");
+        stored.setName("Stored");
+        when(legacy.update(listing)).thenReturn(stored);
+
+        assertSame(stored, repository.update(listing));
+
+        verify(userTable).save(stored);
+        verify(userTable, never()).update(any());
+    }
+
+    @Test
+    public void testDualWriteDoesNotMirrorAnUnchangedListing() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_WRITE, legacy, userTable);
+        Listing stored = listing("listing-1");
+        when(legacy.updateContent(listing)).thenReturn(new ContentUpdate(stored, ContentUpdate.Change.NONE));
+
+        assertEquals(ContentUpdate.Change.NONE, repository.updateContent(listing).getChange());
+
+        verifyNoInteractions(userTable);
+    }
+
+    @Test
+    public void testFailedMirrorDoesNotFailTheWrite() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_WRITE, legacy, userTable);
+        doThrow(new RuntimeException("unavailable")).when(userTable).save(listing);
+
+        assertDoesNotThrow(() -> repository.save(listing));
+
+        verify(legacy).save(listing);
+    }
+
+    @Test
+    public void testSaveAllOnlyMirrorsTheSavedListings() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_WRITE, legacy, userTable);
+        Listing failed = listing("listing-2");
+        when(legacy.saveAll(List.of(listing, failed))).thenReturn(List.of(failed));
+        when(userTable.saveAll(List.of(listing))).thenReturn(List.of());
+
+        assertEquals(List.of(failed), repository.saveAll(List.of(listing, failed)));
+
+        verify(userTable).saveAll(List.of(listing));
+    }
+
+    @Test
+    public void testDualReadFallsBackToTheLegacyTable() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_READ, legacy, userTable);
+        when(legacy.findById("listing-1", "user@example.com", false)).thenReturn(listing);
+
+        assertSame(listing, repository.findById("listing-1", "user@example.com"));
+
+        verify(userTable).findById("listing-1", "user@example.com", false);
+    }
+
+    @Test
+    public void testDualReadFindByIdsMergesBothTablesInRequestOrder() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.DUAL_READ, legacy, userTable);
+        Listing second = listing("listing-2");
+        when(userTable.findByIds(List.of("listing-1", "listing-2"), "user@example.com", ListingView.FULL)).thenReturn(List.of(second));
+        when(legacy.findByIds(List.of("listing-1"), "user@example.com", ListingView.FULL)).thenReturn(List.of(listing));
+
+        List<Listing> listings = repository.findByIds(List.of("listing-1", "listing-2"), "user@example.com", ListingView.FULL);
+
+        assertEquals(List.of(listing, second), listings);
+    }
+
+    @Test
+    public void testUserTableModeNoLongerWritesTheLegacyTable() {
+        ListingRepository repository = new MigratingListingRepository(ListingTableMode.USER_TABLE, legacy, userTable);
+
+        repository.save(listing);
+        repository.findById("listing-1", "user@example.com");
+
+        verify(userTable).save(listing);
+        verifyNoInteractions(legacy);
+    }
+
+    @Test
+    public void testFromConfig() {
+        assertEquals(ListingTableMode.DUAL_WRITE, ListingTableMode.fromConfig(" dual-write "));
+        assertEquals(ListingTableMode.USER_TABLE, ListingTableMode.fromConfig("user_table"));
+        assertThrows(IllegalArgumentException.class, () -> ListingTableMode.fromConfig("both"));
+    }
+
+    private static Listing listing(String listingId) {
+        Listing listing = new Listing();
+        listing.setListingId(listingId);
+        listing.setUserId("user@example.com");
+        return listing;
+    }
+}
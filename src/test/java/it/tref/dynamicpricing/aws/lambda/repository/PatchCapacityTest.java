@@ -0,0 +1,115 @@
+package it.tref.dynamicpricing.aws.lambda.repository;
+
+import it.tref.dynamicpricing.aws.lambda.DynamoDBTestResource;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the consumed capacity and request size of a patch against a full replacement, on DynamoDB Local.
+ * <p>
+ * An UpdateItem is billed on the larger of the item sizes before and after the write, so a patch consumes the same
+ * write capacity as a full replacement of the same item; what it saves is request bytes, which grow with the
+ * number of changed keys instead of the size of the attribute map.
+ * </p>
+ */
+public class PatchCapacityTest {
+
+    private static final String TABLE_NAME = "dynamic-pricing-demo-listings";
+    private static final String USER_ID = "capacity@example.com";
+    private static final int ATTRIBUTE_COUNT = 200;
+
+    private static DynamoDBTestResource dynamoDBTestResource;
+    private static DynamoDbClient client;
+    private static final AtomicLong lastRequestBytes = new AtomicLong();
+
+    @BeforeAll
+    public static void startDynamoDB() {
+        dynamoDBTestResource = new DynamoDBTestResource();
+        String endpoint = dynamoDBTestResource.start().get("quarkus.dynamodb.endpoint-override");
+        client = DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of("eu-south-1"))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy")))
+                .overrideConfiguration(config -> config.addExecutionInterceptor(new ExecutionInterceptor() {
+                    @Override
+                    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+                        context.requestBody().flatMap(body -> body.optionalContentLength())
+                                .ifPresent(lastRequestBytes::set);
+                    }
+                }))
+                .build();
+    }
+
+    @AfterAll
+    public static void stopDynamoDB() {
+        client.close();
+        dynamoDBTestResource.stop();
+    }
+
+    @Test
+    public void testPatchSendsFewerBytesForNoMoreCapacity() {
+        Listing listing = largeListing("capacity-listing");
+        client.putItem(PutItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .item(new DynamoDBListingMapper(0).toDynamoDbItem(listing))
+                .build());
+
+        // Full replacement of the attribute map with a single changed key
+        Listing replacement = largeListing("capacity-listing");
+        replacement.getAttributes().put("key-0", "changed");
+        replacement.setPrediction(new HashMap<>());
+        UpdateItemResponse fullResponse = client.updateItem(DynamoDBListingRepository.buildUpdateRequest(TABLE_NAME, replacement, 0, 0, true)
+                .toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build());
+        long fullRequestBytes = lastRequestBytes.get();
+
+        // Patch of the same single key
+        ListingPatch patch = new ListingPatch("capacity-listing", USER_ID, null, Map.of("key-0", "changed-again"), true);
+        UpdateItemRequest patchRequest = DynamoDBListingRepository.buildPatchRequest(TABLE_NAME, patch, 0);
+        UpdateItemResponse patchResponse = client.updateItem(patchRequest.toBuilder()
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build());
+        long patchRequestBytes = lastRequestBytes.get();
+
+        assertEquals("changed-again", patchResponse.attributes().get("attributes").m().get("key-0").s());
+        assertEquals(ATTRIBUTE_COUNT, patchResponse.attributes().get("attributes").m().size());
+        assertTrue(patchResponse.consumedCapacity().capacityUnits() <= fullResponse.consumedCapacity().capacityUnits(),
+                "Patch must not consume more write capacity than a full replacement");
+        assertTrue(patchRequestBytes * 10 < fullRequestBytes,
+                "Patch request (" + patchRequestBytes + " bytes) should be much smaller than the full replacement ("
+                        + fullRequestBytes + " bytes)");
+    }
+
+    private static Listing largeListing(String listingId) {
+        Listing listing = new Listing();
+        listing.setListingId(listingId);
+        listing.setUserId(USER_ID);
+        listing.setName("Capacity listing");
+        listing.setCreatedAt(Instant.now());
+        for (int i = 0; i < ATTRIBUTE_COUNT; i++) {
+            listing.addAttribute("key-" + i, "a fairly long attribute value number " + i);
+        }
+        return listing;
+    }
+}
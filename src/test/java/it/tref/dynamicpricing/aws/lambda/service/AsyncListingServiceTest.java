@@ -0,0 +1,103 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.dto.BatchItemResult;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.AsyncListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncListingServiceTest {
+
+    private AsyncListingRepository asyncListingRepository;
+    private AsyncSqsProducerService asyncSqsProducerService;
+    private AsyncListingService asyncListingService;
+
+    @BeforeEach
+    public void setUp() {
+        asyncListingRepository = mock(AsyncListingRepository.class);
+        asyncSqsProducerService = mock(AsyncSqsProducerService.class);
+        asyncListingService = new AsyncListingService(asyncListingRepository, asyncSqsProducerService);
+    }
+
+    @Test
+    public void testCreateListingsQueuesEveryChunkAfterItsWrite() {
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < AsyncListingService.BATCH_CHUNK_SIZE + 1; i++) {
+            listings.add(listing("id-" + i));
+        }
+        Listing notSaved = listings.get(0);
+        when(asyncListingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Listing> chunk = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(chunk.contains(notSaved) ? List.of(notSaved) : List.of());
+        });
+        when(asyncSqsProducerService.sendListingsToQueue(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        List<BatchItemResult> results = asyncListingService.createListings(listings);
+
+        assertEquals(listings.size(), results.size());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(listings.size() - 1).getStatus());
+        verify(asyncListingRepository, times(2)).saveAll(anyList());
+        verify(asyncSqsProducerService, times(2)).sendListingsToQueue(anyList());
+    }
+
+    @Test
+    public void testCreateListingsReportsFailedChunkWithoutFailingTheBatch() {
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < AsyncListingService.BATCH_CHUNK_SIZE + 1; i++) {
+            listings.add(listing("id-" + i));
+        }
+        Listing last = listings.get(listings.size() - 1);
+        when(asyncListingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Listing> chunk = invocation.getArgument(0);
+            return chunk.contains(last)
+                    ? CompletableFuture.failedFuture(new RuntimeException("Throttled"))
+                    : CompletableFuture.completedFuture(List.of());
+        });
+        when(asyncSqsProducerService.sendListingsToQueue(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Timeout")));
+
+        List<BatchItemResult> results = asyncListingService.createListings(listings);
+
+        assertEquals(listings.size(), results.size());
+        assertEquals(BatchItemResult.Status.QUEUE_FAILED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(listings.size() - 1).getStatus());
+        verify(asyncSqsProducerService, times(1)).sendListingsToQueue(anyList());
+    }
+
+    @Test
+    public void testCreateListingsDoesNotQueueCompletedListings() {
+        List<Listing> listings = List.of(listing("cached"), listing("inferred"));
+        listings.get(0).setCompleted(true);
+        when(asyncListingRepository.saveAll(anyList())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(asyncSqsProducerService.sendListingsToQueue(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        List<BatchItemResult> results = asyncListingService.createListings(listings);
+
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        verify(asyncSqsProducerService).sendListingsToQueue(argThat(messages ->
+                messages.size() == 1 && "inferred".equals(messages.get(0).getListingId())));
+    }
+
+    private static Listing listing(String listingId) {
+        Listing listing = new Listing();
+        listing.setListingId(listingId);
+        listing.setUserId("user@example.com");
+        Map<String, Object> attributes = new HashMap<>();
+        listing.setAttributes(attributes);
+        return listing;
+    }
+}
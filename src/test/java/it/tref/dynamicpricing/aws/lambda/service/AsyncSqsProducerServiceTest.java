@@ -0,0 +1,122 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.client.SqsAsyncClientService;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncSqsProducerServiceTest {
+
+    private SqsAsyncClient sqsAsyncClient;
+    private ConfigService configService;
+    private AsyncSqsProducerService asyncSqsProducerService;
+
+    @BeforeEach
+    public void setUp() {
+        sqsAsyncClient = mock(SqsAsyncClient.class);
+        SqsAsyncClientService sqsAsyncClientService = mock(SqsAsyncClientService.class);
+        when(sqsAsyncClientService.getSqsAsyncClient()).thenReturn(sqsAsyncClient);
+        configService = mock(ConfigService.class);
+        when(configService.getSqsQueueUrl()).thenReturn("https://sqs.example.com/queue");
+        when(configService.getInferenceCoalescingQueueUrl()).thenReturn(Optional.empty());
+        when(configService.getBatchMaxAttempts()).thenReturn(3);
+        MapperService mapperService = mock(MapperService.class);
+        when(mapperService.writeValueAsString(any())).thenReturn("{}");
+        asyncSqsProducerService = new AsyncSqsProducerService(sqsAsyncClientService, configService, mapperService);
+    }
+
+    @Test
+    public void testSendListingsToQueueSplitsIntoBatches() {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder().build()));
+
+        List<ListingSqsMessage> failed = asyncSqsProducerService.sendListingsToQueue(messages(25)).join();
+
+        assertTrue(failed.isEmpty());
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(3)).sendMessageBatch(captor.capture());
+        List<Integer> sizes = captor.getAllValues().stream().map(request -> request.entries().size()).sorted().toList();
+        assertEquals(List.of(5, 10, 10), sizes);
+    }
+
+    @Test
+    public void testSendListingsToQueueRetriesServiceFailures() {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                        .failed(error("1", false))
+                        .build()))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder().build()));
+
+        List<ListingSqsMessage> failed = asyncSqsProducerService.sendListingsToQueue(messages(3)).join();
+
+        assertTrue(failed.isEmpty());
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(2)).sendMessageBatch(captor.capture());
+        List<SendMessageBatchRequestEntry> retried = captor.getAllValues().get(1).entries();
+        assertEquals(1, retried.size());
+        assertEquals("1", retried.get(0).id());
+    }
+
+    @Test
+    public void testSendListingsToQueueReportsSenderFaultsWithoutRetrying() {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                        .failed(error("2", true))
+                        .build()));
+        List<ListingSqsMessage> messages = messages(3);
+
+        List<ListingSqsMessage> failed = asyncSqsProducerService.sendListingsToQueue(messages).join();
+
+        assertEquals(List.of(messages.get(2)), failed);
+        verify(sqsAsyncClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void testSendListingsToQueueReportsRetryableFailuresAfterTheLastAttempt() {
+        when(configService.getBatchMaxAttempts()).thenReturn(2);
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                        .failed(error("0", false))
+                        .build()));
+        List<ListingSqsMessage> messages = messages(1);
+
+        List<ListingSqsMessage> failed = asyncSqsProducerService.sendListingsToQueue(messages).join();
+
+        assertEquals(messages, failed);
+        verify(sqsAsyncClient, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    private static BatchResultErrorEntry error(String id, boolean senderFault) {
+        return BatchResultErrorEntry.builder()
+                .id(id)
+                .code(senderFault ? "InvalidMessageContents" : "InternalError")
+                .message("Failed")
+                .senderFault(senderFault)
+                .build();
+    }
+
+    private static List<ListingSqsMessage> messages(int count) {
+        List<ListingSqsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new ListingSqsMessage("id-" + i, "user@example.com", new HashMap<>()));
+        }
+        return messages;
+    }
+}
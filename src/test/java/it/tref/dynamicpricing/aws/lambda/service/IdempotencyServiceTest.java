@@ -0,0 +1,169 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.exception.ConflictException;
+import it.tref.dynamicpricing.aws.lambda.model.IdempotencyRecord;
+import it.tref.dynamicpricing.aws.lambda.repository.IdempotencyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTest {
+
+    private static final String USER_ID = "user@example.com";
+    private static final String BODY = "{\"name\": \"Test Listing\"}";
+
+    private IdempotencyRepository idempotencyRepository;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyRepository = mock(IdempotencyRepository.class);
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getIdempotencyTtlSeconds()).thenReturn(3600L);
+        when(configService.getIdempotencyLeaseSeconds()).thenReturn(60L);
+        when(configService.getIdempotencyCacheMaxSize()).thenReturn(10);
+        idempotencyService = new IdempotencyService(idempotencyRepository, configService);
+    }
+
+    @Test
+    public void testRetryIsAnsweredFromCacheWithoutCreatingAgain() {
+        AtomicInteger creates = new AtomicInteger();
+
+        String first = idempotencyService.createOnce(USER_ID, "key", BODY, listingId -> {
+            creates.incrementAndGet();
+            return listingId;
+        });
+        String retry = idempotencyService.createOnce(USER_ID, "key", BODY, listingId -> {
+            creates.incrementAndGet();
+            return listingId;
+        });
+
+        assertEquals(first, retry);
+        assertEquals(1, creates.get());
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRepository, times(1)).claim(captor.capture(), any());
+        assertEquals(USER_ID + "#key", captor.getValue().getIdempotencyKey());
+        assertEquals(first, captor.getValue().getListingId());
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, captor.getValue().getStatus());
+        ArgumentCaptor<IdempotencyRecord> completed = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRepository).complete(completed.capture());
+        assertEquals(first, completed.getValue().getListingId());
+        assertTrue(completed.getValue().isCompleted());
+    }
+
+    @Test
+    public void testKeyClaimedElsewhereReturnsStoredListing() {
+        IdempotencyRecord stored = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash(BODY), Instant.now().plusSeconds(60), IdempotencyRecord.Status.COMPLETED);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(stored);
+
+        String listingId = idempotencyService.createOnce(USER_ID, "key", BODY, id -> fail("must not create"));
+
+        assertEquals("original-id", listingId);
+    }
+
+    @Test
+    public void testKeyInProgressElsewhereIsAConflict() {
+        IdempotencyRecord stored = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash(BODY), Instant.now().plusSeconds(60), IdempotencyRecord.Status.IN_PROGRESS);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(stored);
+
+        assertThrows(ConflictException.class,
+                () -> idempotencyService.createOnce(USER_ID, "key", BODY, id -> fail("must not create")));
+        verify(idempotencyRepository, never()).takeOver(any(), any());
+        verify(idempotencyRepository, never()).fail(any());
+    }
+
+    @Test
+    public void testKeyReusedWithDifferentBodyIsRejected() {
+        IdempotencyRecord stored = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash("{\"name\": \"Other\"}"), Instant.now().plusSeconds(60),
+                IdempotencyRecord.Status.COMPLETED);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(stored);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.createOnce(USER_ID, "key", BODY, id -> id));
+    }
+
+    @Test
+    public void testFailedCreateMarksClaimFailedWithItsListingId() {
+        AtomicReference<String> attempted = new AtomicReference<>();
+        assertThrows(IllegalStateException.class, () -> idempotencyService.createOnce(USER_ID, "key", BODY, id -> {
+            attempted.set(id);
+            throw new IllegalStateException("send failed");
+        }));
+
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRepository).fail(captor.capture());
+        assertEquals(USER_ID + "#key", captor.getValue().getIdempotencyKey());
+        assertEquals(attempted.get(), captor.getValue().getListingId());
+        assertEquals(IdempotencyRecord.Status.FAILED, captor.getValue().getStatus());
+        verify(idempotencyRepository, never()).complete(any());
+    }
+
+    @Test
+    public void testRetryAfterFailedCreateReusesListingId() {
+        IdempotencyRecord failed = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash(BODY), Instant.now().plusSeconds(3600), IdempotencyRecord.Status.FAILED);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(failed);
+        when(idempotencyRepository.takeOver(eq(failed), any())).thenReturn(true);
+
+        String listingId = idempotencyService.createOnce(USER_ID, "key", BODY, id -> id);
+
+        assertEquals("original-id", listingId);
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRepository).takeOver(eq(failed), captor.capture());
+        assertEquals("original-id", captor.getValue().getListingId());
+        assertEquals(IdempotencyRecord.Status.IN_PROGRESS, captor.getValue().getStatus());
+        verify(idempotencyRepository).complete(argThat(record -> "original-id".equals(record.getListingId())));
+    }
+
+    @Test
+    public void testRetryAfterLeaseEndedReusesListingId() {
+        IdempotencyRecord abandoned = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash(BODY), Instant.now().minusSeconds(1), IdempotencyRecord.Status.IN_PROGRESS);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(abandoned);
+        when(idempotencyRepository.takeOver(eq(abandoned), any())).thenReturn(true);
+
+        assertEquals("original-id", idempotencyService.createOnce(USER_ID, "key", BODY, id -> id));
+    }
+
+    @Test
+    public void testTakeOverLostToAnotherRetryIsAConflict() {
+        IdempotencyRecord failed = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash(BODY), Instant.now().plusSeconds(3600), IdempotencyRecord.Status.FAILED);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(failed);
+        when(idempotencyRepository.takeOver(any(), any())).thenReturn(false);
+
+        assertThrows(ConflictException.class,
+                () -> idempotencyService.createOnce(USER_ID, "key", BODY, id -> fail("must not create")));
+    }
+
+    @Test
+    public void testRetryOfFailedCreateWithDifferentBodyIsRejected() {
+        IdempotencyRecord failed = new IdempotencyRecord(USER_ID + "#key", "original-id",
+                IdempotencyService.hash("{\"name\": \"Other\"}"), Instant.now().plusSeconds(3600),
+                IdempotencyRecord.Status.FAILED);
+        when(idempotencyRepository.claim(any(), any())).thenReturn(failed);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.createOnce(USER_ID, "key", BODY, id -> id));
+        verify(idempotencyRepository, never()).takeOver(any(), any());
+    }
+
+    @Test
+    public void testTooLongKeyIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.createOnce(USER_ID, "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), BODY, id -> id));
+        verifyNoInteractions(idempotencyRepository);
+    }
+}
@@ -0,0 +1,101 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class InferenceCoalescingServiceTest {
+
+    private static final String USER_ID = "user@example.com";
+
+    private ListingRepository listingRepository;
+    private SqsProducerService sqsProducerService;
+    private MapperService mapperService;
+    private InferenceCoalescingService inferenceCoalescingService;
+
+    @BeforeEach
+    public void setUp() {
+        listingRepository = mock(ListingRepository.class);
+        sqsProducerService = mock(SqsProducerService.class);
+        mapperService = mock(MapperService.class);
+        inferenceCoalescingService = new InferenceCoalescingService(listingRepository, sqsProducerService, mapperService);
+    }
+
+    @Test
+    public void testForwardsOnlyMessagesOfCurrentRevision() {
+        stubMessage("current-body", new ListingSqsMessage("current", USER_ID, Map.of(), 2L));
+        stubMessage("superseded-body", new ListingSqsMessage("superseded", USER_ID, Map.of(), 1L));
+        stubMessage("deleted-body", new ListingSqsMessage("deleted", USER_ID, Map.of(), 1L));
+        stubMessage("predicted-body", new ListingSqsMessage("predicted", USER_ID, Map.of(), 1L));
+        when(listingRepository.findById("current", USER_ID, true)).thenReturn(listing("current", 2L, false));
+        when(listingRepository.findById("superseded", USER_ID, true)).thenReturn(listing("superseded", 2L, false));
+        when(listingRepository.findById("predicted", USER_ID, true)).thenReturn(listing("predicted", 1L, true));
+        when(sqsProducerService.sendListingsToPredictionQueue(anyList())).thenReturn(List.of());
+
+        SQSBatchResponse response = inferenceCoalescingService.forward(event(message("m1", "current-body"),
+                message("m2", "superseded-body"), message("m3", "deleted-body"), message("m4", "predicted-body")));
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ListingSqsMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sqsProducerService).sendListingsToPredictionQueue(captor.capture());
+        assertEquals(List.of("current"), captor.getValue().stream().map(ListingSqsMessage::getListingId).toList());
+        verify(sqsProducerService, never()).sendListingsToQueue(anyList());
+    }
+
+    @Test
+    public void testReportsUnreadableAndUnsentMessages() {
+        when(mapperService.readValue("garbage", ListingSqsMessage.class))
+                .thenThrow(new JsonProcessingRuntimeException("Error deserializing JSON", null));
+        ListingSqsMessage current = new ListingSqsMessage("current", USER_ID, Map.of(), 2L);
+        stubMessage("current-body", current);
+        when(listingRepository.findById("current", USER_ID, true)).thenReturn(listing("current", 2L, false));
+        when(sqsProducerService.sendListingsToPredictionQueue(anyList())).thenReturn(List.of(current));
+
+        SQSBatchResponse response = inferenceCoalescingService.forward(event(
+                message("m1", "garbage"), message("m2", "current-body")));
+
+        assertEquals(List.of("m1", "m2"), response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier).toList());
+    }
+
+    private void stubMessage(String body, ListingSqsMessage message) {
+        when(mapperService.readValue(body, ListingSqsMessage.class)).thenReturn(message);
+    }
+
+    private static Listing listing(String listingId, long revision, boolean completed) {
+        Listing listing = new Listing();
+        listing.setListingId(listingId);
+        listing.setUserId(USER_ID);
+        listing.setRevision(revision);
+        listing.setCompleted(completed);
+        return listing;
+    }
+
+    private static SQSEvent event(SQSEvent.SQSMessage... messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(List.of(messages));
+        return event;
+    }
+
+    private static SQSEvent.SQSMessage message(String messageId, String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(body);
+        return message;
+    }
+}
@@ -1,24 +1,41 @@
 package it.tref.dynamicpricing.aws.lambda.service;
 
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchCreateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.dto.BatchItemResult;
 import it.tref.dynamicpricing.aws.lambda.dto.CreateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
 import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class ListingServiceCreateTest {
 
     private ListingRepository listingRepository;
+    private SqsProducerService sqsProducerService;
+    private AsyncListingService asyncListingService;
+    private ConfigService configService;
+    private PredictionCacheService predictionCacheService;
     private ListingService listingService;
 
     @BeforeEach
     public void setUp() {
         listingRepository = mock(ListingRepository.class);
-        listingService = new ListingService(listingRepository);
+        sqsProducerService = mock(SqsProducerService.class);
+        asyncListingService = mock(AsyncListingService.class);
+        configService = mock(ConfigService.class);
+        predictionCacheService = mock(PredictionCacheService.class);
+        listingService = new ListingService(listingRepository, sqsProducerService, asyncListingService, configService,
+                predictionCacheService);
     }
 
     @Test
@@ -42,4 +59,207 @@ public class ListingServiceCreateTest {
         assertEquals(userId, savedListing.getUserId());
         assertEquals("Test Listing", savedListing.getName());
     }
+
+    @Test
+    public void testCreateListingWithCachedPredictionSkipsInference() {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setName("Test Listing");
+        request.setAttributes(Map.of("color", "red"));
+        Map<String, double[]> prediction = Map.of("price", new double[]{100.0});
+        when(predictionCacheService.find(Map.of("color", "red"))).thenReturn(prediction);
+        when(configService.isAsyncIoEnabled()).thenReturn(true);
+
+        listingService.createListing(request, "user@example.com");
+
+        ArgumentCaptor<Listing> listingCaptor = ArgumentCaptor.forClass(Listing.class);
+        verify(listingRepository).save(listingCaptor.capture());
+        assertTrue(listingCaptor.getValue().isCompleted());
+        assertSame(prediction, listingCaptor.getValue().getPrediction());
+        verifyNoInteractions(sqsProducerService, asyncListingService);
+    }
+
+    @Test
+    public void testCreateListingTakesSynchronousPathWhenAsyncIoEnabled() {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setName("Test Listing");
+        when(configService.isAsyncIoEnabled()).thenReturn(true);
+
+        String newListingId = listingService.createListing(request, "user@example.com");
+
+        ArgumentCaptor<Listing> listingCaptor = ArgumentCaptor.forClass(Listing.class);
+        verify(listingRepository).save(listingCaptor.capture());
+        assertEquals(newListingId, listingCaptor.getValue().getListingId());
+        verify(sqsProducerService).sendListingToQueue(any(ListingSqsMessage.class));
+        verifyNoInteractions(asyncListingService);
+    }
+
+    @Test
+    public void testCreateListingWritesOutboxInsteadOfSending() {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setName("Test Listing");
+        when(configService.getInferenceDispatchMode()).thenReturn("outbox");
+        when(configService.isAsyncIoEnabled()).thenReturn(true);
+
+        String newListingId = listingService.createListing(request, "user@example.com");
+
+        ArgumentCaptor<ListingSqsMessage> messageCaptor = ArgumentCaptor.forClass(ListingSqsMessage.class);
+        verify(listingRepository).saveWithOutbox(any(Listing.class), messageCaptor.capture());
+        assertEquals(newListingId, messageCaptor.getValue().getListingId());
+        assertEquals("user@example.com", messageCaptor.getValue().getUserId());
+        verify(listingRepository, never()).save(any());
+        verifyNoInteractions(sqsProducerService, asyncListingService);
+    }
+
+    @Test
+    public void testCreateListingLeavesDispatchToStreamConsumer() {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setName("Test Listing");
+        when(configService.getInferenceDispatchMode()).thenReturn("stream");
+        when(configService.isAsyncIoEnabled()).thenReturn(true);
+
+        listingService.createListing(request, "user@example.com");
+
+        verify(listingRepository).save(any(Listing.class));
+        verifyNoInteractions(sqsProducerService, asyncListingService);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCreateListingsReportsPerItemOutcome() {
+        BatchCreateListingRequest request = new BatchCreateListingRequest();
+        request.setListings(List.of(createRequest("Saved"), createRequest("Not saved"), createRequest("Not queued")));
+        when(configService.getListingBatchMaxSize()).thenReturn(500);
+
+        // The second listing is not persisted, the third is persisted but not queued
+        when(listingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Listing> listings = invocation.getArgument(0);
+            return List.of(listings.get(1));
+        });
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenAnswer(invocation -> {
+            List<ListingSqsMessage> messages = invocation.getArgument(0);
+            return List.of(messages.get(1));
+        });
+
+        List<BatchItemResult> results = listingService.createListings(request, "user@example.com");
+
+        assertEquals(3, results.size());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertNotNull(results.get(0).getListingId());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(1).getStatus());
+        assertNull(results.get(1).getListingId());
+        assertEquals(BatchItemResult.Status.QUEUE_FAILED, results.get(2).getStatus());
+        assertEquals(2, results.get(2).getIndex());
+
+        // Only the persisted listings are queued for inference
+        ArgumentCaptor<List<ListingSqsMessage>> messagesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(sqsProducerService).sendListingsToQueue(messagesCaptor.capture());
+        assertEquals(2, messagesCaptor.getValue().size());
+    }
+
+    @Test
+    public void testCreateListingsReportsFailedChunksWithoutFailingTheBatch() {
+        List<CreateListingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < AsyncListingService.BATCH_CHUNK_SIZE * 3; i++) {
+            requests.add(createRequest("Listing " + i));
+        }
+        BatchCreateListingRequest request = new BatchCreateListingRequest();
+        request.setListings(requests);
+        when(configService.getListingBatchMaxSize()).thenReturn(500);
+
+        // The write of the second chunk and the send of the third chunk fail as a whole
+        when(listingRepository.saveAll(anyList()))
+                .thenReturn(List.of())
+                .thenThrow(new RuntimeException("Throttled"))
+                .thenReturn(List.of());
+        when(sqsProducerService.sendListingsToQueue(anyList()))
+                .thenReturn(List.of())
+                .thenThrow(new RuntimeException("Timeout"));
+
+        List<BatchItemResult> results = listingService.createListings(request, "user@example.com");
+
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            BatchItemResult.Status expected = switch (i / AsyncListingService.BATCH_CHUNK_SIZE) {
+                case 0 -> BatchItemResult.Status.CREATED;
+                case 1 -> BatchItemResult.Status.FAILED;
+                default -> BatchItemResult.Status.QUEUE_FAILED;
+            };
+            assertEquals(expected, results.get(i).getStatus());
+        }
+        verify(listingRepository, times(3)).saveAll(anyList());
+        verify(sqsProducerService, times(2)).sendListingsToQueue(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateListingsSkipsInferenceOfCachedPredictions() {
+        BatchCreateListingRequest request = new BatchCreateListingRequest();
+        request.setListings(List.of(createRequest("Cached"), createRequest("Not cached")));
+        when(configService.getListingBatchMaxSize()).thenReturn(500);
+        when(predictionCacheService.completeFromCache(anyList())).thenAnswer(invocation -> {
+            List<Listing> listings = invocation.getArgument(0);
+            listings.get(0).setPrediction(Map.of("price", new double[]{100.0}));
+            listings.get(0).setCompleted(true);
+            return 1;
+        });
+        when(listingRepository.saveAll(anyList())).thenReturn(List.of());
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenReturn(List.of());
+
+        List<BatchItemResult> results = listingService.createListings(request, "user@example.com");
+
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        verify(predictionCacheService, times(1)).completeFromCache(anyList());
+        ArgumentCaptor<List<Listing>> listingsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(listingRepository).saveAll(listingsCaptor.capture());
+        assertTrue(listingsCaptor.getValue().get(0).isCompleted());
+        ArgumentCaptor<List<ListingSqsMessage>> messagesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(sqsProducerService).sendListingsToQueue(messagesCaptor.capture());
+        assertEquals(1, messagesCaptor.getValue().size());
+        assertEquals(results.get(1).getListingId(), messagesCaptor.getValue().get(0).getListingId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateListingsWritesOutboxRecordsInsteadOfSending() {
+        BatchCreateListingRequest request = new BatchCreateListingRequest();
+        request.setListings(List.of(createRequest("Cached"), createRequest("Not cached")));
+        when(configService.getListingBatchMaxSize()).thenReturn(500);
+        when(configService.getInferenceDispatchMode()).thenReturn("outbox");
+        when(configService.isAsyncIoEnabled()).thenReturn(true);
+        when(predictionCacheService.completeFromCache(anyList())).thenAnswer(invocation -> {
+            List<Listing> listings = invocation.getArgument(0);
+            listings.get(0).setCompleted(true);
+            return 1;
+        });
+        when(listingRepository.saveAllWithOutbox(anyList(), anyList())).thenReturn(List.of());
+
+        List<BatchItemResult> results = listingService.createListings(request, "user@example.com");
+
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        // Only the listing waiting for its prediction gets an outbox record
+        ArgumentCaptor<List<ListingSqsMessage>> messagesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(listingRepository).saveAllWithOutbox(anyList(), messagesCaptor.capture());
+        assertEquals(1, messagesCaptor.getValue().size());
+        assertEquals(results.get(1).getListingId(), messagesCaptor.getValue().get(0).getListingId());
+        verify(listingRepository, never()).saveAll(anyList());
+        verifyNoInteractions(sqsProducerService, asyncListingService);
+    }
+
+    @Test
+    public void testCreateListingsRejectsOversizedBatch() {
+        BatchCreateListingRequest request = new BatchCreateListingRequest();
+        request.setListings(List.of(createRequest("First"), createRequest("Second")));
+        when(configService.getListingBatchMaxSize()).thenReturn(1);
+
+        assertThrows(IllegalArgumentException.class, () -> listingService.createListings(request, "user@example.com"));
+        verifyNoInteractions(listingRepository, sqsProducerService);
+    }
+
+    private static CreateListingRequest createRequest(String name) {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setName(name);
+        return request;
+    }
 }
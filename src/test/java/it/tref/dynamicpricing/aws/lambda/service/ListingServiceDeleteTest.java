@@ -1,12 +1,13 @@
 package it.tref.dynamicpricing.aws.lambda.service;
 
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
 import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
-        import static org.mockito.Mockito.*;
+import static org.mockito.Mockito.*;
 
 public class ListingServiceDeleteTest {
 
@@ -16,7 +17,7 @@ public class ListingServiceDeleteTest {
     @BeforeEach
     public void setUp() {
         listingRepository = mock(ListingRepository.class);
-        listingService = new ListingService(listingRepository);
+        listingService = new ListingService(listingRepository, mock(SqsProducerService.class), mock(AsyncListingService.class), mock(ConfigService.class), mock(PredictionCacheService.class));
     }
 
     @Test
@@ -28,14 +29,15 @@ public class ListingServiceDeleteTest {
         listing.setUserId(userId);
         listing.setName("Test Listing");
 
-        // Simulate that the listing exists.
-        when(listingRepository.findById(listingId, userId)).thenReturn(listing);
+        // Simulate that the listing existed and was deleted.
+        when(listingRepository.delete(listingId, userId)).thenReturn(listing);
 
         // Call deleteListing.
         listingService.deleteListing(listingId, userId);
 
-        // Verify that repository.delete() was invoked.
+        // Verify that repository.delete() was invoked without reading the listing first.
         verify(listingRepository, times(1)).delete(listingId, userId);
+        verify(listingRepository, never()).findById(anyString(), anyString());
     }
 
     @Test
@@ -43,11 +45,10 @@ public class ListingServiceDeleteTest {
         String listingId = "nonexistent";
         String userId = "user@example.com";
 
-        when(listingRepository.findById(listingId, userId)).thenReturn(null);
+        when(listingRepository.delete(listingId, userId)).thenReturn(null);
 
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 listingService.deleteListing(listingId, userId));
         assertTrue(exception.getMessage().contains("Listing not found"));
     }
 }
-
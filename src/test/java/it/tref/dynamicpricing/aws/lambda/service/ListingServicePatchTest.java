@@ -0,0 +1,131 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PatchListingRequest;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPatch;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ListingServicePatchTest {
+
+    private ListingRepository listingRepository;
+    private SqsProducerService sqsProducerService;
+    private ListingService listingService;
+
+    @BeforeEach
+    public void setUp() {
+        listingRepository = mock(ListingRepository.class);
+        sqsProducerService = mock(SqsProducerService.class);
+        listingService = new ListingService(listingRepository, sqsProducerService, mock(AsyncListingService.class), mock(ConfigService.class), mock(PredictionCacheService.class));
+    }
+
+    @Test
+    public void testPatchAttributesResetsPredictionAndTriggersInference() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("color", "red");
+        attributes.put("size", null);
+        PatchListingRequest request = new PatchListingRequest(null, attributes);
+
+        Listing patchedListing = new Listing();
+        patchedListing.setListingId("testId");
+        patchedListing.setUserId("user@example.com");
+        patchedListing.addAttribute("color", "red");
+        patchedListing.addAttribute("brand", "acme");
+        when(listingRepository.patch(any(ListingPatch.class)))
+                .thenReturn(new ContentUpdate(patchedListing, ContentUpdate.Change.ATTRIBUTES));
+
+        listingService.patchListing("testId", request, "user@example.com");
+
+        ArgumentCaptor<ListingPatch> patchCaptor = ArgumentCaptor.forClass(ListingPatch.class);
+        verify(listingRepository).patch(patchCaptor.capture());
+        assertTrue(patchCaptor.getValue().isResetPrediction());
+        assertEquals(attributes, patchCaptor.getValue().getAttributeChanges());
+
+        // Inference runs on the full attribute set as stored after the patch
+        ArgumentCaptor<ListingSqsMessage> messageCaptor = ArgumentCaptor.forClass(ListingSqsMessage.class);
+        verify(sqsProducerService).sendListingToQueue(messageCaptor.capture());
+        assertEquals("acme", messageCaptor.getValue().getListingDetails().get("brand"));
+    }
+
+    @Test
+    public void testPatchNameOnlyKeepsPrediction() {
+        when(listingRepository.patch(any(ListingPatch.class)))
+                .thenReturn(new ContentUpdate(new Listing(), ContentUpdate.Change.NAME));
+
+        listingService.patchListing("testId", new PatchListingRequest("New name", null), "user@example.com");
+
+        ArgumentCaptor<ListingPatch> patchCaptor = ArgumentCaptor.forClass(ListingPatch.class);
+        verify(listingRepository).patch(patchCaptor.capture());
+        assertFalse(patchCaptor.getValue().isResetPrediction());
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    @Test
+    public void testPatchRepeatingStoredAttributesDoesNotTriggerInference() {
+        when(listingRepository.patch(any(ListingPatch.class)))
+                .thenReturn(new ContentUpdate(new Listing(), ContentUpdate.Change.NONE));
+
+        listingService.patchListing("testId", new PatchListingRequest(null, Map.of("color", "red")), "user@example.com");
+
+        ArgumentCaptor<ListingPatch> patchCaptor = ArgumentCaptor.forClass(ListingPatch.class);
+        verify(listingRepository).patch(patchCaptor.capture());
+        // The reset is requested, the repository applies it only if a value differs
+        assertTrue(patchCaptor.getValue().isResetPrediction());
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPatchWritesOutboxRecordInsteadOfSending() {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getInferenceDispatchMode()).thenReturn("outbox");
+        listingService = new ListingService(listingRepository, sqsProducerService, mock(AsyncListingService.class), configService, mock(PredictionCacheService.class));
+        Listing patchedListing = new Listing();
+        patchedListing.setListingId("testId");
+        patchedListing.setUserId("user@example.com");
+        patchedListing.addAttribute("color", "red");
+        patchedListing.addAttribute("brand", "acme");
+        patchedListing.setRevision(7L);
+        when(listingRepository.patchWithOutbox(any(ListingPatch.class), any(Function.class)))
+                .thenReturn(new ContentUpdate(patchedListing, ContentUpdate.Change.ATTRIBUTES));
+
+        listingService.patchListing("testId", new PatchListingRequest(null, Map.of("color", "red")), "user@example.com");
+
+        // The outbox record carries the attributes and revision of the listing as patched
+        ArgumentCaptor<Function<Listing, ListingSqsMessage>> toMessageCaptor = ArgumentCaptor.forClass(Function.class);
+        verify(listingRepository).patchWithOutbox(any(ListingPatch.class), toMessageCaptor.capture());
+        ListingSqsMessage message = toMessageCaptor.getValue().apply(patchedListing);
+        assertEquals("acme", message.getListingDetails().get("brand"));
+        assertEquals(Long.valueOf(7L), message.getRevision());
+        verify(listingRepository, never()).patch(any(ListingPatch.class));
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    @Test
+    public void testPatchRejectsEmptyPatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> listingService.patchListing("testId", new PatchListingRequest(null, new HashMap<>()), "user@example.com"));
+        verifyNoInteractions(listingRepository);
+    }
+
+    @Test
+    public void testPatchListingNotFound() {
+        when(listingRepository.patch(any(ListingPatch.class))).thenReturn(null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> listingService.patchListing("nonexistent", new PatchListingRequest("Name", null), "user@example.com"));
+        verifyNoInteractions(sqsProducerService);
+    }
+}
@@ -1,24 +1,43 @@
 package it.tref.dynamicpricing.aws.lambda.service;
 
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.model.ListingView;
+import it.tref.dynamicpricing.aws.lambda.repository.DynamoDBListingRepository;
 import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class ListingServiceRetrieveListTest {
 
     private ListingRepository listingRepository;
+    private ConfigService configService;
     private ListingService listingService;
 
     @BeforeEach
     public void setUp() {
         listingRepository = mock(ListingRepository.class);
-        listingService = new ListingService(listingRepository);
+        configService = mock(ConfigService.class);
+        when(configService.getListingPageDefaultLimit()).thenReturn(50);
+        when(configService.getListingPageMaxLimit()).thenReturn(100);
+        listingService = new ListingService(listingRepository, mock(SqsProducerService.class), mock(AsyncListingService.class), configService, mock(PredictionCacheService.class));
     }
 
     @Test
@@ -32,7 +51,7 @@ public class ListingServiceRetrieveListTest {
         listing.setName("Test Listing");
         listing.setCreatedAt(Instant.now());
 
-        when(listingRepository.findById(listingId, userId)).thenReturn(listing);
+        when(listingRepository.findById(listingId, userId, false)).thenReturn(listing);
 
         Listing result = listingService.getListing(listingId, userId);
 
@@ -57,13 +76,90 @@ public class ListingServiceRetrieveListTest {
         listing2.setName("Listing Two");
 
         List<Listing> listings = Arrays.asList(listing1, listing2);
-        when(listingRepository.findByUserId(userId)).thenReturn(listings);
+        when(listingRepository.findByUserId(userId, ListingView.FULL)).thenReturn(listings);
 
-        List<Listing> result = listingService.listListings(userId);
+        List<Listing> result = listingService.listListings(userId, ListingView.FULL);
 
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals("Listing One", result.get(0).getName());
         assertEquals("Listing Two", result.get(1).getName());
     }
+
+    @Test
+    public void testListListingsPageUsesDefaultLimit() {
+        String userId = "user@example.com";
+        ListingPage page = new ListingPage(Collections.emptyList(), null);
+        when(listingRepository.findByUserId(userId, 50, null, ListingView.SUMMARY)).thenReturn(page);
+
+        ListingPage result = listingService.listListings(userId, null, null, ListingView.SUMMARY);
+
+        assertSame(page, result);
+        verify(listingRepository, times(1)).findByUserId(userId, 50, null, ListingView.SUMMARY);
+    }
+
+    @Test
+    public void testListListingsPageRejectsLimitAboveMax() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                listingService.listListings("user@example.com", 101, null, ListingView.FULL));
+        assertTrue(exception.getMessage().contains("Limit must be between 1 and 100"));
+    }
+
+    @Test
+    public void testListListingsPageRejectsKeyOfAnotherUser() {
+        Map<String, String> startKey = Map.of("listingId", "listing-1", "userId", "other@example.com");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                listingService.listListings("user@example.com", 10, startKey, ListingView.FULL));
+        verify(listingRepository, never()).findByUserId(anyString(), anyInt(), any(), any());
+    }
+
+    @Test
+    public void testListListingsWalksAllPagesOfUserShards() {
+        String userId = "user@example.com";
+        DynamoDbClient dynamoDbClient = mock(DynamoDbClient.class);
+        DynamoDBListingMapper dynamoDBListingMapper = mock(DynamoDBListingMapper.class);
+        when(configService.getDynamoDbListingTableName()).thenReturn("TestTable");
+        when(configService.getListingUserShardIndexName()).thenReturn(Optional.of("UserShardIndex"));
+        when(configService.isListingUserShardReadsEnabled()).thenReturn(true);
+        when(dynamoDBListingMapper.getUserIndexShards()).thenReturn(2);
+        Map<String, List<String>> shardListings = Map.of(
+                userId + "#0", List.of("listing-a", "listing-c", "listing-e"),
+                userId + "#1", List.of("listing-b", "listing-d"));
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            AttributeValue after = request.expressionAttributeValues().get(":afterListingId");
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (String listingId : shardListings.get(request.expressionAttributeValues().get(":userShard").s())) {
+                if ((after == null || listingId.compareTo(after.s()) > 0) && items.size() < request.limit()) {
+                    items.add(Map.of("listingId", AttributeValue.builder().s(listingId).build()));
+                }
+            }
+            return QueryResponse.builder().items(items).count(items.size()).build();
+        });
+        when(dynamoDBListingMapper.fromDynamoDbItem(any())).thenAnswer(invocation -> {
+            Map<String, AttributeValue> item = invocation.getArgument(0);
+            Listing listing = new Listing();
+            listing.setListingId(item.get("listingId").s());
+            listing.setUserId(userId);
+            return listing;
+        });
+        ListingService shardedListingService = new ListingService(
+                new DynamoDBListingRepository(dynamoDbClient, configService, dynamoDBListingMapper),
+                mock(SqsProducerService.class), mock(AsyncListingService.class), configService,
+                mock(PredictionCacheService.class));
+
+        List<String> listingIds = new ArrayList<>();
+        Map<String, String> cursor = null;
+        int pages = 0;
+        do {
+            ListingPage page = shardedListingService.listListings(userId, 2, cursor, ListingView.FULL);
+            page.getListings().forEach(listing -> listingIds.add(listing.getListingId()));
+            cursor = page.getLastEvaluatedKey();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(List.of("listing-a", "listing-b", "listing-c", "listing-d", "listing-e"), listingIds);
+        assertEquals(3, pages);
+    }
 }
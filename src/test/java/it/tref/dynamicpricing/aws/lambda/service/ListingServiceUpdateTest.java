@@ -1,10 +1,16 @@
 package it.tref.dynamicpricing.aws.lambda.service;
 
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
 import it.tref.dynamicpricing.aws.lambda.dto.UpdateListingRequest;
+import it.tref.dynamicpricing.aws.lambda.model.ContentUpdate;
 import it.tref.dynamicpricing.aws.lambda.model.Listing;
 import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -12,51 +18,115 @@ import static org.mockito.Mockito.*;
 public class ListingServiceUpdateTest {
 
     private ListingRepository listingRepository;
+    private SqsProducerService sqsProducerService;
     private ListingService listingService;
 
     @BeforeEach
     public void setUp() {
         listingRepository = mock(ListingRepository.class);
-        listingService = new ListingService(listingRepository);
+        sqsProducerService = mock(SqsProducerService.class);
+        listingService = new ListingService(listingRepository, sqsProducerService, mock(AsyncListingService.class), mock(ConfigService.class), mock(PredictionCacheService.class));
     }
 
     @Test
     public void testUpdateListingSuccess() {
-        // Prepare existing listing
+        // Prepare the listing as stored after the update
         String listingId = "testId";
         String userId = "user@example.com";
-        Listing existingListing = new Listing();
-        existingListing.setListingId(listingId);
-        existingListing.setUserId(userId);
-        existingListing.setName("Old Listing");
-        // add attribute
-        existingListing.addAttribute("color", "red");
+        Listing updatedListing = new Listing();
+        updatedListing.setListingId(listingId);
+        updatedListing.setUserId(userId);
+        updatedListing.setName("New Listing");
+        updatedListing.addAttribute("color", "red");
 
-        // Simulate repository returning the existing listing
-        when(listingRepository.findById(listingId, userId)).thenReturn(existingListing);
+        // Simulate repository returning the updated listing, whose attributes changed
+        when(listingRepository.updateContent(any(Listing.class)))
+                .thenReturn(new ContentUpdate(updatedListing, ContentUpdate.Change.ATTRIBUTES));
 
         // Prepare an update request
         UpdateListingRequest updateRequest = new UpdateListingRequest();
         updateRequest.setName("New Listing");
+        updateRequest.setAttributes(Map.of("color", "red"));
 
         // Call the service method
         listingService.updateListing(listingId, updateRequest, userId);
 
-        // Verify that the listing was updated
-        assertEquals("New Listing", existingListing.getName());
-        // Attributes remain unchanged if not updated
-        assertEquals("red", existingListing.getAttributes().get("color"));
+        // Verify that a single conditional update was issued, without reading the listing first
+        ArgumentCaptor<Listing> changesCaptor = ArgumentCaptor.forClass(Listing.class);
+        verify(listingRepository, times(1)).updateContent(changesCaptor.capture());
+        verify(listingRepository, never()).findById(anyString(), anyString());
+        Listing changes = changesCaptor.getValue();
+        assertEquals(listingId, changes.getListingId());
+        assertEquals("New Listing", changes.getName());
+        assertEquals(Map.of("color", "red"), changes.getAttributes());
+        assertFalse(changes.isCompleted());
+        assertNotNull(changes.getRevision());
+
+        // Verify that inference is triggered with the stored attributes
+        ArgumentCaptor<ListingSqsMessage> messageCaptor = ArgumentCaptor.forClass(ListingSqsMessage.class);
+        verify(sqsProducerService, times(1)).sendListingToQueue(messageCaptor.capture());
+        assertEquals("red", messageCaptor.getValue().getListingDetails().get("color"));
+    }
+
+    @Test
+    public void testUpdateListingWritesOutboxRecordInsteadOfSending() {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getInferenceDispatchMode()).thenReturn("outbox");
+        listingService = new ListingService(listingRepository, sqsProducerService, mock(AsyncListingService.class), configService, mock(PredictionCacheService.class));
+        Listing updatedListing = new Listing();
+        updatedListing.addAttribute("color", "red");
+        when(listingRepository.updateContentWithOutbox(any(Listing.class), any(ListingSqsMessage.class)))
+                .thenReturn(new ContentUpdate(updatedListing, ContentUpdate.Change.ATTRIBUTES));
+
+        UpdateListingRequest updateRequest = new UpdateListingRequest();
+        updateRequest.setAttributes(Map.of("color", "red"));
+        listingService.updateListing("testId", updateRequest, "user@example.com");
+
+        ArgumentCaptor<Listing> changesCaptor = ArgumentCaptor.forClass(Listing.class);
+        ArgumentCaptor<ListingSqsMessage> messageCaptor = ArgumentCaptor.forClass(ListingSqsMessage.class);
+        verify(listingRepository).updateContentWithOutbox(changesCaptor.capture(), messageCaptor.capture());
+        assertEquals("testId", messageCaptor.getValue().getListingId());
+        assertEquals("red", messageCaptor.getValue().getListingDetails().get("color"));
+        // The message is dropped with the result of an older revision
+        assertEquals(changesCaptor.getValue().getRevision(), messageCaptor.getValue().getRevision());
+        verify(listingRepository, never()).updateContent(any(Listing.class));
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    @Test
+    public void testUpdateListingWithUnchangedAttributesSkipsInference() {
+        Listing storedListing = new Listing();
+        storedListing.setListingId("testId");
+        storedListing.setUserId("user@example.com");
+        when(listingRepository.updateContent(any(Listing.class)))
+                .thenReturn(new ContentUpdate(storedListing, ContentUpdate.Change.NAME))
+                .thenReturn(new ContentUpdate(storedListing, ContentUpdate.Change.NONE));
+
+        UpdateListingRequest updateRequest = new UpdateListingRequest();
+        updateRequest.setName("Renamed Listing");
+        updateRequest.setAttributes(Map.of("color", "red"));
+
+        // A rename, then the same update again
+        listingService.updateListing("testId", updateRequest, "user@example.com");
+        listingService.updateListing("testId", updateRequest, "user@example.com");
 
-        // Verify that repository.update() was called
-        verify(listingRepository, times(1)).update(existingListing);
+        verify(listingRepository, times(2)).updateContent(any(Listing.class));
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    @Test
+    public void testEmptyUpdateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                listingService.updateListing("testId", new UpdateListingRequest(), "user@example.com"));
+        verifyNoInteractions(listingRepository, sqsProducerService);
     }
 
     @Test
     public void testUpdateListingNotFound() {
         String listingId = "nonexistent";
         String userId = "user@example.com";
-        // Simulate that the listing is not found
-        when(listingRepository.findById(listingId, userId)).thenReturn(null);
+        // Simulate that the conditional update finds no listing
+        when(listingRepository.updateContent(any(Listing.class))).thenReturn(null);
 
         UpdateListingRequest updateRequest = new UpdateListingRequest();
         updateRequest.setName("New Name");
@@ -64,19 +134,13 @@ public class ListingServiceUpdateTest {
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 listingService.updateListing(listingId, updateRequest, userId));
         assertTrue(exception.getMessage().contains("Listing not found"));
+        verifyNoInteractions(sqsProducerService);
     }
 
     @Test
     public void testUpdateListingDynamoDbError() {
-        // Prepare an existing listing
         String listingId = "testId";
         String userId = "user@example.com";
-        Listing existingListing = new Listing();
-        existingListing.setListingId(listingId);
-        existingListing.setUserId(userId);
-        existingListing.setName("Old Listing");
-
-        when(listingRepository.findById(listingId, userId)).thenReturn(existingListing);
 
         // Prepare an update request
         UpdateListingRequest updateRequest = new UpdateListingRequest();
@@ -84,7 +148,7 @@ public class ListingServiceUpdateTest {
 
         // Simulate repository.update() throwing an exception
         RuntimeException dynamoException = new RuntimeException("DynamoDB error");
-        doThrow(dynamoException).when(listingRepository).update(existingListing);
+        when(listingRepository.updateContent(any(Listing.class))).thenThrow(dynamoException);
 
         Exception thrown = assertThrows(RuntimeException.class, () ->
                 listingService.updateListing(listingId, updateRequest, userId));
@@ -0,0 +1,102 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.DynamoDBListingMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ListingStreamServiceTest {
+
+    private SqsProducerService sqsProducerService;
+    private ListingStreamService listingStreamService;
+
+    @BeforeEach
+    public void setUp() {
+        sqsProducerService = mock(SqsProducerService.class);
+        listingStreamService = new ListingStreamService(sqsProducerService, new DynamoDBListingMapper(0));
+    }
+
+    @Test
+    public void testDispatchesInsertsAndAttributeChangesOnly() {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(
+                record("1", "INSERT", null, image("inserted", false, "red")),
+                record("2", "MODIFY", image("changed", false, "red"), image("changed", false, "blue")),
+                record("3", "MODIFY", image("predicted", false, "red"), image("predicted", true, "red")),
+                record("4", "MODIFY", image("reset", true, "red"), image("reset", false, "red")),
+                record("5", "REMOVE", image("removed", false, "red"), null),
+                record("6", "INSERT", null, image("cached", true, "red"))));
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenReturn(List.of());
+
+        StreamsEventResponse response = listingStreamService.dispatch(event);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ListingSqsMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sqsProducerService).sendListingsToQueue(captor.capture());
+        assertEquals(List.of("inserted", "changed", "reset"),
+                captor.getValue().stream().map(ListingSqsMessage::getListingId).toList());
+        assertEquals("blue", captor.getValue().get(1).getListingDetails().get("color"));
+    }
+
+    @Test
+    public void testReportsRecordsWhoseMessageFailed() {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(
+                record("10", "INSERT", null, image("first", false, "red")),
+                record("11", "INSERT", null, image("second", false, "red"))));
+        when(sqsProducerService.sendListingsToQueue(anyList()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).subList(1, 2));
+
+        StreamsEventResponse response = listingStreamService.dispatch(event);
+
+        assertEquals(1, response.getBatchItemFailures().size());
+        assertEquals("11", response.getBatchItemFailures().get(0).getItemIdentifier());
+    }
+
+    @Test
+    public void testNoMessageWithoutTriggeringRecords() {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(record("1", "REMOVE", image("removed", false, "red"), null)));
+
+        StreamsEventResponse response = listingStreamService.dispatch(event);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(String sequenceNumber, String eventName,
+                                                             Map<String, AttributeValue> oldImage,
+                                                             Map<String, AttributeValue> newImage) {
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName(eventName);
+        record.setDynamodb(new StreamRecord()
+                .withSequenceNumber(sequenceNumber)
+                .withOldImage(oldImage)
+                .withNewImage(newImage));
+        return record;
+    }
+
+    private static Map<String, AttributeValue> image(String listingId, boolean completed, String color) {
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put("listingId", new AttributeValue().withS(listingId));
+        image.put("userId", new AttributeValue().withS("user@example.com"));
+        image.put("name", new AttributeValue().withS("Listing"));
+        image.put("createdAt", new AttributeValue().withS("2024-01-01T00:00:00Z"));
+        image.put("completed", new AttributeValue().withBOOL(completed));
+        image.put("attributes", new AttributeValue().withM(Map.of("color", new AttributeValue().withS(color))));
+        return image;
+    }
+}
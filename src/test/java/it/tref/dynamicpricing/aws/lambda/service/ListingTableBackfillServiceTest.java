@@ -0,0 +1,73 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingTableBackfillResponse;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.repository.DynamoDBListingTableCopier;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ListingTableBackfillServiceTest {
+
+    private static final int PAGE_SIZE = ListingTableBackfillService.PAGE_SIZE;
+
+    private DynamoDBListingTableCopier listingTableCopier;
+    private InvocationDeadline invocationDeadline;
+    private ListingTableBackfillService listingTableBackfillService;
+
+    @BeforeEach
+    public void setUp() {
+        listingTableCopier = mock(DynamoDBListingTableCopier.class);
+        invocationDeadline = mock(InvocationDeadline.class);
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getListingTableBackfillSegments()).thenReturn(2);
+        listingTableBackfillService = new ListingTableBackfillService(listingTableCopier, configService,
+                invocationDeadline);
+    }
+
+    @Test
+    public void testBackfillCopiesEverySegmentToItsEnd() {
+        Map<String, String> nextKey = Map.of("listingId", "listing-100", "userId", "user@example.com");
+        when(invocationDeadline.remainingMillis()).thenReturn(Long.MAX_VALUE);
+        when(listingTableCopier.copySegmentPage(0, 2, PAGE_SIZE, null)).thenReturn(new BackfillPage(100, 100, nextKey));
+        when(listingTableCopier.copySegmentPage(0, 2, PAGE_SIZE, nextKey)).thenReturn(new BackfillPage(10, 10, null));
+        when(listingTableCopier.copySegmentPage(1, 2, PAGE_SIZE, null)).thenReturn(new BackfillPage(50, 50, null));
+
+        ListingTableBackfillResponse response = listingTableBackfillService.backfill(null, null);
+
+        assertTrue(response.isComplete());
+        assertEquals(160, response.getScanned());
+        assertEquals(160, response.getCopied());
+        assertEquals(2, response.getTotalSegments());
+        assertTrue(response.getSegments().isEmpty());
+    }
+
+    @Test
+    public void testBackfillReturnsTheKeysOfTheUnfinishedSegments() {
+        Map<String, String> startKey = Map.of("listingId", "listing-100", "userId", "user@example.com");
+        Map<String, String> nextKey = Map.of("listingId", "listing-200", "userId", "user@example.com");
+        when(invocationDeadline.remainingMillis()).thenReturn(ListingTableBackfillService.TIME_RESERVE_MILLIS - 1);
+        when(listingTableCopier.copySegmentPage(1, 4, PAGE_SIZE, startKey))
+                .thenReturn(new BackfillPage(100, 100, nextKey));
+        when(listingTableCopier.copySegmentPage(3, 4, PAGE_SIZE, null)).thenThrow(new IllegalStateException("failed"));
+        Map<Integer, Map<String, String>> segments = new HashMap<>();
+        segments.put(1, startKey);
+        segments.put(3, null);
+
+        ListingTableBackfillResponse response = listingTableBackfillService.backfill(4, segments);
+
+        assertFalse(response.isComplete());
+        assertEquals(4, response.getTotalSegments());
+        assertEquals(nextKey, response.getSegments().get("1"));
+        assertTrue(response.getSegments().containsKey("3"));
+        assertNull(response.getSegments().get("3"));
+        verify(listingTableCopier, times(1)).copySegmentPage(eq(1), eq(4), anyInt(), any());
+    }
+}
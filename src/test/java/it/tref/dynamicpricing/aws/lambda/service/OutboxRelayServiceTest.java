@@ -0,0 +1,71 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.OutboxRelayResponse;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxPage;
+import it.tref.dynamicpricing.aws.lambda.model.OutboxRecord;
+import it.tref.dynamicpricing.aws.lambda.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OutboxRelayServiceTest {
+
+    private OutboxRepository outboxRepository;
+    private SqsProducerService sqsProducerService;
+    private ConfigService configService;
+    private OutboxRelayService outboxRelayService;
+
+    @BeforeEach
+    public void setUp() {
+        outboxRepository = mock(OutboxRepository.class);
+        sqsProducerService = mock(SqsProducerService.class);
+        configService = mock(ConfigService.class);
+        when(configService.getOutboxRelayMaxRecords()).thenReturn(1000);
+        outboxRelayService = new OutboxRelayService(outboxRepository, sqsProducerService, configService);
+    }
+
+    @Test
+    public void testRelayDeletesOnlySentRecords() {
+        OutboxRecord first = record("o-1", "listing-1");
+        OutboxRecord second = record("o-2", "listing-2");
+        OutboxRecord third = record("o-3", "listing-3");
+        Map<String, String> nextKey = Map.of("outboxId", "o-2");
+        when(outboxRepository.findPage(100, null)).thenReturn(new OutboxPage(List.of(first, second), nextKey));
+        when(outboxRepository.findPage(100, nextKey)).thenReturn(new OutboxPage(List.of(third), null));
+        // The message of the second record cannot be sent
+        when(sqsProducerService.sendListingsToQueue(List.of(first.getMessage(), second.getMessage())))
+                .thenReturn(List.of(second.getMessage()));
+        when(sqsProducerService.sendListingsToQueue(List.of(third.getMessage()))).thenReturn(List.of());
+        when(outboxRepository.deleteAll(anyList())).thenReturn(List.of());
+
+        OutboxRelayResponse response = outboxRelayService.relay();
+
+        assertEquals(3, response.getRead());
+        assertEquals(2, response.getSent());
+        assertEquals(1, response.getFailed());
+        verify(outboxRepository).deleteAll(List.of("o-1"));
+        verify(outboxRepository).deleteAll(List.of("o-3"));
+    }
+
+    @Test
+    public void testRelayEmptyOutbox() {
+        when(outboxRepository.findPage(100, null)).thenReturn(new OutboxPage(List.of(), null));
+
+        OutboxRelayResponse response = outboxRelayService.relay();
+
+        assertEquals(0, response.getRead());
+        verifyNoInteractions(sqsProducerService);
+        verify(outboxRepository, never()).deleteAll(anyList());
+    }
+
+    private static OutboxRecord record(String outboxId, String listingId) {
+        return new OutboxRecord(outboxId, new ListingSqsMessage(listingId, "user@example.com", Map.of("color", "red")));
+    }
+}
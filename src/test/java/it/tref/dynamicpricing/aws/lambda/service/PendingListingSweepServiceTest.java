@@ -0,0 +1,136 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.ListingSqsMessage;
+import it.tref.dynamicpricing.aws.lambda.dto.PendingSweepResponse;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.model.ListingPage;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PendingListingSweepServiceTest {
+
+    private ListingRepository listingRepository;
+    private SqsProducerService sqsProducerService;
+    private ConfigService configService;
+    private PendingListingSweepService pendingListingSweepService;
+
+    @BeforeEach
+    public void setUp() {
+        listingRepository = mock(ListingRepository.class);
+        sqsProducerService = mock(SqsProducerService.class);
+        configService = mock(ConfigService.class);
+        when(configService.getListingPendingIndexShards()).thenReturn(2);
+        when(configService.getPendingSweepMinAgeMillis()).thenReturn(60_000L);
+        when(configService.getPendingSweepMaxAttempts()).thenReturn(5);
+        when(listingRepository.requeuePending(anyString(), anyString(), any(Instant.class), anyInt())).thenReturn(true);
+        pendingListingSweepService = new PendingListingSweepService(listingRepository, sqsProducerService, configService);
+    }
+
+    @Test
+    public void testRequeuesStuckListingsOfEveryShard() {
+        when(configService.getPendingSweepMaxListings()).thenReturn(500);
+        Instant now = Instant.parse("2024-01-01T01:00:00Z");
+        Instant pendingBefore = Instant.parse("2024-01-01T00:59:00Z");
+        Map<String, String> nextKey = Map.of("listingId", "a");
+        when(listingRepository.findPending(0, pendingBefore, 100, null))
+                .thenReturn(new ListingPage(List.of(listing("a")), nextKey));
+        when(listingRepository.findPending(0, pendingBefore, 99, nextKey))
+                .thenReturn(new ListingPage(List.of(listing("b")), null));
+        when(listingRepository.findPending(1, pendingBefore, 100, null))
+                .thenReturn(new ListingPage(List.of(listing("c")), null));
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenAnswer(invocation -> {
+            List<ListingSqsMessage> messages = invocation.getArgument(0);
+            return messages.subList(2, 3);
+        });
+
+        PendingSweepResponse response = pendingListingSweepService.requeueStuckListings(now);
+
+        assertEquals(3, response.getFound());
+        assertEquals(2, response.getRequeued());
+        assertEquals(1, response.getFailed());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ListingSqsMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sqsProducerService).sendListingsToQueue(captor.capture());
+        assertEquals(List.of("a", "b", "c"), captor.getValue().stream().map(ListingSqsMessage::getListingId).toList());
+        verify(listingRepository).requeuePending("a", "user@example.com", now, 5);
+    }
+
+    @Test
+    public void testSharesMaxListingsAmongShards() {
+        when(configService.getPendingSweepMaxListings()).thenReturn(2);
+        when(listingRepository.findPending(eq(0), any(Instant.class), eq(1), isNull()))
+                .thenReturn(new ListingPage(List.of(listing("a")), Map.of("listingId", "a")));
+        when(listingRepository.findPending(eq(1), any(Instant.class), eq(1), isNull()))
+                .thenReturn(new ListingPage(List.of(listing("b")), null));
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenReturn(List.of());
+
+        PendingSweepResponse response = pendingListingSweepService.requeueStuckListings(Instant.now());
+
+        // The backlog of the first shard does not starve the second one
+        assertEquals(2, response.getRequeued());
+        verify(listingRepository, times(2)).findPending(anyInt(), any(Instant.class), anyInt(), any());
+    }
+
+    @Test
+    public void testSkipsListingsNoLongerPendingOrWithoutAttemptsLeft() {
+        when(configService.getPendingSweepMaxListings()).thenReturn(500);
+        when(listingRepository.findPending(eq(0), any(Instant.class), anyInt(), isNull()))
+                .thenReturn(new ListingPage(List.of(listing("a"), listing("poison")), null));
+        when(listingRepository.findPending(eq(1), any(Instant.class), anyInt(), isNull()))
+                .thenReturn(new ListingPage(List.of(), null));
+        when(listingRepository.requeuePending(eq("poison"), anyString(), any(Instant.class), anyInt())).thenReturn(false);
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenReturn(List.of());
+
+        PendingSweepResponse response = pendingListingSweepService.requeueStuckListings(Instant.now());
+
+        assertEquals(2, response.getFound());
+        assertEquals(1, response.getRequeued());
+        assertEquals(0, response.getFailed());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ListingSqsMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sqsProducerService).sendListingsToQueue(captor.capture());
+        assertEquals(List.of("a"), captor.getValue().stream().map(ListingSqsMessage::getListingId).toList());
+    }
+
+    @Test
+    public void testStopsAtMaxListings() {
+        when(configService.getPendingSweepMaxListings()).thenReturn(1);
+        when(listingRepository.findPending(eq(0), any(Instant.class), eq(1), isNull()))
+                .thenReturn(new ListingPage(List.of(listing("a")), Map.of("listingId", "a")));
+        when(sqsProducerService.sendListingsToQueue(anyList())).thenReturn(List.of());
+
+        PendingSweepResponse response = pendingListingSweepService.requeueStuckListings(Instant.now());
+
+        assertEquals(1, response.getRequeued());
+        verify(listingRepository, times(1)).findPending(anyInt(), any(Instant.class), anyInt(), any());
+    }
+
+    @Test
+    public void testNothingPending() {
+        when(configService.getPendingSweepMaxListings()).thenReturn(500);
+        when(listingRepository.findPending(anyInt(), any(Instant.class), anyInt(), any()))
+                .thenReturn(new ListingPage(List.of(), null));
+
+        PendingSweepResponse response = pendingListingSweepService.requeueStuckListings(Instant.now());
+
+        assertEquals(0, response.getFound());
+        verifyNoInteractions(sqsProducerService);
+    }
+
+    private static Listing listing(String listingId) {
+        Listing listing = new Listing();
+        listing.setListingId(listingId);
+        listing.setUserId("user@example.com");
+        return listing;
+    }
+}
@@ -0,0 +1,119 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.mapper.AttributesFingerprint;
+import it.tref.dynamicpricing.aws.lambda.model.Listing;
+import it.tref.dynamicpricing.aws.lambda.repository.PredictionCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PredictionCacheServiceTest {
+
+    private static final Map<String, Object> ATTRIBUTES = Map.of("color", "red");
+
+    private PredictionCacheRepository predictionCacheRepository;
+    private ConfigService configService;
+    private PredictionCacheService predictionCacheService;
+
+    @BeforeEach
+    public void setUp() {
+        predictionCacheRepository = mock(PredictionCacheRepository.class);
+        configService = mock(ConfigService.class);
+        when(configService.getPredictionCacheTableName()).thenReturn(Optional.of("prediction-cache"));
+        when(configService.getModelVersion()).thenReturn(Optional.of("v2"));
+        predictionCacheService = new PredictionCacheService(predictionCacheRepository, configService);
+    }
+
+    @Test
+    public void testFindLooksUpFingerprintOfCurrentModel() {
+        Map<String, double[]> prediction = Map.of("price", new double[]{100.0});
+        when(predictionCacheRepository.find(AttributesFingerprint.of(ATTRIBUTES), "v2")).thenReturn(prediction);
+
+        assertSame(prediction, predictionCacheService.find(ATTRIBUTES));
+    }
+
+    @Test
+    public void testFindFallsBackToInferenceOnError() {
+        when(predictionCacheRepository.find(anyString(), anyString())).thenThrow(new IllegalStateException("unavailable"));
+
+        assertNull(predictionCacheService.find(ATTRIBUTES));
+    }
+
+    @Test
+    public void testDisabledWithoutModelVersion() {
+        when(configService.getModelVersion()).thenReturn(Optional.empty());
+
+        assertNull(predictionCacheService.find(ATTRIBUTES));
+        predictionCacheService.remember(List.of(result("fp", "v2")));
+        verifyNoInteractions(predictionCacheRepository);
+    }
+
+    @Test
+    public void testRememberOnlyCachesResultsOfTheCurrentModel() {
+        when(predictionCacheRepository.putAll(anyMap(), anyString())).thenReturn(List.of());
+
+        predictionCacheService.remember(List.of(result("current", "v2"), result("unversioned", null),
+                result("stale", "v1"), result(null, "v2")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Map<String, double[]>>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(predictionCacheRepository).putAll(captor.capture(), eq("v2"));
+        assertEquals(Set.of("current"), captor.getValue().keySet());
+    }
+
+    @Test
+    public void testCompleteFromCacheLooksUpEachFingerprintOnce() {
+        Map<String, Object> other = Map.of("color", "blue");
+        when(predictionCacheRepository.find(AttributesFingerprint.of(ATTRIBUTES), "v2"))
+                .thenReturn(Map.of("price", new double[]{100.0}));
+        List<Listing> listings = List.of(listing("1", ATTRIBUTES), listing("2", other), listing("3", ATTRIBUTES),
+                listing("4", other));
+
+        assertEquals(2, predictionCacheService.completeFromCache(listings));
+
+        assertTrue(listings.get(0).isCompleted());
+        assertArrayEquals(new double[]{100.0}, listings.get(0).getPrediction().get("price"));
+        assertFalse(listings.get(1).isCompleted());
+        assertTrue(listings.get(2).isCompleted());
+        assertNotSame(listings.get(0).getPrediction(), listings.get(2).getPrediction());
+        assertFalse(listings.get(3).isCompleted());
+        verify(predictionCacheRepository).find(AttributesFingerprint.of(ATTRIBUTES), "v2");
+        verify(predictionCacheRepository).find(AttributesFingerprint.of(other), "v2");
+        verifyNoMoreInteractions(predictionCacheRepository);
+    }
+
+    @Test
+    public void testCompleteFromCacheFallsBackToInferenceOnError() {
+        when(predictionCacheRepository.find(anyString(), anyString())).thenThrow(new IllegalStateException("unavailable"));
+        List<Listing> listings = List.of(listing("1", ATTRIBUTES), listing("2", ATTRIBUTES));
+
+        assertEquals(0, predictionCacheService.completeFromCache(listings));
+
+        assertFalse(listings.get(0).isCompleted());
+        verify(predictionCacheRepository, times(1)).find(anyString(), anyString());
+    }
+
+    private static Listing listing(String listingId, Map<String, Object> attributes) {
+        Listing listing = new Listing();
+        listing.setListingId(listingId);
+        listing.setUserId("user@example.com");
+        attributes.forEach(listing::addAttribute);
+        return listing;
+    }
+
+    private static PredictionResultMessage result(String fingerprint, String modelVersion) {
+        return new PredictionResultMessage("listing", "user@example.com", 1L, fingerprint, modelVersion,
+                Map.of("price", new double[]{100.0}));
+    }
+}
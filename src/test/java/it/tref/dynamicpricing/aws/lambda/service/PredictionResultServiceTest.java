@@ -0,0 +1,82 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import it.tref.dynamicpricing.aws.lambda.dto.PredictionResultMessage;
+import it.tref.dynamicpricing.aws.lambda.exception.JsonProcessingRuntimeException;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PredictionResultServiceTest {
+
+    private ListingRepository listingRepository;
+    private MapperService mapperService;
+    private PredictionResultService predictionResultService;
+
+    @BeforeEach
+    public void setUp() {
+        listingRepository = mock(ListingRepository.class);
+        mapperService = mock(MapperService.class);
+        predictionResultService = new PredictionResultService(listingRepository, mapperService, mock(PredictionCacheService.class));
+    }
+
+    @Test
+    public void testWritesResultsInOneBatchAndReportsFailures() {
+        PredictionResultMessage first = result("first");
+        PredictionResultMessage second = result("second");
+        when(mapperService.readValue("first-body", PredictionResultMessage.class)).thenReturn(first);
+        when(mapperService.readValue("second-body", PredictionResultMessage.class)).thenReturn(second);
+        when(listingRepository.applyPredictions(anyList())).thenReturn(List.of(second));
+
+        SQSBatchResponse response = predictionResultService.apply(event(
+                message("m1", "first-body"), message("m2", "second-body")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PredictionResultMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(listingRepository).applyPredictions(captor.capture());
+        assertEquals(List.of(first, second), captor.getValue());
+        assertEquals(List.of("m2"), response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier).toList());
+    }
+
+    @Test
+    public void testReportsUnreadableAndIncompleteMessages() {
+        when(mapperService.readValue("garbage", PredictionResultMessage.class))
+                .thenThrow(new JsonProcessingRuntimeException("Error deserializing JSON", null));
+        when(mapperService.readValue("incomplete", PredictionResultMessage.class))
+                .thenReturn(new PredictionResultMessage("listing", "user@example.com", 1L, null));
+
+        SQSBatchResponse response = predictionResultService.apply(event(
+                message("m1", "garbage"), message("m2", "incomplete")));
+
+        verify(listingRepository, never()).applyPredictions(anyList());
+        assertEquals(List.of("m1", "m2"), response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier).toList());
+    }
+
+    private static PredictionResultMessage result(String listingId) {
+        return new PredictionResultMessage(listingId, "user@example.com", 1L, Map.of("price", new double[]{100.0}));
+    }
+
+    private static SQSEvent event(SQSEvent.SQSMessage... messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(List.of(messages));
+        return event;
+    }
+
+    private static SQSEvent.SQSMessage message(String messageId, String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(body);
+        return message;
+    }
+}
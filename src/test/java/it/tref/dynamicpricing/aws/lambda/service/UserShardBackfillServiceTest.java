@@ -0,0 +1,59 @@
+package it.tref.dynamicpricing.aws.lambda.service;
+
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.dto.UserShardBackfillResponse;
+import it.tref.dynamicpricing.aws.lambda.model.BackfillPage;
+import it.tref.dynamicpricing.aws.lambda.repository.ListingRepository;
+import it.tref.dynamicpricing.aws.lambda.util.InvocationDeadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserShardBackfillServiceTest {
+
+    private ListingRepository listingRepository;
+    private InvocationDeadline invocationDeadline;
+    private UserShardBackfillService userShardBackfillService;
+
+    @BeforeEach
+    public void setUp() {
+        listingRepository = mock(ListingRepository.class);
+        invocationDeadline = mock(InvocationDeadline.class);
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getUserShardBackfillPageSize()).thenReturn(100);
+        userShardBackfillService = new UserShardBackfillService(listingRepository, configService, invocationDeadline);
+    }
+
+    @Test
+    public void testBackfillRunsToTheEndOfTheTable() {
+        Map<String, String> firstKey = Map.of("listingId", "listing-100", "userId", "user@example.com");
+        when(invocationDeadline.remainingMillis()).thenReturn(Long.MAX_VALUE);
+        when(listingRepository.backfillUserShards(100, null)).thenReturn(new BackfillPage(100, 40, firstKey));
+        when(listingRepository.backfillUserShards(100, firstKey)).thenReturn(new BackfillPage(20, 5, null));
+
+        UserShardBackfillResponse response = userShardBackfillService.backfill(null);
+
+        assertEquals(120, response.getScanned());
+        assertEquals(45, response.getUpdated());
+        assertTrue(response.isComplete());
+        assertNull(response.getStartKey());
+    }
+
+    @Test
+    public void testBackfillStopsBeforeTheDeadlineWithTheKeyToResumeFrom() {
+        Map<String, String> startKey = Map.of("listingId", "listing-100", "userId", "user@example.com");
+        Map<String, String> nextKey = Map.of("listingId", "listing-200", "userId", "user@example.com");
+        when(invocationDeadline.remainingMillis()).thenReturn(UserShardBackfillService.TIME_RESERVE_MILLIS - 1);
+        when(listingRepository.backfillUserShards(100, startKey)).thenReturn(new BackfillPage(100, 100, nextKey));
+
+        UserShardBackfillResponse response = userShardBackfillService.backfill(startKey);
+
+        assertFalse(response.isComplete());
+        assertEquals(nextKey, response.getStartKey());
+        verify(listingRepository, times(1)).backfillUserShards(anyInt(), any());
+    }
+}
@@ -0,0 +1,78 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.tref.dynamicpricing.aws.lambda.config.ConfigService;
+import it.tref.dynamicpricing.aws.lambda.mapper.MapperService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CursorCodecTest {
+
+    private CursorCodec cursorCodec;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        MapperService mapperService = mock(MapperService.class);
+        when(mapperService.writeValueAsString(any()))
+                .thenAnswer(invocation -> objectMapper.writeValueAsString(invocation.getArgument(0)));
+        when(mapperService.readValue(anyString(), any(TypeReference.class)))
+                .thenAnswer(invocation -> objectMapper.readValue(
+                        (String) invocation.getArgument(0), (TypeReference<?>) invocation.getArgument(1)));
+
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getCursorSigningKey()).thenReturn(Optional.of("test-signing-key"));
+
+        cursorCodec = new CursorCodec(configService, mapperService);
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        Map<String, String> key = Map.of("listingId", "listing-1", "userId", "user@example.com");
+
+        String cursor = cursorCodec.encode(key, "user@example.com");
+
+        assertNotNull(cursor);
+        assertEquals(key, cursorCodec.decode(cursor, "user@example.com"));
+    }
+
+    @Test
+    public void testMissingSigningKeyIsRejected() {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getCursorSigningKey()).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> new CursorCodec(configService, mock(MapperService.class)));
+    }
+
+    @Test
+    public void testEncodeWithoutKeyReturnsNull() {
+        assertNull(cursorCodec.encode(null, "user@example.com"));
+    }
+
+    @Test
+    public void testDecodeRejectsTamperedCursor() {
+        String cursor = cursorCodec.encode(Map.of("listingId", "listing-1"), "user@example.com");
+        String tampered = "x" + cursor.substring(1);
+
+        assertThrows(IllegalArgumentException.class, () -> cursorCodec.decode(tampered, "user@example.com"));
+    }
+
+    @Test
+    public void testDecodeRejectsCursorOfAnotherUser() {
+        String cursor = cursorCodec.encode(Map.of("listingId", "listing-1"), "user@example.com");
+
+        assertThrows(IllegalArgumentException.class, () -> cursorCodec.decode(cursor, "other@example.com"));
+    }
+
+    @Test
+    public void testDecodeRejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> cursorCodec.decode("not-a-cursor", "user@example.com"));
+    }
+}
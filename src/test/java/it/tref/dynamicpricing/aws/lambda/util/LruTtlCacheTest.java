@@ -0,0 +1,52 @@
+package it.tref.dynamicpricing.aws.lambda.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruTtlCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntry() {
+        LruTtlCache<String, String> cache = new LruTtlCache<>(2, 60_000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // Access "a" so that "b" becomes the least recently used entry
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testExpiresEntriesAfterTtl() {
+        AtomicLong clock = new AtomicLong();
+        LruTtlCache<String, String> cache = new LruTtlCache<>(10, 100, clock::get);
+        cache.put("a", "1");
+
+        clock.set(99_000_000L);
+        assertEquals("1", cache.get("a"));
+        clock.set(100_000_000L);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidateAndDisabledCache() {
+        LruTtlCache<String, String> cache = new LruTtlCache<>(10, 60_000);
+        cache.put("a", "1");
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+
+        LruTtlCache<String, String> disabled = new LruTtlCache<>(0, 60_000);
+        disabled.put("a", "1");
+        assertNull(disabled.get("a"));
+    }
+}